@@ -0,0 +1,44 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Service for checking the domains can receive email or not. The implementations must be thread safe.
+ */
+public interface DomainDeliverabilityChecker {
+
+    /**
+     * Checks the domain can receive email or not.
+     * 
+     * @param domain
+     *            the domain in canonical form (trimmed and lower-cased), for example <code>example.com</code>. Cannot
+     *            be <code>null</code>.
+     * @return <code>true</code> if the domain can receive email, <code>false</code> if the domain cannot receive email
+     *         for sure.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code>.
+     * @throws IllegalStateException
+     *             if the deliverability of the domain cannot be determined, for example the lookup timed out.
+     */
+    boolean isDeliverable(String domain);
+}
@@ -21,9 +21,15 @@ package org.everit.emailaddress.api;
  * MA 02110-1301  USA
  */
 
+import java.util.Collection;
 import java.util.Date;
 
+import org.everit.emailaddress.api.dto.EmailAddressBatchSaveResult;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
 import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.dto.VerificationRequestBatchResult;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
 import org.everit.verifiabledata.api.enums.VerificationLengthBase;
 
 /**
@@ -32,7 +38,23 @@ import org.everit.verifiabledata.api.enums.VerificationLengthBase;
 public interface EmailAddressDataService {
 
     /**
-     * Create a new verification request and send e-mail the email address.
+     * Checks the email addresses are verified or not. The email address data are queried in chunks, so checking a page
+     * of email addresses costs a few database round trips.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data. Cannot be <code>null</code>.
+     * @return the {@link EmailVerificationStatuses} object. The not existing email address data are reported as
+     *         missing and not verified.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddressIds parameter is <code>null</code>.
+     */
+    EmailVerificationStatuses areEmailAddressesVerified(long[] emailAddressIds);
+
+    /**
+     * Create a new verification request and send e-mail the email address. If a {@link DomainDeliverabilityChecker}
+     * is configured and the domain of the email address cannot receive email, the verification request is not
+     * created.
      * 
      * @param emailAddressId
      *            the id of the email address data. Must be exist the email address data.
@@ -53,10 +75,87 @@ public interface EmailAddressDataService {
      *             if the verification length is not positive.
      * @throws NoSuchEmailAddressDataException
      *             if not exist the email address data.
+     * @throws VerificationRequestThrottledException
+     *             if too many verification emails were sent to the email address or to its domain recently.
      */
     void createVerificationRequest(final long emailAddressId, String messageTemplate, Date tokenValidityEndDate,
             long verificationLength, VerificationLengthBase verificationLengthBase);
 
+    /**
+     * Create new verification requests and send e-mail to the email addresses. The email address data are loaded in
+     * chunks and the persistence context of the current transaction is flushed and cleared after every chunk. The
+     * rendered emails of a chunk are sent before the next chunk is loaded, the emails of one domain may be sent in
+     * one mail server session. A not existing email address data does not stop
+     * the processing, it is reported in the result.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data. Cannot be <code>null</code>.
+     * @param messageTemplate
+     *            the message template. Replacing the $rejectToken variable the reject token and $acceptToken variable
+     *            the accept token. Cannot be <code>null</code>.
+     * @param tokenValidityEndDate
+     *            the expiration date of the tokens. Cannot be <code>null</code>.
+     * @param verificationLength
+     *            the verification length in seconds. Must be positive.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the requests. Cannot be <code>null</code>.
+     * @return the {@link VerificationRequestBatchResult} object that contains the outcome of every email address id.
+     * 
+     * @throws IllegalArgumentException
+     *             If the emailAddressIds or tokenValidityEndDate or verificationLengthBase or messageTemplate parameter
+     *             is <code>null</code>.
+     * @throws NonPositiveVerificationLength
+     *             if the verification length is not positive.
+     */
+    VerificationRequestBatchResult createVerificationRequests(long[] emailAddressIds, String messageTemplate,
+            Date tokenValidityEndDate, long verificationLength, VerificationLengthBase verificationLengthBase);
+
+    /**
+     * Exports the email address data in ascending id order to the handler. The email address data are queried in
+     * pages of the export fetch size with keyset pagination. The pages contain only the exported columns, no entity
+     * is loaded to the persistence context of the current transaction, so the memory usage does not depend on the
+     * number of the exported email address data and the not flushed changes of the caller are kept. If the
+     * modifiedFrom or the modifiedTo parameter is not <code>null</code> only the email address data modified in the
+     * window are exported. The modification date is changed by the saving, the verification request and the
+     * verification of the email address, the passing of the verification end date does not change it. The email
+     * address data saved before the modification date was introduced get the date of their backfill. The invalidated
+     * email address data are deleted, so the incremental exports do not report them: to detect the invalidations
+     * compare the ids of a full export with the ids known by the consumer.
+     * 
+     * @param modifiedFrom
+     *            the start of the modification window (inclusive). If <code>null</code> the window is not bounded
+     *            from below.
+     * @param modifiedTo
+     *            the end of the modification window (exclusive). If <code>null</code> and the modifiedFrom is not
+     *            <code>null</code> the start time of the export is used, so the next incremental export can start
+     *            from this time.
+     * @param afterEmailAddressId
+     *            only the email address data with greater id are exported. To resume an export pass the id of the
+     *            last handled email address data, otherwise <code>0</code>.
+     * @param exportHandler
+     *            the handler of the exported email address data. Cannot be <code>null</code>.
+     * @return the number of the email address data passed to the handler.
+     * 
+     * @throws IllegalArgumentException
+     *             if the exportHandler parameter is <code>null</code>.
+     */
+    long exportEmailAddresses(Date modifiedFrom, Date modifiedTo, long afterEmailAddressId,
+            EmailAddressExportHandler exportHandler);
+
+    /**
+     * Finds the email address data by email address. The email address is compared in canonical form: trimmed and the
+     * domain is lower-cased. The lookup uses the index of the canonical email address column.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return the id of the email address data. If more email address data has the same email address return the
+     *         smallest id. If not exist the email address data return <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    Long findEmailAddressId(String emailAddress);
+
     /**
      * Invalidating the email address and the associated requests.
      * 
@@ -68,6 +167,59 @@ public interface EmailAddressDataService {
      */
     void invalidateEmailAddress(long emailAddressId);
 
+    /**
+     * Invalidating the email addresses and the associated requests with set-based queries. The ids are processed in
+     * ascending order in chunks: the verifiable data of the email addresses are locked in ascending id order, so the
+     * method does not deadlock with concurrent invalidations, then the email address data are deleted with bulk
+     * delete. The persistence context of the current transaction is flushed and cleared after every chunk. The not
+     * existing email address data are skipped.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data. Cannot be <code>null</code>.
+     * @return the number of the invalidated email address data.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddressIds parameter is <code>null</code>.
+     */
+    int invalidateEmailAddresses(long[] emailAddressIds);
+
+    /**
+     * Invalidating every email address of the domain and the associated requests. The domain is compared with the
+     * domain of the email addresses in canonical form (see {@link #findEmailAddressId(String)}). The email address
+     * data are invalidated chunk by chunk in ascending id order like by the {@link #invalidateEmailAddresses(long[])}
+     * method until no email address of the domain is left. Every chunk runs in the transaction of the caller, so the
+     * locks of a large domain are held until its end. To bound the size of the transactions use the
+     * {@link #invalidateEmailAddressesByDomain(String, int)} method.
+     * 
+     * @param domain
+     *            the domain, for example <code>example.com</code>. Cannot be <code>null</code>.
+     * @return the number of the invalidated email address data.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code>.
+     */
+    int invalidateEmailAddressesByDomain(String domain);
+
+    /**
+     * Invalidating the email addresses of the domain and the associated requests. The domain is compared with the
+     * domain of the email addresses in canonical form (see {@link #findEmailAddressId(String)}). At most
+     * maxEmailAddressNumber email address data are invalidated in ascending id order like by the
+     * {@link #invalidateEmailAddresses(long[])} method, so the size of the transaction and the held locks are bounded.
+     * To invalidate every email address of a large domain call the method in separate transactions until the returned
+     * number is less than maxEmailAddressNumber, or call the {@link #invalidateEmailAddressesByDomain(String)} method
+     * if the domain is small enough for one transaction.
+     * 
+     * @param domain
+     *            the domain, for example <code>example.com</code>. Cannot be <code>null</code>.
+     * @param maxEmailAddressNumber
+     *            the maximum number of the invalidated email address data. Must be positive.
+     * @return the number of the invalidated email address data.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code> or the maxEmailAddressNumber is not positive.
+     */
+    int invalidateEmailAddressesByDomain(String domain, int maxEmailAddressNumber);
+
     /**
      * Checks the email address is verified or not.
      * 
@@ -94,6 +246,102 @@ public interface EmailAddressDataService {
      */
     long saveEmailAddress(String emailAddress);
 
+    /**
+     * Save the email addresses in the database. Save only if all of the email addresses are valid. The email
+     * addresses are inserted in JDBC batches and the persistence context of the current transaction is flushed and
+     * cleared after every batch.
+     * 
+     * @param emailAddresses
+     *            the email addresses. Cannot be <code>null</code> and cannot contain <code>null</code>.
+     * @return the ids of the email address data in the iteration order of the emailAddresses parameter.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddresses parameter is <code>null</code> or contains <code>null</code>.
+     * @throws InvalidEmailAddressException
+     *             if any of the email addresses is invalid. In this case no email address is saved.
+     */
+    long[] saveEmailAddresses(Collection<String> emailAddresses);
+
+    /**
+     * Save the email address in the database if not exist an email address data with the same email address in
+     * canonical form. Save only if the email address is valid.
+     * <p>
+     * The lookup and the insert are not serialized and the canonical email address is not unique in the database.
+     * If two concurrent transactions save the same new email address both of them insert an email address data and
+     * return its own id. After both transactions are committed the later calls of this method and the
+     * {@link #findEmailAddressId(String)} method return the smallest of the ids.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return the id of the existing email address data with the smallest id (see
+     *         {@link #findEmailAddressId(String)}) or the id of the saved email address data.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     * @throws InvalidEmailAddressException
+     *             if the email address is invalid.
+     */
+    long saveOrGetEmailAddress(String emailAddress);
+
+    /**
+     * Save the valid email addresses in the database and reject the invalid ones. The email addresses are inserted in
+     * JDBC batches and the persistence context of the current transaction is flushed and cleared after every batch.
+     * 
+     * @param emailAddresses
+     *            the email addresses. Cannot be <code>null</code> and cannot contain <code>null</code>.
+     * @return the {@link EmailAddressBatchSaveResult} object whose arrays are in the iteration order of the
+     *         emailAddresses parameter.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddresses parameter is <code>null</code> or contains <code>null</code>.
+     */
+    EmailAddressBatchSaveResult saveValidEmailAddresses(Collection<String> emailAddresses);
+
+    /**
+     * Create a new verification request and send e-mail the email address like the
+     * {@link #createVerificationRequest(long, String, Date, long, VerificationLengthBase)} method, but a not existing
+     * email address data is reported in the result instead of an exception.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param messageTemplate
+     *            the message template. Replacing the $rejectToken variable the reject token and $acceptToken variable
+     *            the accept token. Cannot be <code>null</code>.
+     * @param tokenValidityEndDate
+     *            the expiration date of the token. Cannot be <code>null</code>.
+     * @param verificationLength
+     *            the verification length in seconds. Must be positive.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the request. Cannot be <code>null</code>.
+     * @return {@link VerificationRequestOutcome#CREATED} if the request is created,
+     *         {@link VerificationRequestOutcome#MISSING} if not exist the email address data,
+     *         {@link VerificationRequestOutcome#UNDELIVERABLE} if the domain cannot receive email,
+     *         {@link VerificationRequestOutcome#THROTTLED} if too many verification emails were sent to the email
+     *         address or to its domain recently, otherwise {@link VerificationRequestOutcome#NOT_CREATED}.
+     * 
+     * @throws IllegalArgumentException
+     *             If the tokenValidityEndDate or verificationLengthBase or messageTemplate parameter is
+     *             <code>null</code>.
+     * @throws NonPositiveVerificationLength
+     *             if the verification length is not positive.
+     */
+    VerificationRequestOutcome tryCreateVerificationRequest(long emailAddressId, String messageTemplate,
+            Date tokenValidityEndDate, long verificationLength, VerificationLengthBase verificationLengthBase);
+
+    /**
+     * Save the email address in the database like the {@link #saveEmailAddress(String)} method, but an invalid email
+     * address is reported in the result instead of an exception.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return the {@link EmailAddressSaveResult} object that contains the id of the saved email address data or the
+     *         reason of the rejection.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    EmailAddressSaveResult trySaveEmailAddress(String emailAddress);
+
     /**
      * Validating the email address based on tokenUUID.
      * 
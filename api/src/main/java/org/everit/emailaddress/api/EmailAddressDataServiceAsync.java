@@ -0,0 +1,179 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
+import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Asynchronous companion of the {@link EmailAddressDataService}. Every method passes the call to the
+ * {@link EmailAddressDataService} method of the same name on a thread of the service and returns immediately, so
+ * the callers (for example event loop threads) do not wait for the database and the SMTP server. Every call runs in
+ * its own transaction like the synchronous calls. The result is available from the returned {@link Future} and, if
+ * the callback is not <code>null</code>, is passed to the {@link EmailAddressOperationCallback}. The exceptions of the
+ * synchronous methods (including the ones of the invalid parameters) are reported as the cause of the
+ * {@link java.util.concurrent.ExecutionException} of the {@link Future} and to the
+ * {@link EmailAddressOperationCallback#failed(Throwable)} method. The number of the not completed operations is
+ * bounded: if it is reached the new calls are rejected immediately instead of queueing without limit.
+ */
+public interface EmailAddressDataServiceAsync {
+
+    /**
+     * Checks the verification status of more email addresses asynchronously. See
+     * {@link EmailAddressDataService#areEmailAddressesVerified(long[])}.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<EmailVerificationStatuses> areEmailAddressesVerified(long[] emailAddressIds,
+            EmailAddressOperationCallback<? super EmailVerificationStatuses> callback);
+
+    /**
+     * Finds the email address data by email address asynchronously. See
+     * {@link EmailAddressDataService#findEmailAddressId(String)}.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<Long> findEmailAddressId(String emailAddress, EmailAddressOperationCallback<? super Long> callback);
+
+    /**
+     * Invalidating the email address asynchronously. See
+     * {@link EmailAddressDataService#invalidateEmailAddress(long)}.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param callback
+     *            the callback of the completion. The result is <code>null</code>. May be <code>null</code>.
+     * @return the {@link Future} of the completion.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<Void> invalidateEmailAddress(long emailAddressId, EmailAddressOperationCallback<? super Void> callback);
+
+    /**
+     * Checks the email address is verified or not asynchronously. See
+     * {@link EmailAddressDataService#isEmailAddressVerified(long)}.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<Boolean> isEmailAddressVerified(long emailAddressId,
+            EmailAddressOperationCallback<? super Boolean> callback);
+
+    /**
+     * Save the email address if not exist asynchronously. See
+     * {@link EmailAddressDataService#saveOrGetEmailAddress(String)}.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<Long> saveOrGetEmailAddress(String emailAddress, EmailAddressOperationCallback<? super Long> callback);
+
+    /**
+     * Create a new verification request and send e-mail the email address asynchronously. See
+     * {@link EmailAddressDataService#tryCreateVerificationRequest(long, String, Date, long, VerificationLengthBase)}.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param messageTemplate
+     *            the message template.
+     * @param tokenValidityEndDate
+     *            the expiration date of the token.
+     * @param verificationLength
+     *            the verification length in seconds.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the request.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<VerificationRequestOutcome> tryCreateVerificationRequest(long emailAddressId, String messageTemplate,
+            Date tokenValidityEndDate, long verificationLength, VerificationLengthBase verificationLengthBase,
+            EmailAddressOperationCallback<? super VerificationRequestOutcome> callback);
+
+    /**
+     * Save the email address asynchronously. See {@link EmailAddressDataService#trySaveEmailAddress(String)}.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<EmailAddressSaveResult> trySaveEmailAddress(String emailAddress,
+            EmailAddressOperationCallback<? super EmailAddressSaveResult> callback);
+
+    /**
+     * Validating the email address based on tokenUUID asynchronously. See
+     * {@link EmailAddressDataService#verifyEmailAddress(String)}.
+     * 
+     * @param tokenUUID
+     *            the token UUID.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @return the {@link Future} of the result.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    Future<EmailVerificationResult> verifyEmailAddress(String tokenUUID,
+            EmailAddressOperationCallback<? super EmailVerificationResult> callback);
+}
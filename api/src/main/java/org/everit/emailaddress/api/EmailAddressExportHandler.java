@@ -0,0 +1,42 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.api.dto.EmailAddressExportRecord;
+
+/**
+ * Receives the exported email address data from the
+ * {@link EmailAddressDataService#exportEmailAddresses(java.util.Date, java.util.Date, long, EmailAddressExportHandler)}
+ * method one by one.
+ */
+public interface EmailAddressExportHandler {
+
+    /**
+     * Handles an exported email address data. Called in the transaction of the export.
+     * 
+     * @param exportRecord
+     *            the exported email address data.
+     * @return <code>true</code> to continue the export, <code>false</code> to stop it. The export can be resumed
+     *         after the id of the last handled email address data.
+     */
+    boolean handle(EmailAddressExportRecord exportRecord);
+}
@@ -0,0 +1,69 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.everit.emailaddress.api.dto.EmailAddressFileFormat;
+import org.everit.emailaddress.api.dto.EmailAddressImportResult;
+
+/**
+ * Service for importing large email address files.
+ */
+public interface EmailAddressImporter {
+
+    /**
+     * Imports the email addresses of the file. The file is read through memory-mapped windows in chunks of lines and
+     * the email addresses of a chunk are validated in parallel. The email addresses repeated in the file (compared in
+     * canonical form, see {@link EmailAddressDataService#findEmailAddressId(String)}) are saved only once. The valid
+     * email addresses of a chunk are saved with one call of {@link EmailAddressDataService#saveEmailAddresses}, so in
+     * one transaction. The invalid and the repeated email addresses are written to the reject report as
+     * <code>line number TAB reason TAB line</code> lines where the reason is the name of the
+     * {@link org.everit.emailaddress.api.enums.EmailAddressValidationResult} or <code>DUPLICATE</code>.
+     * <p>
+     * If the checkpointFile is not <code>null</code> the state of the import is written to it after every saved chunk
+     * and the import is resumed from it if it exists. The checkpoint file is deleted when the import is finished. If
+     * the import stops between the saving of a chunk and the writing of the checkpoint the chunk is saved again on
+     * resume with {@link EmailAddressDataService#saveOrGetEmailAddress(String)}, so its email addresses are not
+     * duplicated.
+     * 
+     * @param file
+     *            the imported file. Cannot be <code>null</code>.
+     * @param fileFormat
+     *            the format of the file. Cannot be <code>null</code>.
+     * @param rejectReportFile
+     *            the file of the reject report. Overwritten if the import is not resumed. Cannot be <code>null</code>.
+     * @param checkpointFile
+     *            the file of the checkpoint. If <code>null</code> the import cannot be resumed.
+     * @return the {@link EmailAddressImportResult} object.
+     * @throws IOException
+     *             if the files cannot be read or written.
+     * 
+     * @throws IllegalArgumentException
+     *             if the file, fileFormat or rejectReportFile parameter is <code>null</code>.
+     * @throws IllegalStateException
+     *             if the checkpoint does not belong to the file.
+     */
+    EmailAddressImportResult importFile(File file, EmailAddressFileFormat fileFormat, File rejectReportFile,
+            File checkpointFile) throws IOException;
+}
@@ -0,0 +1,51 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Callback of the operations of the {@link EmailAddressDataServiceAsync}. Exactly one of the methods is called once
+ * for every operation, on the thread that executed the operation. The implementations must not block, because they
+ * occupy the threads of the operations.
+ *
+ * @param <T>
+ *            the type of the result of the operation.
+ */
+public interface EmailAddressOperationCallback<T> {
+
+    /**
+     * Called when the operation is completed successfully.
+     * 
+     * @param result
+     *            the result of the operation. <code>null</code> if the operation has no result.
+     */
+    void completed(T result);
+
+    /**
+     * Called when the operation is failed or cancelled.
+     * 
+     * @param throwable
+     *            the exception thrown by the operation, for example the
+     *            {@link org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException}, or the
+     *            {@link java.util.concurrent.CancellationException} if the operation is cancelled.
+     */
+    void failed(Throwable throwable);
+}
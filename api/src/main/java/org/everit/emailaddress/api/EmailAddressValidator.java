@@ -0,0 +1,74 @@
+package org.everit.emailaddress.api;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.List;
+
+import org.everit.emailaddress.api.dto.EmailAddressValidationResults;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Service for validating the syntax of the email addresses. The internationalized email addresses (UTF-8 local part
+ * and internationalized domain name) are accepted too. The implementations must be thread safe and must not allocate
+ * memory during the validation of the ASCII email addresses.
+ */
+public interface EmailAddressValidator {
+
+    /**
+     * Checks the email address is valid or not.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return <code>true</code> if valid the email address, otherwise <code>false</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    boolean isValid(CharSequence emailAddress);
+
+    /**
+     * Validating the email address.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return {@link EmailAddressValidationResult#VALID} if valid the email address, otherwise the
+     *         {@link EmailAddressValidationResult} value of the first violated rule.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    EmailAddressValidationResult validate(CharSequence emailAddress);
+
+    /**
+     * Validating the email addresses. The implementations may validate the large lists in parallel, the short lists
+     * are validated in the calling thread.
+     * 
+     * @param emailAddresses
+     *            the email addresses. Cannot be <code>null</code> and cannot contain <code>null</code>.
+     * @return the {@link EmailAddressValidationResults} object whose bits and reason codes are in the order of the
+     *         emailAddresses parameter.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddresses parameter is <code>null</code> or contains <code>null</code>.
+     */
+    EmailAddressValidationResults validateAll(List<? extends CharSequence> emailAddresses);
+}
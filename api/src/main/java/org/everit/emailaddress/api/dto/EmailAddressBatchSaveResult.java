@@ -0,0 +1,81 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Information of the batch saving of email addresses. The arrays are indexed by the position of the email address in
+ * the saved collection.
+ */
+public final class EmailAddressBatchSaveResult {
+
+    /**
+     * The ids of the saved email address data. If the email address is rejected the value is <code>0</code>.
+     */
+    private final long[] emailAddressIds;
+
+    /**
+     * The {@link EmailAddressValidationResult} values of the email addresses.
+     */
+    private final EmailAddressValidationResult[] validationResults;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailAddressIds
+     *            the ids of the saved email address data.
+     * @param validationResults
+     *            the {@link EmailAddressValidationResult} values of the email addresses.
+     */
+    public EmailAddressBatchSaveResult(final long[] emailAddressIds,
+            final EmailAddressValidationResult[] validationResults) {
+        super();
+        this.emailAddressIds = emailAddressIds;
+        this.validationResults = validationResults;
+    }
+
+    public long[] getEmailAddressIds() {
+        return emailAddressIds;
+    }
+
+    /**
+     * Get the number of the rejected email addresses.
+     * 
+     * @return the number of the email addresses whose validation result is not
+     *         {@link EmailAddressValidationResult#VALID}.
+     */
+    public int getRejectedNumber() {
+        int result = 0;
+        for (EmailAddressValidationResult validationResult : validationResults) {
+            if (validationResult != EmailAddressValidationResult.VALID) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    public EmailAddressValidationResult[] getValidationResults() {
+        return validationResults;
+    }
+
+}
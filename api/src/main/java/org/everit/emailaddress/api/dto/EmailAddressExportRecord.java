@@ -0,0 +1,101 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+/**
+ * The exported columns of an email address data.
+ */
+public final class EmailAddressExportRecord {
+
+    /**
+     * The id of the email address data.
+     */
+    private final long emailAddressId;
+
+    /**
+     * The email address.
+     */
+    private final String emailAddress;
+
+    /**
+     * The end date of the verification. If the email address has never been verified the value is
+     * <code>null</code>.
+     */
+    private final Date verifiedUntil;
+
+    /**
+     * The email address is verified at the time of the export or not.
+     */
+    private final boolean verified;
+
+    /**
+     * The date of the last modification of the email address data or its verification state.
+     */
+    private final Date lastModificationDate;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param emailAddress
+     *            the email address.
+     * @param verifiedUntil
+     *            the end date of the verification. May be <code>null</code>.
+     * @param verified
+     *            the email address is verified at the time of the export or not.
+     * @param lastModificationDate
+     *            the date of the last modification of the email address data or its verification state.
+     */
+    public EmailAddressExportRecord(final long emailAddressId, final String emailAddress, final Date verifiedUntil,
+            final boolean verified, final Date lastModificationDate) {
+        super();
+        this.emailAddressId = emailAddressId;
+        this.emailAddress = emailAddress;
+        this.verifiedUntil = verifiedUntil;
+        this.verified = verified;
+        this.lastModificationDate = lastModificationDate;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    public long getEmailAddressId() {
+        return emailAddressId;
+    }
+
+    public Date getLastModificationDate() {
+        return lastModificationDate;
+    }
+
+    public Date getVerifiedUntil() {
+        return verifiedUntil;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+}
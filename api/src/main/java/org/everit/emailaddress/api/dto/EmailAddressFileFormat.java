@@ -0,0 +1,82 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Format of an email address file. The file is UTF-8 encoded and the records are terminated by new lines. Without
+ * delimiter every line contains one email address, otherwise the lines are delimiter separated values where the
+ * fields may be enclosed in double quotes and a double quote in a quoted field is escaped by an other double quote.
+ */
+public final class EmailAddressFileFormat {
+
+    /**
+     * The delimiter of the fields. If <code>null</code> every line is one email address.
+     */
+    private final Character delimiter;
+
+    /**
+     * The zero based index of the field of the email address.
+     */
+    private final int columnIndex;
+
+    /**
+     * <code>true</code> if the first line of the file is a header.
+     */
+    private final boolean header;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param delimiter
+     *            the delimiter of the fields. If <code>null</code> every line is one email address.
+     * @param columnIndex
+     *            the zero based index of the field of the email address. Must be <code>0</code> without delimiter.
+     * @param header
+     *            <code>true</code> if the first line of the file is a header and must be skipped.
+     * 
+     * @throws IllegalArgumentException
+     *             if the columnIndex is negative or not <code>0</code> without delimiter.
+     */
+    public EmailAddressFileFormat(final Character delimiter, final int columnIndex, final boolean header) {
+        super();
+        if ((columnIndex < 0) || ((delimiter == null) && (columnIndex != 0))) {
+            throw new IllegalArgumentException("The columnIndex parameter is invalid. Must be 0 without delimiter and"
+                    + " cannot be negative.");
+        }
+        this.delimiter = delimiter;
+        this.columnIndex = columnIndex;
+        this.header = header;
+    }
+
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public Character getDelimiter() {
+        return delimiter;
+    }
+
+    public boolean isHeader() {
+        return header;
+    }
+
+}
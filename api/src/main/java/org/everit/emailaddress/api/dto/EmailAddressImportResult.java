@@ -0,0 +1,87 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Information of the import of an email address file. The numbers contain the lines processed before the resumed
+ * checkpoint.
+ */
+public final class EmailAddressImportResult {
+
+    /**
+     * The number of the read lines including the empty lines and the header.
+     */
+    private final long lineNumber;
+
+    /**
+     * The number of the saved email addresses.
+     */
+    private final long importedNumber;
+
+    /**
+     * The number of the invalid email addresses.
+     */
+    private final long invalidNumber;
+
+    /**
+     * The number of the email addresses repeated in the file.
+     */
+    private final long duplicateNumber;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param lineNumber
+     *            the number of the read lines.
+     * @param importedNumber
+     *            the number of the saved email addresses.
+     * @param invalidNumber
+     *            the number of the invalid email addresses.
+     * @param duplicateNumber
+     *            the number of the email addresses repeated in the file.
+     */
+    public EmailAddressImportResult(final long lineNumber, final long importedNumber, final long invalidNumber,
+            final long duplicateNumber) {
+        super();
+        this.lineNumber = lineNumber;
+        this.importedNumber = importedNumber;
+        this.invalidNumber = invalidNumber;
+        this.duplicateNumber = duplicateNumber;
+    }
+
+    public long getDuplicateNumber() {
+        return duplicateNumber;
+    }
+
+    public long getImportedNumber() {
+        return importedNumber;
+    }
+
+    public long getInvalidNumber() {
+        return invalidNumber;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+}
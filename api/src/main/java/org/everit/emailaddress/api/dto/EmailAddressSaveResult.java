@@ -0,0 +1,72 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Information of the saving of one email address.
+ */
+public final class EmailAddressSaveResult {
+
+    /**
+     * The id of the saved email address data. If the email address is rejected the value is <code>0</code>.
+     */
+    private final long emailAddressId;
+
+    /**
+     * The {@link EmailAddressValidationResult} of the email address.
+     */
+    private final EmailAddressValidationResult validationResult;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailAddressId
+     *            the id of the saved email address data or <code>0</code> if the email address is rejected.
+     * @param validationResult
+     *            the {@link EmailAddressValidationResult} of the email address.
+     */
+    public EmailAddressSaveResult(final long emailAddressId, final EmailAddressValidationResult validationResult) {
+        super();
+        this.emailAddressId = emailAddressId;
+        this.validationResult = validationResult;
+    }
+
+    public long getEmailAddressId() {
+        return emailAddressId;
+    }
+
+    public EmailAddressValidationResult getValidationResult() {
+        return validationResult;
+    }
+
+    /**
+     * Checks the email address is saved or not.
+     * 
+     * @return <code>true</code> if the email address is valid and saved, otherwise <code>false</code>.
+     */
+    public boolean isSaved() {
+        return validationResult == EmailAddressValidationResult.VALID;
+    }
+
+}
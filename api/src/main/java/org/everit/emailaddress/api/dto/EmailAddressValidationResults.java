@@ -0,0 +1,113 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.BitSet;
+
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Information of the validation of more email addresses. The bits and the reason codes are indexed by the position of
+ * the email address in the validated list. The reason code is the ordinal of the {@link EmailAddressValidationResult},
+ * so the valid email addresses have the <code>0</code> reason code.
+ */
+public final class EmailAddressValidationResults {
+
+    /**
+     * The {@link EmailAddressValidationResult} values indexed by ordinal.
+     */
+    private static final EmailAddressValidationResult[] RESULTS = EmailAddressValidationResult.values();
+
+    /**
+     * The set bits mark the valid email addresses.
+     */
+    private final BitSet valid;
+
+    /**
+     * The ordinals of the {@link EmailAddressValidationResult} values of the email addresses.
+     */
+    private final byte[] reasonCodes;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param valid
+     *            the set bits mark the valid email addresses.
+     * @param reasonCodes
+     *            the ordinals of the {@link EmailAddressValidationResult} values of the email addresses.
+     */
+    public EmailAddressValidationResults(final BitSet valid, final byte[] reasonCodes) {
+        super();
+        this.valid = valid;
+        this.reasonCodes = reasonCodes;
+    }
+
+    /**
+     * Get the number of the invalid email addresses.
+     * 
+     * @return the number of the email addresses whose validation result is not
+     *         {@link EmailAddressValidationResult#VALID}.
+     */
+    public int getInvalidNumber() {
+        return reasonCodes.length - valid.cardinality();
+    }
+
+    public byte[] getReasonCodes() {
+        return reasonCodes;
+    }
+
+    /**
+     * Get the number of the validated email addresses.
+     * 
+     * @return the size of the validated list.
+     */
+    public int getSize() {
+        return reasonCodes.length;
+    }
+
+    public BitSet getValid() {
+        return valid;
+    }
+
+    /**
+     * Get the validation result of the email address.
+     * 
+     * @param index
+     *            the position of the email address in the validated list.
+     * @return the {@link EmailAddressValidationResult} of the email address.
+     */
+    public EmailAddressValidationResult getValidationResult(final int index) {
+        return RESULTS[reasonCodes[index]];
+    }
+
+    /**
+     * Checks the email address is valid or not.
+     * 
+     * @param index
+     *            the position of the email address in the validated list.
+     * @return <code>true</code> if valid the email address, otherwise <code>false</code>.
+     */
+    public boolean isValid(final int index) {
+        return valid.get(index);
+    }
+
+}
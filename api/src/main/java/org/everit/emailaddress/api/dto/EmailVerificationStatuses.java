@@ -0,0 +1,113 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.BitSet;
+
+/**
+ * Information of the verification status of more email addresses. The bits are indexed by the position of the email
+ * address id in the checked array.
+ */
+public final class EmailVerificationStatuses {
+
+    /**
+     * The checked email address ids.
+     */
+    private final long[] emailAddressIds;
+
+    /**
+     * The set bits mark the verified email addresses.
+     */
+    private final BitSet verified;
+
+    /**
+     * The set bits mark the not existing email address data.
+     */
+    private final BitSet missing;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailAddressIds
+     *            the checked email address ids.
+     * @param verified
+     *            the set bits mark the verified email addresses.
+     * @param missing
+     *            the set bits mark the not existing email address data.
+     */
+    public EmailVerificationStatuses(final long[] emailAddressIds, final BitSet verified, final BitSet missing) {
+        super();
+        this.emailAddressIds = emailAddressIds;
+        this.verified = verified;
+        this.missing = missing;
+    }
+
+    public long[] getEmailAddressIds() {
+        return emailAddressIds;
+    }
+
+    public BitSet getMissing() {
+        return missing;
+    }
+
+    /**
+     * Get the email address ids whose email address data is not exist.
+     * 
+     * @return the not existing email address ids in the order of the checked array.
+     */
+    public long[] getMissingEmailAddressIds() {
+        long[] result = new long[missing.cardinality()];
+        int index = 0;
+        for (int i = missing.nextSetBit(0); i >= 0; i = missing.nextSetBit(i + 1)) {
+            result[index] = emailAddressIds[i];
+            index++;
+        }
+        return result;
+    }
+
+    public BitSet getVerified() {
+        return verified;
+    }
+
+    /**
+     * Checks the email address data is exist or not.
+     * 
+     * @param index
+     *            the position of the email address id in the checked array.
+     * @return <code>true</code> if not exist the email address data, otherwise <code>false</code>.
+     */
+    public boolean isMissing(final int index) {
+        return missing.get(index);
+    }
+
+    /**
+     * Checks the email address is verified or not.
+     * 
+     * @param index
+     *            the position of the email address id in the checked array.
+     * @return <code>true</code> if verified the email address, otherwise <code>false</code>.
+     */
+    public boolean isVerified(final int index) {
+        return verified.get(index);
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.everit.emailaddress.api.dto;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
+
+/**
+ * Information of the bulk creation of verification requests. The arrays are indexed by the position of the email
+ * address id in the processed array.
+ */
+public final class VerificationRequestBatchResult {
+
+    /**
+     * The processed email address ids.
+     */
+    private final long[] emailAddressIds;
+
+    /**
+     * The {@link VerificationRequestOutcome} values of the email address ids.
+     */
+    private final VerificationRequestOutcome[] outcomes;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailAddressIds
+     *            the processed email address ids.
+     * @param outcomes
+     *            the {@link VerificationRequestOutcome} values of the email address ids.
+     */
+    public VerificationRequestBatchResult(final long[] emailAddressIds, final VerificationRequestOutcome[] outcomes) {
+        super();
+        this.emailAddressIds = emailAddressIds;
+        this.outcomes = outcomes;
+    }
+
+    public long[] getEmailAddressIds() {
+        return emailAddressIds;
+    }
+
+    /**
+     * Get the number of the email address ids with the given outcome.
+     * 
+     * @param outcome
+     *            the {@link VerificationRequestOutcome}.
+     * @return the number of the email address ids whose outcome is the given one.
+     */
+    public int getOutcomeNumber(final VerificationRequestOutcome outcome) {
+        int result = 0;
+        for (VerificationRequestOutcome verificationRequestOutcome : outcomes) {
+            if (verificationRequestOutcome == outcome) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    public VerificationRequestOutcome[] getOutcomes() {
+        return outcomes;
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.everit.emailaddress.api.enums;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Enumeration of the email address validation result. Every value except {@link #VALID} names the first rule that
+ * the email address violates.
+ */
+public enum EmailAddressValidationResult {
+
+    /**
+     * The email address is valid.
+     */
+    VALID,
+
+    /**
+     * The local part is empty, starts or ends with a dot or contains consecutive dots.
+     */
+    EMPTY_LOCAL_PART_SEGMENT,
+
+    /**
+     * The local part contains a character that is not allowed. The <code>+</code> character is allowed only before the
+     * first dot of the local part. The not ASCII characters are allowed except the whitespace and control characters.
+     */
+    INVALID_LOCAL_PART_CHARACTER,
+
+    /**
+     * The email address does not contain the <code>@</code> character.
+     */
+    MISSING_AT_SIGN,
+
+    /**
+     * The domain is empty, starts or ends with a dot or contains consecutive dots.
+     */
+    EMPTY_DOMAIN_LABEL,
+
+    /**
+     * The domain contains a character that is not allowed. The <code>-</code> character is allowed only in the first
+     * label of the ASCII domains. The internationalized domain cannot be converted to ASCII or its ASCII form contains
+     * a character that is not allowed in the host names.
+     */
+    INVALID_DOMAIN_CHARACTER,
+
+    /**
+     * The domain consists of a single label.
+     */
+    MISSING_TOP_LEVEL_DOMAIN,
+
+    /**
+     * The top level domain is shorter than two characters or contains a character that is not a letter. The
+     * internationalized top level domains are allowed in the domains that contain not ASCII characters.
+     */
+    INVALID_TOP_LEVEL_DOMAIN,
+
+    /**
+     * The domain is rejected by the domain policy, for example it is a disposable email domain or its top level domain
+     * is not allowed. Returned by the {@link org.everit.emailaddress.api.EmailAddressDataService}, the syntax
+     * validation never returns it.
+     */
+    BLOCKED_DOMAIN;
+}
@@ -0,0 +1,61 @@
+package org.everit.emailaddress.api.enums;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Enumeration of the outcome of the verification request creation of one email address in a bulk creation.
+ */
+public enum VerificationRequestOutcome {
+
+    /**
+     * The verification request is created and the email is passed to the mail transport.
+     */
+    CREATED,
+
+    /**
+     * The verifiable data service did not create the verification request.
+     */
+    NOT_CREATED,
+
+    /**
+     * Not exist the email address data.
+     */
+    MISSING,
+
+    /**
+     * The domain of the email address cannot receive email according to the
+     * {@link org.everit.emailaddress.api.DomainDeliverabilityChecker}. No verifiable data or verification request is
+     * created.
+     */
+    UNDELIVERABLE,
+
+    /**
+     * Too many verification emails were sent to the email address or to its domain recently. No verification request
+     * is created.
+     */
+    THROTTLED,
+
+    /**
+     * The email address id occurred earlier in the array. The verification request is created only once.
+     */
+    DUPLICATE;
+}
@@ -21,8 +21,11 @@ package org.everit.emailaddress.api.exceptions;
  * MA 02110-1301  USA
  */
 
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
 /**
- * InvalidEmailAddressExpection is throw when the email address is invalid.
+ * InvalidEmailAddressExpection is throw when the email address is invalid. The thrower may skip the capture of the
+ * stack trace, which is the most expensive part of the creation of the exception.
  */
 public class InvalidEmailAddressException extends RuntimeException {
 
@@ -31,10 +34,57 @@ public class InvalidEmailAddressException extends RuntimeException {
      */
     private static final long serialVersionUID = -763572585446505341L;
 
+    /**
+     * The {@link EmailAddressValidationResult} of the first violated rule. <code>null</code> if unknown.
+     */
+    private final EmailAddressValidationResult validationResult;
+
+    /**
+     * <code>true</code> if the stack trace is captured.
+     */
+    private boolean writableStackTrace;
+
     /**
      * The default constructor.
      */
     public InvalidEmailAddressException() {
-        super("The email address is invalid.");
+        this(null, true);
+    }
+
+    /**
+     * The constructor with the reason of the rejection.
+     * 
+     * @param validationResult
+     *            the {@link EmailAddressValidationResult} of the first violated rule. May be <code>null</code>.
+     * @param writableStackTrace
+     *            <code>false</code> if the stack trace is not captured.
+     */
+    public InvalidEmailAddressException(final EmailAddressValidationResult validationResult,
+            final boolean writableStackTrace) {
+        super(validationResult == null ? "The email address is invalid." : "The email address is invalid: "
+                + validationResult + ".");
+        this.validationResult = validationResult;
+        this.writableStackTrace = writableStackTrace;
+        if (writableStackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    /**
+     * Capturing the stack trace only if the stack trace is writable. The constructor of the superclass calls this
+     * method before the writableStackTrace field is set, so the constructor of this class captures the stack trace.
+     * 
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if (writableStackTrace) {
+            return super.fillInStackTrace();
+        }
+        return this;
+    }
+
+    public EmailAddressValidationResult getValidationResult() {
+        return validationResult;
     }
 }
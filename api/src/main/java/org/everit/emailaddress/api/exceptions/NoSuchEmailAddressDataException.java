@@ -22,7 +22,8 @@ package org.everit.emailaddress.api.exceptions;
  */
 
 /**
- * InvalidEmailAddressExpection is throw when the email address is invalid.
+ * NoSuchEmailAddressDataException is throw when not exist the email address data. The thrower may skip the capture of
+ * the stack trace.
  */
 public class NoSuchEmailAddressDataException extends RuntimeException {
 
@@ -31,10 +32,43 @@ public class NoSuchEmailAddressDataException extends RuntimeException {
      */
     private static final long serialVersionUID = -7635725854411505341L;
 
+    /**
+     * <code>true</code> if the stack trace is captured.
+     */
+    private boolean writableStackTrace;
+
     /**
      * The default constructor.
      */
     public NoSuchEmailAddressDataException() {
+        this(true);
+    }
+
+    /**
+     * The constructor that may skip the capture of the stack trace.
+     * 
+     * @param writableStackTrace
+     *            <code>false</code> if the stack trace is not captured.
+     */
+    public NoSuchEmailAddressDataException(final boolean writableStackTrace) {
         super("Not exist the email address data");
+        this.writableStackTrace = writableStackTrace;
+        if (writableStackTrace) {
+            super.fillInStackTrace();
+        }
+    }
+
+    /**
+     * Capturing the stack trace only if the stack trace is writable. The constructor of the superclass calls this
+     * method before the writableStackTrace field is set, so the constructor of this class captures the stack trace.
+     * 
+     * @return this exception.
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if (writableStackTrace) {
+            return super.fillInStackTrace();
+        }
+        return this;
     }
 }
@@ -0,0 +1,89 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.IOException;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The main class of the benchmarks jar. Runs the benchmarks like the {@link Main} of JMH, but by default enables the
+ * allocation reporting of the {@link GCProfiler} (<code>-prof gc</code>) and writes the results in JSON format to the
+ * {@value #DEFAULT_RESULT_FILE} file, so the results of two releases can be compared. The command line options of JMH
+ * override the defaults.
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * The default name of the result file.
+     */
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Running the benchmarks.
+     * 
+     * @param args
+     *            the command line options of JMH.
+     * @throws CommandLineOptionException
+     *             if the command line options are invalid.
+     * @throws IOException
+     *             if the listing of the benchmarks fails.
+     * @throws RunnerException
+     *             if the benchmarks fail.
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, IOException,
+            RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()
+                || commandLineOptions.shouldListWithParams() || commandLineOptions.shouldListProfilers()
+                || commandLineOptions.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder optionsBuilder = new OptionsBuilder().parent(commandLineOptions);
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            optionsBuilder.addProfiler(GCProfiler.class);
+        }
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            optionsBuilder.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(optionsBuilder.build()).run();
+    }
+
+    /**
+     * Utility class.
+     */
+    private BenchmarkRunner() {
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.everit.emailaddress.core.policy.DomainPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the domain checks of the {@link DomainPolicy} with a generated blocklist. Run it with the gc profiler
+ * (<code>-prof gc</code>) to see that the checks do not allocate memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DomainPolicyBenchmark {
+
+    /**
+     * The number of the denied domains.
+     */
+    @Param({ "1000", "100000" })
+    private int entryNumber;
+
+    /**
+     * The email address of a subdomain of a denied domain.
+     */
+    private String blockedEmailAddress;
+
+    /**
+     * The email address of a not listed domain.
+     */
+    private String allowedEmailAddress;
+
+    /**
+     * The compiled policy.
+     */
+    private DomainPolicy domainPolicy;
+
+    /**
+     * Checking the email address of the not listed domain.
+     * 
+     * @return the result of the check.
+     */
+    @Benchmark
+    public boolean allowed() {
+        return domainPolicy.isEmailAddressAllowed(allowedEmailAddress);
+    }
+
+    /**
+     * Checking the email address of the denied domain.
+     * 
+     * @return the result of the check.
+     */
+    @Benchmark
+    public boolean blocked() {
+        return domainPolicy.isEmailAddressAllowed(blockedEmailAddress);
+    }
+
+    /**
+     * Compiling the policy of the generated domains.
+     */
+    @Setup
+    public void setUp() {
+        List<String> entries = new ArrayList<String>(entryNumber);
+        for (int i = 0; i < entryNumber; i++) {
+            entries.add("disposable" + i + ((i % 2) == 0 ? ".com" : ".net"));
+        }
+        domainPolicy = DomainPolicy.compile(entries);
+        blockedEmailAddress = "john.doe@Mail.Disposable" + (entryNumber / 2) + ".com";
+        allowedEmailAddress = "john.doe@mail.example.com";
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.everit.emailaddress.api.dto.EmailAddressValidationResults;
+import org.everit.emailaddress.core.EmailAddressValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the validation of email address lists with the {@link EmailAddressValidatorImpl#validateAll(List)} method
+ * in the calling thread and in parallel. Every eighth email address of the lists is invalid.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EmailAddressBulkValidationBenchmark {
+
+    /**
+     * The number of the email addresses in the validated list.
+     */
+    @Param({ "100", "10000", "1000000" })
+    private int size;
+
+    /**
+     * <code>true</code> if the lists are validated in parallel, <code>false</code> if in the calling thread.
+     */
+    @Param({ "false", "true" })
+    private boolean parallel;
+
+    /**
+     * The validated email addresses.
+     */
+    private List<String> emailAddresses;
+
+    /**
+     * The {@link EmailAddressValidatorImpl} instance.
+     */
+    private EmailAddressValidatorImpl emailAddressValidator;
+
+    /**
+     * Generating the email addresses and starting the validator.
+     */
+    @Setup
+    public void setUp() {
+        emailAddresses = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            if ((i % 8) == 7) {
+                emailAddresses.add("user" + i + "@mail.example.c0m");
+            } else {
+                emailAddresses.add("first.last" + i + "@mail.example.com");
+            }
+        }
+        emailAddressValidator = new EmailAddressValidatorImpl();
+        if (parallel) {
+            emailAddressValidator.setParallelThreshold(1);
+        } else {
+            emailAddressValidator.setParallelThreshold(Integer.MAX_VALUE);
+        }
+        emailAddressValidator.start();
+    }
+
+    /**
+     * Stopping the validator.
+     */
+    @TearDown
+    public void tearDown() {
+        emailAddressValidator.stop();
+    }
+
+    /**
+     * Validating the list.
+     * 
+     * @return the validation results.
+     */
+    @Benchmark
+    public EmailAddressValidationResults validateAll() {
+        return emailAddressValidator.validateAll(emailAddresses);
+    }
+
+}
@@ -0,0 +1,358 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.core.EmailAddressDataServiceImpl;
+import org.everit.emailaddress.core.EmailAddressValidatorImpl;
+import org.everit.emailaddress.core.cache.EmailAddressIdCache;
+import org.everit.emailaddress.core.cache.VerificationStatusCache;
+import org.everit.verifiabledata.api.VerifyService;
+import org.everit.verifiabledata.api.dto.VerificationResult;
+import org.everit.verifiabledata.api.enums.TokenUsageResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the database bound operations of the {@link EmailAddressDataServiceImpl} against an embedded H2 database
+ * with the same settings as the emailaddress-persistence.xml of the integration tests. Every operation runs in its own
+ * resource local transaction and the persistence context is cleared after the commit, like in a container managed
+ * transaction. The {@link VerifyService} is replaced by a proxy that resolves the tokens from memory, so the
+ * measurement of the {@link EmailAddressDataServiceImpl#verifyEmailAddress(String)} contains only the email address
+ * part of the verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EmailAddressDataServiceBenchmark {
+
+    /**
+     * The {@link VerifyService} that resolves the tokens from memory.
+     */
+    private static final class InMemoryVerifyService implements InvocationHandler {
+
+        /**
+         * The verification results by token UUID.
+         */
+        private final Map<String, VerificationResult> verificationResults;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param verificationResults
+         *            the verification results by token UUID.
+         */
+        private InMemoryVerifyService(final Map<String, VerificationResult> verificationResults) {
+            this.verificationResults = verificationResults;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            if ("verifyData".equals(method.getName())) {
+                return verificationResults.get(args[0]);
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("toString".equals(method.getName())) {
+                return InMemoryVerifyService.class.getSimpleName();
+            }
+            throw new UnsupportedOperationException("The " + method.getName()
+                    + " method is not supported by the benchmark.");
+        }
+    }
+
+    /**
+     * The name of the persistence unit of the benchmarks.
+     */
+    private static final String PERSISTENCE_UNIT_NAME = "org.everit.emailaddress.benchmarks";
+
+    /**
+     * The number of the email addresses saved in one transaction during the population of the database.
+     */
+    private static final int POPULATION_CHUNK_SIZE = 10000;
+
+    /**
+     * The capacity of the caches.
+     */
+    private static final int CACHE_CAPACITY = 65536;
+
+    /**
+     * The number of the email address data in the database before the measurement.
+     */
+    @Param({ "1000", "100000" })
+    private int rows;
+
+    /**
+     * The {@link VerificationStatusCache} and the {@link EmailAddressIdCache} are used or not.
+     */
+    @Param({ "false", "true" })
+    private boolean cached;
+
+    /**
+     * The {@link EntityManagerFactory} of the benchmarks.
+     */
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The {@link EntityManager} of the {@link #emailAddressDataService}.
+     */
+    private EntityManager em;
+
+    /**
+     * The measured service.
+     */
+    private EmailAddressDataServiceImpl emailAddressDataService;
+
+    /**
+     * The ids of the email address data in the database.
+     */
+    private long[] emailAddressIds;
+
+    /**
+     * The token UUIDs of the email address data. The token UUID of the email address data is at the same position as
+     * the id of the email address data.
+     */
+    private String[] tokenUUIDs;
+
+    /**
+     * The position of the current email address data in the {@link #emailAddressIds} and {@link #tokenUUIDs}.
+     */
+    private int cursor;
+
+    /**
+     * The number of the email addresses saved by the {@link #saveEmailAddress()} benchmark.
+     */
+    private long savedNumber;
+
+    /**
+     * Creating the verification result. The verification result is a data transfer object of the verifiabledata
+     * module without a public setter, so the constructor is selected by the types of its parameters.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @return the verification result with {@link TokenUsageResult#VERIFIED}.
+     */
+    private static VerificationResult createVerificationResult(final long verifiableDataId) {
+        try {
+            for (Constructor<?> constructor : VerificationResult.class.getConstructors()) {
+                Class<?>[] parameterTypes = constructor.getParameterTypes();
+                if (parameterTypes.length > 0) {
+                    Object[] parameters = new Object[parameterTypes.length];
+                    for (int i = 0; i < parameterTypes.length; i++) {
+                        parameters[i] = createVerificationResultParameter(parameterTypes[i], verifiableDataId);
+                    }
+                    return (VerificationResult) constructor.newInstance(parameters);
+                }
+            }
+            VerificationResult verificationResult = VerificationResult.class.newInstance();
+            for (Field field : VerificationResult.class.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    field.set(verificationResult, createVerificationResultParameter(field.getType(),
+                            verifiableDataId));
+                }
+            }
+            return verificationResult;
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot create the verification result.", e);
+        }
+    }
+
+    /**
+     * Creating the value of a constructor parameter or field of the verification result.
+     * 
+     * @param type
+     *            the type of the parameter or field.
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @return the verifiable data id for the numeric types, {@link TokenUsageResult#VERIFIED} for the
+     *         {@link TokenUsageResult} type, otherwise <code>null</code>.
+     */
+    private static Object createVerificationResultParameter(final Class<?> type, final long verifiableDataId) {
+        if (type.equals(long.class) || type.equals(Long.class)) {
+            return Long.valueOf(verifiableDataId);
+        } else if (type.equals(TokenUsageResult.class)) {
+            return TokenUsageResult.VERIFIED;
+        }
+        return null;
+    }
+
+    /**
+     * Checking the verification status of an existing email address data.
+     * 
+     * @return the verification status.
+     */
+    @Benchmark
+    public boolean isEmailAddressVerified() {
+        em.getTransaction().begin();
+        try {
+            return emailAddressDataService.isEmailAddressVerified(emailAddressIds[nextCursor()]);
+        } finally {
+            em.getTransaction().commit();
+            em.clear();
+        }
+    }
+
+    /**
+     * Step to the next email address data. The email address data are visited in the order of the ids.
+     * 
+     * @return the position of the next email address data.
+     */
+    private int nextCursor() {
+        cursor++;
+        if (cursor == emailAddressIds.length) {
+            cursor = 0;
+        }
+        return cursor;
+    }
+
+    /**
+     * Saving the email addresses of the database in chunks.
+     */
+    private void populate() {
+        emailAddressIds = new long[rows];
+        int index = 0;
+        while (index < rows) {
+            List<String> emailAddresses = new ArrayList<String>();
+            for (int i = index; i < Math.min(rows, index + POPULATION_CHUNK_SIZE); i++) {
+                emailAddresses.add("user" + i + "@population.example.com");
+            }
+            em.getTransaction().begin();
+            long[] savedEmailAddressIds = emailAddressDataService.saveEmailAddresses(emailAddresses);
+            em.getTransaction().commit();
+            em.clear();
+            System.arraycopy(savedEmailAddressIds, 0, emailAddressIds, index, savedEmailAddressIds.length);
+            index += savedEmailAddressIds.length;
+        }
+
+        // The verifiable data of the email addresses are resolved by the InMemoryVerifyService, so the email address
+        // data refer to not existing verifiable data with the same id as the email address data.
+        em.getTransaction().begin();
+        em.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
+        em.createNativeQuery("UPDATE EMAILADDRESS_DATA SET VERIFIABLE_DATA_ID = EMAIL_ADDRESS_ID").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+    }
+
+    /**
+     * Saving a new email address. Every call inserts a new row, so the table grows during the measurement.
+     * 
+     * @return the id of the saved email address data.
+     */
+    @Benchmark
+    public long saveEmailAddress() {
+        savedNumber++;
+        em.getTransaction().begin();
+        try {
+            return emailAddressDataService.saveEmailAddress("saved" + savedNumber + "@benchmark.example.com");
+        } finally {
+            em.getTransaction().commit();
+            em.clear();
+        }
+    }
+
+    /**
+     * Creating the database, the service and the tokens.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME);
+        em = entityManagerFactory.createEntityManager();
+
+        emailAddressDataService = new EmailAddressDataServiceImpl();
+        emailAddressDataService.setEm(em);
+        emailAddressDataService.setEmailAddressValidator(new EmailAddressValidatorImpl());
+        if (cached) {
+            emailAddressDataService.setVerificationStatusCache(new VerificationStatusCache(CACHE_CAPACITY));
+            emailAddressDataService.setEmailAddressIdCache(new EmailAddressIdCache(CACHE_CAPACITY));
+        }
+
+        populate();
+
+        tokenUUIDs = new String[rows];
+        Map<String, VerificationResult> verificationResults = new HashMap<String, VerificationResult>();
+        for (int i = 0; i < rows; i++) {
+            tokenUUIDs[i] = "token-" + emailAddressIds[i];
+            verificationResults.put(tokenUUIDs[i], createVerificationResult(emailAddressIds[i]));
+        }
+        emailAddressDataService.setVerifyService((VerifyService) Proxy.newProxyInstance(
+                VerifyService.class.getClassLoader(), new Class<?>[] { VerifyService.class },
+                new InMemoryVerifyService(verificationResults)));
+    }
+
+    /**
+     * Closing the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        entityManagerFactory.close();
+    }
+
+    /**
+     * Verifying an existing email address by token UUID.
+     * 
+     * @return the verification result.
+     */
+    @Benchmark
+    public EmailVerificationResult verifyEmailAddress() {
+        em.getTransaction().begin();
+        try {
+            return emailAddressDataService.verifyEmailAddress(tokenUUIDs[nextCursor()]);
+        } finally {
+            em.getTransaction().commit();
+            em.clear();
+        }
+    }
+
+}
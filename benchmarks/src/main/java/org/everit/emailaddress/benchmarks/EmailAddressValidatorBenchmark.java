@@ -0,0 +1,165 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.everit.emailaddress.api.EmailAddressValidator;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+import org.everit.emailaddress.core.EmailAddressValidatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the validation of the email addresses with the {@link EmailAddressValidatorImpl} and with the regular
+ * expression that was used to validation before the {@link EmailAddressValidator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EmailAddressValidatorBenchmark {
+
+    /**
+     * The email regular expression that was used to validation before the {@link EmailAddressValidator}.
+     */
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+                    + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+
+    /**
+     * The domain of the generated email addresses.
+     */
+    private static final String DOMAIN = "@mail.example.com";
+
+    /**
+     * The internationalized email address. Its domain conversion is cached after the first validation.
+     */
+    private static final String INTERNATIONAL_EMAIL_ADDRESS = "j\u00f6rg@mail.b\u00fccher.example.de";
+
+    /**
+     * The length of the validated email addresses.
+     */
+    @Param({ "16", "64", "254" })
+    private int length;
+
+    /**
+     * The valid email address.
+     */
+    private String validEmailAddress;
+
+    /**
+     * The invalid email address. The last character of the top level domain is invalid, so the whole email address
+     * is checked before the rejection.
+     */
+    private String invalidEmailAddress;
+
+    /**
+     * The {@link EmailAddressValidator} instance.
+     */
+    private EmailAddressValidator emailAddressValidator;
+
+    /**
+     * Validating the invalid email address with the {@link EmailAddressValidatorImpl}.
+     * 
+     * @return the validation result.
+     */
+    @Benchmark
+    public EmailAddressValidationResult invalid() {
+        return emailAddressValidator.validate(invalidEmailAddress);
+    }
+
+    /**
+     * Validating the internationalized email address with the {@link EmailAddressValidatorImpl}. The ASCII benchmarks
+     * must not be slower than before the support of the internationalized email addresses.
+     * 
+     * @return the validation result.
+     */
+    @Benchmark
+    public EmailAddressValidationResult international() {
+        return emailAddressValidator.validate(INTERNATIONAL_EMAIL_ADDRESS);
+    }
+
+    /**
+     * Validating the invalid email address with the regular expression.
+     * 
+     * @return the validation result.
+     */
+    @Benchmark
+    public boolean invalidRegex() {
+        return EMAIL_PATTERN.matcher(invalidEmailAddress).matches();
+    }
+
+    /**
+     * Generating the email addresses with the given length.
+     */
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(length);
+        int localPartLength = Math.max(1, length - DOMAIN.length());
+        for (int i = 0; i < localPartLength; i++) {
+            if (((i % 8) == 7) && (i < (localPartLength - 1))) {
+                sb.append('.');
+            } else {
+                sb.append((char) ('a' + (i % 26)));
+            }
+        }
+        sb.append(DOMAIN);
+        validEmailAddress = sb.toString();
+        sb.setCharAt(sb.length() - 1, '1');
+        invalidEmailAddress = sb.toString();
+        emailAddressValidator = new EmailAddressValidatorImpl();
+    }
+
+    /**
+     * Validating the valid email address with the {@link EmailAddressValidatorImpl}.
+     * 
+     * @return the validation result.
+     */
+    @Benchmark
+    public EmailAddressValidationResult valid() {
+        return emailAddressValidator.validate(validEmailAddress);
+    }
+
+    /**
+     * Validating the valid email address with the regular expression.
+     * 
+     * @return the validation result.
+     */
+    @Benchmark
+    public boolean validRegex() {
+        return EMAIL_PATTERN.matcher(validEmailAddress).matches();
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.everit.emailaddress.benchmarks;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.everit.emailaddress.core.template.VerificationTemplateRenderer;
+import org.everit.util.core.velocity.VelocityUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the rendering of the verification email templates with the {@link VelocityUtil} (the path used before the
+ * {@link VerificationTemplateRenderer}) and with the {@link VerificationTemplateRenderer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class VerificationTemplateRenderBenchmark {
+
+    /**
+     * Template that contains only the token references. Rendered by joining the static segments.
+     */
+    private static final String SIMPLE_TEMPLATE = "<html><body><p>Please verify your email address.</p>"
+            + "<p><a href=\"http://localhost/verify?token=$acceptToken\">Accept</a></p>"
+            + "<p><a href=\"http://localhost/verify?token=${rejectToken}\">Reject</a></p></body></html>";
+
+    /**
+     * Template that contains a directive. Rendered by the parsed Velocity template.
+     */
+    private static final String COMPLEX_TEMPLATE = "<html><body>#set($base = \"http://localhost/verify?token=\")"
+            + "<p><a href=\"${base}$acceptToken\">Accept</a></p>"
+            + "#if($rejectToken)<p><a href=\"${base}$rejectToken\">Reject</a></p>#end</body></html>";
+
+    /**
+     * The kind of the rendered template.
+     */
+    @Param({ "simple", "complex" })
+    private String templateKind;
+
+    /**
+     * The rendered template.
+     */
+    private String template;
+
+    /**
+     * The accept token.
+     */
+    private String acceptToken;
+
+    /**
+     * The reject token.
+     */
+    private String rejectToken;
+
+    /**
+     * The {@link VerificationTemplateRenderer} instance.
+     */
+    private VerificationTemplateRenderer verificationTemplateRenderer;
+
+    /**
+     * Rendering with the {@link VerificationTemplateRenderer}.
+     * 
+     * @return the rendered template.
+     */
+    @Benchmark
+    public String renderer() {
+        return verificationTemplateRenderer.render(template, acceptToken, rejectToken);
+    }
+
+    /**
+     * Preparing the template and the tokens.
+     */
+    @Setup
+    public void setUp() {
+        if ("simple".equals(templateKind)) {
+            template = SIMPLE_TEMPLATE;
+        } else {
+            template = COMPLEX_TEMPLATE;
+        }
+        acceptToken = UUID.randomUUID().toString();
+        rejectToken = UUID.randomUUID().toString();
+        verificationTemplateRenderer = new VerificationTemplateRenderer(64);
+    }
+
+    /**
+     * Rendering with the {@link VelocityUtil} that parses the template on every call.
+     * 
+     * @return the rendered template.
+     */
+    @Benchmark
+    public String velocityUtil() {
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put("acceptToken", acceptToken);
+        variables.put("rejectToken", rejectToken);
+        return VelocityUtil.processVelocityTemplateFromString(template, "ERROR", variables);
+    }
+
+}
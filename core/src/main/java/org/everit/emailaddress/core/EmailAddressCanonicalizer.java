@@ -0,0 +1,109 @@
+package org.everit.emailaddress.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Calculates the canonical form of the email addresses used by the lookups. The canonical form is trimmed and the
+ * domain is lower-cased. The internationalized domains are converted to their ASCII (punycode) form with the
+ * {@link IdnConverter}. The local part is kept as it is because it may be case sensitive, only the internationalized
+ * local parts are normalized to the NFC form, so the different encodings of the same characters are equal.
+ */
+public final class EmailAddressCanonicalizer {
+
+    /**
+     * Calculates the canonical form of the email address.
+     * 
+     * @param emailAddress
+     *            the email address. Cannot be <code>null</code>.
+     * @return the canonical form of the email address.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    public static String canonicalize(final String emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
+        }
+        String trimmedEmailAddress = emailAddress.trim();
+        int atIndex = trimmedEmailAddress.lastIndexOf('@');
+        if (atIndex < 0) {
+            return trimmedEmailAddress;
+        }
+        String domain = trimmedEmailAddress.substring(atIndex + 1);
+        String canonicalDomain = toCanonicalDomain(domain);
+        if (!IdnConverter.isAscii(trimmedEmailAddress, 0, atIndex)) {
+            String localPart = Normalizer.normalize(trimmedEmailAddress.substring(0, atIndex), Normalizer.Form.NFC);
+            return localPart + "@" + canonicalDomain;
+        }
+        if (canonicalDomain.equals(domain)) {
+            return trimmedEmailAddress;
+        }
+        return trimmedEmailAddress.substring(0, atIndex + 1) + canonicalDomain;
+    }
+
+    /**
+     * Calculates the canonical form of the domain: trimmed, the leading <code>@</code> is removed, converted to ASCII
+     * and lower-cased.
+     * 
+     * @param domain
+     *            the domain. Cannot be <code>null</code>.
+     * @return the canonical form of the domain.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code>.
+     */
+    public static String canonicalizeDomain(final String domain) {
+        if (domain == null) {
+            throw new IllegalArgumentException("The domain parameter is null. Cannot be null.");
+        }
+        String trimmedDomain = domain.trim();
+        if (trimmedDomain.startsWith("@")) {
+            trimmedDomain = trimmedDomain.substring(1);
+        }
+        return toCanonicalDomain(trimmedDomain);
+    }
+
+    /**
+     * Converting the domain to ASCII and lower-casing it. The domains that are not valid internationalized domain
+     * names are only lower-cased.
+     * 
+     * @param domain
+     *            the domain.
+     * @return the canonical form of the domain.
+     */
+    private static String toCanonicalDomain(final String domain) {
+        String asciiDomain = IdnConverter.toAscii(domain);
+        if (asciiDomain == null) {
+            return domain.toLowerCase(Locale.ENGLISH);
+        }
+        return asciiDomain.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Utility class.
+     */
+    private EmailAddressCanonicalizer() {
+    }
+}
@@ -21,34 +21,51 @@ package org.everit.emailaddress.core;
  * MA 02110-1301  USA
  */
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.LockModeType;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Join;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
-
-import org.everit.email.api.EmailSenderParam;
-import org.everit.email.api.EmailService;
+import javax.persistence.TemporalType;
+import javax.persistence.TypedQuery;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.everit.emailaddress.api.DomainDeliverabilityChecker;
 import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressExportHandler;
+import org.everit.emailaddress.api.EmailAddressValidator;
+import org.everit.emailaddress.api.dto.EmailAddressBatchSaveResult;
+import org.everit.emailaddress.api.dto.EmailAddressExportRecord;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
 import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.dto.VerificationRequestBatchResult;
 import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
 import org.everit.emailaddress.api.exceptions.InvalidEmailAddressException;
 import org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException;
+import org.everit.emailaddress.api.exceptions.VerificationRequestThrottledException;
+import org.everit.emailaddress.core.cache.CachedVerificationStatus;
+import org.everit.emailaddress.core.cache.EmailAddressIdCache;
+import org.everit.emailaddress.core.cache.VerificationStatusCache;
+import org.everit.emailaddress.core.mail.BatchingEmailTransport;
+import org.everit.emailaddress.core.mail.EmailBatchSender;
+import org.everit.emailaddress.core.mail.EmailTransport;
+import org.everit.emailaddress.core.policy.ReloadableDomainPolicy;
+import org.everit.emailaddress.core.template.VerificationTemplateRenderer;
+import org.everit.emailaddress.core.throttle.SendThrottle;
 import org.everit.emailaddress.entity.EmailAddressDataEntity;
-import org.everit.emailaddress.entity.EmailAddressDataEntity_;
-import org.everit.messaging.api.dto.MessagePart;
-import org.everit.messaging.api.model.TenureType;
-import org.everit.messaging.api.param.MessageTenureParam;
-import org.everit.util.core.velocity.VelocityUtil;
 import org.everit.verifiabledata.api.VerifyService;
 import org.everit.verifiabledata.api.dto.VerifiableDataCreation;
 import org.everit.verifiabledata.api.dto.VerificationRequest;
@@ -57,7 +74,6 @@ import org.everit.verifiabledata.api.enums.TokenUsageResult;
 import org.everit.verifiabledata.api.enums.VerificationLengthBase;
 import org.everit.verifiabledata.api.exceptions.NonPositiveVerificationLength;
 import org.everit.verifiabledata.entity.VerifiableDataEntity;
-import org.everit.verifiabledata.entity.VerifiableDataEntity_;
 
 /**
  * Implementation of {@link EmailAddressDataService}.
@@ -65,11 +81,85 @@ import org.everit.verifiabledata.entity.VerifiableDataEntity_;
 public class EmailAddressDataServiceImpl implements EmailAddressDataService {
 
     /**
-     * Email regular expression to validation.
+     * The default number of the email addresses inserted in one JDBC batch.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * The default maximum number of the bulk verification emails of one domain sent in one batch.
+     */
+    private static final int DEFAULT_EMAIL_BATCH_SIZE = 50;
+
+    /**
+     * The default number of the email address data queried in one page of the export.
+     */
+    private static final int DEFAULT_EXPORT_FETCH_SIZE = 1000;
+
+    /**
+     * The query hint of the JDBC fetch size.
+     */
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+
+    /**
+     * The maximum number of the ids in the IN clause of one query. The last chunk is padded to this size to let the
+     * query plan be reused.
+     */
+    private static final int IN_CHUNK_SIZE = 100;
+
+    /**
+     * The default time after a write of the thread while its queries run on the primary database, in milliseconds.
+     */
+    private static final long DEFAULT_REPLICA_STALENESS_TOLERANCE = 5000L;
+
+    /**
+     * The subject of the verification emails.
      */
-    private static final String EMAIL_PATTERN =
-            "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
-                    + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+    private static final String VERIFICATION_EMAIL_SUBJECT = "Verification email";
+
+    /**
+     * The results of the rejected savings indexed by the ordinal of the {@link EmailAddressValidationResult}. The
+     * results are immutable, so the rejection does not allocate memory.
+     */
+    private static final EmailAddressSaveResult[] REJECTED_SAVE_RESULTS = createRejectedSaveResults();
+
+    /**
+     * Creates the results of the rejected savings.
+     * 
+     * @return the results indexed by the ordinal of the {@link EmailAddressValidationResult}.
+     */
+    private static EmailAddressSaveResult[] createRejectedSaveResults() {
+        EmailAddressValidationResult[] validationResults = EmailAddressValidationResult.values();
+        EmailAddressSaveResult[] result = new EmailAddressSaveResult[validationResults.length];
+        for (EmailAddressValidationResult validationResult : validationResults) {
+            result[validationResult.ordinal()] = new EmailAddressSaveResult(0L, validationResult);
+        }
+        return result;
+    }
+
+    /**
+     * Escapes the special characters of the LIKE patterns with the <code>!</code> escape character.
+     * 
+     * @param value
+     *            the value to escape.
+     * @return the escaped value that matches the value itself in a LIKE pattern.
+     */
+    private static String escapeLikePattern(final String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Checks the verification end date is in the future or not.
+     * 
+     * @param verificationEndDate
+     *            the verification end date. May be <code>null</code>.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return <code>true</code> if the verification end date is not <code>null</code> and in the future, otherwise
+     *         <code>false</code>.
+     */
+    private static boolean isVerificationEndDateValid(final Date verificationEndDate, final long currentTime) {
+        return (verificationEndDate != null) && (currentTime < verificationEndDate.getTime());
+    }
 
     /**
      * EntityManager set by blueprint.
@@ -81,13 +171,220 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
     private VerifyService verifyService;
 
     /**
-     * The {@link EmailService} instance.
+     * The {@link EmailTransport} of the verification emails.
+     */
+    private EmailTransport emailTransport;
+
+    /**
+     * The {@link EmailBatchSender} of the verification emails of the bulk requests. The emails of a chunk are
+     * collected in a {@link BatchingEmailTransport} owned by the chunk, grouped by domain and sent at the end of the
+     * chunk. <code>null</code> if the bulk requests use the emailTransport.
+     */
+    private EmailBatchSender emailBatchSender;
+
+    /**
+     * The maximum number of the bulk verification emails of one domain sent in one batch.
      */
-    private EmailService emailService;
+    private int emailBatchSize = DEFAULT_EMAIL_BATCH_SIZE;
+
+    /**
+     * The {@link EmailAddressValidator} instance.
+     */
+    private EmailAddressValidator emailAddressValidator;
+
+    /**
+     * The number of the email addresses inserted in one JDBC batch. The persistence context is flushed and cleared
+     * after every batch. Should be the same as the hibernate.jdbc.batch_size property of the persistence unit.
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * The number of the email address data queried in one page of the export. Used as the JDBC fetch size too.
+     */
+    private int exportFetchSize = DEFAULT_EXPORT_FETCH_SIZE;
+
+    /**
+     * The optional {@link VerificationStatusCache} instance. If <code>null</code> the verification status is not
+     * cached.
+     */
+    private VerificationStatusCache verificationStatusCache;
+
+    /**
+     * The {@link TransactionSynchronizationRegistry} set by blueprint. Must be set if the verification status cache is
+     * set: the cache entries changed by a transaction are invalidated again after the completion of the transaction
+     * and the transactions that wrote the database do not use the cache.
+     */
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    /**
+     * The key of the ids of the email addresses invalidated by the transaction in the resources of the
+     * {@link TransactionSynchronizationRegistry}.
+     */
+    private final Object invalidatedEmailAddressIdsKey = new Object();
+
+    /**
+     * The {@link VerificationTemplateRenderer} instance.
+     */
+    private VerificationTemplateRenderer verificationTemplateRenderer;
+
+    /**
+     * The optional {@link EmailAddressIdCache} instance. If <code>null</code> the email address ids are not cached by
+     * verifiable data id.
+     */
+    private EmailAddressIdCache emailAddressIdCache;
+
+    /**
+     * The optional {@link DomainDeliverabilityChecker} instance. If <code>null</code> the verification requests are
+     * created for every domain.
+     */
+    private DomainDeliverabilityChecker domainDeliverabilityChecker;
+
+    /**
+     * The optional {@link ReloadableDomainPolicy} instance. If <code>null</code> the email addresses of every domain
+     * are accepted.
+     */
+    private ReloadableDomainPolicy domainPolicy;
+
+    /**
+     * The throttle of the verification emails. <code>null</code> if the verification emails are not throttled.
+     */
+    private SendThrottle sendThrottle;
+
+    /**
+     * The optional EntityManager of the read replica set by blueprint. The query methods run on the replica unless the
+     * thread wrote the database within the {@link #replicaStalenessTolerance}. If <code>null</code> every query runs
+     * on the primary database.
+     * <p>
+     * The writes are tracked per thread, so the caller reads its own writes only if it reads in the thread that wrote,
+     * as the callers that serve a request in one thread do. The queries of an other thread may run on the replica
+     * right after the write, for example the operations of the same caller submitted to the
+     * {@link org.everit.emailaddress.api.EmailAddressDataServiceAsync}. Such callers must not use a replica or must
+     * tolerate its replication lag.
+     */
+    private EntityManager replicaEm;
+
+    /**
+     * The time after a write of the thread while its queries run on the primary database, in milliseconds. Must not be
+     * shorter than the replication lag of the replica, so the thread always reads its own writes.
+     */
+    private long replicaStalenessTolerance = DEFAULT_REPLICA_STALENESS_TOLERANCE;
+
+    /**
+     * The time of the last write of the threads in milliseconds. Maintained only if the replica is set. See the
+     * {@link #replicaEm} about the thread per request assumption.
+     */
+    private final ThreadLocal<long[]> lastWriteTimes = new ThreadLocal<long[]>() {
+
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
 
     @Override
-    public void createVerificationRequest(final long emailAddressId, final String messageTemplate,
-            final Date tokenValidityEndDate,
+    public EmailVerificationStatuses areEmailAddressesVerified(final long[] emailAddressIds) {
+        if (emailAddressIds == null) {
+            throw new IllegalArgumentException("The emailAddressIds parameter is null. Cannot be null.");
+        }
+        long currentTime = System.currentTimeMillis();
+        VerificationStatusCache cache = getUsableVerificationStatusCache();
+        BitSet verified = new BitSet(emailAddressIds.length);
+        BitSet missing = new BitSet(emailAddressIds.length);
+        BitSet uncached = new BitSet(emailAddressIds.length);
+        long[] sortedEmailAddressIds = new long[emailAddressIds.length];
+        long[] invalidationStamps = null;
+        if (cache != null) {
+            invalidationStamps = new long[emailAddressIds.length];
+        }
+        int uncachedLength = 0;
+        for (int i = 0; i < emailAddressIds.length; i++) {
+            CachedVerificationStatus cachedVerificationStatus = CachedVerificationStatus.UNKNOWN;
+            if (cache != null) {
+                cachedVerificationStatus = cache.getVerificationStatus(emailAddressIds[i], currentTime);
+                invalidationStamps[i] = cache.getInvalidationStamp(emailAddressIds[i]);
+            }
+            if (cachedVerificationStatus == CachedVerificationStatus.MISSING) {
+                missing.set(i);
+            } else if (cachedVerificationStatus == CachedVerificationStatus.VERIFIED) {
+                verified.set(i);
+            } else if (cachedVerificationStatus == CachedVerificationStatus.UNKNOWN) {
+                uncached.set(i);
+                sortedEmailAddressIds[uncachedLength] = emailAddressIds[i];
+                uncachedLength++;
+            }
+        }
+        Arrays.sort(sortedEmailAddressIds, 0, uncachedLength);
+
+        EntityManager queryEm = getQueryEntityManager();
+        Map<Long, Date> verificationEndDates = new HashMap<Long, Date>();
+        List<Long> chunk = new ArrayList<Long>(IN_CHUNK_SIZE);
+        for (int i = 0; i < uncachedLength; i++) {
+            if ((i == 0) || (sortedEmailAddressIds[i] != sortedEmailAddressIds[i - 1])) {
+                chunk.add(sortedEmailAddressIds[i]);
+                if (chunk.size() == IN_CHUNK_SIZE) {
+                    findVerificationEndDates(queryEm, chunk, verificationEndDates);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            findVerificationEndDates(queryEm, padChunk(chunk), verificationEndDates);
+        }
+
+        for (int i = uncached.nextSetBit(0); i >= 0; i = uncached.nextSetBit(i + 1)) {
+            Long emailAddressId = emailAddressIds[i];
+            if (!verificationEndDates.containsKey(emailAddressId)) {
+                missing.set(i);
+                if (cache != null) {
+                    cache.putMissing(emailAddressId, invalidationStamps[i], currentTime);
+                }
+            } else {
+                Date verificationEndDate = verificationEndDates.get(emailAddressId);
+                if (cache != null) {
+                    cache.putVerificationEndDate(emailAddressId, verificationEndDate, invalidationStamps[i],
+                            currentTime);
+                }
+                if (isVerificationEndDateValid(verificationEndDate, currentTime)) {
+                    verified.set(i);
+                }
+            }
+        }
+        return new EmailVerificationStatuses(emailAddressIds, verified, missing);
+    }
+
+    /**
+     * Put the email address id of the verifiable data to the cache if the cache is set.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @param emailAddressId
+     *            the id of the email address data.
+     */
+    private void cacheEmailAddressId(final long verifiableDataId, final long emailAddressId) {
+        if (emailAddressIdCache != null) {
+            emailAddressIdCache.putEmailAddressId(verifiableDataId, emailAddressId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Checks the parameters of the verification request creation.
+     * 
+     * @param messageTemplate
+     *            the message template.
+     * @param tokenValidityEndDate
+     *            the expiration date of the token.
+     * @param verificationLength
+     *            the verification length in seconds.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the request.
+     * 
+     * @throws IllegalArgumentException
+     *             If the tokenValidityEndDate or verificationLengthBase or messageTemplate parameter is
+     *             <code>null</code>.
+     * @throws NonPositiveVerificationLength
+     *             if the verification length is not positive.
+     */
+    private void checkVerificationRequestParameters(final String messageTemplate, final Date tokenValidityEndDate,
             final long verificationLength, final VerificationLengthBase verificationLengthBase) {
         if ((tokenValidityEndDate == null) || (verificationLengthBase == null) || (messageTemplate == null)) {
             throw new IllegalArgumentException(
@@ -98,40 +395,105 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
         if (verificationLength <= 0.0) {
             throw new NonPositiveVerificationLength();
         }
+    }
 
-        if (!existEmailAddressData(emailAddressId)) {
+    @Override
+    public void createVerificationRequest(final long emailAddressId, final String messageTemplate,
+            final Date tokenValidityEndDate,
+            final long verificationLength, final VerificationLengthBase verificationLengthBase) {
+        VerificationRequestOutcome outcome = tryCreateVerificationRequest(emailAddressId, messageTemplate,
+                tokenValidityEndDate, verificationLength, verificationLengthBase);
+        if (outcome == VerificationRequestOutcome.MISSING) {
             throw new NoSuchEmailAddressDataException();
+        } else if (outcome == VerificationRequestOutcome.THROTTLED) {
+            throw new VerificationRequestThrottledException();
         }
+    }
 
-        EmailAddressDataEntity emailAddressDataEntity = findEmailAddressDataEntityById(emailAddressId);
-        if (emailAddressDataEntity.getVerifiableData() != null) {
-            VerificationRequest verificationRequest = verifyService.createVerificationRequest(
-                    emailAddressDataEntity.getVerifiableData().getVerifiableDataId(),
-                    tokenValidityEndDate,
-                    verificationLength,
-                    verificationLengthBase);
-            if (verificationRequest != null) {
-                sendEmail(emailAddressDataEntity.getEmailAddress(),
-                        verificationRequest.getVerifyTokenUUID(),
-                        verificationRequest.getRejectTokenUUID(),
-                        messageTemplate);
-            }
-        } else {
-            VerifiableDataCreation createVerifiableData = verifyService.createVerifiableData(tokenValidityEndDate,
-                    verificationLength, verificationLengthBase);
-            if (createVerifiableData != null) {
-                emailAddressDataEntity.setVerifiableData(em.getReference(VerifiableDataEntity.class,
-                        createVerifiableData.getVerifiableDataId()));
-                em.merge(emailAddressDataEntity);
-
-                sendEmail(emailAddressDataEntity.getEmailAddress(),
-                        createVerifiableData.getVerificationRequest().getVerifyTokenUUID(),
-                        createVerifiableData.getVerificationRequest().getRejectTokenUUID(),
-                        messageTemplate);
+    /**
+     * Creating the verification requests of a chunk of email address ids, sending the emails of the chunk in batches
+     * with the emailBatchSender if it is set, flushing and clearing the persistence context.
+     * 
+     * @param emailAddressIds
+     *            the processed email address ids.
+     * @param chunkStart
+     *            the position of the first email address id of the chunk.
+     * @param chunkEnd
+     *            the position after the last email address id of the chunk.
+     * @param chunk
+     *            the email address ids of the chunk without the duplicates.
+     * @param outcomes
+     *            the array of the {@link VerificationRequestOutcome} values to fill.
+     * @param messageTemplate
+     *            the message template.
+     * @param tokenValidityEndDate
+     *            the expiration date of the tokens.
+     * @param verificationLength
+     *            the verification length in seconds.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the requests.
+     */
+    private void createVerificationRequestChunk(final long[] emailAddressIds, final int chunkStart,
+            final int chunkEnd, final List<Long> chunk, final VerificationRequestOutcome[] outcomes,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        Map<Long, EmailAddressDataEntity> emailAddressDataEntities = findEmailAddressDataEntities(chunk);
+        BatchingEmailTransport batchingEmailTransport = null;
+        EmailTransport chunkEmailTransport = emailTransport;
+        if (emailBatchSender != null) {
+            batchingEmailTransport = new BatchingEmailTransport(emailBatchSender, emailBatchSize);
+            chunkEmailTransport = batchingEmailTransport;
+        }
+        for (int i = chunkStart; i < chunkEnd; i++) {
+            if (outcomes[i] == null) {
+                EmailAddressDataEntity emailAddressDataEntity = emailAddressDataEntities.get(emailAddressIds[i]);
+                if (emailAddressDataEntity == null) {
+                    outcomes[i] = VerificationRequestOutcome.MISSING;
+                } else {
+                    invalidateCachedVerificationStatus(emailAddressIds[i]);
+                    outcomes[i] = requestVerification(chunkEmailTransport, emailAddressDataEntity,
+                            messageTemplate, tokenValidityEndDate, verificationLength, verificationLengthBase);
+                }
             }
         }
+        if (batchingEmailTransport != null) {
+            batchingEmailTransport.flush();
+        }
         em.flush();
+        em.clear();
+    }
+
+    @Override
+    public VerificationRequestBatchResult createVerificationRequests(final long[] emailAddressIds,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        markWritten();
+        if (emailAddressIds == null) {
+            throw new IllegalArgumentException("The emailAddressIds parameter is null. Cannot be null.");
+        }
+        checkVerificationRequestParameters(messageTemplate, tokenValidityEndDate, verificationLength,
+                verificationLengthBase);
 
+        VerificationRequestOutcome[] outcomes = new VerificationRequestOutcome[emailAddressIds.length];
+        Set<Long> processedEmailAddressIds = new HashSet<Long>();
+        List<Long> chunk = new ArrayList<Long>(IN_CHUNK_SIZE);
+        int chunkStart = 0;
+        for (int i = 0; i < emailAddressIds.length; i++) {
+            if (processedEmailAddressIds.add(emailAddressIds[i])) {
+                chunk.add(emailAddressIds[i]);
+            } else {
+                outcomes[i] = VerificationRequestOutcome.DUPLICATE;
+            }
+            if ((chunk.size() == IN_CHUNK_SIZE) || (i == (emailAddressIds.length - 1))) {
+                if (!chunk.isEmpty()) {
+                    createVerificationRequestChunk(emailAddressIds, chunkStart, i + 1, chunk, outcomes,
+                            messageTemplate, tokenValidityEndDate, verificationLength, verificationLengthBase);
+                    chunk.clear();
+                }
+                chunkStart = i + 1;
+            }
+        }
+        return new VerificationRequestBatchResult(emailAddressIds, outcomes);
     }
 
     /**
@@ -168,6 +530,65 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
         return false;
     }
 
+    @Override
+    public long exportEmailAddresses(final Date modifiedFrom, final Date modifiedTo, final long afterEmailAddressId,
+            final EmailAddressExportHandler exportHandler) {
+        if (exportHandler == null) {
+            throw new IllegalArgumentException("The exportHandler parameter is null. Cannot be null.");
+        }
+        long currentTime = System.currentTimeMillis();
+        EntityManager queryEm = getQueryEntityManager();
+        TypedQuery<Object[]> query;
+        if ((modifiedFrom == null) && (modifiedTo == null)) {
+            query = queryEm.createNamedQuery(EmailAddressDataEntity.QUERY_EXPORT, Object[].class);
+        } else {
+            query = queryEm.createNamedQuery(EmailAddressDataEntity.QUERY_EXPORT_MODIFIED, Object[].class)
+                    .setParameter("modifiedFrom", modifiedFrom != null ? modifiedFrom : new Date(0L),
+                            TemporalType.TIMESTAMP)
+                    .setParameter("modifiedTo", modifiedTo != null ? modifiedTo : new Date(currentTime),
+                            TemporalType.TIMESTAMP);
+        }
+        query.setMaxResults(exportFetchSize).setHint(FETCH_SIZE_HINT, exportFetchSize);
+
+        long result = 0L;
+        long lastEmailAddressId = afterEmailAddressId;
+        List<Object[]> page;
+        do {
+            page = query.setParameter("lastEmailAddressId", lastEmailAddressId).getResultList();
+            for (Object[] row : page) {
+                Date verifiedUntil = (Date) row[2];
+                EmailAddressExportRecord exportRecord = new EmailAddressExportRecord((Long) row[0], (String) row[1],
+                        verifiedUntil, isVerificationEndDateValid(verifiedUntil, currentTime), (Date) row[3]);
+                result++;
+                if (!exportHandler.handle(exportRecord)) {
+                    return result;
+                }
+                lastEmailAddressId = exportRecord.getEmailAddressId();
+            }
+        } while (page.size() == exportFetchSize);
+        return result;
+    }
+
+    /**
+     * Finds a chunk of email address data in the database. The id list is padded to {@link #IN_CHUNK_SIZE} to let
+     * the query plan be reused.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data. The size cannot be greater than {@link #IN_CHUNK_SIZE}.
+     * @return the {@link EmailAddressDataEntity} objects of the existing email address data by id.
+     */
+    private Map<Long, EmailAddressDataEntity> findEmailAddressDataEntities(final List<Long> emailAddressIds) {
+        List<EmailAddressDataEntity> resultList = em
+                .createNamedQuery(EmailAddressDataEntity.QUERY_FIND_BY_IDS, EmailAddressDataEntity.class)
+                .setParameter("emailAddressIds", padChunk(emailAddressIds))
+                .getResultList();
+        Map<Long, EmailAddressDataEntity> result = new HashMap<Long, EmailAddressDataEntity>();
+        for (EmailAddressDataEntity emailAddressDataEntity : resultList) {
+            result.put(emailAddressDataEntity.getEmailAddressDataId(), emailAddressDataEntity);
+        }
+        return result;
+    }
+
     /**
      * Finds email address data in the database.
      * 
@@ -179,6 +600,96 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
         return em.find(EmailAddressDataEntity.class, emailAddressId);
     }
 
+    @Override
+    public Long findEmailAddressId(final String emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
+        }
+        return findEmailAddressIdByCanonicalEmailAddress(getQueryEntityManager(),
+                EmailAddressCanonicalizer.canonicalize(emailAddress));
+    }
+
+    /**
+     * Finds the smallest email address id by canonical email address.
+     * 
+     * @param queryEm
+     *            the EntityManager of the query.
+     * @param canonicalEmailAddress
+     *            the canonical form of the email address.
+     * @return the smallest id of the email address data with the canonical email address. If not exist the email
+     *         address data return <code>null</code>.
+     */
+    private Long findEmailAddressIdByCanonicalEmailAddress(final EntityManager queryEm,
+            final String canonicalEmailAddress) {
+        return getFirstResult(queryEm.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_ID_BY_CANONICAL_EMAIL_ADDRESS,
+                Long.class).setParameter("canonicalEmailAddress", canonicalEmailAddress));
+    }
+
+    /**
+     * Finds a chunk of the email address ids of a domain in ascending order.
+     * 
+     * @param canonicalEmailAddressPattern
+     *            the LIKE pattern of the canonical email addresses of the domain.
+     * @param lastEmailAddressId
+     *            only the ids greater than this id are selected.
+     * @param maxEmailAddressNumber
+     *            the maximum number of the selected ids.
+     * @return the ids in ascending order.
+     */
+    private List<Long> findEmailAddressIdsByDomain(final String canonicalEmailAddressPattern,
+            final long lastEmailAddressId, final int maxEmailAddressNumber) {
+        return em.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_IDS_BY_DOMAIN, Long.class)
+                .setParameter("canonicalEmailAddressPattern", canonicalEmailAddressPattern)
+                .setParameter("lastEmailAddressId", lastEmailAddressId)
+                .setMaxResults(maxEmailAddressNumber)
+                .getResultList();
+    }
+
+    /**
+     * Finds the verification end dates of a chunk of email address data.
+     * 
+     * @param queryEm
+     *            the EntityManager of the query.
+     * @param emailAddressIds
+     *            the ids of the email address data. The size cannot be greater than {@link #IN_CHUNK_SIZE}.
+     * @param verificationEndDates
+     *            the map to fill with the verification end dates of the existing email address data. The verification
+     *            end date is <code>null</code> if the email address data has no verifiable data.
+     */
+    private void findVerificationEndDates(final EntityManager queryEm, final List<Long> emailAddressIds,
+            final Map<Long, Date> verificationEndDates) {
+        List<Object[]> resultList = queryEm
+                .createNamedQuery(EmailAddressDataEntity.QUERY_FIND_VERIFICATION_END_DATES_BY_IDS, Object[].class)
+                .setParameter("emailAddressIds", emailAddressIds)
+                .getResultList();
+        for (Object[] row : resultList) {
+            verificationEndDates.put((Long) row[0], (Date) row[1]);
+        }
+    }
+
+    /**
+     * Flushing the inserted batch to the database and clearing the persistence context.
+     * 
+     * @param batch
+     *            the email address data entities of the batch.
+     * @param batchIndexes
+     *            the positions of the entities in the saved collection.
+     * @param batchLength
+     *            the number of the entities in the batch.
+     * @param emailAddressIds
+     *            the array of the email address ids to fill.
+     */
+    private void flushBatch(final EmailAddressDataEntity[] batch, final int[] batchIndexes, final int batchLength,
+            final long[] emailAddressIds) {
+        em.flush();
+        for (int i = 0; i < batchLength; i++) {
+            emailAddressIds[batchIndexes[i]] = batch[i].getEmailAddressDataId();
+            invalidateCachedVerificationStatus(emailAddressIds[batchIndexes[i]]);
+            batch[i] = null;
+        }
+        em.clear();
+    }
+
     /**
      * Get email address based on email address id.
      * 
@@ -187,22 +698,8 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
      * @return the email address. If not exist email address data return <code>null</code>.
      */
     private String getEmailAddressByEmailAddressId(final long emailAddressId) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<String> criteriaQuery = cb.createQuery(String.class);
-
-        Root<EmailAddressDataEntity> root =
-                criteriaQuery.from(EmailAddressDataEntity.class);
-
-        criteriaQuery.select(root.get(EmailAddressDataEntity_.emailAddress));
-
-        Predicate predicate = cb.equal(root.get(EmailAddressDataEntity_.emailAddressDataId), emailAddressId);
-
-        criteriaQuery.where(predicate);
-        List<String> resultList = em.createQuery(criteriaQuery).getResultList();
-        if (resultList.size() == 1) {
-            return resultList.get(0);
-        }
-        return null;
+        return getFirstResult(em.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_EMAIL_ADDRESS_BY_ID, String.class)
+                .setParameter("emailAddressId", emailAddressId));
     }
 
     /**
@@ -213,23 +710,39 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
      * @return the email address id if exist, otherwise return <code>null</code>.
      */
     private Long getEmailAddressIdByVerifiableDataId(final long verifiableDataId) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
-
-        Root<EmailAddressDataEntity> root =
-                criteriaQuery.from(EmailAddressDataEntity.class);
-
-        criteriaQuery.select(root.get(EmailAddressDataEntity_.emailAddressDataId));
+        return getFirstResult(em.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_ID_BY_VERIFIABLE_DATA_ID,
+                Long.class).setParameter("verifiableDataId", verifiableDataId));
+    }
 
-        Predicate predicate = cb.equal(root.get(EmailAddressDataEntity_.verifiableData),
-                em.getReference(VerifiableDataEntity.class, verifiableDataId));
+    /**
+     * Get the EntityManager of the read-only queries. Returns the replica if it is set and the thread did not write
+     * the database within the staleness tolerance, otherwise the primary.
+     * 
+     * @return the EntityManager of the queries.
+     */
+    private EntityManager getQueryEntityManager() {
+        if ((replicaEm == null)
+                || ((System.currentTimeMillis() - lastWriteTimes.get()[0]) < replicaStalenessTolerance)) {
+            return em;
+        }
+        return replicaEm;
+    }
 
-        criteriaQuery.where(predicate);
-        List<Long> resultList = em.createQuery(criteriaQuery).getResultList();
-        if (resultList.size() == 1) {
-            return resultList.get(0);
+    /**
+     * Executes the query with at most one result.
+     * 
+     * @param query
+     *            the query.
+     * @param <T>
+     *            the type of the result.
+     * @return the first result of the query. If the query has no result return <code>null</code>.
+     */
+    private <T> T getFirstResult(final TypedQuery<T> query) {
+        List<T> resultList = query.setMaxResults(1).getResultList();
+        if (resultList.isEmpty()) {
+            return null;
         }
-        return null;
+        return resultList.get(0);
     }
 
     /**
@@ -240,96 +753,541 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
      * @return the verifiable data if exist, otherwise return <code>null</code>.
      */
     private Long getVerifiableDataIdByEmailAddressId(final long emailAddressId) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
-        Root<EmailAddressDataEntity> root =
-                criteriaQuery.from(EmailAddressDataEntity.class);
-        Join<EmailAddressDataEntity, VerifiableDataEntity> vde =
-                root.join(EmailAddressDataEntity_.verifiableData);
-        criteriaQuery.select(vde.get(VerifiableDataEntity_.verifiableDataId));
-        Predicate predicate = cb.equal(root.get(EmailAddressDataEntity_.emailAddressDataId), emailAddressId);
-        criteriaQuery.where(predicate);
-        List<Long> resultList = em.createQuery(criteriaQuery).getResultList();
-        if (resultList.size() == 1) {
-            return resultList.get(0);
+        return getFirstResult(em.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_VERIFIABLE_DATA_ID_BY_ID,
+                Long.class).setParameter("emailAddressId", emailAddressId));
+    }
+
+    /**
+     * Get the ids of the email addresses invalidated by the current transaction. The set is created at the first call
+     * of the transaction with the synchronization that invalidates the ids again after the completion of the
+     * transaction, so a value read by an other thread before the commit does not stay in the cache.
+     * 
+     * @param create
+     *            create the set if the transaction has none.
+     * @return the set of the ids. <code>null</code> if the cache or the {@link TransactionSynchronizationRegistry}
+     *         is not set, no transaction is active or the create parameter is <code>false</code> and the
+     *         transaction has no set.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Long> getTransactionInvalidatedEmailAddressIds(final boolean create) {
+        if ((verificationStatusCache == null) || (transactionSynchronizationRegistry == null)
+                || (transactionSynchronizationRegistry.getTransactionKey() == null)) {
+            return null;
+        }
+        Set<Long> result = (Set<Long>) transactionSynchronizationRegistry.getResource(invalidatedEmailAddressIdsKey);
+        if ((result == null) && create) {
+            final Set<Long> invalidatedEmailAddressIds = new HashSet<Long>();
+            transactionSynchronizationRegistry.putResource(invalidatedEmailAddressIdsKey, invalidatedEmailAddressIds);
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+
+                @Override
+                public void afterCompletion(final int status) {
+                    for (Long emailAddressId : invalidatedEmailAddressIds) {
+                        verificationStatusCache.invalidate(emailAddressId);
+                    }
+                }
+
+                @Override
+                public void beforeCompletion() {
+                    // the entries are invalidated only after the completion
+                }
+            });
+            result = invalidatedEmailAddressIds;
         }
-        return null;
+        return result;
+    }
+
+    /**
+     * Get the verification status cache if the current transaction can use it. The transactions that wrote the
+     * database do not use the cache, because they can read their not committed changes.
+     * 
+     * @return the {@link VerificationStatusCache}. <code>null</code> if the cache is not set or the current
+     *         transaction wrote the database.
+     */
+    private VerificationStatusCache getUsableVerificationStatusCache() {
+        if (getTransactionInvalidatedEmailAddressIds(false) != null) {
+            return null;
+        }
+        return verificationStatusCache;
+    }
+
+    /**
+     * Get the verification end date based on email address data id with one query. The verifiable data is left
+     * joined, so the existence of the email address data and the verification end date are queried together.
+     * 
+     * @param queryEm
+     *            the EntityManager of the query.
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @return an empty list if not exist the email address data, otherwise a list with one element that is the
+     *         verification end date. <b>Important</b> the verification end date itself may be <code>null</code>.
+     */
+    private List<Date> getVerificationEndDatesByEmailAddressId(final EntityManager queryEm,
+            final long emailAddressId) {
+        return queryEm.createNamedQuery(EmailAddressDataEntity.QUERY_FIND_VERIFICATION_END_DATE_BY_ID, Date.class)
+                .setParameter("emailAddressId", emailAddressId)
+                .setMaxResults(1)
+                .getResultList();
     }
 
     /**
-     * Get the verification end date based on email address data id.
+     * Removes the email address from the verification status cache if the cache is set. If a transaction is active
+     * the email address is removed again after the completion of the transaction.
      * 
      * @param emailAddressId
      *            the id of the email address data.
-     * @return the verification end date. If no result return <code>null</code>. <b>Important</b> the verification end
-     *         date itself may be <code>null</code>.
-     */
-    private Date getVerificationEndDateByEmailAddressId(final long emailAddressId) {
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<Date> criteriaQuery = cb.createQuery(Date.class);
-        Root<EmailAddressDataEntity> root =
-                criteriaQuery.from(EmailAddressDataEntity.class);
-        Join<EmailAddressDataEntity, VerifiableDataEntity> vde =
-                root.join(EmailAddressDataEntity_.verifiableData);
-        criteriaQuery.select(vde.get(VerifiableDataEntity_.verifiedUntil));
-        Predicate predicate = cb.equal(root.get(EmailAddressDataEntity_.emailAddressDataId), emailAddressId);
-        criteriaQuery.where(predicate);
-        List<Date> resultList = em.createQuery(criteriaQuery).getResultList();
-        if (resultList.size() == 1) {
-            return resultList.get(0);
-        }
-        return null;
+     */
+    private void invalidateCachedVerificationStatus(final long emailAddressId) {
+        if (verificationStatusCache != null) {
+            verificationStatusCache.invalidate(emailAddressId);
+            Set<Long> invalidatedEmailAddressIds = getTransactionInvalidatedEmailAddressIds(true);
+            if (invalidatedEmailAddressIds != null) {
+                invalidatedEmailAddressIds.add(emailAddressId);
+            }
+        }
     }
 
     @Override
     public void invalidateEmailAddress(final long emailAddressId) {
+        markWritten();
         if (!existEmailAddressData(emailAddressId)) {
             throw new NoSuchEmailAddressDataException();
         }
+        invalidateCachedVerificationStatus(emailAddressId);
         Long verifiableDataId = getVerifiableDataIdByEmailAddressId(emailAddressId);
         if (verifiableDataId != null) {
+            if (emailAddressIdCache != null) {
+                emailAddressIdCache.invalidate(verifiableDataId);
+            }
             em.lock(em.getReference(VerifiableDataEntity.class, verifiableDataId), LockModeType.PESSIMISTIC_WRITE);
             verifyService.invalidateData(verifiableDataId);
         }
         em.remove(em.getReference(EmailAddressDataEntity.class, emailAddressId));
     }
 
+    @Override
+    public int invalidateEmailAddresses(final long[] emailAddressIds) {
+        markWritten();
+        if (emailAddressIds == null) {
+            throw new IllegalArgumentException("The emailAddressIds parameter is null. Cannot be null.");
+        }
+        long[] sortedEmailAddressIds = Arrays.copyOf(emailAddressIds, emailAddressIds.length);
+        Arrays.sort(sortedEmailAddressIds);
+        return invalidateSortedEmailAddresses(sortedEmailAddressIds, sortedEmailAddressIds.length);
+    }
+
+    @Override
+    public int invalidateEmailAddressesByDomain(final String domain) {
+        markWritten();
+        String canonicalEmailAddressPattern =
+                "%@" + escapeLikePattern(EmailAddressCanonicalizer.canonicalizeDomain(domain));
+        int result = 0;
+        long lastEmailAddressId = Long.MIN_VALUE;
+        List<Long> chunk;
+        do {
+            chunk = findEmailAddressIdsByDomain(canonicalEmailAddressPattern, lastEmailAddressId, IN_CHUNK_SIZE);
+            if (!chunk.isEmpty()) {
+                long[] emailAddressIds = new long[chunk.size()];
+                for (int i = 0; i < emailAddressIds.length; i++) {
+                    emailAddressIds[i] = chunk.get(i);
+                }
+                lastEmailAddressId = emailAddressIds[emailAddressIds.length - 1];
+                result += invalidateSortedEmailAddresses(emailAddressIds, emailAddressIds.length);
+            }
+        } while (chunk.size() == IN_CHUNK_SIZE);
+        return result;
+    }
+
+    @Override
+    public int invalidateEmailAddressesByDomain(final String domain, final int maxEmailAddressNumber) {
+        markWritten();
+        if (maxEmailAddressNumber <= 0) {
+            throw new IllegalArgumentException(
+                    "The maxEmailAddressNumber parameter is not positive. Must be positive.");
+        }
+        String canonicalEmailAddressPattern =
+                "%@" + escapeLikePattern(EmailAddressCanonicalizer.canonicalizeDomain(domain));
+        long[] emailAddressIds = new long[Math.min(IN_CHUNK_SIZE, maxEmailAddressNumber)];
+        int length = 0;
+        long lastEmailAddressId = Long.MIN_VALUE;
+        List<Long> chunk;
+        int chunkSize;
+        do {
+            chunkSize = Math.min(IN_CHUNK_SIZE, maxEmailAddressNumber - length);
+            chunk = findEmailAddressIdsByDomain(canonicalEmailAddressPattern, lastEmailAddressId, chunkSize);
+            for (Long emailAddressId : chunk) {
+                if (length == emailAddressIds.length) {
+                    emailAddressIds = Arrays.copyOf(emailAddressIds,
+                            Math.min(length * 2, maxEmailAddressNumber));
+                }
+                emailAddressIds[length] = emailAddressId;
+                length++;
+                lastEmailAddressId = emailAddressId;
+            }
+        } while ((chunk.size() == chunkSize) && (length < maxEmailAddressNumber));
+        return invalidateSortedEmailAddresses(emailAddressIds, length);
+    }
+
+    /**
+     * Invalidating the email addresses in chunks. First the verifiable data ids of the email addresses are collected,
+     * then the verifiable data are locked and invalidated in ascending id order, finally the email address data are
+     * deleted with bulk delete.
+     * 
+     * @param sortedEmailAddressIds
+     *            the ids of the email address data in ascending order. May contain duplicates.
+     * @param length
+     *            the number of the used elements of the sortedEmailAddressIds array.
+     * @return the number of the deleted email address data.
+     */
+    private int invalidateSortedEmailAddresses(final long[] sortedEmailAddressIds, final int length) {
+        List<Long> emailAddressIds = new ArrayList<Long>(length);
+        for (int i = 0; i < length; i++) {
+            if ((i == 0) || (sortedEmailAddressIds[i] != sortedEmailAddressIds[i - 1])) {
+                emailAddressIds.add(sortedEmailAddressIds[i]);
+            }
+        }
+
+        Set<Long> verifiableDataIdSet = new HashSet<Long>();
+        for (int from = 0; from < emailAddressIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = emailAddressIds.subList(from, Math.min(emailAddressIds.size(), from + IN_CHUNK_SIZE));
+            verifiableDataIdSet.addAll(em
+                    .createNamedQuery(EmailAddressDataEntity.QUERY_FIND_VERIFIABLE_DATA_IDS_BY_IDS, Long.class)
+                    .setParameter("emailAddressIds", padChunk(chunk))
+                    .getResultList());
+        }
+        List<Long> verifiableDataIds = new ArrayList<Long>(verifiableDataIdSet);
+        Collections.sort(verifiableDataIds);
+
+        for (int from = 0; from < verifiableDataIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = verifiableDataIds.subList(from,
+                    Math.min(verifiableDataIds.size(), from + IN_CHUNK_SIZE));
+            em.createNamedQuery(EmailAddressDataEntity.QUERY_LOCK_VERIFIABLE_DATA_BY_IDS, VerifiableDataEntity.class)
+                    .setParameter("verifiableDataIds", padChunk(chunk))
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            for (Long verifiableDataId : chunk) {
+                if (emailAddressIdCache != null) {
+                    emailAddressIdCache.invalidate(verifiableDataId);
+                }
+                verifyService.invalidateData(verifiableDataId);
+            }
+            em.flush();
+            em.clear();
+        }
+
+        int result = 0;
+        for (int from = 0; from < emailAddressIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = emailAddressIds.subList(from, Math.min(emailAddressIds.size(), from + IN_CHUNK_SIZE));
+            for (Long emailAddressId : chunk) {
+                invalidateCachedVerificationStatus(emailAddressId);
+            }
+            result += em.createNamedQuery(EmailAddressDataEntity.QUERY_DELETE_BY_IDS)
+                    .setParameter("emailAddressIds", padChunk(chunk))
+                    .executeUpdate();
+            em.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Checks the domain of the email address can receive email or not. If the deliverability of the domain is unknown
+     * the domain is handled as deliverable.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @return <code>false</code> if the {@link DomainDeliverabilityChecker} is set and the domain cannot receive
+     *         email, otherwise <code>true</code>.
+     */
+    private boolean isDomainDeliverable(final String emailAddress) {
+        if (domainDeliverabilityChecker == null) {
+            return true;
+        }
+        String domain = emailAddress.substring(emailAddress.lastIndexOf('@') + 1);
+        try {
+            return domainDeliverabilityChecker.isDeliverable(EmailAddressCanonicalizer.canonicalizeDomain(domain));
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
     @Override
     public boolean isEmailAddressVerified(final long emailAddressId) {
-        boolean result = false;
-        if (!existEmailAddressData(emailAddressId)) {
+        long currentTime = System.currentTimeMillis();
+        VerificationStatusCache cache = getUsableVerificationStatusCache();
+        long invalidationStamp = 0L;
+        if (cache != null) {
+            CachedVerificationStatus cachedVerificationStatus =
+                    cache.getVerificationStatus(emailAddressId, currentTime);
+            if (cachedVerificationStatus == CachedVerificationStatus.MISSING) {
+                throw new NoSuchEmailAddressDataException();
+            } else if (cachedVerificationStatus != CachedVerificationStatus.UNKNOWN) {
+                return cachedVerificationStatus == CachedVerificationStatus.VERIFIED;
+            }
+            invalidationStamp = cache.getInvalidationStamp(emailAddressId);
+        }
+
+        List<Date> verificationEndDates = getVerificationEndDatesByEmailAddressId(getQueryEntityManager(),
+                emailAddressId);
+        if (verificationEndDates.isEmpty()) {
+            if (cache != null) {
+                cache.putMissing(emailAddressId, invalidationStamp, currentTime);
+            }
             throw new NoSuchEmailAddressDataException();
         }
-        Date verificationEndByEmailAddressId = getVerificationEndDateByEmailAddressId(emailAddressId);
-        Date actualDate = new Date();
-        if ((verificationEndByEmailAddressId != null)
-                && (actualDate.getTime() < verificationEndByEmailAddressId.getTime())) {
-            result = true;
+        Date verificationEndDate = verificationEndDates.get(0);
+        if (cache != null) {
+            cache.putVerificationEndDate(emailAddressId, verificationEndDate, invalidationStamp, currentTime);
+        }
+        return isVerificationEndDateValid(verificationEndDate, currentTime);
+    }
+
+    /**
+     * Recording the time of the write of the thread, so its queries run on the primary database during the staleness
+     * tolerance of the replica, and marking the current transaction as written, so it does not use the verification
+     * status cache.
+     */
+    private void markWritten() {
+        if (replicaEm != null) {
+            lastWriteTimes.get()[0] = System.currentTimeMillis();
+        }
+        getTransactionInvalidatedEmailAddressIds(true);
+    }
+
+    /**
+     * Pads the chunk of ids to {@link #IN_CHUNK_SIZE} with its last element to let the query plan of the IN queries be
+     * reused.
+     * 
+     * @param chunk
+     *            the chunk of ids. Cannot be empty and the size cannot be greater than {@link #IN_CHUNK_SIZE}.
+     * @return the padded copy of the chunk.
+     */
+    private List<Long> padChunk(final List<Long> chunk) {
+        List<Long> result = new ArrayList<Long>(IN_CHUNK_SIZE);
+        result.addAll(chunk);
+        Long lastId = chunk.get(chunk.size() - 1);
+        while (result.size() < IN_CHUNK_SIZE) {
+            result.add(lastId);
+        }
+        return result;
+    }
+
+    /**
+     * Persisting the email address and flushing the persistence context to get the generated id.
+     * 
+     * @param emailAddress
+     *            the valid email address.
+     * @param canonicalEmailAddress
+     *            the canonical form of the email address.
+     * @return the id of the email address data.
+     */
+    private long persistEmailAddress(final String emailAddress, final String canonicalEmailAddress) {
+        EmailAddressDataEntity emailAddressDataEntity = new EmailAddressDataEntity();
+        emailAddressDataEntity.setEmailAddress(emailAddress);
+        emailAddressDataEntity.setCanonicalEmailAddress(canonicalEmailAddress);
+        emailAddressDataEntity.setLastModificationDate(new Date());
+        em.persist(emailAddressDataEntity);
+        em.flush();
+        long result = emailAddressDataEntity.getEmailAddressDataId();
+        invalidateCachedVerificationStatus(result);
+        return result;
+    }
+
+    /**
+     * Persisting the valid email addresses in JDBC batches.
+     * 
+     * @param emailAddresses
+     *            the email addresses.
+     * @param validationResults
+     *            the {@link EmailAddressValidationResult} values of the email addresses.
+     * @return the ids of the email address data in the iteration order of the emailAddresses parameter. If the email
+     *         address is invalid the value is <code>0</code>.
+     */
+    private long[] persistEmailAddresses(final Collection<String> emailAddresses,
+            final EmailAddressValidationResult[] validationResults) {
+        long[] result = new long[validationResults.length];
+        Date lastModificationDate = new Date();
+        EmailAddressDataEntity[] batch = new EmailAddressDataEntity[batchSize];
+        int[] batchIndexes = new int[batchSize];
+        int batchLength = 0;
+        int index = 0;
+        for (String emailAddress : emailAddresses) {
+            if (validationResults[index] == EmailAddressValidationResult.VALID) {
+                EmailAddressDataEntity emailAddressDataEntity = new EmailAddressDataEntity();
+                emailAddressDataEntity.setEmailAddress(emailAddress);
+                emailAddressDataEntity.setCanonicalEmailAddress(EmailAddressCanonicalizer.canonicalize(emailAddress));
+                emailAddressDataEntity.setLastModificationDate(lastModificationDate);
+                em.persist(emailAddressDataEntity);
+                batch[batchLength] = emailAddressDataEntity;
+                batchIndexes[batchLength] = index;
+                batchLength++;
+                if (batchLength == batchSize) {
+                    flushBatch(batch, batchIndexes, batchLength, result);
+                    batchLength = 0;
+                }
+            }
+            index++;
+        }
+        if (batchLength > 0) {
+            flushBatch(batch, batchIndexes, batchLength, result);
         }
         return result;
     }
 
+    /**
+     * Creating the verification request of the email address data and sending the email. If the email address data
+     * has no verifiable data a new verifiable data is created. If the domain of the email address cannot receive
+     * email or the {@link SendThrottle} does not allow the sending nothing is created. The token of the throttle is
+     * given back if the verifiable data service does not create the request.
+     * 
+     * @param transport
+     *            the {@link EmailTransport} of the email.
+     * @param emailAddressDataEntity
+     *            the managed {@link EmailAddressDataEntity} object.
+     * @param messageTemplate
+     *            the message template.
+     * @param tokenValidityEndDate
+     *            the expiration date of the token.
+     * @param verificationLength
+     *            the verification length in seconds.
+     * @param verificationLengthBase
+     *            the {@link VerificationLengthBase} that is valid for the request.
+     * @return the {@link VerificationRequestOutcome} of the email address data.
+     */
+    private VerificationRequestOutcome requestVerification(final EmailTransport transport,
+            final EmailAddressDataEntity emailAddressDataEntity, final String messageTemplate,
+            final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        if (!isDomainDeliverable(emailAddressDataEntity.getEmailAddress())) {
+            return VerificationRequestOutcome.UNDELIVERABLE;
+        }
+        String throttleKey = null;
+        if (sendThrottle != null) {
+            throttleKey = emailAddressDataEntity.getCanonicalEmailAddress();
+            if (throttleKey == null) {
+                throttleKey = EmailAddressCanonicalizer.canonicalize(emailAddressDataEntity.getEmailAddress());
+            }
+            if (!sendThrottle.tryAcquire(throttleKey, System.currentTimeMillis())) {
+                return VerificationRequestOutcome.THROTTLED;
+            }
+        }
+        if (emailAddressDataEntity.getVerifiableData() != null) {
+            VerificationRequest verificationRequest = verifyService.createVerificationRequest(
+                    emailAddressDataEntity.getVerifiableData().getVerifiableDataId(),
+                    tokenValidityEndDate,
+                    verificationLength,
+                    verificationLengthBase);
+            if (verificationRequest != null) {
+                emailAddressDataEntity.setLastVerificationRequestDate(new Date());
+                cacheEmailAddressId(emailAddressDataEntity.getVerifiableData().getVerifiableDataId(),
+                        emailAddressDataEntity.getEmailAddressDataId());
+                sendEmail(transport, emailAddressDataEntity.getEmailAddress(),
+                        verificationRequest.getVerifyTokenUUID(),
+                        verificationRequest.getRejectTokenUUID(),
+                        messageTemplate);
+                return VerificationRequestOutcome.CREATED;
+            }
+        } else {
+            VerifiableDataCreation createVerifiableData = verifyService.createVerifiableData(tokenValidityEndDate,
+                    verificationLength, verificationLengthBase);
+            if (createVerifiableData != null) {
+                emailAddressDataEntity.setVerifiableData(em.getReference(VerifiableDataEntity.class,
+                        createVerifiableData.getVerifiableDataId()));
+                Date currentDate = new Date();
+                emailAddressDataEntity.setLastModificationDate(currentDate);
+                emailAddressDataEntity.setLastVerificationRequestDate(currentDate);
+                em.merge(emailAddressDataEntity);
+                cacheEmailAddressId(createVerifiableData.getVerifiableDataId(),
+                        emailAddressDataEntity.getEmailAddressDataId());
+
+                sendEmail(transport, emailAddressDataEntity.getEmailAddress(),
+                        createVerifiableData.getVerificationRequest().getVerifyTokenUUID(),
+                        createVerifiableData.getVerificationRequest().getRejectTokenUUID(),
+                        messageTemplate);
+                return VerificationRequestOutcome.CREATED;
+            }
+        }
+        if (throttleKey != null) {
+            sendThrottle.release(throttleKey, System.currentTimeMillis());
+        }
+        return VerificationRequestOutcome.NOT_CREATED;
+    }
+
+    /**
+     * Resolving the email address id of the verifiable data from the cache or from the database.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @return the email address id if exist, otherwise return <code>null</code>.
+     */
+    private Long resolveEmailAddressId(final long verifiableDataId) {
+        if (emailAddressIdCache == null) {
+            return getEmailAddressIdByVerifiableDataId(verifiableDataId);
+        }
+        long currentTime = System.currentTimeMillis();
+        long cachedEmailAddressId = emailAddressIdCache.getEmailAddressId(verifiableDataId, currentTime);
+        if (cachedEmailAddressId != EmailAddressIdCache.NOT_CACHED) {
+            return cachedEmailAddressId;
+        }
+        Long emailAddressId = getEmailAddressIdByVerifiableDataId(verifiableDataId);
+        if (emailAddressId != null) {
+            emailAddressIdCache.putEmailAddressId(verifiableDataId, emailAddressId, currentTime);
+        }
+        return emailAddressId;
+    }
+
     @Override
     public long saveEmailAddress(final String emailAddress) {
+        EmailAddressSaveResult saveResult = trySaveEmailAddress(emailAddress);
+        if (!saveResult.isSaved()) {
+            throw new InvalidEmailAddressException(saveResult.getValidationResult(), false);
+        }
+        return saveResult.getEmailAddressId();
+    }
+
+    @Override
+    public long[] saveEmailAddresses(final Collection<String> emailAddresses) {
+        EmailAddressValidationResult[] validationResults = validateEmailAddresses(emailAddresses);
+        for (EmailAddressValidationResult validationResult : validationResults) {
+            if (validationResult != EmailAddressValidationResult.VALID) {
+                throw new InvalidEmailAddressException(validationResult, false);
+            }
+        }
+        markWritten();
+        return persistEmailAddresses(emailAddresses, validationResults);
+    }
+
+    @Override
+    public long saveOrGetEmailAddress(final String emailAddress) {
         if (emailAddress == null) {
             throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
         }
-        long result = 0L;
-        if (validateEmailAddress(emailAddress)) {
-            EmailAddressDataEntity emailAddressDataEntity = new EmailAddressDataEntity();
-            emailAddressDataEntity.setEmailAddress(emailAddress);
-            em.persist(emailAddressDataEntity);
-            em.flush();
-            result = emailAddressDataEntity.getEmailAddressDataId();
-        } else {
-            throw new InvalidEmailAddressException();
+        EmailAddressValidationResult validationResult = validateEmailAddress(emailAddress);
+        if (validationResult != EmailAddressValidationResult.VALID) {
+            throw new InvalidEmailAddressException(validationResult, false);
         }
-        return result;
+        markWritten();
+        String canonicalEmailAddress = EmailAddressCanonicalizer.canonicalize(emailAddress);
+        Long emailAddressId = findEmailAddressIdByCanonicalEmailAddress(em, canonicalEmailAddress);
+        if (emailAddressId != null) {
+            return emailAddressId;
+        }
+        // a concurrent transaction may insert the same email address; the lookups return the smallest id
+        return persistEmailAddress(emailAddress, canonicalEmailAddress);
+    }
+
+    @Override
+    public EmailAddressBatchSaveResult saveValidEmailAddresses(final Collection<String> emailAddresses) {
+        markWritten();
+        EmailAddressValidationResult[] validationResults = validateEmailAddresses(emailAddresses);
+        long[] emailAddressIds = persistEmailAddresses(emailAddresses, validationResults);
+        return new EmailAddressBatchSaveResult(emailAddressIds, validationResults);
     }
 
     /**
-     * Sending email which contains the tokens.
+     * Rendering the email which contains the tokens and passing it to the {@link EmailTransport}.
      * 
+     * @param transport
+     *            the {@link EmailTransport} of the email.
      * @param receiverEmailAddress
      *            the receiver email address.
      * @param verifyToken
@@ -340,62 +1298,235 @@ public class EmailAddressDataServiceImpl implements EmailAddressDataService {
      *            the message template. Replacing the $rejectToken variable the reject token and $acceptToken variable
      *            the accept token.
      */
-    private void sendEmail(final String receiverEmailAddress, final String verifyToken, final String rejectToken,
-            final String messageTemplate) {
-        Map<String, String> senderParams = new HashMap<String, String>();
-        senderParams.put(EmailSenderParam.EMAIL_ADDRESS, "localhost@localhost.hu");
-        MessageTenureParam sender = MessageTenureParam.createSender(0L, senderParams);
-
-        Map<String, String> receiverParams = new HashMap<String, String>();
-        receiverParams.put(EmailSenderParam.EMAIL_ADDRESS, receiverEmailAddress);
-        MessageTenureParam reciver = MessageTenureParam.createReceiver(TenureType.TO, 0L, receiverParams);
+    private void sendEmail(final EmailTransport transport, final String receiverEmailAddress,
+            final String verifyToken, final String rejectToken, final String messageTemplate) {
+        String emailBody = verificationTemplateRenderer.render(messageTemplate, verifyToken, rejectToken);
+        transport.sendEmail(receiverEmailAddress, VERIFICATION_EMAIL_SUBJECT, emailBody);
+    }
 
-        Map<String, Object> variables = new HashMap<String, Object>();
-        variables.put("acceptToken", verifyToken);
-        variables.put("rejectToken", rejectToken);
+    /**
+     * Set the number of the email addresses inserted in one JDBC batch.
+     * 
+     * @param batchSize
+     *            the batch size. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the batchSize is not positive.
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batchSize parameter is not positive. Must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
 
-        String emailBody = VelocityUtil.processVelocityTemplateFromString(messageTemplate, "ERROR",
-                variables);
-        MessagePart[] messageParts = new MessagePart[] { MessagePart.createInlineHtml(emailBody) };
+    public void setDomainDeliverabilityChecker(final DomainDeliverabilityChecker domainDeliverabilityChecker) {
+        this.domainDeliverabilityChecker = domainDeliverabilityChecker;
+    }
 
-        emailService.sendMessage(sender, "Verification email", messageParts, null, reciver);
+    public void setDomainPolicy(final ReloadableDomainPolicy domainPolicy) {
+        this.domainPolicy = domainPolicy;
     }
 
     public void setEm(final EntityManager em) {
         this.em = em;
     }
 
-    public void setEmailService(final EmailService emailService) {
-        this.emailService = emailService;
+    public void setEmailAddressIdCache(final EmailAddressIdCache emailAddressIdCache) {
+        this.emailAddressIdCache = emailAddressIdCache;
+    }
+
+    public void setEmailAddressValidator(final EmailAddressValidator emailAddressValidator) {
+        this.emailAddressValidator = emailAddressValidator;
+    }
+
+    /**
+     * Set the sender of the bulk verification emails. The bulk requests send the emails of the emailTransport
+     * otherwise. The emails of the sender do not go through the emailTransport, so the sender must not be set if the
+     * emailTransport is the outbox.
+     * 
+     * @param emailBatchSender
+     *            the {@link EmailBatchSender} or <code>null</code>.
+     */
+    public void setEmailBatchSender(final EmailBatchSender emailBatchSender) {
+        this.emailBatchSender = emailBatchSender;
+    }
+
+    /**
+     * Set the maximum number of the bulk verification emails of one domain sent in one batch.
+     * 
+     * @param emailBatchSize
+     *            the number of the emails. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailBatchSize is not positive.
+     */
+    public void setEmailBatchSize(final int emailBatchSize) {
+        if (emailBatchSize <= 0) {
+            throw new IllegalArgumentException("The emailBatchSize parameter is not positive. Must be positive.");
+        }
+        this.emailBatchSize = emailBatchSize;
+    }
+
+    public void setEmailTransport(final EmailTransport emailTransport) {
+        this.emailTransport = emailTransport;
+    }
+
+    /**
+     * Set the number of the email address data queried in one page of the export.
+     * 
+     * @param exportFetchSize
+     *            the number of the email address data. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the exportFetchSize is not positive.
+     */
+    public void setExportFetchSize(final int exportFetchSize) {
+        if (exportFetchSize <= 0) {
+            throw new IllegalArgumentException("The exportFetchSize parameter is not positive. Must be positive.");
+        }
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    public void setReplicaEm(final EntityManager replicaEm) {
+        this.replicaEm = replicaEm;
+    }
+
+    /**
+     * Set the time after a write of the thread while its queries run on the primary database. Only the queries of the
+     * thread that wrote are routed to the primary database.
+     * 
+     * @param replicaStalenessTolerance
+     *            the time in milliseconds. Cannot be negative.
+     * 
+     * @throws IllegalArgumentException
+     *             if the replicaStalenessTolerance is negative.
+     */
+    public void setReplicaStalenessTolerance(final long replicaStalenessTolerance) {
+        if (replicaStalenessTolerance < 0L) {
+            throw new IllegalArgumentException("The replicaStalenessTolerance parameter is negative. Cannot be "
+                    + "negative.");
+        }
+        this.replicaStalenessTolerance = replicaStalenessTolerance;
+    }
+
+    public void setSendThrottle(final SendThrottle sendThrottle) {
+        this.sendThrottle = sendThrottle;
+    }
+
+    public void setTransactionSynchronizationRegistry(
+            final TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    }
+
+    public void setVerificationStatusCache(final VerificationStatusCache verificationStatusCache) {
+        this.verificationStatusCache = verificationStatusCache;
+    }
+
+    public void setVerificationTemplateRenderer(final VerificationTemplateRenderer verificationTemplateRenderer) {
+        this.verificationTemplateRenderer = verificationTemplateRenderer;
     }
 
     public void setVerifyService(final VerifyService verifyService) {
         this.verifyService = verifyService;
     }
 
+    @Override
+    public VerificationRequestOutcome tryCreateVerificationRequest(final long emailAddressId,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        markWritten();
+        checkVerificationRequestParameters(messageTemplate, tokenValidityEndDate, verificationLength,
+                verificationLengthBase);
+
+        EmailAddressDataEntity emailAddressDataEntity = findEmailAddressDataEntityById(emailAddressId);
+        if (emailAddressDataEntity == null) {
+            return VerificationRequestOutcome.MISSING;
+        }
+        invalidateCachedVerificationStatus(emailAddressId);
+
+        VerificationRequestOutcome outcome = requestVerification(emailTransport, emailAddressDataEntity,
+                messageTemplate, tokenValidityEndDate, verificationLength, verificationLengthBase);
+        em.flush();
+        return outcome;
+    }
+
+    @Override
+    public EmailAddressSaveResult trySaveEmailAddress(final String emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
+        }
+        EmailAddressValidationResult validationResult = validateEmailAddress(emailAddress);
+        if (validationResult != EmailAddressValidationResult.VALID) {
+            return REJECTED_SAVE_RESULTS[validationResult.ordinal()];
+        }
+        markWritten();
+        long emailAddressId = persistEmailAddress(emailAddress, EmailAddressCanonicalizer.canonicalize(emailAddress));
+        return new EmailAddressSaveResult(emailAddressId, validationResult);
+    }
+
     /**
-     * Validate email address with regular expression.
+     * Validating the email address with the {@link EmailAddressValidator} and, if it is valid and the
+     * {@link ReloadableDomainPolicy} is set, checking its domain with the policy.
      * 
      * @param emailAddress
-     *            the email address for validation.
-     * @return <code>true</code> if valid the email address, otherwise <code>false</code>.
+     *            the email address.
+     * @return the {@link EmailAddressValidationResult} of the validator or
+     *         {@link EmailAddressValidationResult#BLOCKED_DOMAIN} if the domain is not allowed by the policy.
+     */
+    private EmailAddressValidationResult validateEmailAddress(final String emailAddress) {
+        EmailAddressValidationResult validationResult = emailAddressValidator.validate(emailAddress);
+        if ((validationResult == EmailAddressValidationResult.VALID) && (domainPolicy != null)
+                && !domainPolicy.isEmailAddressAllowed(emailAddress)) {
+            return EmailAddressValidationResult.BLOCKED_DOMAIN;
+        }
+        return validationResult;
+    }
+
+    /**
+     * Validating all of the email addresses before saving.
+     * 
+     * @param emailAddresses
+     *            the email addresses.
+     * @return the {@link EmailAddressValidationResult} values in the iteration order of the emailAddresses parameter.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddresses parameter is <code>null</code> or contains <code>null</code>.
      */
-    private boolean validateEmailAddress(final String emailAddress) {
-        Pattern pattern = Pattern.compile(EMAIL_PATTERN);
-        Matcher matcher = pattern.matcher(emailAddress);
-        return matcher.matches();
+    private EmailAddressValidationResult[] validateEmailAddresses(final Collection<String> emailAddresses) {
+        if (emailAddresses == null) {
+            throw new IllegalArgumentException("The emailAddresses parameter is null. Cannot be null.");
+        }
+        EmailAddressValidationResult[] result = new EmailAddressValidationResult[emailAddresses.size()];
+        int index = 0;
+        for (String emailAddress : emailAddresses) {
+            if (emailAddress == null) {
+                throw new IllegalArgumentException("The emailAddresses parameter contains null. Cannot contain null.");
+            }
+            result[index] = validateEmailAddress(emailAddress);
+            index++;
+        }
+        return result;
     }
 
     @Override
     public EmailVerificationResult verifyEmailAddress(final String tokenUUID) {
+        markWritten();
         if (tokenUUID == null) {
             throw new IllegalArgumentException("The tokenUUID is null. Cannot be null the paramater.");
         }
         EmailVerificationResult result = null;
         VerificationResult verifyData = verifyService.verifyData(tokenUUID);
         if (verifyData != null) {
-            Long emailAddressId = getEmailAddressIdByVerifiableDataId(verifyData.getVerifiableDataId());
+            Long emailAddressId = resolveEmailAddressId(verifyData.getVerifiableDataId());
             if (emailAddressId != null) {
+                invalidateCachedVerificationStatus(emailAddressId);
+                if (verifyData.getTokenUsageResult() != TokenUsageResult.FAILED) {
+                    em.createNamedQuery(EmailAddressDataEntity.QUERY_UPDATE_LAST_MODIFICATION_DATE)
+                            .setParameter("lastModificationDate", new Date(), TemporalType.TIMESTAMP)
+                            .setParameter("emailAddressId", emailAddressId)
+                            .executeUpdate();
+                }
                 result = new EmailVerificationResult(emailAddressId,
                         determineConfirmationResult(verifyData.getTokenUsageResult()));
             } else {
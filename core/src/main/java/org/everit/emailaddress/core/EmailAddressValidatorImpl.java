@@ -0,0 +1,525 @@
+package org.everit.emailaddress.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.everit.emailaddress.api.EmailAddressValidator;
+import org.everit.emailaddress.api.dto.EmailAddressValidationResults;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Implementation of {@link EmailAddressValidator}. Single pass scanner that accepts exactly the same ASCII email
+ * addresses as the <code>^[_A-Za-z0-9-\+]+(\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\.[A-Za-z0-9]+)*(\.[A-Za-z]{2,})$</code>
+ * regular expression. The not ASCII characters are allowed in the local part except the whitespace, control and
+ * format characters (for example the zero width space and the bidirectional overrides). A domain that contains not
+ * ASCII characters is converted to ASCII with the {@link IdnConverter} and its ASCII form must be a host name
+ * (letters, digits and inner hyphens in every label) with a letter only or punycode top level domain. The scanner
+ * leaves the ASCII path only at the first not ASCII character, so the validation of the ASCII email addresses is not
+ * slower and does not allocate memory. The lists of {@link #validateAll(List)} are split into ranges validated by a
+ * fixed size thread pool if the validator is started and the list is not shorter than the parallel threshold,
+ * otherwise they are validated in the calling thread.
+ */
+public class EmailAddressValidatorImpl implements EmailAddressValidator {
+
+    /**
+     * The minimum length of the top level domain.
+     */
+    private static final int MIN_TOP_LEVEL_DOMAIN_LENGTH = 2;
+
+    /**
+     * The {@link EmailAddressValidationResult} values indexed by ordinal. Cached because the values() method returns a
+     * new array on every call.
+     */
+    private static final EmailAddressValidationResult[] RESULTS = EmailAddressValidationResult.values();
+
+    /**
+     * The default minimum size of the lists validated in parallel.
+     */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+    /**
+     * The minimum number of the email addresses validated by one task.
+     */
+    private static final int MIN_TASK_SIZE = 2048;
+
+    /**
+     * The first not ASCII character.
+     */
+    private static final char FIRST_NON_ASCII_CHARACTER = 0x80;
+
+    /**
+     * The prefix of the punycode labels.
+     */
+    private static final String ACE_PREFIX = "xn--";
+
+    /**
+     * Checks the domain contains a punycode label or not.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param start
+     *            the index of the first character of the domain.
+     * @param length
+     *            the length of the email address.
+     * @return <code>true</code> if a label of the domain starts with the {@link #ACE_PREFIX} ignoring the case,
+     *         otherwise <code>false</code>.
+     */
+    private static boolean containsAceLabel(final CharSequence emailAddress, final int start, final int length) {
+        int labelStart = start;
+        for (int i = start; i <= length; i++) {
+            if ((i == length) || (emailAddress.charAt(i) == '.')) {
+                if (((i - labelStart) > ACE_PREFIX.length())
+                        && ACE_PREFIX.regionMatches(true, 0, emailAddress.subSequence(labelStart, i).toString(), 0,
+                                ACE_PREFIX.length())) {
+                    return true;
+                }
+                labelStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks the character is an ASCII digit.
+     * 
+     * @param c
+     *            the character.
+     * @return <code>true</code> if the character is an ASCII digit, otherwise <code>false</code>.
+     */
+    private static boolean isDigit(final char c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    /**
+     * Checks the character is a not ASCII character allowed in the local part.
+     * 
+     * @param c
+     *            the character.
+     * @return <code>true</code> if the character is not ASCII and is not a whitespace, control or format character,
+     *         otherwise <code>false</code>.
+     */
+    private static boolean isInternationalLocalPartCharacter(final char c) {
+        return (c >= FIRST_NON_ASCII_CHARACTER) && !Character.isISOControl(c) && !Character.isSpaceChar(c)
+                && !Character.isWhitespace(c) && (Character.getType(c) != Character.FORMAT);
+    }
+
+    /**
+     * Checks the character is an ASCII letter.
+     * 
+     * @param c
+     *            the character.
+     * @return <code>true</code> if the character is an ASCII letter, otherwise <code>false</code>.
+     */
+    private static boolean isLetter(final char c) {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z'));
+    }
+
+    /**
+     * Checks the character is allowed in every segment of the local part.
+     * 
+     * @param c
+     *            the character.
+     * @return <code>true</code> if the character is allowed, otherwise <code>false</code>.
+     */
+    private static boolean isLocalPartCharacter(final char c) {
+        return isLetter(c) || isDigit(c) || (c == '_') || (c == '-');
+    }
+
+    /**
+     * Rejecting the domain of the ASCII path. If the not scanned part of the domain contains not ASCII characters the
+     * domain is validated as an internationalized domain instead. If the domain is ASCII and contains a punycode label
+     * the domain is validated by the rules of the ASCII form of the internationalized domains, so an internationalized
+     * domain is accepted in Unicode and in punycode form too.
+     * 
+     * @param result
+     *            the {@link EmailAddressValidationResult} of the ASCII path.
+     * @param emailAddress
+     *            the email address.
+     * @param start
+     *            the index of the first character of the domain.
+     * @param index
+     *            the index of the character that violates the rule of the ASCII path.
+     * @param length
+     *            the length of the email address.
+     * @return the {@link EmailAddressValidationResult} of the domain.
+     */
+    private static EmailAddressValidationResult rejectDomain(final EmailAddressValidationResult result,
+            final CharSequence emailAddress, final int start, final int index, final int length) {
+        if (IdnConverter.isAscii(emailAddress, index, length)) {
+            if (containsAceLabel(emailAddress, start, length)) {
+                return validateAsciiCompatibleDomain(emailAddress.subSequence(start, length).toString()
+                        .toLowerCase(Locale.ENGLISH));
+            }
+            return result;
+        }
+        return validateInternationalDomain(emailAddress, start, length);
+    }
+
+    /**
+     * Validating the ASCII form of an internationalized domain.
+     * 
+     * @param asciiDomain
+     *            the ASCII form of the domain.
+     * @return the {@link EmailAddressValidationResult} of the domain.
+     */
+    private static EmailAddressValidationResult validateAsciiCompatibleDomain(final String asciiDomain) {
+        int length = asciiDomain.length();
+        int labelStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if ((i == length) || (asciiDomain.charAt(i) == '.')) {
+                if (i == labelStart) {
+                    return EmailAddressValidationResult.EMPTY_DOMAIN_LABEL;
+                }
+                if ((asciiDomain.charAt(labelStart) == '-') || (asciiDomain.charAt(i - 1) == '-')) {
+                    return EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER;
+                }
+                if (i < length) {
+                    labelStart = i + 1;
+                }
+            } else {
+                char c = asciiDomain.charAt(i);
+                if (!isLetter(c) && !isDigit(c) && (c != '-')) {
+                    return EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER;
+                }
+            }
+        }
+        if (labelStart == 0) {
+            return EmailAddressValidationResult.MISSING_TOP_LEVEL_DOMAIN;
+        }
+        if (asciiDomain.startsWith(ACE_PREFIX, labelStart)) {
+            return EmailAddressValidationResult.VALID;
+        }
+        if ((length - labelStart) < MIN_TOP_LEVEL_DOMAIN_LENGTH) {
+            return EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN;
+        }
+        for (int i = labelStart; i < length; i++) {
+            if (!isLetter(asciiDomain.charAt(i))) {
+                return EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN;
+            }
+        }
+        return EmailAddressValidationResult.VALID;
+    }
+
+    /**
+     * Validating a domain that contains not ASCII characters.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param start
+     *            the index of the first character of the domain.
+     * @param length
+     *            the length of the email address.
+     * @return the {@link EmailAddressValidationResult} of the domain.
+     */
+    private static EmailAddressValidationResult validateInternationalDomain(final CharSequence emailAddress,
+            final int start, final int length) {
+        String asciiDomain = IdnConverter.toAscii(emailAddress.subSequence(start, length).toString());
+        if (asciiDomain == null) {
+            return EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER;
+        }
+        return validateAsciiCompatibleDomain(asciiDomain);
+    }
+
+    /**
+     * The minimum size of the lists validated in parallel.
+     */
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * The number of the threads validating the large lists.
+     */
+    private int threadNumber = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The executor of the parallel validation. <code>null</code> if the validator is not started.
+     */
+    private volatile ExecutorService executorService;
+
+    @Override
+    public boolean isValid(final CharSequence emailAddress) {
+        return validate(emailAddress) == EmailAddressValidationResult.VALID;
+    }
+
+    /**
+     * Set the minimum size of the lists validated in parallel. The shorter lists are validated in the calling thread,
+     * because the validation of them is faster than the passing of the tasks to the threads.
+     * 
+     * @param parallelThreshold
+     *            the minimum size. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the parallelThreshold is not positive.
+     */
+    public void setParallelThreshold(final int parallelThreshold) {
+        if (parallelThreshold <= 0) {
+            throw new IllegalArgumentException("The parallelThreshold parameter is not positive. Must be positive.");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Set the number of the threads validating the large lists. Must be called before the {@link #start()}.
+     * 
+     * @param threadNumber
+     *            the number of the threads. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the threadNumber is not positive.
+     */
+    public void setThreadNumber(final int threadNumber) {
+        if (threadNumber <= 0) {
+            throw new IllegalArgumentException("The threadNumber parameter is not positive. Must be positive.");
+        }
+        this.threadNumber = threadNumber;
+    }
+
+    /**
+     * Starting the threads of the parallel validation.
+     */
+    public synchronized void start() {
+        if ((executorService == null) && (threadNumber > 1)) {
+            executorService = Executors.newFixedThreadPool(threadNumber);
+        }
+    }
+
+    /**
+     * Stopping the threads of the parallel validation. The later calls of the {@link #validateAll(List)} validate in
+     * the calling thread.
+     */
+    public synchronized void stop() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+
+    @Override
+    public EmailAddressValidationResult validate(final CharSequence emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
+        }
+        int length = emailAddress.length();
+        int index = validateLocalPart(emailAddress, length);
+        if (index < 0) {
+            return RESULTS[-index];
+        }
+        return validateDomain(emailAddress, index + 1, length);
+    }
+
+    @Override
+    public EmailAddressValidationResults validateAll(final List<? extends CharSequence> emailAddresses) {
+        if (emailAddresses == null) {
+            throw new IllegalArgumentException("The emailAddresses parameter is null. Cannot be null.");
+        }
+        int size = emailAddresses.size();
+        byte[] reasonCodes = new byte[size];
+        ExecutorService currentExecutorService = executorService;
+        if ((currentExecutorService == null) || (size < parallelThreshold)
+                || !validateInParallel(emailAddresses, reasonCodes, currentExecutorService)) {
+            int index = 0;
+            for (CharSequence emailAddress : emailAddresses) {
+                reasonCodes[index] = validateEntry(emailAddress);
+                index++;
+            }
+        }
+        BitSet valid = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (reasonCodes[i] == 0) {
+                valid.set(i);
+            }
+        }
+        return new EmailAddressValidationResults(valid, reasonCodes);
+    }
+
+    /**
+     * Validating the domain of the email address.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param start
+     *            the index of the first character of the domain.
+     * @param length
+     *            the length of the email address.
+     * @return the {@link EmailAddressValidationResult} of the domain.
+     */
+    private EmailAddressValidationResult validateDomain(final CharSequence emailAddress, final int start,
+            final int length) {
+        boolean firstLabel = true;
+        boolean letterOnlyLabel = true;
+        int labelLength = 0;
+        for (int i = start; i < length; i++) {
+            char c = emailAddress.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return rejectDomain(EmailAddressValidationResult.EMPTY_DOMAIN_LABEL, emailAddress, start, i,
+                            length);
+                }
+                firstLabel = false;
+                letterOnlyLabel = true;
+                labelLength = 0;
+            } else if (isLetter(c)) {
+                labelLength++;
+            } else if (isDigit(c) || (firstLabel && (c == '-'))) {
+                letterOnlyLabel = false;
+                labelLength++;
+            } else {
+                return rejectDomain(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER, emailAddress, start, i,
+                        length);
+            }
+        }
+        if (labelLength == 0) {
+            return EmailAddressValidationResult.EMPTY_DOMAIN_LABEL;
+        }
+        if (firstLabel) {
+            return EmailAddressValidationResult.MISSING_TOP_LEVEL_DOMAIN;
+        }
+        if (!letterOnlyLabel || (labelLength < MIN_TOP_LEVEL_DOMAIN_LENGTH)) {
+            return rejectDomain(EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN, emailAddress, start, length,
+                    length);
+        }
+        return EmailAddressValidationResult.VALID;
+    }
+
+    /**
+     * Validating an email address of the list.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @return the ordinal of the {@link EmailAddressValidationResult}.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress is <code>null</code>.
+     */
+    private byte validateEntry(final CharSequence emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddresses parameter contains null. Cannot contain null.");
+        }
+        return (byte) validate(emailAddress).ordinal();
+    }
+
+    /**
+     * Validating the email addresses of the list in ranges with the thread pool.
+     * 
+     * @param emailAddresses
+     *            the email addresses.
+     * @param reasonCodes
+     *            the filled ordinals of the {@link EmailAddressValidationResult} values.
+     * @param currentExecutorService
+     *            the executor of the validation.
+     * @return <code>true</code> if the email addresses are validated, <code>false</code> if the executor is stopped
+     *         meanwhile.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddresses contains <code>null</code>.
+     * @throws IllegalStateException
+     *             if the thread is interrupted while waiting for the validation.
+     */
+    private boolean validateInParallel(final List<? extends CharSequence> emailAddresses, final byte[] reasonCodes,
+            final ExecutorService currentExecutorService) {
+        final List<? extends CharSequence> randomAccessList;
+        if (emailAddresses instanceof RandomAccess) {
+            randomAccessList = emailAddresses;
+        } else {
+            randomAccessList = new ArrayList<CharSequence>(emailAddresses);
+        }
+        int taskNumber = Math.max(1, Math.min(threadNumber, reasonCodes.length / MIN_TASK_SIZE));
+        int taskSize = ((reasonCodes.length + taskNumber) - 1) / taskNumber;
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(taskNumber);
+        for (int start = 0; start < reasonCodes.length; start += taskSize) {
+            final int from = start;
+            final int to = Math.min(start + taskSize, reasonCodes.length);
+            tasks.add(new Callable<Object>() {
+
+                @Override
+                public Object call() {
+                    for (int i = from; i < to; i++) {
+                        reasonCodes[i] = validateEntry(randomAccessList.get(i));
+                    }
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Object> future : currentExecutorService.invokeAll(tasks)) {
+                future.get();
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The validation is interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Validating the local part of the email address.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @param length
+     *            the length of the email address.
+     * @return the index of the <code>@</code> character if the local part is valid, otherwise the negated ordinal of
+     *         the violated {@link EmailAddressValidationResult}.
+     */
+    private int validateLocalPart(final CharSequence emailAddress, final int length) {
+        boolean firstSegment = true;
+        int segmentLength = 0;
+        for (int i = 0; i < length; i++) {
+            char c = emailAddress.charAt(i);
+            if (c == '@') {
+                if (segmentLength == 0) {
+                    return -EmailAddressValidationResult.EMPTY_LOCAL_PART_SEGMENT.ordinal();
+                }
+                return i;
+            } else if (c == '.') {
+                if (segmentLength == 0) {
+                    return -EmailAddressValidationResult.EMPTY_LOCAL_PART_SEGMENT.ordinal();
+                }
+                firstSegment = false;
+                segmentLength = 0;
+            } else if (isLocalPartCharacter(c) || (firstSegment && (c == '+'))
+                    || isInternationalLocalPartCharacter(c)) {
+                segmentLength++;
+            } else {
+                return -EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER.ordinal();
+            }
+        }
+        return -EmailAddressValidationResult.MISSING_AT_SIGN.ordinal();
+    }
+}
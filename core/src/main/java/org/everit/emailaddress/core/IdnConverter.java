@@ -0,0 +1,124 @@
+package org.everit.emailaddress.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.net.IDN;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Converts the internationalized domain names to their ASCII (punycode) form with the STD3 host name rules, so the
+ * labels of the converted domains contain only letters, digits and inner hyphens. The ASCII domains are returned
+ * without conversion and without allocation; the conversions of the internationalized domains are cached in a size
+ * bounded cache because the punycode encoding is much slower than the validation of the email addresses.
+ */
+public final class IdnConverter {
+
+    /**
+     * The maximum number of the cached conversions.
+     */
+    private static final int CAPACITY = 4096;
+
+    /**
+     * The first not ASCII character.
+     */
+    private static final char FIRST_NON_ASCII_CHARACTER = 0x80;
+
+    /**
+     * The cached value of the domains that cannot be converted. The conversion of a not empty domain is never empty.
+     */
+    private static final String INVALID = "";
+
+    /**
+     * The cached ASCII domains by internationalized domain.
+     */
+    private static final ConcurrentMap<String, String> CACHE = new ConcurrentHashMap<String, String>();
+
+    /**
+     * Checks the text contains only ASCII characters.
+     * 
+     * @param text
+     *            the text.
+     * @param start
+     *            the index of the first checked character.
+     * @param end
+     *            the index after the last checked character.
+     * @return <code>true</code> if the range contains only ASCII characters, otherwise <code>false</code>.
+     */
+    public static boolean isAscii(final CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) >= FIRST_NON_ASCII_CHARACTER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the domain to its lower-cased ASCII form. The labels are separated by the full stop or by the
+     * ideographic full stops.
+     * 
+     * @param domain
+     *            the domain. Cannot be <code>null</code>.
+     * @return the ASCII form of the domain or <code>null</code> if the domain is not a valid internationalized domain
+     *         name. An ASCII domain is returned as it is.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code>.
+     */
+    public static String toAscii(final String domain) {
+        if (domain == null) {
+            throw new IllegalArgumentException("The domain parameter is null. Cannot be null.");
+        }
+        if (isAscii(domain, 0, domain.length())) {
+            return domain;
+        }
+        String asciiDomain = CACHE.get(domain);
+        if (asciiDomain == null) {
+            try {
+                asciiDomain = IDN.toASCII(domain, IDN.USE_STD3_ASCII_RULES).toLowerCase(Locale.ENGLISH);
+            } catch (IllegalArgumentException e) {
+                asciiDomain = INVALID;
+            }
+            if (CACHE.size() >= CAPACITY) {
+                Iterator<String> iterator = CACHE.keySet().iterator();
+                if (iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+            CACHE.put(domain, asciiDomain);
+        }
+        if (asciiDomain.length() == 0) {
+            return null;
+        }
+        return asciiDomain;
+    }
+
+    /**
+     * Utility class.
+     */
+    private IdnConverter() {
+    }
+}
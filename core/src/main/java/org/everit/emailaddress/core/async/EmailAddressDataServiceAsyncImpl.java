@@ -0,0 +1,429 @@
+package org.everit.emailaddress.core.async;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressDataServiceAsync;
+import org.everit.emailaddress.api.EmailAddressOperationCallback;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
+import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Implementation of {@link EmailAddressDataServiceAsync}. The operations run on a fixed size thread pool and call the
+ * transactional {@link EmailAddressDataService}, so every operation has its own transaction. The not completed
+ * (queued and running) operations are counted with a semaphore and the calls over the maximum are rejected, so a
+ * slow database cannot pile up an unbounded queue. The permit of an operation is released when its thread is done
+ * with it, so a cancelled but still running operation keeps its permit until its call returns. The thread number
+ * should match the size of the connection pool of the database.
+ */
+public class EmailAddressDataServiceAsyncImpl implements EmailAddressDataServiceAsync {
+
+    /**
+     * The operation that notifies its callback when it is done and releases its permit when its thread is done with
+     * it.
+     * 
+     * @param <T>
+     *            the type of the result of the operation.
+     */
+    private final class Operation<T> extends FutureTask<T> {
+
+        /**
+         * The callback of the result. May be <code>null</code>.
+         */
+        private final EmailAddressOperationCallback<? super T> callback;
+
+        /**
+         * The permits of the not completed operations of the executor that executes the operation.
+         */
+        private final Semaphore permits;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param callable
+         *            the call of the {@link EmailAddressDataService}.
+         * @param callback
+         *            the callback of the result. May be <code>null</code>.
+         * @param permits
+         *            the permits of the not completed operations. One permit is acquired for the operation.
+         */
+        private Operation(final Callable<T> callable, final EmailAddressOperationCallback<? super T> callback,
+                final Semaphore permits) {
+            super(callable);
+            this.callback = callback;
+            this.permits = permits;
+        }
+
+        /**
+         * Cancelling the operation that was removed from the queue of the executor, so it will never run.
+         */
+        private void abandon() {
+            cancel(false);
+            permits.release();
+        }
+
+        @Override
+        protected void done() {
+            if (callback == null) {
+                return;
+            }
+            try {
+                T result;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    callback.failed(e.getCause());
+                    return;
+                } catch (CancellationException e) {
+                    callback.failed(e);
+                    return;
+                }
+                callback.completed(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // the exception of the callback must not break the thread of the operations
+                callbackErrorCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Running the operation and releasing its permit. An operation cancelled before it started returns
+         * immediately; an operation cancelled while it runs is done for its callers, but its permit is released only
+         * when its call returns.
+         */
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * The default number of the threads of the operations.
+     */
+    private static final int DEFAULT_THREAD_NUMBER = 16;
+
+    /**
+     * The default maximum number of the not completed operations.
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    /**
+     * The maximum time of waiting for the operations on stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 10000L;
+
+    /**
+     * The {@link EmailAddressDataService} instance that executes the operations.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The number of the threads of the operations.
+     */
+    private int threadNumber = DEFAULT_THREAD_NUMBER;
+
+    /**
+     * The maximum number of the not completed operations.
+     */
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    /**
+     * The permits of the not completed operations. Created by the {@link #start()}.
+     */
+    private volatile Semaphore inFlightPermits;
+
+    /**
+     * The executor of the operations. <code>null</code> if the service is not started.
+     */
+    private volatile ExecutorService executorService;
+
+    /**
+     * The number of the rejected operations.
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * The number of the exceptions thrown by the callbacks.
+     */
+    private final AtomicLong callbackErrorCount = new AtomicLong();
+
+    /**
+     * Cancelling the operations that were removed from the queue of the stopped executor.
+     * 
+     * @param operations
+     *            the not started operations.
+     */
+    private void abandon(final List<Runnable> operations) {
+        for (Runnable operation : operations) {
+            ((Operation<?>) operation).abandon();
+        }
+    }
+
+    @Override
+    public Future<EmailVerificationStatuses> areEmailAddressesVerified(final long[] emailAddressIds,
+            final EmailAddressOperationCallback<? super EmailVerificationStatuses> callback) {
+        return submit(new Callable<EmailVerificationStatuses>() {
+
+            @Override
+            public EmailVerificationStatuses call() {
+                return emailAddressDataService.areEmailAddressesVerified(emailAddressIds);
+            }
+        }, callback);
+    }
+
+    @Override
+    public Future<Long> findEmailAddressId(final String emailAddress,
+            final EmailAddressOperationCallback<? super Long> callback) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                return emailAddressDataService.findEmailAddressId(emailAddress);
+            }
+        }, callback);
+    }
+
+    public long getCallbackErrorCount() {
+        return callbackErrorCount.get();
+    }
+
+    /**
+     * Get the number of the not completed (queued and running) operations.
+     * 
+     * @return the number of the operations. <code>0</code> if the service is not started.
+     */
+    public int getInFlightNumber() {
+        if (executorService == null) {
+            return 0;
+        }
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public Future<Void> invalidateEmailAddress(final long emailAddressId,
+            final EmailAddressOperationCallback<? super Void> callback) {
+        return submit(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                emailAddressDataService.invalidateEmailAddress(emailAddressId);
+                return null;
+            }
+        }, callback);
+    }
+
+    @Override
+    public Future<Boolean> isEmailAddressVerified(final long emailAddressId,
+            final EmailAddressOperationCallback<? super Boolean> callback) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() {
+                return Boolean.valueOf(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+            }
+        }, callback);
+    }
+
+    @Override
+    public Future<Long> saveOrGetEmailAddress(final String emailAddress,
+            final EmailAddressOperationCallback<? super Long> callback) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                return Long.valueOf(emailAddressDataService.saveOrGetEmailAddress(emailAddress));
+            }
+        }, callback);
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    /**
+     * Set the maximum number of the not completed operations. Must be called before the {@link #start()}.
+     * 
+     * @param maxInFlight
+     *            the maximum number of the operations. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the maxInFlight is not positive.
+     */
+    public void setMaxInFlight(final int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("The maxInFlight parameter is not positive. Must be positive.");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Set the number of the threads of the operations. Must be called before the {@link #start()}.
+     * 
+     * @param threadNumber
+     *            the number of the threads. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the threadNumber is not positive.
+     */
+    public void setThreadNumber(final int threadNumber) {
+        if (threadNumber <= 0) {
+            throw new IllegalArgumentException("The threadNumber parameter is not positive. Must be positive.");
+        }
+        this.threadNumber = threadNumber;
+    }
+
+    /**
+     * Starting the threads of the operations. Called by blueprint.
+     */
+    public synchronized void start() {
+        if (executorService == null) {
+            inFlightPermits = new Semaphore(maxInFlight);
+            executorService = Executors.newFixedThreadPool(threadNumber);
+        }
+    }
+
+    /**
+     * Stopping the threads of the operations. The new operations are rejected, the queued and the running operations
+     * are completed. If they are not completed in time the running operations are interrupted and the queued
+     * operations are cancelled, their callbacks are notified with {@link CancellationException}. Called by
+     * blueprint.
+     */
+    public synchronized void stop() {
+        if (executorService == null) {
+            return;
+        }
+        ExecutorService stoppedExecutorService = executorService;
+        executorService = null;
+        stoppedExecutorService.shutdown();
+        try {
+            if (!stoppedExecutorService.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                abandon(stoppedExecutorService.shutdownNow());
+            }
+        } catch (InterruptedException e) {
+            abandon(stoppedExecutorService.shutdownNow());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Passing the operation to the thread pool if the number of the not completed operations is below the maximum.
+     * 
+     * @param callable
+     *            the call of the {@link EmailAddressDataService}.
+     * @param callback
+     *            the callback of the result. May be <code>null</code>.
+     * @param <T>
+     *            the type of the result.
+     * @return the {@link Future} of the operation.
+     * 
+     * @throws RejectedExecutionException
+     *             if the maximum number of the not completed operations is reached or the service is stopped.
+     */
+    private <T> Future<T> submit(final Callable<T> callable, final EmailAddressOperationCallback<? super T> callback) {
+        ExecutorService currentExecutorService = executorService;
+        Semaphore permits = inFlightPermits;
+        if (currentExecutorService == null) {
+            rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException("The service is not started.");
+        }
+        if (!permits.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new RejectedExecutionException("The maximum number of the not completed operations ("
+                    + maxInFlight + ") is reached.");
+        }
+        Operation<T> operation = new Operation<T>(callable, callback, permits);
+        try {
+            currentExecutorService.execute(operation);
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            rejectedCount.incrementAndGet();
+            throw e;
+        }
+        return operation;
+    }
+
+    @Override
+    public Future<VerificationRequestOutcome> tryCreateVerificationRequest(final long emailAddressId,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase,
+            final EmailAddressOperationCallback<? super VerificationRequestOutcome> callback) {
+        return submit(new Callable<VerificationRequestOutcome>() {
+
+            @Override
+            public VerificationRequestOutcome call() {
+                return emailAddressDataService.tryCreateVerificationRequest(emailAddressId, messageTemplate,
+                        tokenValidityEndDate, verificationLength, verificationLengthBase);
+            }
+        }, callback);
+    }
+
+    @Override
+    public Future<EmailAddressSaveResult> trySaveEmailAddress(final String emailAddress,
+            final EmailAddressOperationCallback<? super EmailAddressSaveResult> callback) {
+        return submit(new Callable<EmailAddressSaveResult>() {
+
+            @Override
+            public EmailAddressSaveResult call() {
+                return emailAddressDataService.trySaveEmailAddress(emailAddress);
+            }
+        }, callback);
+    }
+
+    @Override
+    public Future<EmailVerificationResult> verifyEmailAddress(final String tokenUUID,
+            final EmailAddressOperationCallback<? super EmailVerificationResult> callback) {
+        return submit(new Callable<EmailVerificationResult>() {
+
+            @Override
+            public EmailVerificationResult call() {
+                return emailAddressDataService.verifyEmailAddress(tokenUUID);
+            }
+        }, callback);
+    }
+
+}
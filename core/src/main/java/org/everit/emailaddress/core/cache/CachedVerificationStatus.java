@@ -0,0 +1,48 @@
+package org.everit.emailaddress.core.cache;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Enumeration of the verification status stored in the {@link VerificationStatusCache}.
+ */
+public enum CachedVerificationStatus {
+
+    /**
+     * The verification status is not in the cache.
+     */
+    UNKNOWN,
+
+    /**
+     * The email address data is not exist.
+     */
+    MISSING,
+
+    /**
+     * The email address is verified.
+     */
+    VERIFIED,
+
+    /**
+     * The email address is not verified.
+     */
+    NOT_VERIFIED;
+}
@@ -0,0 +1,174 @@
+package org.everit.emailaddress.core.cache;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the email address ids by verifiable data id. The verifiable data of an email address data never changes
+ * once it is set, so the entries are valid until the email address data is invalidated. The
+ * {@link org.everit.emailaddress.core.EmailAddressDataServiceImpl} removes the entry on invalidation. The time to live
+ * of the entries bounds the staleness caused by invalidations made by other nodes: until it passes, a cached entry can
+ * resolve to the id of an email address data deleted by an other node.
+ */
+public class EmailAddressIdCache {
+
+    /**
+     * The value returned by {@link #getEmailAddressId(long, long)} if the verifiable data id is not in the cache.
+     */
+    public static final long NOT_CACHED = 0L;
+
+    /**
+     * The default time to live of the entries in milliseconds.
+     */
+    private static final long DEFAULT_TIME_TO_LIVE = 3600000L;
+
+    /**
+     * The email address ids by verifiable data id.
+     */
+    private final LongValueCache cache;
+
+    /**
+     * The time to live of the entries in milliseconds.
+     */
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * The number of the cache hits.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The number of the cache misses.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The number of the evicted entries.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The simple constructor.
+     * 
+     * @param capacity
+     *            the maximum number of the cached verifiable data ids. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public EmailAddressIdCache(final int capacity) {
+        cache = new LongValueCache(capacity);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int getCapacity() {
+        return cache.getCapacity();
+    }
+
+    /**
+     * Get the cached email address id of the verifiable data.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return the id of the email address data. If the verifiable data id is not in the cache return
+     *         {@link #NOT_CACHED}.
+     */
+    public long getEmailAddressId(final long verifiableDataId, final long currentTime) {
+        long emailAddressId = cache.get(verifiableDataId, currentTime);
+        if (emailAddressId == LongValueCache.ABSENT) {
+            missCount.incrementAndGet();
+            return NOT_CACHED;
+        }
+        hitCount.incrementAndGet();
+        return emailAddressId;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Removes the verifiable data from the cache. Must be called when the email address data is invalidated.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     */
+    public void invalidate(final long verifiableDataId) {
+        cache.remove(verifiableDataId);
+    }
+
+    /**
+     * Put the email address id of the verifiable data to the cache.
+     * 
+     * @param verifiableDataId
+     *            the id of the verifiable data.
+     * @param emailAddressId
+     *            the id of the email address data. Cannot be {@link #NOT_CACHED}.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddressId is {@link #NOT_CACHED}.
+     */
+    public void putEmailAddressId(final long verifiableDataId, final long emailAddressId, final long currentTime) {
+        if (emailAddressId == NOT_CACHED) {
+            throw new IllegalArgumentException("The emailAddressId parameter is NOT_CACHED. Cannot be NOT_CACHED.");
+        }
+        if (cache.put(verifiableDataId, emailAddressId, currentTime + timeToLive, currentTime)) {
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Set the time to live of the entries.
+     * 
+     * @param timeToLive
+     *            the time to live in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the timeToLive is not positive.
+     */
+    public void setTimeToLive(final long timeToLive) {
+        if (timeToLive <= 0L) {
+            throw new IllegalArgumentException("The timeToLive parameter is not positive. Must be positive.");
+        }
+        this.timeToLive = timeToLive;
+    }
+
+}
@@ -0,0 +1,253 @@
+package org.everit.emailaddress.core.cache;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Size bounded, thread safe cache of <code>long</code> keys and <code>long</code> values stored in primitive arrays.
+ * The cache is set associative: every key can be stored only in the slots of one set and a full set evicts its least
+ * recently used entry. The sets are guarded by striped locks, so the operations do not allocate memory and concurrent
+ * operations on different stripes do not block each other.
+ */
+public final class LongValueCache {
+
+    /**
+     * The value returned by {@link #get(long, long)} if the key is not in the cache.
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    /**
+     * The number of the slots in one set.
+     */
+    private static final int WAYS = 4;
+
+    /**
+     * The maximum number of the lock stripes.
+     */
+    private static final int MAX_LOCK_STRIPES = 64;
+
+    /**
+     * The multiplier of the key hashing (the golden ratio).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The number of the bits of the set index.
+     */
+    private final int setIndexBits;
+
+    /**
+     * The keys of the slots.
+     */
+    private final long[] keys;
+
+    /**
+     * The values of the slots.
+     */
+    private final long[] values;
+
+    /**
+     * The expiration times of the slots in milliseconds. The slot is empty if the value is <code>0</code>.
+     */
+    private final long[] expirations;
+
+    /**
+     * The last access ticks of the slots.
+     */
+    private final long[] accesses;
+
+    /**
+     * The access tick counters of the lock stripes.
+     */
+    private final long[] ticks;
+
+    /**
+     * The lock stripes.
+     */
+    private final Object[] locks;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param capacity
+     *            the maximum number of the entries. Rounded up to the power of two. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public LongValueCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity parameter is not positive. Must be positive.");
+        }
+        int setNumber = 1;
+        int bits = 0;
+        while ((setNumber * WAYS) < capacity) {
+            setNumber <<= 1;
+            bits++;
+        }
+        setIndexBits = bits;
+        keys = new long[setNumber * WAYS];
+        values = new long[setNumber * WAYS];
+        expirations = new long[setNumber * WAYS];
+        accesses = new long[setNumber * WAYS];
+        int lockStripeNumber = Math.min(setNumber, MAX_LOCK_STRIPES);
+        ticks = new long[lockStripeNumber];
+        locks = new Object[lockStripeNumber];
+        for (int i = 0; i < lockStripeNumber; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        for (int i = 0; i < locks.length; i++) {
+            synchronized (locks[i]) {
+                for (int set = i; (set * WAYS) < keys.length; set += locks.length) {
+                    for (int slot = set * WAYS; slot < ((set + 1) * WAYS); slot++) {
+                        expirations[slot] = 0L;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the value of the key.
+     * 
+     * @param key
+     *            the key.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return the value if the key is in the cache and the entry is not expired, otherwise {@link #ABSENT}.
+     */
+    public long get(final long key, final long currentTime) {
+        int set = setIndex(key);
+        int stripe = set & (locks.length - 1);
+        synchronized (locks[stripe]) {
+            for (int slot = set * WAYS; slot < ((set + 1) * WAYS); slot++) {
+                if ((expirations[slot] != 0L) && (keys[slot] == key)) {
+                    if (expirations[slot] <= currentTime) {
+                        expirations[slot] = 0L;
+                        return ABSENT;
+                    }
+                    ticks[stripe]++;
+                    accesses[slot] = ticks[stripe];
+                    return values[slot];
+                }
+            }
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Get the maximum number of the entries.
+     * 
+     * @return the capacity of the cache.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Put the value of the key to the cache. If the set of the key is full the least recently used entry of the set is
+     * evicted.
+     * 
+     * @param key
+     *            the key.
+     * @param value
+     *            the value. Cannot be {@link #ABSENT}.
+     * @param expiration
+     *            the expiration time of the entry in milliseconds. Must be positive.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return <code>true</code> if a not expired entry of an other key was evicted, otherwise <code>false</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the value is {@link #ABSENT} or the expiration is not positive.
+     */
+    public boolean put(final long key, final long value, final long expiration, final long currentTime) {
+        if (value == ABSENT) {
+            throw new IllegalArgumentException("The value parameter is ABSENT. Cannot be ABSENT.");
+        }
+        if (expiration <= 0L) {
+            throw new IllegalArgumentException("The expiration parameter is not positive. Must be positive.");
+        }
+        int set = setIndex(key);
+        int stripe = set & (locks.length - 1);
+        synchronized (locks[stripe]) {
+            int target = -1;
+            for (int slot = set * WAYS; slot < ((set + 1) * WAYS); slot++) {
+                if ((expirations[slot] != 0L) && (keys[slot] == key)) {
+                    target = slot;
+                    break;
+                }
+                if ((expirations[slot] == 0L) || (expirations[slot] <= currentTime)) {
+                    expirations[slot] = 0L;
+                    if ((target < 0) || (expirations[target] != 0L)) {
+                        target = slot;
+                    }
+                } else if ((target < 0) || ((expirations[target] != 0L) && (accesses[slot] < accesses[target]))) {
+                    target = slot;
+                }
+            }
+            boolean evicted = (expirations[target] != 0L) && (keys[target] != key);
+            ticks[stripe]++;
+            keys[target] = key;
+            values[target] = value;
+            expirations[target] = expiration;
+            accesses[target] = ticks[stripe];
+            return evicted;
+        }
+    }
+
+    /**
+     * Removes the key from the cache.
+     * 
+     * @param key
+     *            the key.
+     */
+    public void remove(final long key) {
+        int set = setIndex(key);
+        synchronized (locks[set & (locks.length - 1)]) {
+            for (int slot = set * WAYS; slot < ((set + 1) * WAYS); slot++) {
+                if ((expirations[slot] != 0L) && (keys[slot] == key)) {
+                    expirations[slot] = 0L;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the index of the set of the key.
+     * 
+     * @param key
+     *            the key.
+     * @return the index of the set.
+     */
+    private int setIndex(final long key) {
+        if (setIndexBits == 0) {
+            return 0;
+        }
+        return (int) ((key * HASH_MULTIPLIER) >>> (Long.SIZE - setIndexBits));
+    }
+}
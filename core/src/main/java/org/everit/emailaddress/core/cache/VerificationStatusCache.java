@@ -0,0 +1,295 @@
+package org.everit.emailaddress.core.cache;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache of the verification end dates by email address id. The verification status is a deadline, so a cached
+ * verification end date answers the verification check correctly until the verification data changes. The
+ * {@link org.everit.emailaddress.core.EmailAddressDataServiceImpl} invalidates the entry when it changes the
+ * verification data. The time to live of the entries bounds the staleness caused by changes made by other nodes.
+ * Unknown email address ids are cached as missing for a shorter time to live.
+ * <p>
+ * A reader takes the invalidation stamp of the email address before it queries the database and passes it to the
+ * put. The put is undone if the email address was invalidated since the stamp was taken, so a value read before a
+ * concurrent commit does not stay in the cache after the invalidation of the commit.
+ */
+public class VerificationStatusCache {
+
+    /**
+     * The cached value of the not existing email address data.
+     */
+    private static final long MISSING = Long.MIN_VALUE + 1;
+
+    /**
+     * The cached value of the email address data without verification end date.
+     */
+    private static final long NO_VERIFICATION_END_DATE = Long.MIN_VALUE + 2;
+
+    /**
+     * The default time to live of the existing email address data in milliseconds.
+     */
+    private static final long DEFAULT_TIME_TO_LIVE = 300000L;
+
+    /**
+     * The default time to live of the not existing email address data in milliseconds.
+     */
+    private static final long DEFAULT_NEGATIVE_TIME_TO_LIVE = 10000L;
+
+    /**
+     * The number of the bits of the invalidation stamp stripe index.
+     */
+    private static final int STAMP_STRIPE_BITS = 10;
+
+    /**
+     * The multiplier of the stripe hashing (the golden ratio).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Calculates the invalidation stamp stripe of the email address id.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @return the index of the stripe.
+     */
+    private static int stampStripe(final long emailAddressId) {
+        return (int) ((emailAddressId * HASH_MULTIPLIER) >>> (Long.SIZE - STAMP_STRIPE_BITS));
+    }
+
+    /**
+     * The verification end times by email address id.
+     */
+    private final LongValueCache cache;
+
+    /**
+     * The invalidation counters of the stripes of the email address ids.
+     */
+    private final AtomicLongArray invalidationStamps = new AtomicLongArray(1 << STAMP_STRIPE_BITS);
+
+    /**
+     * The time to live of the existing email address data in milliseconds.
+     */
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * The time to live of the not existing email address data in milliseconds.
+     */
+    private long negativeTimeToLive = DEFAULT_NEGATIVE_TIME_TO_LIVE;
+
+    /**
+     * The number of the cache hits.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The number of the cache misses.
+     */
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * The number of the evicted entries.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The simple constructor.
+     * 
+     * @param capacity
+     *            the maximum number of the cached email address ids. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public VerificationStatusCache(final int capacity) {
+        cache = new LongValueCache(capacity);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int getCapacity() {
+        return cache.getCapacity();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Get the invalidation stamp of the email address. Must be taken before the verification data is read from the
+     * database and passed to the put of the read value.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @return the invalidation stamp.
+     */
+    public long getInvalidationStamp(final long emailAddressId) {
+        return invalidationStamps.get(stampStripe(emailAddressId));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get the cached verification status of the email address.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return the {@link CachedVerificationStatus}. If the email address id is not in the cache return
+     *         {@link CachedVerificationStatus#UNKNOWN}.
+     */
+    public CachedVerificationStatus getVerificationStatus(final long emailAddressId, final long currentTime) {
+        long verificationEndTime = cache.get(emailAddressId, currentTime);
+        if (verificationEndTime == LongValueCache.ABSENT) {
+            missCount.incrementAndGet();
+            return CachedVerificationStatus.UNKNOWN;
+        }
+        hitCount.incrementAndGet();
+        if (verificationEndTime == MISSING) {
+            return CachedVerificationStatus.MISSING;
+        } else if ((verificationEndTime != NO_VERIFICATION_END_DATE) && (currentTime < verificationEndTime)) {
+            return CachedVerificationStatus.VERIFIED;
+        } else {
+            return CachedVerificationStatus.NOT_VERIFIED;
+        }
+    }
+
+    /**
+     * Removes the email address from the cache. Must be called when the verification data of the email address
+     * changes.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     */
+    public void invalidate(final long emailAddressId) {
+        invalidationStamps.incrementAndGet(stampStripe(emailAddressId));
+        cache.remove(emailAddressId);
+    }
+
+    /**
+     * Put the email address to the cache as not existing.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param invalidationStamp
+     *            the invalidation stamp taken before the database was read.
+     * @param currentTime
+     *            the current time in milliseconds.
+     */
+    public void putMissing(final long emailAddressId, final long invalidationStamp, final long currentTime) {
+        put(emailAddressId, MISSING, invalidationStamp, currentTime + negativeTimeToLive, currentTime);
+    }
+
+    /**
+     * Put the entry to the cache and count the eviction. The entry is removed again if the email address was
+     * invalidated since the invalidation stamp was taken. The stamp is checked after the put, so an invalidation
+     * running concurrently with the put either removes the entry or changes the stamp.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param value
+     *            the cached value.
+     * @param invalidationStamp
+     *            the invalidation stamp taken before the database was read.
+     * @param expiration
+     *            the expiration time of the entry in milliseconds.
+     * @param currentTime
+     *            the current time in milliseconds.
+     */
+    private void put(final long emailAddressId, final long value, final long invalidationStamp,
+            final long expiration, final long currentTime) {
+        if (cache.put(emailAddressId, value, expiration, currentTime)) {
+            evictionCount.incrementAndGet();
+        }
+        if (invalidationStamps.get(stampStripe(emailAddressId)) != invalidationStamp) {
+            cache.remove(emailAddressId);
+        }
+    }
+
+    /**
+     * Put the verification end date of the email address to the cache.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @param verificationEndDate
+     *            the verification end date. May be <code>null</code>.
+     * @param invalidationStamp
+     *            the invalidation stamp taken before the database was read.
+     * @param currentTime
+     *            the current time in milliseconds.
+     */
+    public void putVerificationEndDate(final long emailAddressId, final Date verificationEndDate,
+            final long invalidationStamp, final long currentTime) {
+        long value = NO_VERIFICATION_END_DATE;
+        if ((verificationEndDate != null) && (verificationEndDate.getTime() > NO_VERIFICATION_END_DATE)) {
+            value = verificationEndDate.getTime();
+        }
+        put(emailAddressId, value, invalidationStamp, currentTime + timeToLive, currentTime);
+    }
+
+    /**
+     * Set the time to live of the not existing email address data.
+     * 
+     * @param negativeTimeToLive
+     *            the time to live in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the negativeTimeToLive is not positive.
+     */
+    public void setNegativeTimeToLive(final long negativeTimeToLive) {
+        if (negativeTimeToLive <= 0L) {
+            throw new IllegalArgumentException("The negativeTimeToLive parameter is not positive. Must be positive.");
+        }
+        this.negativeTimeToLive = negativeTimeToLive;
+    }
+
+    /**
+     * Set the time to live of the existing email address data.
+     * 
+     * @param timeToLive
+     *            the time to live in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the timeToLive is not positive.
+     */
+    public void setTimeToLive(final long timeToLive) {
+        if (timeToLive <= 0L) {
+            throw new IllegalArgumentException("The timeToLive parameter is not positive. Must be positive.");
+        }
+        this.timeToLive = timeToLive;
+    }
+}
@@ -0,0 +1,484 @@
+package org.everit.emailaddress.core.domain;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.everit.emailaddress.api.DomainDeliverabilityChecker;
+import org.everit.emailaddress.core.EmailAddressCanonicalizer;
+
+/**
+ * {@link DomainDeliverabilityChecker} that caches the results of an other checker (the resolver). The deliverable and
+ * the not deliverable domains are cached with separate time to live. The concurrent checks of a not cached domain are
+ * coalesced: only one lookup is passed to the resolver and the other callers wait for its result. If the checker is
+ * started the lookups run on a thread pool and the callers wait at most the lookup timeout. A timed out lookup goes on
+ * and caches its result for the next callers. The unknown domains (failed or timed out lookups) are reported as
+ * deliverable and are not cached, so a resolver outage does not block the sending of the emails.
+ */
+public class CachingDomainDeliverabilityChecker implements DomainDeliverabilityChecker {
+
+    /**
+     * The cached result of a domain.
+     */
+    private static final class CacheEntry {
+
+        /**
+         * <code>true</code> if the domain can receive email.
+         */
+        private final boolean deliverable;
+
+        /**
+         * The expiration time of the entry in milliseconds.
+         */
+        private final long expiration;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param deliverable
+         *            <code>true</code> if the domain can receive email.
+         * @param expiration
+         *            the expiration time of the entry in milliseconds.
+         */
+        private CacheEntry(final boolean deliverable, final long expiration) {
+            this.deliverable = deliverable;
+            this.expiration = expiration;
+        }
+    }
+
+    /**
+     * The lookup of a domain that removes itself from the running lookups when it is done.
+     */
+    private final class Lookup extends FutureTask<Boolean> {
+
+        /**
+         * The looked up domain.
+         */
+        private final String domain;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param domain
+         *            the looked up domain.
+         */
+        private Lookup(final String domain) {
+            super(new Callable<Boolean>() {
+
+                @Override
+                public Boolean call() {
+                    return Boolean.valueOf(lookUp(domain));
+                }
+            });
+            this.domain = domain;
+        }
+
+        @Override
+        protected void done() {
+            lookups.remove(domain, this);
+        }
+    }
+
+    /**
+     * The default maximum number of the cached domains.
+     */
+    private static final int DEFAULT_CAPACITY = 65536;
+
+    /**
+     * The default time to live of the deliverable domains in milliseconds.
+     */
+    private static final long DEFAULT_POSITIVE_TIME_TO_LIVE = 3600000L;
+
+    /**
+     * The default time to live of the not deliverable domains in milliseconds.
+     */
+    private static final long DEFAULT_NEGATIVE_TIME_TO_LIVE = 300000L;
+
+    /**
+     * The default maximum waiting time for a lookup in milliseconds.
+     */
+    private static final long DEFAULT_LOOKUP_TIMEOUT = 3000L;
+
+    /**
+     * The default number of the lookup threads.
+     */
+    private static final int DEFAULT_THREAD_NUMBER = 4;
+
+    /**
+     * The divisor of the capacity that gives the number of the entries freed by an eviction.
+     */
+    private static final int EVICTION_DIVISOR = 4;
+
+    /**
+     * The resolver that checks the not cached domains.
+     */
+    private DomainDeliverabilityChecker resolver;
+
+    /**
+     * The maximum number of the cached domains.
+     */
+    private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * The time to live of the deliverable domains in milliseconds.
+     */
+    private long positiveTimeToLive = DEFAULT_POSITIVE_TIME_TO_LIVE;
+
+    /**
+     * The time to live of the not deliverable domains in milliseconds.
+     */
+    private long negativeTimeToLive = DEFAULT_NEGATIVE_TIME_TO_LIVE;
+
+    /**
+     * The maximum waiting time for a lookup in milliseconds.
+     */
+    private long lookupTimeout = DEFAULT_LOOKUP_TIMEOUT;
+
+    /**
+     * The number of the lookup threads.
+     */
+    private int threadNumber = DEFAULT_THREAD_NUMBER;
+
+    /**
+     * The cached results by domain.
+     */
+    private final ConcurrentMap<String, CacheEntry> cache = new ConcurrentHashMap<String, CacheEntry>();
+
+    /**
+     * The running lookups by domain.
+     */
+    private final ConcurrentMap<String, Lookup> lookups = new ConcurrentHashMap<String, Lookup>();
+
+    /**
+     * The executor of the lookups. <code>null</code> if the checker is not started.
+     */
+    private volatile ExecutorService executorService;
+
+    /**
+     * The number of the cache hits.
+     */
+    private final AtomicLong hitCount = new AtomicLong();
+
+    /**
+     * The number of the lookups passed to the resolver.
+     */
+    private final AtomicLong lookupCount = new AtomicLong();
+
+    /**
+     * The number of the checks that waited for the lookup of an other check.
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * The number of the failed lookups.
+     */
+    private final AtomicLong failedLookupCount = new AtomicLong();
+
+    /**
+     * The number of the checks that did not wait for the end of the lookup.
+     */
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * <code>true</code> while a thread evicts the entries of the cache.
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Waiting for the result of the lookup.
+     * 
+     * @param lookup
+     *            the lookup.
+     * @return the result of the lookup or <code>true</code> if the lookup failed or timed out.
+     */
+    private boolean await(final Lookup lookup) {
+        try {
+            if (executorService == null) {
+                return lookup.get().booleanValue();
+            }
+            return lookup.get(lookupTimeout, TimeUnit.MILLISECONDS).booleanValue();
+        } catch (TimeoutException e) {
+            timeoutCount.incrementAndGet();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (CancellationException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Removes the expired entries from the cache and, if the cache is still too large, arbitrary entries until a
+     * quarter of the capacity is free. Freeing more than one entry spreads the cost of the scan over the following
+     * lookups, so a full cache of not expired entries is not scanned at every lookup. Only one thread evicts at a time,
+     * the others cache their result without waiting.
+     * 
+     * @param currentTime
+     *            the current time in milliseconds.
+     */
+    private void evict(final long currentTime) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<CacheEntry> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiration <= currentTime) {
+                    iterator.remove();
+                }
+            }
+            int maxSize = capacity - Math.max(1, capacity / EVICTION_DIVISOR);
+            iterator = cache.values().iterator();
+            while ((cache.size() > maxSize) && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Starting the lookup on the lookup threads or, if the checker is not started, in the calling thread.
+     * 
+     * @param lookup
+     *            the lookup.
+     */
+    private void execute(final Lookup lookup) {
+        ExecutorService currentExecutorService = executorService;
+        if (currentExecutorService != null) {
+            try {
+                currentExecutorService.execute(lookup);
+                return;
+            } catch (RejectedExecutionException e) {
+                lookup.run();
+                return;
+            }
+        }
+        lookup.run();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getFailedLookupCount() {
+        return failedLookupCount.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public boolean isDeliverable(final String domain) {
+        String canonicalDomain = EmailAddressCanonicalizer.canonicalizeDomain(domain);
+        CacheEntry cacheEntry = cache.get(canonicalDomain);
+        if ((cacheEntry != null) && (cacheEntry.expiration > System.currentTimeMillis())) {
+            hitCount.incrementAndGet();
+            return cacheEntry.deliverable;
+        }
+        Lookup lookup = lookups.get(canonicalDomain);
+        if (lookup == null) {
+            Lookup newLookup = new Lookup(canonicalDomain);
+            lookup = lookups.putIfAbsent(canonicalDomain, newLookup);
+            if (lookup == null) {
+                lookup = newLookup;
+                lookupCount.incrementAndGet();
+                execute(newLookup);
+            } else {
+                coalescedCount.incrementAndGet();
+            }
+        } else {
+            coalescedCount.incrementAndGet();
+        }
+        return await(lookup);
+    }
+
+    /**
+     * Looking up the domain with the resolver and caching the result.
+     * 
+     * @param domain
+     *            the domain in canonical form.
+     * @return <code>true</code> if the domain can receive email, otherwise <code>false</code>.
+     * 
+     * @throws RuntimeException
+     *             if the resolver fails.
+     */
+    private boolean lookUp(final String domain) {
+        boolean deliverable;
+        try {
+            deliverable = resolver.isDeliverable(domain);
+        } catch (RuntimeException e) {
+            failedLookupCount.incrementAndGet();
+            throw e;
+        }
+        long currentTime = System.currentTimeMillis();
+        if (cache.size() >= capacity) {
+            evict(currentTime);
+        }
+        long timeToLive = deliverable ? positiveTimeToLive : negativeTimeToLive;
+        cache.put(domain, new CacheEntry(deliverable, currentTime + timeToLive));
+        return deliverable;
+    }
+
+    /**
+     * Set the maximum number of the cached domains.
+     * 
+     * @param capacity
+     *            the maximum number of the domains. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public void setCapacity(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity parameter is not positive. Must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Set the maximum waiting time for a lookup. Used only if the checker is started.
+     * 
+     * @param lookupTimeout
+     *            the waiting time in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the lookupTimeout is not positive.
+     */
+    public void setLookupTimeout(final long lookupTimeout) {
+        if (lookupTimeout <= 0L) {
+            throw new IllegalArgumentException("The lookupTimeout parameter is not positive. Must be positive.");
+        }
+        this.lookupTimeout = lookupTimeout;
+    }
+
+    /**
+     * Set the time to live of the not deliverable domains.
+     * 
+     * @param negativeTimeToLive
+     *            the time to live in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the negativeTimeToLive is not positive.
+     */
+    public void setNegativeTimeToLive(final long negativeTimeToLive) {
+        if (negativeTimeToLive <= 0L) {
+            throw new IllegalArgumentException("The negativeTimeToLive parameter is not positive. Must be positive.");
+        }
+        this.negativeTimeToLive = negativeTimeToLive;
+    }
+
+    /**
+     * Set the time to live of the deliverable domains.
+     * 
+     * @param positiveTimeToLive
+     *            the time to live in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the positiveTimeToLive is not positive.
+     */
+    public void setPositiveTimeToLive(final long positiveTimeToLive) {
+        if (positiveTimeToLive <= 0L) {
+            throw new IllegalArgumentException("The positiveTimeToLive parameter is not positive. Must be positive.");
+        }
+        this.positiveTimeToLive = positiveTimeToLive;
+    }
+
+    public void setResolver(final DomainDeliverabilityChecker resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * Set the number of the lookup threads. Must be called before the {@link #start()}.
+     * 
+     * @param threadNumber
+     *            the number of the threads. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the threadNumber is not positive.
+     */
+    public void setThreadNumber(final int threadNumber) {
+        if (threadNumber <= 0) {
+            throw new IllegalArgumentException("The threadNumber parameter is not positive. Must be positive.");
+        }
+        this.threadNumber = threadNumber;
+    }
+
+    /**
+     * Starting the lookup threads.
+     */
+    public synchronized void start() {
+        if (executorService == null) {
+            executorService = Executors.newFixedThreadPool(threadNumber);
+        }
+    }
+
+    /**
+     * Stopping the lookup threads. The not started lookups are cancelled and the later lookups run in the calling
+     * thread.
+     */
+    public synchronized void stop() {
+        if (executorService != null) {
+            for (Runnable lookup : executorService.shutdownNow()) {
+                ((Lookup) lookup).cancel(false);
+            }
+            executorService = null;
+        }
+    }
+}
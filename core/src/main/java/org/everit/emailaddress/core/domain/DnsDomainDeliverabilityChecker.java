@@ -0,0 +1,179 @@
+package org.everit.emailaddress.core.domain;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Hashtable;
+
+import javax.naming.Context;
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+
+import org.everit.emailaddress.api.DomainDeliverabilityChecker;
+
+/**
+ * Implementation of {@link DomainDeliverabilityChecker} that queries the DNS with the JNDI DNS service provider. The
+ * domain can receive email if it has an MX record other than the null MX (<code>0 .</code>) or, as the implicit MX,
+ * an A or AAAA record. Not existing domains cannot receive email. The other lookup failures are reported with
+ * {@link IllegalStateException}, so the caller can decide about the unknown domains.
+ */
+public class DnsDomainDeliverabilityChecker implements DomainDeliverabilityChecker {
+
+    /**
+     * The JNDI context factory of the DNS service provider.
+     */
+    private static final String DNS_CONTEXT_FACTORY = "com.sun.jndi.dns.DnsContextFactory";
+
+    /**
+     * The environment property of the initial timeout of the DNS queries.
+     */
+    private static final String TIMEOUT_PROPERTY = "com.sun.jndi.dns.timeout.initial";
+
+    /**
+     * The environment property of the number of the retries of the DNS queries.
+     */
+    private static final String RETRIES_PROPERTY = "com.sun.jndi.dns.timeout.retries";
+
+    /**
+     * The default initial timeout of the DNS queries in milliseconds.
+     */
+    private static final long DEFAULT_TIMEOUT = 2000L;
+
+    /**
+     * The default number of the retries of the DNS queries.
+     */
+    private static final int DEFAULT_RETRIES = 1;
+
+    /**
+     * The MX record type.
+     */
+    private static final String MX = "MX";
+
+    /**
+     * The address record types.
+     */
+    private static final String[] ADDRESS_RECORD_TYPES = new String[] { "A", "AAAA" };
+
+    /**
+     * The URL of the DNS servers, for example <code>dns://192.0.2.53</code>. If <code>null</code> the DNS servers of
+     * the operating system are used.
+     */
+    private String providerUrl;
+
+    /**
+     * The initial timeout of the DNS queries in milliseconds.
+     */
+    private long timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * The number of the retries of the DNS queries.
+     */
+    private int retries = DEFAULT_RETRIES;
+
+    /**
+     * Checks the MX records contain only the null MX or not.
+     * 
+     * @param mxRecords
+     *            the MX records.
+     * @return <code>true</code> if the only MX record is the null MX, otherwise <code>false</code>.
+     * @throws NamingException
+     *             if the records cannot be read.
+     */
+    private boolean isNullMx(final Attribute mxRecords) throws NamingException {
+        if (mxRecords.size() != 1) {
+            return false;
+        }
+        String[] parts = String.valueOf(mxRecords.get(0)).trim().split("\\s+");
+        return (parts.length == 2) && "0".equals(parts[0]) && ".".equals(parts[1]);
+    }
+
+    @Override
+    public boolean isDeliverable(final String domain) {
+        if (domain == null) {
+            throw new IllegalArgumentException("The domain parameter is null. Cannot be null.");
+        }
+        Hashtable<String, String> environment = new Hashtable<String, String>();
+        environment.put(Context.INITIAL_CONTEXT_FACTORY, DNS_CONTEXT_FACTORY);
+        environment.put(TIMEOUT_PROPERTY, String.valueOf(timeout));
+        environment.put(RETRIES_PROPERTY, String.valueOf(retries));
+        if (providerUrl != null) {
+            environment.put(Context.PROVIDER_URL, providerUrl);
+        }
+        String absoluteDomain = domain.endsWith(".") ? domain : domain + ".";
+        try {
+            DirContext dirContext = new InitialDirContext(environment);
+            try {
+                Attribute mxRecords = dirContext.getAttributes(absoluteDomain, new String[] { MX }).get(MX);
+                if ((mxRecords != null) && (mxRecords.size() > 0)) {
+                    return !isNullMx(mxRecords);
+                }
+                Attributes addressRecords = dirContext.getAttributes(absoluteDomain, ADDRESS_RECORD_TYPES);
+                return addressRecords.size() > 0;
+            } finally {
+                dirContext.close();
+            }
+        } catch (NameNotFoundException e) {
+            return false;
+        } catch (NamingException e) {
+            throw new IllegalStateException("The DNS lookup of the " + domain + " domain failed.", e);
+        }
+    }
+
+    public void setProviderUrl(final String providerUrl) {
+        this.providerUrl = providerUrl;
+    }
+
+    /**
+     * Set the number of the retries of the DNS queries.
+     * 
+     * @param retries
+     *            the number of the retries. Cannot be negative.
+     * 
+     * @throws IllegalArgumentException
+     *             if the retries is negative.
+     */
+    public void setRetries(final int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("The retries parameter is negative. Cannot be negative.");
+        }
+        this.retries = retries;
+    }
+
+    /**
+     * Set the initial timeout of the DNS queries. The timeout is doubled for every retry.
+     * 
+     * @param timeout
+     *            the timeout in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the timeout is not positive.
+     */
+    public void setTimeout(final long timeout) {
+        if (timeout <= 0L) {
+            throw new IllegalArgumentException("The timeout parameter is not positive. Must be positive.");
+        }
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,152 @@
+package org.everit.emailaddress.core.export;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background backfill of the last modification date of the email address data saved before the date was introduced.
+ * Without the date these email address data never appear in the incremental exports. The backfill sets the current
+ * date, so the next incremental export of every consumer reports them once. The email address data are updated in
+ * chunks, every chunk in its own short transaction, once after the start. If no email address data without the date
+ * is left the backfill costs one query.
+ */
+public class LastModificationDateBackfill {
+
+    /**
+     * The default maximum number of the email address data updated in one transaction.
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * The maximum time of waiting for the thread on stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 10000L;
+
+    /**
+     * The {@link LastModificationDateStore} instance.
+     */
+    private LastModificationDateStore lastModificationDateStore;
+
+    /**
+     * The maximum number of the email address data updated in one transaction.
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * The number of the updated email address data.
+     */
+    private final AtomicLong backfilledCount = new AtomicLong();
+
+    /**
+     * The backfill is stopping. The running chunk is finished, but no new chunk is started.
+     */
+    private volatile boolean stopping;
+
+    /**
+     * The executor of the backfill.
+     */
+    private ExecutorService backfillExecutor;
+
+    /**
+     * Updates the email address data without last modification date chunk by chunk until none is left or the
+     * backfill is stopped.
+     * 
+     * @return the number of the updated email address data.
+     */
+    public long backfill() {
+        long result = 0L;
+        int backfilledNumber;
+        do {
+            backfilledNumber = lastModificationDateStore.backfillLastModificationDates(new Date(), chunkSize);
+            result += backfilledNumber;
+            backfilledCount.addAndGet(backfilledNumber);
+        } while ((backfilledNumber > 0) && !stopping);
+        return result;
+    }
+
+    public long getBackfilledCount() {
+        return backfilledCount.get();
+    }
+
+    /**
+     * Set the maximum number of the email address data updated in one transaction.
+     * 
+     * @param chunkSize
+     *            the chunk size. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the chunkSize is not positive.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunkSize parameter is not positive. Must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setLastModificationDateStore(final LastModificationDateStore lastModificationDateStore) {
+        this.lastModificationDateStore = lastModificationDateStore;
+    }
+
+    /**
+     * Starts the backfill on its own thread. Called by blueprint.
+     */
+    public void start() {
+        stopping = false;
+        backfillExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "emailaddress-modification-date-backfill");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        backfillExecutor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                backfill();
+            }
+        });
+    }
+
+    /**
+     * Stops the backfill after the running chunk. The not updated email address data are updated after the next
+     * start. Called by blueprint.
+     */
+    public void stop() {
+        stopping = true;
+        backfillExecutor.shutdown();
+        try {
+            backfillExecutor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.everit.emailaddress.core.export;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+/**
+ * Transactional access of the last modification dates of the email address data. The methods join the transaction of
+ * the caller or start a new one. The {@link LastModificationDateBackfill} calls them without transaction, so every
+ * chunk is committed in its own short transaction.
+ */
+public interface LastModificationDateStore {
+
+    /**
+     * Sets the last modification date of a chunk of the email address data that have no last modification date. The
+     * email address data saved before the last modification date was introduced have none, so the incremental exports
+     * would never see them.
+     * 
+     * @param lastModificationDate
+     *            the last modification date to set. Cannot be <code>null</code>.
+     * @param maxEmailAddressNumber
+     *            the maximum number of the updated email address data. Must be positive.
+     * @return the number of the updated email address data. <code>0</code> if no email address data without last
+     *         modification date is left.
+     * 
+     * @throws IllegalArgumentException
+     *             if the lastModificationDate parameter is <code>null</code> or the maxEmailAddressNumber is not
+     *             positive.
+     */
+    int backfillLastModificationDates(Date lastModificationDate, int maxEmailAddressNumber);
+}
@@ -0,0 +1,79 @@
+package org.everit.emailaddress.core.export;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TemporalType;
+
+/**
+ * Implementation of {@link LastModificationDateStore}.
+ */
+public class LastModificationDateStoreImpl implements LastModificationDateStore {
+
+    /**
+     * The query of the ids of the email address data without last modification date.
+     */
+    private static final String FIND_QUERY = "SELECT e.emailAddressDataId FROM EmailAddressDataEntity e"
+            + " WHERE e.lastModificationDate IS NULL ORDER BY e.emailAddressDataId";
+
+    /**
+     * The query of the backfill of the last modification date. The condition is checked again, so the date set by a
+     * concurrent modification is not overwritten.
+     */
+    private static final String BACKFILL_QUERY = "UPDATE EmailAddressDataEntity e"
+            + " SET e.lastModificationDate = :lastModificationDate"
+            + " WHERE e.emailAddressDataId IN (:emailAddressIds) AND e.lastModificationDate IS NULL";
+
+    /**
+     * EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    @Override
+    public int backfillLastModificationDates(final Date lastModificationDate, final int maxEmailAddressNumber) {
+        if (lastModificationDate == null) {
+            throw new IllegalArgumentException("The lastModificationDate parameter is null. Cannot be null.");
+        }
+        if (maxEmailAddressNumber <= 0) {
+            throw new IllegalArgumentException(
+                    "The maxEmailAddressNumber parameter is not positive. Must be positive.");
+        }
+        List<Long> emailAddressIds = em.createQuery(FIND_QUERY, Long.class)
+                .setMaxResults(maxEmailAddressNumber)
+                .getResultList();
+        if (emailAddressIds.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery(BACKFILL_QUERY)
+                .setParameter("lastModificationDate", lastModificationDate, TemporalType.TIMESTAMP)
+                .setParameter("emailAddressIds", emailAddressIds)
+                .executeUpdate();
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+
+}
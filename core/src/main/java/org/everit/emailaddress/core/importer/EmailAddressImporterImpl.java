@@ -0,0 +1,753 @@
+package org.everit.emailaddress.core.importer;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressImporter;
+import org.everit.emailaddress.api.EmailAddressValidator;
+import org.everit.emailaddress.api.dto.EmailAddressFileFormat;
+import org.everit.emailaddress.api.dto.EmailAddressImportResult;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+import org.everit.emailaddress.core.EmailAddressCanonicalizer;
+import org.everit.emailaddress.core.policy.ReloadableDomainPolicy;
+
+/**
+ * Implementation of {@link EmailAddressImporter}. The file is processed in chunks of lines: a chunk is read with the
+ * {@link MappedLineReader}, validated in parallel by the worker threads of the import, deduplicated with the
+ * {@link FingerprintSet} of the canonical email addresses and saved in one call of the
+ * {@link EmailAddressDataService}. The saving inserts in JDBC batches and clears the persistence context after every
+ * batch, so the memory usage of the import does not depend on the size of the file except for the fingerprints. On
+ * resume the fingerprint set is rebuilt by validating the already imported part of the file again without saving.
+ * <p>
+ * A checkpoint is written before the first chunk and after every saved chunk, so only the chunk after the last
+ * checkpoint can be saved without its checkpoint. That chunk is saved email address by email address with
+ * {@link EmailAddressDataService#saveOrGetEmailAddress(String)} on resume, so its already saved email addresses are
+ * not saved again.
+ */
+public class EmailAddressImporterImpl implements EmailAddressImporter {
+
+    /**
+     * The lines of a chunk of the import file.
+     */
+    private static final class Chunk {
+
+        /**
+         * The email addresses extracted from the lines.
+         */
+        private final String[] emailAddresses;
+
+        /**
+         * The raw lines.
+         */
+        private final String[] lines;
+
+        /**
+         * The line numbers of the lines.
+         */
+        private final long[] lineNumbers;
+
+        /**
+         * The {@link EmailAddressValidationResult} values of the email addresses.
+         */
+        private final EmailAddressValidationResult[] validationResults;
+
+        /**
+         * The fingerprints of the canonical form of the valid email addresses.
+         */
+        private final long[] fingerprints;
+
+        /**
+         * The number of the lines in the chunk.
+         */
+        private int length;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param capacity
+         *            the maximum number of the lines.
+         */
+        private Chunk(final int capacity) {
+            emailAddresses = new String[capacity];
+            lines = new String[capacity];
+            lineNumbers = new long[capacity];
+            validationResults = new EmailAddressValidationResult[capacity];
+            fingerprints = new long[capacity];
+        }
+    }
+
+    /**
+     * The state of an import stored in the checkpoint file.
+     */
+    private static final class ImportState {
+
+        /**
+         * The position of the next line in the import file.
+         */
+        private long position;
+
+        /**
+         * The number of the read lines.
+         */
+        private long lineNumber;
+
+        /**
+         * The number of the saved email addresses.
+         */
+        private long importedNumber;
+
+        /**
+         * The number of the invalid email addresses.
+         */
+        private long invalidNumber;
+
+        /**
+         * The number of the repeated email addresses.
+         */
+        private long duplicateNumber;
+
+        /**
+         * The length of the reject report in bytes.
+         */
+        private long rejectReportLength;
+    }
+
+    /**
+     * The reject reason of the email addresses repeated in the file.
+     */
+    public static final String DUPLICATE_REASON = "DUPLICATE";
+
+    /**
+     * The default number of the lines in a chunk.
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 10000;
+
+    /**
+     * The minimum number of the lines validated by one task.
+     */
+    private static final int MIN_TASK_SIZE = 256;
+
+    /**
+     * The checkpoint property of the size of the import file.
+     */
+    private static final String CHECKPOINT_FILE_SIZE = "fileSize";
+
+    /**
+     * The checkpoint property of the position of the next line.
+     */
+    private static final String CHECKPOINT_POSITION = "position";
+
+    /**
+     * The checkpoint property of the number of the read lines.
+     */
+    private static final String CHECKPOINT_LINE_NUMBER = "lineNumber";
+
+    /**
+     * The checkpoint property of the number of the saved email addresses.
+     */
+    private static final String CHECKPOINT_IMPORTED_NUMBER = "importedNumber";
+
+    /**
+     * The checkpoint property of the number of the invalid email addresses.
+     */
+    private static final String CHECKPOINT_INVALID_NUMBER = "invalidNumber";
+
+    /**
+     * The checkpoint property of the number of the repeated email addresses.
+     */
+    private static final String CHECKPOINT_DUPLICATE_NUMBER = "duplicateNumber";
+
+    /**
+     * The checkpoint property of the length of the reject report.
+     */
+    private static final String CHECKPOINT_REJECT_REPORT_LENGTH = "rejectReportLength";
+
+    /**
+     * The charset of the reject report.
+     */
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * Appends the character to the field if the column is the column of the email address.
+     * 
+     * @param field
+     *            the field of the email address.
+     * @param c
+     *            the character.
+     * @param column
+     *            the index of the current column.
+     * @param columnIndex
+     *            the index of the column of the email address.
+     */
+    private static void appendIfColumn(final StringBuilder field, final char c, final int column,
+            final int columnIndex) {
+        if (column == columnIndex) {
+            field.append(c);
+        }
+    }
+
+    /**
+     * Extracts the email address from the line.
+     * 
+     * @param line
+     *            the line.
+     * @param fileFormat
+     *            the format of the file.
+     * @return the trimmed email address. If the line has no field at the column index return an empty string.
+     */
+    private static String extractEmailAddress(final String line, final EmailAddressFileFormat fileFormat) {
+        Character delimiter = fileFormat.getDelimiter();
+        if (delimiter == null) {
+            return line.trim();
+        }
+        char delimiterChar = delimiter.charValue();
+        int columnIndex = fileFormat.getColumnIndex();
+        StringBuilder field = new StringBuilder();
+        int column = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    appendIfColumn(field, c, column, columnIndex);
+                } else if (((i + 1) < line.length()) && (line.charAt(i + 1) == '"')) {
+                    appendIfColumn(field, c, column, columnIndex);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiterChar) {
+                if (column == columnIndex) {
+                    return field.toString().trim();
+                }
+                column++;
+            } else {
+                appendIfColumn(field, c, column, columnIndex);
+            }
+        }
+        return field.toString().trim();
+    }
+
+    /**
+     * The {@link EmailAddressDataService} instance that saves the email addresses.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link EmailAddressValidator} instance.
+     */
+    private EmailAddressValidator emailAddressValidator;
+
+    /**
+     * The optional {@link ReloadableDomainPolicy} instance. Must be the same as the policy of the
+     * {@link EmailAddressDataService}, so the email addresses of the blocked domains are reported instead of failing
+     * the saving of their chunk. If <code>null</code> the domains are not checked.
+     */
+    private ReloadableDomainPolicy domainPolicy;
+
+    /**
+     * The number of the lines in a chunk. The valid email addresses of a chunk are saved in one transaction.
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * The number of the threads validating the email addresses.
+     */
+    private int threadNumber = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The size of the mapped windows of the import file in bytes.
+     */
+    private int windowSize = MappedLineReader.DEFAULT_WINDOW_SIZE;
+
+    /**
+     * Adding the fingerprints of the valid email addresses of the chunk to the set and writing the rejected lines to
+     * the reject report.
+     * 
+     * @param chunk
+     *            the validated chunk.
+     * @param fingerprintSet
+     *            the fingerprints of the already accepted email addresses.
+     * @param importState
+     *            the state of the import. <code>null</code> if the chunk is replayed.
+     * @param rejectReportWriter
+     *            the writer of the reject report. <code>null</code> if the chunk is replayed.
+     * @return the accepted email addresses.
+     * @throws IOException
+     *             if the reject report cannot be written.
+     */
+    private List<String> acceptEmailAddresses(final Chunk chunk, final FingerprintSet fingerprintSet,
+            final ImportState importState, final Writer rejectReportWriter) throws IOException {
+        List<String> result = new ArrayList<String>(chunk.length);
+        for (int i = 0; i < chunk.length; i++) {
+            String reason;
+            if (chunk.validationResults[i] != EmailAddressValidationResult.VALID) {
+                reason = chunk.validationResults[i].name();
+                if (importState != null) {
+                    importState.invalidNumber++;
+                }
+            } else if (!fingerprintSet.add(chunk.fingerprints[i])) {
+                reason = DUPLICATE_REASON;
+                if (importState != null) {
+                    importState.duplicateNumber++;
+                }
+            } else {
+                result.add(chunk.emailAddresses[i]);
+                continue;
+            }
+            if (rejectReportWriter != null) {
+                rejectReportWriter.write(chunk.lineNumbers[i] + "\t" + reason + "\t" + chunk.lines[i] + "\n");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closing the resource. The exception of the closing is thrown only if the import is not already failed.
+     * 
+     * @param closeable
+     *            the resource. May be <code>null</code>.
+     * @param failed
+     *            <code>true</code> if the import is failed.
+     * @throws IOException
+     *             if the closing fails and the import is not failed.
+     */
+    private void close(final Closeable closeable, final boolean failed) throws IOException {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            if (!failed) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public EmailAddressImportResult importFile(final File file, final EmailAddressFileFormat fileFormat,
+            final File rejectReportFile, final File checkpointFile) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("The file parameter is null. Cannot be null.");
+        }
+        if (fileFormat == null) {
+            throw new IllegalArgumentException("The fileFormat parameter is null. Cannot be null.");
+        }
+        if (rejectReportFile == null) {
+            throw new IllegalArgumentException("The rejectReportFile parameter is null. Cannot be null.");
+        }
+        ImportState importState = new ImportState();
+        boolean resumed = false;
+        if ((checkpointFile != null) && checkpointFile.exists()) {
+            importState = loadCheckpoint(checkpointFile, file);
+            resumed = true;
+        }
+        FingerprintSet fingerprintSet = new FingerprintSet();
+        ExecutorService executorService = Executors.newFixedThreadPool(threadNumber);
+        MappedLineReader reader = null;
+        Writer rejectReportWriter = null;
+        boolean failed = true;
+        try {
+            if (importState.position > 0L) {
+                replay(file, fileFormat, importState.position, fingerprintSet, executorService);
+            }
+            truncate(rejectReportFile, importState.rejectReportLength);
+            if ((checkpointFile != null) && !resumed) {
+                saveCheckpoint(checkpointFile, file, importState);
+            }
+            rejectReportWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(rejectReportFile, true),
+                    UTF_8));
+            reader = new MappedLineReader(file, importState.position, windowSize);
+            Chunk chunk = new Chunk(chunkSize);
+            long lineNumber = importState.lineNumber;
+            while (reader.getPosition() < reader.getSize()) {
+                lineNumber = readChunk(reader, fileFormat, lineNumber, Long.MAX_VALUE, chunk);
+                validateChunk(chunk, executorService);
+                List<String> emailAddresses = acceptEmailAddresses(chunk, fingerprintSet, importState,
+                        rejectReportWriter);
+                rejectReportWriter.flush();
+                if (resumed) {
+                    saveOrGetEmailAddresses(emailAddresses);
+                } else if (!emailAddresses.isEmpty()) {
+                    emailAddressDataService.saveEmailAddresses(emailAddresses);
+                }
+                importState.importedNumber += emailAddresses.size();
+                // only the first chunk after the checkpoint may have been saved by the stopped import
+                resumed = false;
+                importState.position = reader.getPosition();
+                importState.lineNumber = lineNumber;
+                importState.rejectReportLength = rejectReportFile.length();
+                if (checkpointFile != null) {
+                    saveCheckpoint(checkpointFile, file, importState);
+                }
+            }
+            failed = false;
+        } finally {
+            executorService.shutdownNow();
+            close(reader, failed);
+            close(rejectReportWriter, failed);
+        }
+        if ((checkpointFile != null) && checkpointFile.exists() && !checkpointFile.delete()) {
+            throw new IOException("The checkpoint file " + checkpointFile + " cannot be deleted.");
+        }
+        return new EmailAddressImportResult(importState.lineNumber, importState.importedNumber,
+                importState.invalidNumber, importState.duplicateNumber);
+    }
+
+    /**
+     * Loading the state of the import from the checkpoint file.
+     * 
+     * @param checkpointFile
+     *            the checkpoint file.
+     * @param file
+     *            the import file.
+     * @return the state of the import.
+     * @throws IOException
+     *             if the checkpoint file cannot be read.
+     * 
+     * @throws IllegalStateException
+     *             if the checkpoint does not belong to the file.
+     */
+    private ImportState loadCheckpoint(final File checkpointFile, final File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream inputStream = new FileInputStream(checkpointFile);
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        ImportState result = new ImportState();
+        try {
+            long fileSize = Long.parseLong(properties.getProperty(CHECKPOINT_FILE_SIZE));
+            result.position = Long.parseLong(properties.getProperty(CHECKPOINT_POSITION));
+            result.lineNumber = Long.parseLong(properties.getProperty(CHECKPOINT_LINE_NUMBER));
+            result.importedNumber = Long.parseLong(properties.getProperty(CHECKPOINT_IMPORTED_NUMBER));
+            result.invalidNumber = Long.parseLong(properties.getProperty(CHECKPOINT_INVALID_NUMBER));
+            result.duplicateNumber = Long.parseLong(properties.getProperty(CHECKPOINT_DUPLICATE_NUMBER));
+            result.rejectReportLength = Long.parseLong(properties.getProperty(CHECKPOINT_REJECT_REPORT_LENGTH));
+            if ((fileSize != file.length()) || (result.position > fileSize)) {
+                throw new IllegalStateException("The checkpoint " + checkpointFile + " does not belong to the file "
+                        + file + ".");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("The checkpoint " + checkpointFile + " is corrupted.", e);
+        }
+        return result;
+    }
+
+    /**
+     * Reading the next chunk of the lines. The empty lines and the header are skipped.
+     * 
+     * @param reader
+     *            the reader of the import file.
+     * @param fileFormat
+     *            the format of the file.
+     * @param lineNumber
+     *            the number of the already read lines.
+     * @param endPosition
+     *            the position where the reading stops.
+     * @param chunk
+     *            the filled chunk.
+     * @return the number of the read lines after reading the chunk.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    private long readChunk(final MappedLineReader reader, final EmailAddressFileFormat fileFormat,
+            final long lineNumber, final long endPosition, final Chunk chunk) throws IOException {
+        long result = lineNumber;
+        chunk.length = 0;
+        String line;
+        while ((chunk.length < chunk.lines.length) && (reader.getPosition() < endPosition)
+                && ((line = reader.readLine()) != null)) {
+            result++;
+            if (((result == 1L) && fileFormat.isHeader()) || (line.trim().length() == 0)) {
+                continue;
+            }
+            chunk.lines[chunk.length] = line;
+            chunk.emailAddresses[chunk.length] = extractEmailAddress(line, fileFormat);
+            chunk.lineNumbers[chunk.length] = result;
+            chunk.length++;
+        }
+        return result;
+    }
+
+    /**
+     * Rebuilding the fingerprint set from the already imported part of the file.
+     * 
+     * @param file
+     *            the import file.
+     * @param fileFormat
+     *            the format of the file.
+     * @param endPosition
+     *            the position of the first not imported line.
+     * @param fingerprintSet
+     *            the rebuilt fingerprint set.
+     * @param executorService
+     *            the executor of the validation.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    private void replay(final File file, final EmailAddressFileFormat fileFormat, final long endPosition,
+            final FingerprintSet fingerprintSet, final ExecutorService executorService) throws IOException {
+        MappedLineReader reader = new MappedLineReader(file, 0L, windowSize);
+        try {
+            Chunk chunk = new Chunk(chunkSize);
+            long lineNumber = 0L;
+            while (reader.getPosition() < endPosition) {
+                lineNumber = readChunk(reader, fileFormat, lineNumber, endPosition, chunk);
+                validateChunk(chunk, executorService);
+                acceptEmailAddresses(chunk, fingerprintSet, null, null);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Writing the state of the import to the checkpoint file. The state is written to a temporary file first, so a
+     * crash during the writing does not corrupt the previous checkpoint.
+     * 
+     * @param checkpointFile
+     *            the checkpoint file.
+     * @param file
+     *            the import file.
+     * @param importState
+     *            the state of the import.
+     * @throws IOException
+     *             if the checkpoint file cannot be written.
+     */
+    private void saveCheckpoint(final File checkpointFile, final File file, final ImportState importState)
+            throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(CHECKPOINT_FILE_SIZE, String.valueOf(file.length()));
+        properties.setProperty(CHECKPOINT_POSITION, String.valueOf(importState.position));
+        properties.setProperty(CHECKPOINT_LINE_NUMBER, String.valueOf(importState.lineNumber));
+        properties.setProperty(CHECKPOINT_IMPORTED_NUMBER, String.valueOf(importState.importedNumber));
+        properties.setProperty(CHECKPOINT_INVALID_NUMBER, String.valueOf(importState.invalidNumber));
+        properties.setProperty(CHECKPOINT_DUPLICATE_NUMBER, String.valueOf(importState.duplicateNumber));
+        properties.setProperty(CHECKPOINT_REJECT_REPORT_LENGTH, String.valueOf(importState.rejectReportLength));
+        File temporaryFile = new File(checkpointFile.getPath() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(temporaryFile);
+        try {
+            properties.store(outputStream, "Email address import checkpoint of " + file);
+            outputStream.getFD().sync();
+        } finally {
+            outputStream.close();
+        }
+        if ((checkpointFile.exists() && !checkpointFile.delete()) || !temporaryFile.renameTo(checkpointFile)) {
+            throw new IOException("The checkpoint file " + checkpointFile + " cannot be replaced.");
+        }
+    }
+
+    /**
+     * Saving the email addresses of the first chunk after a resumed checkpoint. The stopped import may have saved the
+     * chunk before it could write the checkpoint, so the already saved email addresses are not saved again.
+     * 
+     * @param emailAddresses
+     *            the accepted email addresses of the chunk.
+     */
+    private void saveOrGetEmailAddresses(final List<String> emailAddresses) {
+        for (String emailAddress : emailAddresses) {
+            emailAddressDataService.saveOrGetEmailAddress(emailAddress);
+        }
+    }
+
+    /**
+     * Set the number of the lines in a chunk. The valid email addresses of a chunk are saved in one transaction.
+     * 
+     * @param chunkSize
+     *            the number of the lines. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the chunkSize is not positive.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunkSize parameter is not positive. Must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setDomainPolicy(final ReloadableDomainPolicy domainPolicy) {
+        this.domainPolicy = domainPolicy;
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setEmailAddressValidator(final EmailAddressValidator emailAddressValidator) {
+        this.emailAddressValidator = emailAddressValidator;
+    }
+
+    /**
+     * Set the number of the threads validating the email addresses.
+     * 
+     * @param threadNumber
+     *            the number of the threads. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the threadNumber is not positive.
+     */
+    public void setThreadNumber(final int threadNumber) {
+        if (threadNumber <= 0) {
+            throw new IllegalArgumentException("The threadNumber parameter is not positive. Must be positive.");
+        }
+        this.threadNumber = threadNumber;
+    }
+
+    /**
+     * Set the size of the mapped windows of the import file. Must be greater than the longest line of the file.
+     * 
+     * @param windowSize
+     *            the size in bytes. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the windowSize is not positive.
+     */
+    public void setWindowSize(final int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("The windowSize parameter is not positive. Must be positive.");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Truncating the reject report to the length stored in the checkpoint. The lines of the not saved chunks are
+     * written again.
+     * 
+     * @param rejectReportFile
+     *            the file of the reject report.
+     * @param length
+     *            the length in bytes.
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    private void truncate(final File rejectReportFile, final long length) throws IOException {
+        if (length == 0L) {
+            OutputStream outputStream = new FileOutputStream(rejectReportFile);
+            outputStream.close();
+            return;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(rejectReportFile, "rw");
+        try {
+            randomAccessFile.setLength(length);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Validating the email addresses of the chunk in parallel and calculating the fingerprints of the valid ones.
+     * 
+     * @param chunk
+     *            the chunk.
+     * @param executorService
+     *            the executor of the validation.
+     * @throws InterruptedIOException
+     *             if the thread is interrupted while waiting for the validation.
+     */
+    private void validateChunk(final Chunk chunk, final ExecutorService executorService)
+            throws InterruptedIOException {
+        int taskNumber = Math.max(1, Math.min(threadNumber, chunk.length / MIN_TASK_SIZE));
+        int taskSize = ((chunk.length + taskNumber) - 1) / taskNumber;
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(taskNumber);
+        for (int start = 0; start < chunk.length; start += taskSize) {
+            final int from = start;
+            final int to = Math.min(start + taskSize, chunk.length);
+            tasks.add(new Callable<Object>() {
+
+                @Override
+                public Object call() {
+                    validateLines(chunk, from, to);
+                    return null;
+                }
+            });
+        }
+        if (tasks.size() == 1) {
+            validateLines(chunk, 0, chunk.length);
+            return;
+        }
+        try {
+            for (Future<Object> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The validation of the import is interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Validating the email addresses of a range of the chunk.
+     * 
+     * @param chunk
+     *            the chunk.
+     * @param from
+     *            the index of the first line (inclusive).
+     * @param to
+     *            the index of the last line (exclusive).
+     */
+    private void validateLines(final Chunk chunk, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            EmailAddressValidationResult validationResult = emailAddressValidator.validate(chunk.emailAddresses[i]);
+            if ((validationResult == EmailAddressValidationResult.VALID) && (domainPolicy != null)
+                    && !domainPolicy.isEmailAddressAllowed(chunk.emailAddresses[i])) {
+                validationResult = EmailAddressValidationResult.BLOCKED_DOMAIN;
+            }
+            chunk.validationResults[i] = validationResult;
+            if (validationResult == EmailAddressValidationResult.VALID) {
+                chunk.fingerprints[i] = FingerprintSet.fingerprint(EmailAddressCanonicalizer
+                        .canonicalize(chunk.emailAddresses[i]));
+            }
+        }
+    }
+}
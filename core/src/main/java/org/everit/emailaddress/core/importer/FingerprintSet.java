@@ -0,0 +1,166 @@
+package org.everit.emailaddress.core.importer;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Set of 64 bit fingerprints stored in a primitive array with open addressing. Used to detect the repeated email
+ * addresses of an import file with eight or sixteen bytes per address instead of storing the addresses. The set is
+ * not thread safe.
+ */
+public final class FingerprintSet {
+
+    /**
+     * The stored value of the zero fingerprint, because the zero marks the empty slots.
+     */
+    private static final long ZERO_REPLACEMENT = 1L;
+
+    /**
+     * The offset basis of the 64 bit FNV-1a hash.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+    /**
+     * The prime of the 64 bit FNV-1a hash.
+     */
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    /**
+     * The multiplier of the slot index hashing (the golden ratio).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The number of the bits of the minimum slot index.
+     */
+    private static final int MIN_SLOT_INDEX_BITS = 4;
+
+    /**
+     * Calculates the 64 bit fingerprint of the text with the FNV-1a hash of its characters.
+     * 
+     * @param text
+     *            the text. Cannot be <code>null</code>.
+     * @return the fingerprint.
+     */
+    public static long fingerprint(final String text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> Byte.SIZE)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * The slots of the fingerprints.
+     */
+    private long[] slots;
+
+    /**
+     * The number of the bits of the slot index.
+     */
+    private int slotIndexBits;
+
+    /**
+     * The number of the stored fingerprints.
+     */
+    private int size;
+
+    /**
+     * Creates an empty set.
+     */
+    public FingerprintSet() {
+        slotIndexBits = MIN_SLOT_INDEX_BITS;
+        slots = new long[1 << slotIndexBits];
+    }
+
+    /**
+     * Adds the fingerprint to the set.
+     * 
+     * @param fingerprint
+     *            the fingerprint.
+     * @return <code>true</code> if the set did not contain the fingerprint, otherwise <code>false</code>.
+     */
+    public boolean add(final long fingerprint) {
+        long value = fingerprint == 0L ? ZERO_REPLACEMENT : fingerprint;
+        if (!insert(slots, slotIndexBits, value)) {
+            return false;
+        }
+        size++;
+        if ((size * 2) > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Removes all fingerprints from the set.
+     */
+    public void clear() {
+        slotIndexBits = MIN_SLOT_INDEX_BITS;
+        slots = new long[1 << slotIndexBits];
+        size = 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Doubles the number of the slots and rehashes the fingerprints.
+     */
+    private void grow() {
+        int newSlotIndexBits = slotIndexBits + 1;
+        long[] newSlots = new long[1 << newSlotIndexBits];
+        for (long value : slots) {
+            if (value != 0L) {
+                insert(newSlots, newSlotIndexBits, value);
+            }
+        }
+        slots = newSlots;
+        slotIndexBits = newSlotIndexBits;
+    }
+
+    /**
+     * Inserts the value to the slots with linear probing.
+     * 
+     * @param targetSlots
+     *            the slots.
+     * @param targetSlotIndexBits
+     *            the number of the bits of the slot index.
+     * @param value
+     *            the not zero value.
+     * @return <code>true</code> if the value is inserted, <code>false</code> if the slots already contain it.
+     */
+    private boolean insert(final long[] targetSlots, final int targetSlotIndexBits, final long value) {
+        int mask = targetSlots.length - 1;
+        int slot = (int) ((value * HASH_MULTIPLIER) >>> (Long.SIZE - targetSlotIndexBits));
+        while (targetSlots[slot] != 0L) {
+            if (targetSlots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        targetSlots[slot] = value;
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+package org.everit.emailaddress.core.importer;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the UTF-8 encoded lines of a file through memory-mapped windows. The lines are terminated by <code>\n</code>
+ * or <code>\r\n</code>, the byte order mark at the start of the file is skipped. A window is mapped at the start of
+ * the current line when the line runs over the end of the previous window, so the file can be larger than the
+ * addressable size of one mapping. The reader is not thread safe.
+ */
+public final class MappedLineReader implements Closeable {
+
+    /**
+     * The default size of the mapped windows in bytes.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The charset of the lines.
+     */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The initial size of the line buffer in bytes.
+     */
+    private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+
+    /**
+     * The byte order mark of the UTF-8 files.
+     */
+    private static final byte[] BYTE_ORDER_MARK = new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+    /**
+     * The read file.
+     */
+    private final RandomAccessFile randomAccessFile;
+
+    /**
+     * The channel of the read file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * The size of the mapped windows in bytes.
+     */
+    private final int windowSize;
+
+    /**
+     * The current window. <code>null</code> before the first mapping.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * The position of the current window in the file.
+     */
+    private long windowPosition;
+
+    /**
+     * The position of the next line in the file.
+     */
+    private long position;
+
+    /**
+     * The buffer of the bytes of the current line.
+     */
+    private byte[] lineBuffer = new byte[INITIAL_LINE_BUFFER_SIZE];
+
+    /**
+     * The simple constructor.
+     * 
+     * @param file
+     *            the read file. Cannot be <code>null</code>.
+     * @param position
+     *            the position of the first read line in the file. Must be the start of a line, not negative and not
+     *            greater than the size of the file.
+     * @param windowSize
+     *            the size of the mapped windows in bytes. Must be greater than the longest line. Must be positive.
+     * @throws IOException
+     *             if the file cannot be opened.
+     * 
+     * @throws IllegalArgumentException
+     *             if the file is <code>null</code>, the windowSize is not positive or the position is out of the file.
+     */
+    public MappedLineReader(final File file, final long position, final int windowSize) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("The file parameter is null. Cannot be null.");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("The windowSize parameter is not positive. Must be positive.");
+        }
+        randomAccessFile = new RandomAccessFile(file, "r");
+        channel = randomAccessFile.getChannel();
+        size = channel.size();
+        if ((position < 0L) || (position > size)) {
+            close();
+            throw new IllegalArgumentException("The position parameter is out of the file. Must be between 0 and "
+                    + size + ".");
+        }
+        this.windowSize = windowSize;
+        this.position = position;
+        if ((position == 0L) && startsWithByteOrderMark()) {
+            this.position = BYTE_ORDER_MARK.length;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        randomAccessFile.close();
+    }
+
+    /**
+     * Decoding the line from the current window.
+     * 
+     * @param length
+     *            the length of the line in bytes without the line terminator.
+     * @return the line.
+     */
+    private String decodeLine(final int length) {
+        if (lineBuffer.length < length) {
+            lineBuffer = new byte[Math.max(length, lineBuffer.length * 2)];
+        }
+        int offset = (int) (position - windowPosition);
+        for (int i = 0; i < length; i++) {
+            lineBuffer[i] = window.get(offset + i);
+        }
+        int lineLength = length;
+        if ((lineLength > 0) && (lineBuffer[lineLength - 1] == '\r')) {
+            lineLength--;
+        }
+        return new String(lineBuffer, 0, lineLength, UTF_8);
+    }
+
+    /**
+     * Get the position of the next line in the file. A new reader created with this position continues the reading
+     * with the next line.
+     * 
+     * @return the position in bytes.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Mapping the window starting at the current position.
+     * 
+     * @throws IOException
+     *             if the mapping fails.
+     */
+    private void mapWindow() throws IOException {
+        windowPosition = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowPosition,
+                Math.min(windowSize, size - windowPosition));
+    }
+
+    /**
+     * Reads the next line.
+     * 
+     * @return the line without the line terminator or <code>null</code> if the end of the file is reached.
+     * @throws IOException
+     *             if the mapping fails or the line is longer than the window size.
+     */
+    public String readLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        int length = 0;
+        while ((position + length) < size) {
+            if ((window == null) || ((position + length) >= (windowPosition + window.limit()))) {
+                if (length >= windowSize) {
+                    throw new IOException("The line at position " + position + " is longer than the window size "
+                            + windowSize + ".");
+                }
+                mapWindow();
+            }
+            if (window.get((int) ((position + length) - windowPosition)) == '\n') {
+                String line = decodeLine(length);
+                position += length + 1;
+                return line;
+            }
+            length++;
+        }
+        String line = decodeLine(length);
+        position += length;
+        return line;
+    }
+
+    /**
+     * Checks the file starts with the UTF-8 byte order mark or not.
+     * 
+     * @return <code>true</code> if the file starts with the byte order mark, otherwise <code>false</code>.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    private boolean startsWithByteOrderMark() throws IOException {
+        if (size < BYTE_ORDER_MARK.length) {
+            return false;
+        }
+        mapWindow();
+        for (int i = 0; i < BYTE_ORDER_MARK.length; i++) {
+            if (window.get(i) != BYTE_ORDER_MARK[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,135 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.everit.emailaddress.core.EmailAddressCanonicalizer;
+
+/**
+ * {@link EmailTransport} that groups the emails by the domain of the receiver and passes them to the
+ * {@link EmailBatchSender} in batches, so many emails of one domain are sent in one SMTP session. The transport is a
+ * buffer owned by its caller: it is created for one unit of work (a chunk of a bulk request), used by one thread and
+ * flushed at the end of the unit of work. A batch is sent when it reaches the maximum batch size or when
+ * {@link #flush()} is called, always in the calling thread, so every failure is thrown to the caller. The transport
+ * is not thread safe.
+ */
+public class BatchingEmailTransport implements EmailTransport {
+
+    /**
+     * The {@link EmailBatchSender} that sends the batches.
+     */
+    private final EmailBatchSender emailBatchSender;
+
+    /**
+     * The maximum number of the emails in one batch.
+     */
+    private final int maxBatchSize;
+
+    /**
+     * The not sent batches by canonical domain in the order of their first email.
+     */
+    private final Map<String, List<PendingEmail>> batches = new LinkedHashMap<String, List<PendingEmail>>();
+
+    /**
+     * The simple constructor.
+     * 
+     * @param emailBatchSender
+     *            the {@link EmailBatchSender} that sends the batches. Cannot be <code>null</code>.
+     * @param maxBatchSize
+     *            the maximum number of the emails in one batch. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailBatchSender parameter is <code>null</code> or the maxBatchSize is not positive.
+     */
+    public BatchingEmailTransport(final EmailBatchSender emailBatchSender, final int maxBatchSize) {
+        if (emailBatchSender == null) {
+            throw new IllegalArgumentException("The emailBatchSender parameter is null. Cannot be null.");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The maxBatchSize parameter is not positive. Must be positive.");
+        }
+        this.emailBatchSender = emailBatchSender;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Sends all waiting batches. The batches are removed from the buffer even if their sending fails, and a failed
+     * batch does not stop the sending of the other batches.
+     * 
+     * @throws IllegalStateException
+     *             if the sending of a batch failed. The exception of the first failed batch is thrown.
+     */
+    public void flush() {
+        List<List<PendingEmail>> flushedBatches = new ArrayList<List<PendingEmail>>(batches.values());
+        batches.clear();
+        RuntimeException failure = null;
+        for (List<PendingEmail> emails : flushedBatches) {
+            try {
+                emailBatchSender.sendEmails(emails);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Get the number of the emails waiting for the sending.
+     * 
+     * @return the number of the not sent emails.
+     */
+    public int getPendingNumber() {
+        int result = 0;
+        for (List<PendingEmail> emails : batches.values()) {
+            result += emails.size();
+        }
+        return result;
+    }
+
+    @Override
+    public void sendEmail(final String receiverEmailAddress, final String subject, final String body) {
+        if ((receiverEmailAddress == null) || (subject == null) || (body == null)) {
+            throw new IllegalArgumentException(
+                    "The receiverEmailAddress or subject or body parameter is null. Cannot be null.");
+        }
+        String domain = EmailAddressCanonicalizer.canonicalizeDomain(
+                receiverEmailAddress.substring(receiverEmailAddress.lastIndexOf('@') + 1));
+        List<PendingEmail> emails = batches.get(domain);
+        if (emails == null) {
+            emails = new ArrayList<PendingEmail>();
+            batches.put(domain, emails);
+        }
+        emails.add(new PendingEmail(receiverEmailAddress, subject, body));
+        if (emails.size() >= maxBatchSize) {
+            batches.remove(domain);
+            emailBatchSender.sendEmails(emails);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.everit.email.api.EmailSenderParam;
+import org.everit.email.api.EmailService;
+import org.everit.messaging.api.dto.MessagePart;
+import org.everit.messaging.api.model.TenureType;
+import org.everit.messaging.api.param.MessageTenureParam;
+
+/**
+ * {@link EmailTransport} that sends the email synchronously with the {@link EmailService}. If it is called in a
+ * transaction the transaction is open until the SMTP server accepts the message.
+ */
+public class DirectEmailTransport implements EmailTransport {
+
+    /**
+     * The default email address of the sender.
+     */
+    private static final String DEFAULT_SENDER_EMAIL_ADDRESS = "localhost@localhost.hu";
+
+    /**
+     * The {@link EmailService} instance.
+     */
+    private EmailService emailService;
+
+    /**
+     * The email address of the sender.
+     */
+    private String senderEmailAddress = DEFAULT_SENDER_EMAIL_ADDRESS;
+
+    @Override
+    public void sendEmail(final String receiverEmailAddress, final String subject, final String body) {
+        if ((receiverEmailAddress == null) || (subject == null) || (body == null)) {
+            throw new IllegalArgumentException(
+                    "The receiverEmailAddress or subject or body parameter is null. Cannot be null.");
+        }
+        Map<String, String> senderParams = new HashMap<String, String>();
+        senderParams.put(EmailSenderParam.EMAIL_ADDRESS, senderEmailAddress);
+        MessageTenureParam sender = MessageTenureParam.createSender(0L, senderParams);
+
+        Map<String, String> receiverParams = new HashMap<String, String>();
+        receiverParams.put(EmailSenderParam.EMAIL_ADDRESS, receiverEmailAddress);
+        MessageTenureParam reciver = MessageTenureParam.createReceiver(TenureType.TO, 0L, receiverParams);
+
+        MessagePart[] messageParts = new MessagePart[] { MessagePart.createInlineHtml(body) };
+
+        emailService.sendMessage(sender, subject, messageParts, null, reciver);
+    }
+
+    public void setEmailService(final EmailService emailService) {
+        this.emailService = emailService;
+    }
+
+    /**
+     * Set the email address of the sender.
+     * 
+     * @param senderEmailAddress
+     *            the email address of the sender. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the senderEmailAddress parameter is <code>null</code>.
+     */
+    public void setSenderEmailAddress(final String senderEmailAddress) {
+        if (senderEmailAddress == null) {
+            throw new IllegalArgumentException("The senderEmailAddress parameter is null. Cannot be null.");
+        }
+        this.senderEmailAddress = senderEmailAddress;
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.List;
+
+/**
+ * Sender of more emails at once, for example in one SMTP session.
+ */
+public interface EmailBatchSender {
+
+    /**
+     * Send the emails. The emails are sent in the order of the list. If the sending of an email fails the rest of
+     * the emails are not sent.
+     * 
+     * @param emails
+     *            the emails. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emails parameter is <code>null</code>.
+     * @throws IllegalStateException
+     *             if the sending of an email fails.
+     */
+    void sendEmails(List<PendingEmail> emails);
+}
@@ -0,0 +1,43 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Transport of the rendered verification emails.
+ */
+public interface EmailTransport {
+
+    /**
+     * Send the email or schedule it for sending.
+     * 
+     * @param receiverEmailAddress
+     *            the email address of the receiver. Cannot be <code>null</code>.
+     * @param subject
+     *            the subject of the email. Cannot be <code>null</code>.
+     * @param body
+     *            the rendered HTML body of the email. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the receiverEmailAddress or subject or body parameter is <code>null</code>.
+     */
+    void sendEmail(String receiverEmailAddress, String subject, String body);
+}
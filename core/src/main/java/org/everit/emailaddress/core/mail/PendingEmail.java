@@ -0,0 +1,73 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * A rendered email waiting for the sending.
+ */
+public final class PendingEmail {
+
+    /**
+     * The email address of the receiver.
+     */
+    private final String receiverEmailAddress;
+
+    /**
+     * The subject of the email.
+     */
+    private final String subject;
+
+    /**
+     * The rendered HTML body of the email.
+     */
+    private final String body;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param receiverEmailAddress
+     *            the email address of the receiver.
+     * @param subject
+     *            the subject of the email.
+     * @param body
+     *            the rendered HTML body of the email.
+     */
+    public PendingEmail(final String receiverEmailAddress, final String subject, final String body) {
+        super();
+        this.receiverEmailAddress = receiverEmailAddress;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getReceiverEmailAddress() {
+        return receiverEmailAddress;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.everit.emailaddress.core.mail;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+
+import org.everit.serviceutil.api.ConfigurationService;
+
+/**
+ * {@link EmailBatchSender} that sends the emails of a batch in one SMTP session, so the connection, the TLS handshake
+ * and the authentication are done once per batch. The server is configured by the same {@link ConfigurationService}
+ * properties as the email service of the {@link DirectEmailTransport}: <code>mail.transport.protocol</code>,
+ * <code>mail.host</code>, <code>mail.&lt;protocol&gt;.port</code>, <code>mail.user</code> and
+ * <code>mail.password</code>. The properties are read for every batch.
+ */
+public class SmtpEmailBatchSender implements EmailBatchSender {
+
+    /**
+     * The default email address of the sender.
+     */
+    private static final String DEFAULT_SENDER_EMAIL_ADDRESS = "localhost@localhost.hu";
+
+    /**
+     * The default transport protocol.
+     */
+    private static final String DEFAULT_PROTOCOL = "smtp";
+
+    /**
+     * The configuration key of the transport protocol.
+     */
+    private static final String PROTOCOL_KEY = "mail.transport.protocol";
+
+    /**
+     * The configuration key of the server address.
+     */
+    private static final String HOST_KEY = "mail.host";
+
+    /**
+     * The configuration key of the user of the authentication.
+     */
+    private static final String USER_KEY = "mail.user";
+
+    /**
+     * The configuration key of the password of the authentication.
+     */
+    private static final String PASSWORD_KEY = "mail.password";
+
+    /**
+     * The content type of the body of the emails.
+     */
+    private static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+
+    /**
+     * The charset of the subject of the emails.
+     */
+    private static final String SUBJECT_CHARSET = "UTF-8";
+
+    /**
+     * The {@link ConfigurationService} of the server properties.
+     */
+    private ConfigurationService configurationService;
+
+    /**
+     * The email address of the sender.
+     */
+    private String senderEmailAddress = DEFAULT_SENDER_EMAIL_ADDRESS;
+
+    /**
+     * The number of the opened sessions.
+     */
+    private final AtomicLong sessionCount = new AtomicLong();
+
+    /**
+     * The number of the sent emails.
+     */
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /**
+     * The number of the not sent emails of the failed batches.
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * The number of the sessions failed on closing.
+     */
+    private final AtomicLong closeErrorCount = new AtomicLong();
+
+    /**
+     * Creating the MIME message of the email. The HTML body is the first part of a multipart message.
+     * 
+     * @param session
+     *            the JavaMail session.
+     * @param email
+     *            the email.
+     * @return the MIME message.
+     * @throws MessagingException
+     *             if an email address is invalid.
+     */
+    private Message createMessage(final Session session, final PendingEmail email) throws MessagingException {
+        MimeBodyPart bodyPart = new MimeBodyPart();
+        bodyPart.setContent(email.getBody(), HTML_CONTENT_TYPE);
+        MimeMultipart multipart = new MimeMultipart();
+        multipart.addBodyPart(bodyPart);
+
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(senderEmailAddress));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.getReceiverEmailAddress()));
+        message.setSubject(email.getSubject(), SUBJECT_CHARSET);
+        message.setContent(multipart);
+        message.saveChanges();
+        return message;
+    }
+
+    public long getCloseErrorCount() {
+        return closeErrorCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Setting the configured property to the properties of the JavaMail session.
+     * 
+     * @param properties
+     *            the properties of the session.
+     * @param key
+     *            the key of the property.
+     */
+    private void putConfiguredProperty(final Properties properties, final String key) {
+        String value = configurationService.getProperty(key);
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    @Override
+    public void sendEmails(final List<PendingEmail> emails) {
+        if (emails == null) {
+            throw new IllegalArgumentException("The emails parameter is null. Cannot be null.");
+        }
+        if (emails.isEmpty()) {
+            return;
+        }
+        String protocol = configurationService.getProperty(PROTOCOL_KEY);
+        if (protocol == null) {
+            protocol = DEFAULT_PROTOCOL;
+        }
+        Properties properties = new Properties();
+        properties.setProperty(PROTOCOL_KEY, protocol);
+        putConfiguredProperty(properties, HOST_KEY);
+        putConfiguredProperty(properties, "mail." + protocol + ".port");
+        putConfiguredProperty(properties, USER_KEY);
+        if (properties.getProperty(HOST_KEY) == null) {
+            throw new IllegalStateException("The " + HOST_KEY + " property is not configured.");
+        }
+        Session session = Session.getInstance(properties);
+        int sent = 0;
+        try {
+            Transport transport = session.getTransport(protocol);
+            transport.connect(properties.getProperty(USER_KEY), configurationService.getProperty(PASSWORD_KEY));
+            sessionCount.incrementAndGet();
+            try {
+                for (PendingEmail email : emails) {
+                    Message message = createMessage(session, email);
+                    transport.sendMessage(message, message.getAllRecipients());
+                    sent++;
+                    sentCount.incrementAndGet();
+                }
+            } finally {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    // the sent emails are accepted by the server, only the closing of the session failed
+                    closeErrorCount.incrementAndGet();
+                }
+            }
+        } catch (MessagingException e) {
+            failedCount.addAndGet(emails.size() - sent);
+            throw new IllegalStateException("Cannot send the emails, " + sent + " of " + emails.size()
+                    + " emails are sent", e);
+        }
+    }
+
+    public void setConfigurationService(final ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    /**
+     * Set the email address of the sender.
+     * 
+     * @param senderEmailAddress
+     *            the email address of the sender. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the senderEmailAddress parameter is <code>null</code>.
+     */
+    public void setSenderEmailAddress(final String senderEmailAddress) {
+        if (senderEmailAddress == null) {
+            throw new IllegalArgumentException("The senderEmailAddress parameter is null. Cannot be null.");
+        }
+        this.senderEmailAddress = senderEmailAddress;
+    }
+
+}
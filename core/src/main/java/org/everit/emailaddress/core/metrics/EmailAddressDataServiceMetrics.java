@@ -0,0 +1,237 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.everit.emailaddress.api.enums.ConfirmationResult;
+
+/**
+ * The metrics of the {@link org.everit.emailaddress.api.EmailAddressDataService} collected by the
+ * {@link MonitoredEmailAddressDataService}. The metrics are published in the platform MBean server by the
+ * {@link #register()} method: the service level metrics with the {@value #OBJECT_NAME} object name and the metrics of
+ * the operations with the same object name extended by the operation key.
+ */
+public class EmailAddressDataServiceMetrics implements EmailAddressDataServiceMetricsMXBean {
+
+    /**
+     * The object name of the service level metrics.
+     */
+    public static final String OBJECT_NAME = "org.everit.emailaddress:type=EmailAddressDataService";
+
+    /**
+     * Creating the object name.
+     * 
+     * @param name
+     *            the string representation of the object name.
+     * @return the object name.
+     * 
+     * @throws IllegalStateException
+     *             if the object name is malformed.
+     */
+    private static ObjectName createObjectName(final String name) {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("The object name is malformed: " + name, e);
+        }
+    }
+
+    /**
+     * Creating the object name of the metrics of the operation.
+     * 
+     * @param operationName
+     *            the name of the operation.
+     * @return the object name.
+     */
+    private static ObjectName createOperationObjectName(final String operationName) {
+        return createObjectName(OBJECT_NAME + ",operation=" + operationName);
+    }
+
+    /**
+     * The metrics of the operations by operation name.
+     */
+    private final ConcurrentMap<String, OperationMetrics> operationMetrics =
+            new ConcurrentHashMap<String, OperationMetrics>();
+
+    /**
+     * The number of the verifications by the ordinal of the {@link ConfirmationResult}.
+     */
+    private final AtomicLongArray confirmationResultCounts = new AtomicLongArray(ConfirmationResult.values().length);
+
+    /**
+     * The MBean server where the metrics are registered. If the metrics are not registered the value is
+     * <code>null</code>.
+     */
+    private MBeanServer mBeanServer;
+
+    @Override
+    public long getCallCount() {
+        long result = 0L;
+        for (OperationMetrics metrics : operationMetrics.values()) {
+            result += metrics.getCallCount();
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getConfirmationResultCounts() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (ConfirmationResult confirmationResult : ConfirmationResult.values()) {
+            result.put(confirmationResult.name(), confirmationResultCounts.get(confirmationResult.ordinal()));
+        }
+        return result;
+    }
+
+    @Override
+    public long getErrorCount() {
+        long result = 0L;
+        for (OperationMetrics metrics : operationMetrics.values()) {
+            result += metrics.getErrorCount();
+        }
+        return result;
+    }
+
+    /**
+     * Get the metrics of the operation. If the metrics of the operation do not exist they are created and registered
+     * if the service level metrics are registered.
+     * 
+     * @param operationName
+     *            the name of the operation. Cannot be <code>null</code>.
+     * @return the {@link OperationMetrics} of the operation.
+     * 
+     * @throws IllegalArgumentException
+     *             if the operationName parameter is <code>null</code>.
+     */
+    public synchronized OperationMetrics getOperationMetrics(final String operationName) {
+        if (operationName == null) {
+            throw new IllegalArgumentException("The operationName parameter is null. Cannot be null.");
+        }
+        OperationMetrics result = operationMetrics.get(operationName);
+        if (result == null) {
+            result = new OperationMetrics(operationName);
+            operationMetrics.put(operationName, result);
+            if (mBeanServer != null) {
+                registerMBean(result, createOperationObjectName(operationName));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record the result of an email address verification.
+     * 
+     * @param confirmationResult
+     *            the result of the verification.
+     */
+    public void recordConfirmationResult(final ConfirmationResult confirmationResult) {
+        confirmationResultCounts.incrementAndGet(confirmationResult.ordinal());
+    }
+
+    /**
+     * Registers the service level metrics and the metrics of the operations in the platform MBean server.
+     * 
+     * @throws IllegalStateException
+     *             if the metrics are already registered or the registration fails.
+     */
+    public synchronized void register() {
+        if (mBeanServer != null) {
+            throw new IllegalStateException("The metrics are already registered.");
+        }
+        mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        registerMBean(this, createObjectName(OBJECT_NAME));
+        for (OperationMetrics metrics : operationMetrics.values()) {
+            registerMBean(metrics, createOperationObjectName(metrics.getOperationName()));
+        }
+    }
+
+    /**
+     * Registers the MBean in the {@link #mBeanServer}.
+     * 
+     * @param mBean
+     *            the MBean.
+     * @param objectName
+     *            the object name of the MBean.
+     * 
+     * @throws IllegalStateException
+     *             if the registration fails.
+     */
+    private void registerMBean(final Object mBean, final ObjectName objectName) {
+        try {
+            mBeanServer.registerMBean(mBean, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the MBean " + objectName, e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        for (OperationMetrics metrics : operationMetrics.values()) {
+            metrics.reset();
+        }
+        for (int i = 0; i < confirmationResultCounts.length(); i++) {
+            confirmationResultCounts.set(i, 0L);
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the MBean server. If the metrics are not registered nothing happens.
+     */
+    public synchronized void unregister() {
+        if (mBeanServer == null) {
+            return;
+        }
+        unregisterMBean(createObjectName(OBJECT_NAME));
+        for (OperationMetrics metrics : operationMetrics.values()) {
+            unregisterMBean(createOperationObjectName(metrics.getOperationName()));
+        }
+        mBeanServer = null;
+    }
+
+    /**
+     * Unregisters the MBean from the {@link #mBeanServer}. If the MBean is not registered nothing happens.
+     * 
+     * @param objectName
+     *            the object name of the MBean.
+     * 
+     * @throws IllegalStateException
+     *             if the unregistration fails.
+     */
+    private void unregisterMBean(final ObjectName objectName) {
+        try {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister the MBean " + objectName, e);
+        }
+    }
+}
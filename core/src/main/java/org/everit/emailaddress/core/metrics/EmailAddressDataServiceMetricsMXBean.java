@@ -0,0 +1,58 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of the {@link org.everit.emailaddress.api.EmailAddressDataService}. The metrics
+ * of the operations are published as separate {@link OperationMetricsMXBean}s.
+ */
+public interface EmailAddressDataServiceMetricsMXBean {
+
+    /**
+     * Get the number of the calls of all operations.
+     * 
+     * @return the number of the finished calls including the failed ones.
+     */
+    long getCallCount();
+
+    /**
+     * Get the results of the email address verifications.
+     * 
+     * @return the number of the verifications by the name of the
+     *         {@link org.everit.emailaddress.api.enums.ConfirmationResult}.
+     */
+    Map<String, Long> getConfirmationResultCounts();
+
+    /**
+     * Get the number of the failed calls of all operations.
+     * 
+     * @return the number of the calls that threw an exception.
+     */
+    long getErrorCount();
+
+    /**
+     * Removes the collected metrics of all operations.
+     */
+    void reset();
+}
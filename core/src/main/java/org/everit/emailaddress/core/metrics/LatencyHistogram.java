@@ -0,0 +1,185 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in nanoseconds. Every power of two range is divided into four buckets, so the
+ * reported percentiles are at most 25 percent higher than the real values. Recording a latency does not allocate
+ * memory.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of the bits of the sub-bucket index.
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+
+    /**
+     * The number of the sub-buckets of a power of two range.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The number of the buckets. The highest bucket contains the largest positive <code>long</code> value.
+     */
+    private static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+    /**
+     * Calculates the index of the bucket of the latency.
+     * 
+     * @param latency
+     *            the latency in nanoseconds. Cannot be negative.
+     * @return the index of the bucket.
+     */
+    private static int bucketIndex(final long latency) {
+        if (latency < SUB_BUCKETS) {
+            return (int) latency;
+        }
+        int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(latency);
+        int subBucket = (int) ((latency >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Calculates the highest latency of the bucket.
+     * 
+     * @param index
+     *            the index of the bucket.
+     * @return the highest latency of the bucket in nanoseconds.
+     */
+    private static long bucketUpperBound(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = ((long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1)))) << shift;
+        return (lowerBound + (1L << shift)) - 1;
+    }
+
+    /**
+     * The number of the recorded latencies by bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The number of the recorded latencies.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The sum of the recorded latencies in nanoseconds.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * The maximum of the recorded latencies in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get the mean of the recorded latencies.
+     * 
+     * @return the mean latency in nanoseconds. If no latency is recorded return <code>0</code>.
+     */
+    public double getMean() {
+        long currentCount = count.get();
+        if (currentCount == 0L) {
+            return 0.0;
+        }
+        return (double) sum.get() / currentCount;
+    }
+
+    /**
+     * Get the percentile of the recorded latencies.
+     * 
+     * @param percentile
+     *            the percentile between <code>0</code> and <code>100</code>.
+     * @return the highest latency of the bucket that contains the percentile in nanoseconds, but not more than the
+     *         maximum. If no latency is recorded return <code>0</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the percentile is not between <code>0</code> and <code>100</code>.
+     */
+    public long getPercentile(final double percentile) {
+        if ((percentile < 0.0) || (percentile > 100.0)) {
+            throw new IllegalArgumentException("The percentile parameter is not between 0 and 100.");
+        }
+        long total = 0L;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil((percentile / 100.0) * total));
+        long cumulated = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulated += snapshot[i];
+            if (cumulated >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Record a latency.
+     * 
+     * @param latency
+     *            the latency in nanoseconds. The negative values are recorded as <code>0</code>.
+     */
+    public void record(final long latency) {
+        long value = Math.max(0L, latency);
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax = max.get();
+        while ((value > currentMax) && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Removes the recorded latencies. The latencies recorded concurrently with the reset may be partially kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+}
@@ -0,0 +1,406 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Collection;
+import java.util.Date;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressExportHandler;
+import org.everit.emailaddress.api.dto.EmailAddressBatchSaveResult;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
+import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.dto.VerificationRequestBatchResult;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Decorator of the {@link EmailAddressDataService} that records the call counts, the latencies and the errors of the
+ * operations and the results of the email address verifications in an {@link EmailAddressDataServiceMetrics}. The
+ * decorated service is not changed, so the monitoring is switched off by publishing the decorated service directly.
+ */
+public class MonitoredEmailAddressDataService implements EmailAddressDataService {
+
+    /**
+     * The decorated service.
+     */
+    private final EmailAddressDataService delegate;
+
+    /**
+     * The metrics of the service.
+     */
+    private final EmailAddressDataServiceMetrics metrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#areEmailAddressesVerified} operation.
+     */
+    private final OperationMetrics areEmailAddressesVerifiedMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#createVerificationRequest} operation.
+     */
+    private final OperationMetrics createVerificationRequestMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#createVerificationRequests} operation.
+     */
+    private final OperationMetrics createVerificationRequestsMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#exportEmailAddresses} operation.
+     */
+    private final OperationMetrics exportEmailAddressesMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#findEmailAddressId} operation.
+     */
+    private final OperationMetrics findEmailAddressIdMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#invalidateEmailAddress} operation.
+     */
+    private final OperationMetrics invalidateEmailAddressMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#invalidateEmailAddresses} operation.
+     */
+    private final OperationMetrics invalidateEmailAddressesMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#invalidateEmailAddressesByDomain} operations with and without
+     * the maximum number of the invalidated email addresses.
+     */
+    private final OperationMetrics invalidateEmailAddressesByDomainMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#isEmailAddressVerified} operation.
+     */
+    private final OperationMetrics isEmailAddressVerifiedMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#saveEmailAddress} operation.
+     */
+    private final OperationMetrics saveEmailAddressMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#saveEmailAddresses} operation.
+     */
+    private final OperationMetrics saveEmailAddressesMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#saveOrGetEmailAddress} operation.
+     */
+    private final OperationMetrics saveOrGetEmailAddressMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#saveValidEmailAddresses} operation.
+     */
+    private final OperationMetrics saveValidEmailAddressesMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#tryCreateVerificationRequest} operation.
+     */
+    private final OperationMetrics tryCreateVerificationRequestMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#trySaveEmailAddress} operation.
+     */
+    private final OperationMetrics trySaveEmailAddressMetrics;
+
+    /**
+     * The metrics of the {@link EmailAddressDataService#verifyEmailAddress} operation.
+     */
+    private final OperationMetrics verifyEmailAddressMetrics;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param delegate
+     *            the decorated service. Cannot be <code>null</code>.
+     * @param metrics
+     *            the metrics of the service. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the delegate or metrics parameter is <code>null</code>.
+     */
+    public MonitoredEmailAddressDataService(final EmailAddressDataService delegate,
+            final EmailAddressDataServiceMetrics metrics) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The delegate parameter is null. Cannot be null.");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("The metrics parameter is null. Cannot be null.");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+        areEmailAddressesVerifiedMetrics = metrics.getOperationMetrics("areEmailAddressesVerified");
+        createVerificationRequestMetrics = metrics.getOperationMetrics("createVerificationRequest");
+        createVerificationRequestsMetrics = metrics.getOperationMetrics("createVerificationRequests");
+        exportEmailAddressesMetrics = metrics.getOperationMetrics("exportEmailAddresses");
+        findEmailAddressIdMetrics = metrics.getOperationMetrics("findEmailAddressId");
+        invalidateEmailAddressMetrics = metrics.getOperationMetrics("invalidateEmailAddress");
+        invalidateEmailAddressesMetrics = metrics.getOperationMetrics("invalidateEmailAddresses");
+        invalidateEmailAddressesByDomainMetrics = metrics.getOperationMetrics("invalidateEmailAddressesByDomain");
+        isEmailAddressVerifiedMetrics = metrics.getOperationMetrics("isEmailAddressVerified");
+        saveEmailAddressMetrics = metrics.getOperationMetrics("saveEmailAddress");
+        saveEmailAddressesMetrics = metrics.getOperationMetrics("saveEmailAddresses");
+        saveOrGetEmailAddressMetrics = metrics.getOperationMetrics("saveOrGetEmailAddress");
+        saveValidEmailAddressesMetrics = metrics.getOperationMetrics("saveValidEmailAddresses");
+        tryCreateVerificationRequestMetrics = metrics.getOperationMetrics("tryCreateVerificationRequest");
+        trySaveEmailAddressMetrics = metrics.getOperationMetrics("trySaveEmailAddress");
+        verifyEmailAddressMetrics = metrics.getOperationMetrics("verifyEmailAddress");
+    }
+
+    @Override
+    public EmailVerificationStatuses areEmailAddressesVerified(final long[] emailAddressIds) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.areEmailAddressesVerified(emailAddressIds);
+        } catch (RuntimeException e) {
+            areEmailAddressesVerifiedMetrics.recordError(e);
+            throw e;
+        } finally {
+            areEmailAddressesVerifiedMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public void createVerificationRequest(final long emailAddressId, final String messageTemplate,
+            final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        long startTime = System.nanoTime();
+        try {
+            delegate.createVerificationRequest(emailAddressId, messageTemplate, tokenValidityEndDate,
+                    verificationLength, verificationLengthBase);
+        } catch (RuntimeException e) {
+            createVerificationRequestMetrics.recordError(e);
+            throw e;
+        } finally {
+            createVerificationRequestMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public VerificationRequestBatchResult createVerificationRequests(final long[] emailAddressIds,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.createVerificationRequests(emailAddressIds, messageTemplate, tokenValidityEndDate,
+                    verificationLength, verificationLengthBase);
+        } catch (RuntimeException e) {
+            createVerificationRequestsMetrics.recordError(e);
+            throw e;
+        } finally {
+            createVerificationRequestsMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public long exportEmailAddresses(final Date modifiedFrom, final Date modifiedTo,
+            final long afterEmailAddressId, final EmailAddressExportHandler exportHandler) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.exportEmailAddresses(modifiedFrom, modifiedTo, afterEmailAddressId, exportHandler);
+        } catch (RuntimeException e) {
+            exportEmailAddressesMetrics.recordError(e);
+            throw e;
+        } finally {
+            exportEmailAddressesMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public Long findEmailAddressId(final String emailAddress) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.findEmailAddressId(emailAddress);
+        } catch (RuntimeException e) {
+            findEmailAddressIdMetrics.recordError(e);
+            throw e;
+        } finally {
+            findEmailAddressIdMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public void invalidateEmailAddress(final long emailAddressId) {
+        long startTime = System.nanoTime();
+        try {
+            delegate.invalidateEmailAddress(emailAddressId);
+        } catch (RuntimeException e) {
+            invalidateEmailAddressMetrics.recordError(e);
+            throw e;
+        } finally {
+            invalidateEmailAddressMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public int invalidateEmailAddresses(final long[] emailAddressIds) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.invalidateEmailAddresses(emailAddressIds);
+        } catch (RuntimeException e) {
+            invalidateEmailAddressesMetrics.recordError(e);
+            throw e;
+        } finally {
+            invalidateEmailAddressesMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public int invalidateEmailAddressesByDomain(final String domain) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.invalidateEmailAddressesByDomain(domain);
+        } catch (RuntimeException e) {
+            invalidateEmailAddressesByDomainMetrics.recordError(e);
+            throw e;
+        } finally {
+            invalidateEmailAddressesByDomainMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public int invalidateEmailAddressesByDomain(final String domain, final int maxEmailAddressNumber) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.invalidateEmailAddressesByDomain(domain, maxEmailAddressNumber);
+        } catch (RuntimeException e) {
+            invalidateEmailAddressesByDomainMetrics.recordError(e);
+            throw e;
+        } finally {
+            invalidateEmailAddressesByDomainMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public boolean isEmailAddressVerified(final long emailAddressId) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.isEmailAddressVerified(emailAddressId);
+        } catch (RuntimeException e) {
+            isEmailAddressVerifiedMetrics.recordError(e);
+            throw e;
+        } finally {
+            isEmailAddressVerifiedMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public long saveEmailAddress(final String emailAddress) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.saveEmailAddress(emailAddress);
+        } catch (RuntimeException e) {
+            saveEmailAddressMetrics.recordError(e);
+            throw e;
+        } finally {
+            saveEmailAddressMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public long[] saveEmailAddresses(final Collection<String> emailAddresses) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.saveEmailAddresses(emailAddresses);
+        } catch (RuntimeException e) {
+            saveEmailAddressesMetrics.recordError(e);
+            throw e;
+        } finally {
+            saveEmailAddressesMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public long saveOrGetEmailAddress(final String emailAddress) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.saveOrGetEmailAddress(emailAddress);
+        } catch (RuntimeException e) {
+            saveOrGetEmailAddressMetrics.recordError(e);
+            throw e;
+        } finally {
+            saveOrGetEmailAddressMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public EmailAddressBatchSaveResult saveValidEmailAddresses(final Collection<String> emailAddresses) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.saveValidEmailAddresses(emailAddresses);
+        } catch (RuntimeException e) {
+            saveValidEmailAddressesMetrics.recordError(e);
+            throw e;
+        } finally {
+            saveValidEmailAddressesMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public VerificationRequestOutcome tryCreateVerificationRequest(final long emailAddressId,
+            final String messageTemplate, final Date tokenValidityEndDate, final long verificationLength,
+            final VerificationLengthBase verificationLengthBase) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.tryCreateVerificationRequest(emailAddressId, messageTemplate,
+                    tokenValidityEndDate, verificationLength, verificationLengthBase);
+        } catch (RuntimeException e) {
+            tryCreateVerificationRequestMetrics.recordError(e);
+            throw e;
+        } finally {
+            tryCreateVerificationRequestMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public EmailAddressSaveResult trySaveEmailAddress(final String emailAddress) {
+        long startTime = System.nanoTime();
+        try {
+            return delegate.trySaveEmailAddress(emailAddress);
+        } catch (RuntimeException e) {
+            trySaveEmailAddressMetrics.recordError(e);
+            throw e;
+        } finally {
+            trySaveEmailAddressMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public EmailVerificationResult verifyEmailAddress(final String tokenUUID) {
+        long startTime = System.nanoTime();
+        try {
+            EmailVerificationResult result = delegate.verifyEmailAddress(tokenUUID);
+            metrics.recordConfirmationResult(result.getResult());
+            return result;
+        } catch (RuntimeException e) {
+            verifyEmailAddressMetrics.recordError(e);
+            throw e;
+        } finally {
+            verifyEmailAddressMetrics.recordLatency(System.nanoTime() - startTime);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of one operation of the {@link org.everit.emailaddress.api.EmailAddressDataService}. The counters are
+ * lock free and recording a successful call does not allocate memory.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+
+    /**
+     * The number of the nanoseconds in one microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * The name of the operation.
+     */
+    private final String operationName;
+
+    /**
+     * The latencies of the calls.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * The number of the failed calls.
+     */
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * The number of the failed calls by the name of the class of the thrown exception.
+     */
+    private final ConcurrentMap<String, AtomicLong> errorCounts = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * The simple constructor.
+     * 
+     * @param operationName
+     *            the name of the operation. Cannot be <code>null</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the operationName parameter is <code>null</code>.
+     */
+    public OperationMetrics(final String operationName) {
+        if (operationName == null) {
+            throw new IllegalArgumentException("The operationName parameter is null. Cannot be null.");
+        }
+        this.operationName = operationName;
+    }
+
+    @Override
+    public long getCallCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : errorCounts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().get());
+        }
+        return result;
+    }
+
+    @Override
+    public double getLatency50thPercentileMicros() {
+        return latencies.getPercentile(50.0) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatency95thPercentileMicros() {
+        return latencies.getPercentile(95.0) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLatency99thPercentileMicros() {
+        return latencies.getPercentile(99.0) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latencies.getMax() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latencies.getMean() / NANOS_PER_MICRO;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    /**
+     * Record a failed call. The latency of the call must be recorded by {@link #recordLatency(long)} too.
+     * 
+     * @param e
+     *            the exception thrown by the call.
+     */
+    public void recordError(final Throwable e) {
+        errorCount.incrementAndGet();
+        String exceptionName = e.getClass().getName();
+        AtomicLong counter = errorCounts.get(exceptionName);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = errorCounts.putIfAbsent(exceptionName, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Record the latency of a finished call.
+     * 
+     * @param latency
+     *            the latency of the call in nanoseconds.
+     */
+    public void recordLatency(final long latency) {
+        latencies.record(latency);
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+        errorCount.set(0L);
+        errorCounts.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package org.everit.emailaddress.core.metrics;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of one operation of the
+ * {@link org.everit.emailaddress.api.EmailAddressDataService}. The latencies are measured from the call of the
+ * service to the return or the exception, so they contain the commit of the transaction of the operation.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * Get the number of the calls.
+     * 
+     * @return the number of the finished calls including the failed ones.
+     */
+    long getCallCount();
+
+    /**
+     * Get the number of the failed calls.
+     * 
+     * @return the number of the calls that threw an exception.
+     */
+    long getErrorCount();
+
+    /**
+     * Get the number of the failed calls by exception type.
+     * 
+     * @return the number of the failed calls by the name of the class of the thrown exception.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Get the 50th percentile of the latencies.
+     * 
+     * @return the latency in microseconds.
+     */
+    double getLatency50thPercentileMicros();
+
+    /**
+     * Get the 95th percentile of the latencies.
+     * 
+     * @return the latency in microseconds.
+     */
+    double getLatency95thPercentileMicros();
+
+    /**
+     * Get the 99th percentile of the latencies.
+     * 
+     * @return the latency in microseconds.
+     */
+    double getLatency99thPercentileMicros();
+
+    /**
+     * Get the maximum of the latencies.
+     * 
+     * @return the latency in microseconds.
+     */
+    double getMaxLatencyMicros();
+
+    /**
+     * Get the mean of the latencies.
+     * 
+     * @return the latency in microseconds.
+     */
+    double getMeanLatencyMicros();
+
+    /**
+     * Removes the collected metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,611 @@
+package org.everit.emailaddress.core.outbox;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.everit.emailaddress.core.mail.EmailTransport;
+
+/**
+ * Background dispatcher of the email outbox. A poller thread claims the due messages in batches and a fixed size
+ * worker pool sends them with the configured {@link EmailTransport}. The sent messages are deleted. The failed
+ * messages are retried with exponential backoff until the maximum number of attempts is reached. The delivery is at
+ * least once: if the dispatcher stops between the sending and the deleting, the message is sent again after the
+ * lease expired. The failed messages are kept for the failed retention time and purged by the poller thread once in
+ * every purge interval.
+ */
+public class EmailOutboxDispatcher {
+
+    /**
+     * Thread factory of the named daemon threads.
+     */
+    private static final class DispatcherThreadFactory implements ThreadFactory {
+
+        /**
+         * The prefix of the thread names.
+         */
+        private final String namePrefix;
+
+        /**
+         * The number of the created threads.
+         */
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        /**
+         * The simple constructor.
+         * 
+         * @param namePrefix
+         *            the prefix of the thread names.
+         */
+        private DispatcherThreadFactory(final String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The default number of the concurrently sent messages.
+     */
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * The default maximum number of the messages claimed at once.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 20;
+
+    /**
+     * The default delay between the polls of the outbox in milliseconds.
+     */
+    private static final long DEFAULT_POLL_INTERVAL = 1000L;
+
+    /**
+     * The default length of the claims in milliseconds.
+     */
+    private static final long DEFAULT_LEASE_LENGTH = 300000L;
+
+    /**
+     * The default delay of the first retry in milliseconds.
+     */
+    private static final long DEFAULT_INITIAL_BACKOFF = 10000L;
+
+    /**
+     * The default maximum delay of the retries in milliseconds.
+     */
+    private static final long DEFAULT_MAX_BACKOFF = 3600000L;
+
+    /**
+     * The default maximum number of the sending attempts.
+     */
+    private static final int DEFAULT_MAX_ATTEMPTS = 8;
+
+    /**
+     * The default retention time of the failed messages in milliseconds (7 days).
+     */
+    private static final long DEFAULT_FAILED_RETENTION = 604800000L;
+
+    /**
+     * The default delay between the purges of the failed messages in milliseconds.
+     */
+    private static final long DEFAULT_PURGE_INTERVAL = 3600000L;
+
+    /**
+     * The maximum time of waiting for the threads on stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 10000L;
+
+    /**
+     * The {@link EmailOutboxStore} instance.
+     */
+    private EmailOutboxStore emailOutboxStore;
+
+    /**
+     * The {@link EmailTransport} that sends the messages.
+     */
+    private EmailTransport emailTransport;
+
+    /**
+     * The number of the concurrently sent messages.
+     */
+    private int concurrency = DEFAULT_CONCURRENCY;
+
+    /**
+     * The maximum number of the messages claimed at once.
+     */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * The delay between the polls of the outbox in milliseconds.
+     */
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+
+    /**
+     * The length of the claims in milliseconds. Must be greater than the time of sending a batch.
+     */
+    private long leaseLength = DEFAULT_LEASE_LENGTH;
+
+    /**
+     * The delay of the first retry in milliseconds. The delay is doubled for every further attempt.
+     */
+    private long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+    /**
+     * The maximum delay of the retries in milliseconds.
+     */
+    private long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+    /**
+     * The maximum number of the sending attempts of one message.
+     */
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    /**
+     * The retention time of the failed messages in milliseconds.
+     */
+    private long failedRetention = DEFAULT_FAILED_RETENTION;
+
+    /**
+     * The delay between the purges of the failed messages in milliseconds.
+     */
+    private long purgeInterval = DEFAULT_PURGE_INTERVAL;
+
+    /**
+     * The time of the next purge of the failed messages in milliseconds. Used only by the poller thread.
+     */
+    private long nextPurgeTime;
+
+    /**
+     * The unique id of the dispatcher used in the lease tokens.
+     */
+    private final String dispatcherId = UUID.randomUUID().toString();
+
+    /**
+     * The number of the claims.
+     */
+    private final AtomicLong claimNumber = new AtomicLong();
+
+    /**
+     * The number of the pending messages at the last poll.
+     */
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    /**
+     * The number of the sent messages.
+     */
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /**
+     * The number of the rescheduled sending attempts.
+     */
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * The number of the messages marked as failed.
+     */
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * The number of the purged failed messages.
+     */
+    private final AtomicLong purgedCount = new AtomicLong();
+
+    /**
+     * The number of the polls failed with exception.
+     */
+    private final AtomicLong pollErrorCount = new AtomicLong();
+
+    /**
+     * The sum of the sending times in nanoseconds.
+     */
+    private final AtomicLong totalSendLatency = new AtomicLong();
+
+    /**
+     * The maximum sending time in nanoseconds.
+     */
+    private final AtomicLong maxSendLatency = new AtomicLong();
+
+    /**
+     * The executor of the polls.
+     */
+    private ScheduledExecutorService pollExecutor;
+
+    /**
+     * The executor of the sending.
+     */
+    private ExecutorService workerPool;
+
+    /**
+     * Calculates the delay of the next attempt.
+     * 
+     * @param attempts
+     *            the number of the failed attempts.
+     * @return the delay in milliseconds.
+     */
+    private long calculateBackoff(final int attempts) {
+        long backoff = initialBackoff;
+        for (int i = 1; (i < attempts) && (backoff < maxBackoff); i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, maxBackoff);
+    }
+
+    /**
+     * Claims and sends the due messages batch by batch until a batch is not full.
+     */
+    public void dispatch() {
+        List<OutboxMessage> messages;
+        do {
+            String leaseToken = dispatcherId + "-" + claimNumber.incrementAndGet();
+            messages = emailOutboxStore.claimMessages(leaseToken, batchSize, leaseLength);
+            queueDepth.set(emailOutboxStore.countPendingMessages());
+            if (!messages.isEmpty()) {
+                sendMessages(messages, leaseToken);
+            }
+        } while ((messages.size() == batchSize) && !Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Get the average sending time.
+     * 
+     * @return the average sending time of the sent messages in milliseconds.
+     */
+    public double getAverageSendLatency() {
+        long sent = sentCount.get();
+        if (sent == 0L) {
+            return 0.0;
+        }
+        return totalSendLatency.get() / (sent * (double) TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Get the maximum sending time.
+     * 
+     * @return the maximum sending time in milliseconds.
+     */
+    public long getMaxSendLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxSendLatency.get());
+    }
+
+    public long getPollErrorCount() {
+        return pollErrorCount.get();
+    }
+
+    public long getPurgedCount() {
+        return purgedCount.get();
+    }
+
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Deletes the failed messages that are older than the failed retention time in batches.
+     * 
+     * @return the number of the deleted messages.
+     */
+    public long purgeFailedMessages() {
+        Date failedBefore = new Date(System.currentTimeMillis() - failedRetention);
+        long result = 0L;
+        int purgedNumber;
+        do {
+            purgedNumber = emailOutboxStore.purgeFailedMessages(failedBefore, batchSize);
+            result += purgedNumber;
+            purgedCount.addAndGet(purgedNumber);
+        } while ((purgedNumber == batchSize) && !Thread.currentThread().isInterrupted());
+        return result;
+    }
+
+    /**
+     * Recording the sending time of a message.
+     * 
+     * @param sendLatency
+     *            the sending time in nanoseconds.
+     */
+    private void recordSendLatency(final long sendLatency) {
+        totalSendLatency.addAndGet(sendLatency);
+        long max = maxSendLatency.get();
+        while ((sendLatency > max) && !maxSendLatency.compareAndSet(max, sendLatency)) {
+            max = maxSendLatency.get();
+        }
+    }
+
+    /**
+     * Sending the message and releasing the claim.
+     * 
+     * @param message
+     *            the claimed message.
+     * @param leaseToken
+     *            the token of the claim.
+     */
+    private void sendMessage(final OutboxMessage message, final String leaseToken) {
+        long startTime = System.nanoTime();
+        try {
+            emailTransport.sendEmail(message.getReceiverEmailAddress(), message.getSubject(), message.getBody());
+        } catch (RuntimeException e) {
+            if (message.getAttempts() >= maxAttempts) {
+                emailOutboxStore.failMessage(message.getOutboxMessageId(), leaseToken, e.toString());
+                failedCount.incrementAndGet();
+            } else {
+                long nextAttemptTime = System.currentTimeMillis() + calculateBackoff(message.getAttempts());
+                emailOutboxStore.rescheduleMessage(message.getOutboxMessageId(), leaseToken,
+                        new Date(nextAttemptTime), e.toString());
+                retryCount.incrementAndGet();
+            }
+            return;
+        }
+        recordSendLatency(System.nanoTime() - startTime);
+        sentCount.incrementAndGet();
+        emailOutboxStore.deleteMessage(message.getOutboxMessageId(), leaseToken);
+    }
+
+    /**
+     * Sending the claimed messages with the worker pool and waiting for the end of the sending.
+     * 
+     * @param messages
+     *            the claimed messages.
+     * @param leaseToken
+     *            the token of the claim.
+     */
+    private void sendMessages(final List<OutboxMessage> messages, final String leaseToken) {
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(messages.size());
+        for (final OutboxMessage message : messages) {
+            tasks.add(Executors.callable(new Runnable() {
+
+                @Override
+                public void run() {
+                    sendMessage(message, leaseToken);
+                }
+            }));
+        }
+        try {
+            workerPool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Set the maximum number of the messages claimed at once.
+     * 
+     * @param batchSize
+     *            the batch size. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the batchSize is not positive.
+     */
+    public void setBatchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batchSize parameter is not positive. Must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Set the number of the concurrently sent messages.
+     * 
+     * @param concurrency
+     *            the number of the worker threads. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the concurrency is not positive.
+     */
+    public void setConcurrency(final int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("The concurrency parameter is not positive. Must be positive.");
+        }
+        this.concurrency = concurrency;
+    }
+
+    public void setEmailOutboxStore(final EmailOutboxStore emailOutboxStore) {
+        this.emailOutboxStore = emailOutboxStore;
+    }
+
+    public void setEmailTransport(final EmailTransport emailTransport) {
+        this.emailTransport = emailTransport;
+    }
+
+    /**
+     * Set the retention time of the failed messages.
+     * 
+     * @param failedRetention
+     *            the retention time in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the failedRetention is not positive.
+     */
+    public void setFailedRetention(final long failedRetention) {
+        if (failedRetention <= 0L) {
+            throw new IllegalArgumentException("The failedRetention parameter is not positive. Must be positive.");
+        }
+        this.failedRetention = failedRetention;
+    }
+
+    /**
+     * Set the delay of the first retry.
+     * 
+     * @param initialBackoff
+     *            the delay in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the initialBackoff is not positive.
+     */
+    public void setInitialBackoff(final long initialBackoff) {
+        if (initialBackoff <= 0L) {
+            throw new IllegalArgumentException("The initialBackoff parameter is not positive. Must be positive.");
+        }
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * Set the length of the claims.
+     * 
+     * @param leaseLength
+     *            the length in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the leaseLength is not positive.
+     */
+    public void setLeaseLength(final long leaseLength) {
+        if (leaseLength <= 0L) {
+            throw new IllegalArgumentException("The leaseLength parameter is not positive. Must be positive.");
+        }
+        this.leaseLength = leaseLength;
+    }
+
+    /**
+     * Set the maximum number of the sending attempts of one message.
+     * 
+     * @param maxAttempts
+     *            the number of the attempts. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the maxAttempts is not positive.
+     */
+    public void setMaxAttempts(final int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("The maxAttempts parameter is not positive. Must be positive.");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Set the maximum delay of the retries.
+     * 
+     * @param maxBackoff
+     *            the delay in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the maxBackoff is not positive.
+     */
+    public void setMaxBackoff(final long maxBackoff) {
+        if (maxBackoff <= 0L) {
+            throw new IllegalArgumentException("The maxBackoff parameter is not positive. Must be positive.");
+        }
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Set the delay between the polls of the outbox.
+     * 
+     * @param pollInterval
+     *            the delay in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the pollInterval is not positive.
+     */
+    public void setPollInterval(final long pollInterval) {
+        if (pollInterval <= 0L) {
+            throw new IllegalArgumentException("The pollInterval parameter is not positive. Must be positive.");
+        }
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Set the delay between the purges of the failed messages.
+     * 
+     * @param purgeInterval
+     *            the delay in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the purgeInterval is not positive.
+     */
+    public void setPurgeInterval(final long purgeInterval) {
+        if (purgeInterval <= 0L) {
+            throw new IllegalArgumentException("The purgeInterval parameter is not positive. Must be positive.");
+        }
+        this.purgeInterval = purgeInterval;
+    }
+
+    /**
+     * Starts the poller thread and the worker pool. Called by blueprint.
+     */
+    public void start() {
+        workerPool = Executors.newFixedThreadPool(concurrency,
+                new DispatcherThreadFactory("emailaddress-outbox-worker-"));
+        pollExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DispatcherThreadFactory("emailaddress-outbox-poller-"));
+        pollExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    dispatch();
+                    long currentTime = System.currentTimeMillis();
+                    if (currentTime >= nextPurgeTime) {
+                        nextPurgeTime = currentTime + purgeInterval;
+                        purgeFailedMessages();
+                    }
+                } catch (RuntimeException e) {
+                    // an exception would cancel the scheduled polls
+                    pollErrorCount.incrementAndGet();
+                }
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the poller thread and the worker pool. The claimed but not sent messages are claimed again after the lease
+     * expired. Called by blueprint.
+     */
+    public void stop() {
+        pollExecutor.shutdownNow();
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                workerPool.shutdownNow();
+            }
+            pollExecutor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
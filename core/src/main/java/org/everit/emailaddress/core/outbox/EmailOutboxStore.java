@@ -0,0 +1,138 @@
+package org.everit.emailaddress.core.outbox;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Transactional access of the email outbox. The methods join the transaction of the caller or start a new one. The
+ * {@link EmailOutboxDispatcher} calls them without transaction, so every claim and release is committed immediately.
+ */
+public interface EmailOutboxStore {
+
+    /**
+     * Claims the pending messages whose next attempt date is passed and that are not claimed by an other
+     * dispatcher. The claim is a conditional update of the lease columns, so the messages claimed concurrently by an
+     * other dispatcher are skipped instead of waiting for the other dispatcher.
+     * 
+     * @param leaseToken
+     *            the token of the claim. Must be unique for every claim. Cannot be <code>null</code>.
+     * @param maxMessageNumber
+     *            the maximum number of the claimed messages. Must be positive.
+     * @param leaseLength
+     *            the length of the claim in milliseconds. After that the messages can be claimed again. Must be
+     *            positive.
+     * @return the claimed messages ordered by id. Empty list if there is no message to claim.
+     * 
+     * @throws IllegalArgumentException
+     *             if the leaseToken parameter is <code>null</code> or the maxMessageNumber or leaseLength is not
+     *             positive.
+     */
+    List<OutboxMessage> claimMessages(String leaseToken, int maxMessageNumber, long leaseLength);
+
+    /**
+     * Counts the pending messages.
+     * 
+     * @return the number of the pending messages including the claimed ones.
+     */
+    long countPendingMessages();
+
+    /**
+     * Deletes the sent message if the claim is still held.
+     * 
+     * @param outboxMessageId
+     *            the id of the outbox message.
+     * @param leaseToken
+     *            the token of the claim. Cannot be <code>null</code>.
+     * @return <code>true</code> if the message is deleted, <code>false</code> if the claim is lost.
+     * 
+     * @throws IllegalArgumentException
+     *             if the leaseToken parameter is <code>null</code>.
+     */
+    boolean deleteMessage(long outboxMessageId, String leaseToken);
+
+    /**
+     * Writes the message to the outbox as pending. The message is inserted when the transaction is flushed, together
+     * with the other messages of the transaction.
+     * 
+     * @param receiverEmailAddress
+     *            the email address of the receiver. Cannot be <code>null</code>.
+     * @param subject
+     *            the subject of the message. Cannot be <code>null</code>.
+     * @param body
+     *            the rendered HTML body of the message. Cannot be <code>null</code>.
+     * @return the id of the outbox message.
+     * 
+     * @throws IllegalArgumentException
+     *             if the receiverEmailAddress or subject or body parameter is <code>null</code>.
+     */
+    long enqueueMessage(String receiverEmailAddress, String subject, String body);
+
+    /**
+     * Marks the message as failed if the claim is still held. The failed messages are not retried.
+     * 
+     * @param outboxMessageId
+     *            the id of the outbox message.
+     * @param leaseToken
+     *            the token of the claim. Cannot be <code>null</code>.
+     * @param error
+     *            the error message of the last attempt. May be <code>null</code>.
+     * @return <code>true</code> if the message is updated, <code>false</code> if the claim is lost.
+     * 
+     * @throws IllegalArgumentException
+     *             if the leaseToken parameter is <code>null</code>.
+     */
+    boolean failMessage(long outboxMessageId, String leaseToken, String error);
+
+    /**
+     * Deletes the failed messages whose last attempt was before the given date.
+     * 
+     * @param failedBefore
+     *            the messages failed before this date are deleted. Cannot be <code>null</code>.
+     * @param maxMessageNumber
+     *            the maximum number of the deleted messages. Must be positive.
+     * @return the number of the deleted messages.
+     * 
+     * @throws IllegalArgumentException
+     *             if the failedBefore parameter is <code>null</code> or the maxMessageNumber is not positive.
+     */
+    int purgeFailedMessages(Date failedBefore, int maxMessageNumber);
+
+    /**
+     * Releases the claim of the message and schedules the next attempt if the claim is still held.
+     * 
+     * @param outboxMessageId
+     *            the id of the outbox message.
+     * @param leaseToken
+     *            the token of the claim. Cannot be <code>null</code>.
+     * @param nextAttemptDate
+     *            the earliest date of the next attempt. Cannot be <code>null</code>.
+     * @param error
+     *            the error message of the last attempt. May be <code>null</code>.
+     * @return <code>true</code> if the message is updated, <code>false</code> if the claim is lost.
+     * 
+     * @throws IllegalArgumentException
+     *             if the leaseToken or nextAttemptDate parameter is <code>null</code>.
+     */
+    boolean rescheduleMessage(long outboxMessageId, String leaseToken, Date nextAttemptDate, String error);
+}
@@ -0,0 +1,288 @@
+package org.everit.emailaddress.core.outbox;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.everit.emailaddress.entity.EmailOutboxEntity;
+import org.everit.emailaddress.entity.EmailOutboxEntity_;
+import org.everit.emailaddress.entity.OutboxMessageStatus;
+
+/**
+ * Implementation of {@link EmailOutboxStore}.
+ */
+public class EmailOutboxStoreImpl implements EmailOutboxStore {
+
+    /**
+     * The maximum length of the stored error message.
+     */
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * The query of the conditional claiming of the messages.
+     */
+    private static final String CLAIM_QUERY = "UPDATE EmailOutboxEntity m"
+            + " SET m.leaseToken = :leaseToken, m.leaseEndDate = :leaseEndDate, m.attempts = m.attempts + 1"
+            + " WHERE m.outboxMessageId IN (:outboxMessageIds) AND m.status = :status"
+            + " AND (m.leaseEndDate IS NULL OR m.leaseEndDate < :currentDate)";
+
+    /**
+     * The query of the deleting of the sent message.
+     */
+    private static final String DELETE_QUERY = "DELETE FROM EmailOutboxEntity m"
+            + " WHERE m.outboxMessageId = :outboxMessageId AND m.leaseToken = :leaseToken";
+
+    /**
+     * The query of the ids of the failed messages to purge.
+     */
+    private static final String FIND_PURGEABLE_QUERY = "SELECT m.outboxMessageId FROM EmailOutboxEntity m"
+            + " WHERE m.status = :status AND m.nextAttemptDate < :failedBefore ORDER BY m.outboxMessageId";
+
+    /**
+     * The query of the purging of the failed messages.
+     */
+    private static final String PURGE_QUERY = "DELETE FROM EmailOutboxEntity m"
+            + " WHERE m.outboxMessageId IN (:outboxMessageIds) AND m.status = :status";
+
+    /**
+     * The query of the releasing of the claimed message.
+     */
+    private static final String RELEASE_QUERY = "UPDATE EmailOutboxEntity m"
+            + " SET m.status = :status, m.nextAttemptDate = :nextAttemptDate, m.lastError = :lastError,"
+            + " m.leaseToken = NULL, m.leaseEndDate = NULL"
+            + " WHERE m.outboxMessageId = :outboxMessageId AND m.leaseToken = :leaseToken";
+
+    /**
+     * Truncating the error message to the length of the column.
+     * 
+     * @param error
+     *            the error message. May be <code>null</code>.
+     * @return the truncated error message.
+     */
+    private static String truncateError(final String error) {
+        if ((error != null) && (error.length() > MAX_ERROR_LENGTH)) {
+            return error.substring(0, MAX_ERROR_LENGTH);
+        }
+        return error;
+    }
+
+    /**
+     * EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    @Override
+    public List<OutboxMessage> claimMessages(final String leaseToken, final int maxMessageNumber,
+            final long leaseLength) {
+        if (leaseToken == null) {
+            throw new IllegalArgumentException("The leaseToken parameter is null. Cannot be null.");
+        }
+        if (maxMessageNumber <= 0) {
+            throw new IllegalArgumentException("The maxMessageNumber parameter is not positive. Must be positive.");
+        }
+        if (leaseLength <= 0L) {
+            throw new IllegalArgumentException("The leaseLength parameter is not positive. Must be positive.");
+        }
+        Date currentDate = new Date();
+        List<Long> outboxMessageIds = findClaimableMessageIds(currentDate, maxMessageNumber);
+        if (outboxMessageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int claimedNumber = em.createQuery(CLAIM_QUERY)
+                .setParameter("leaseToken", leaseToken)
+                .setParameter("leaseEndDate", new Date(currentDate.getTime() + leaseLength))
+                .setParameter("outboxMessageIds", outboxMessageIds)
+                .setParameter("status", OutboxMessageStatus.PENDING)
+                .setParameter("currentDate", currentDate)
+                .executeUpdate();
+        if (claimedNumber == 0) {
+            return Collections.emptyList();
+        }
+        return findClaimedMessages(leaseToken);
+    }
+
+    @Override
+    public long countPendingMessages() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+        Root<EmailOutboxEntity> root = criteriaQuery.from(EmailOutboxEntity.class);
+        criteriaQuery.select(cb.count(root));
+        criteriaQuery.where(cb.equal(root.get(EmailOutboxEntity_.status), OutboxMessageStatus.PENDING));
+        return em.createQuery(criteriaQuery).getSingleResult();
+    }
+
+    @Override
+    public boolean deleteMessage(final long outboxMessageId, final String leaseToken) {
+        if (leaseToken == null) {
+            throw new IllegalArgumentException("The leaseToken parameter is null. Cannot be null.");
+        }
+        return em.createQuery(DELETE_QUERY)
+                .setParameter("outboxMessageId", outboxMessageId)
+                .setParameter("leaseToken", leaseToken)
+                .executeUpdate() == 1;
+    }
+
+    @Override
+    public long enqueueMessage(final String receiverEmailAddress, final String subject, final String body) {
+        if ((receiverEmailAddress == null) || (subject == null) || (body == null)) {
+            throw new IllegalArgumentException(
+                    "The receiverEmailAddress or subject or body parameter is null. Cannot be null.");
+        }
+        Date currentDate = new Date();
+        EmailOutboxEntity emailOutboxEntity = new EmailOutboxEntity();
+        emailOutboxEntity.setReceiverEmailAddress(receiverEmailAddress);
+        emailOutboxEntity.setSubject(subject);
+        emailOutboxEntity.setBody(body);
+        emailOutboxEntity.setStatus(OutboxMessageStatus.PENDING);
+        emailOutboxEntity.setAttempts(0);
+        emailOutboxEntity.setCreationDate(currentDate);
+        emailOutboxEntity.setNextAttemptDate(currentDate);
+        em.persist(emailOutboxEntity);
+        return emailOutboxEntity.getOutboxMessageId();
+    }
+
+    @Override
+    public boolean failMessage(final long outboxMessageId, final String leaseToken, final String error) {
+        if (leaseToken == null) {
+            throw new IllegalArgumentException("The leaseToken parameter is null. Cannot be null.");
+        }
+        return releaseMessage(outboxMessageId, leaseToken, OutboxMessageStatus.FAILED, new Date(), error);
+    }
+
+    /**
+     * Finds the ids of the pending, not claimed messages whose next attempt date is passed.
+     * 
+     * @param currentDate
+     *            the current date.
+     * @param maxMessageNumber
+     *            the maximum number of the ids.
+     * @return the ids of the messages ordered by id.
+     */
+    private List<Long> findClaimableMessageIds(final Date currentDate, final int maxMessageNumber) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+        Root<EmailOutboxEntity> root = criteriaQuery.from(EmailOutboxEntity.class);
+        criteriaQuery.select(root.get(EmailOutboxEntity_.outboxMessageId));
+        Predicate pending = cb.equal(root.get(EmailOutboxEntity_.status), OutboxMessageStatus.PENDING);
+        Predicate due = cb.lessThanOrEqualTo(root.get(EmailOutboxEntity_.nextAttemptDate), currentDate);
+        Predicate notClaimed = cb.or(cb.isNull(root.get(EmailOutboxEntity_.leaseEndDate)),
+                cb.lessThan(root.get(EmailOutboxEntity_.leaseEndDate), currentDate));
+        criteriaQuery.where(pending, due, notClaimed);
+        criteriaQuery.orderBy(cb.asc(root.get(EmailOutboxEntity_.outboxMessageId)));
+        return em.createQuery(criteriaQuery).setMaxResults(maxMessageNumber).getResultList();
+    }
+
+    /**
+     * Finds the messages of the claim.
+     * 
+     * @param leaseToken
+     *            the token of the claim.
+     * @return the claimed messages ordered by id.
+     */
+    private List<OutboxMessage> findClaimedMessages(final String leaseToken) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<EmailOutboxEntity> criteriaQuery = cb.createQuery(EmailOutboxEntity.class);
+        Root<EmailOutboxEntity> root = criteriaQuery.from(EmailOutboxEntity.class);
+        criteriaQuery.where(cb.equal(root.get(EmailOutboxEntity_.leaseToken), leaseToken));
+        criteriaQuery.orderBy(cb.asc(root.get(EmailOutboxEntity_.outboxMessageId)));
+        List<EmailOutboxEntity> resultList = em.createQuery(criteriaQuery).getResultList();
+        List<OutboxMessage> result = new ArrayList<OutboxMessage>(resultList.size());
+        for (EmailOutboxEntity emailOutboxEntity : resultList) {
+            result.add(new OutboxMessage(emailOutboxEntity.getOutboxMessageId(),
+                    emailOutboxEntity.getReceiverEmailAddress(), emailOutboxEntity.getSubject(),
+                    emailOutboxEntity.getBody(), emailOutboxEntity.getAttempts(),
+                    emailOutboxEntity.getCreationDate()));
+        }
+        return result;
+    }
+
+    @Override
+    public int purgeFailedMessages(final Date failedBefore, final int maxMessageNumber) {
+        if (failedBefore == null) {
+            throw new IllegalArgumentException("The failedBefore parameter is null. Cannot be null.");
+        }
+        if (maxMessageNumber <= 0) {
+            throw new IllegalArgumentException("The maxMessageNumber parameter is not positive. Must be positive.");
+        }
+        List<Long> outboxMessageIds = em.createQuery(FIND_PURGEABLE_QUERY, Long.class)
+                .setParameter("status", OutboxMessageStatus.FAILED)
+                .setParameter("failedBefore", failedBefore)
+                .setMaxResults(maxMessageNumber)
+                .getResultList();
+        if (outboxMessageIds.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery(PURGE_QUERY)
+                .setParameter("outboxMessageIds", outboxMessageIds)
+                .setParameter("status", OutboxMessageStatus.FAILED)
+                .executeUpdate();
+    }
+
+    /**
+     * Releasing the claim of the message.
+     * 
+     * @param outboxMessageId
+     *            the id of the outbox message.
+     * @param leaseToken
+     *            the token of the claim.
+     * @param status
+     *            the new {@link OutboxMessageStatus} of the message.
+     * @param nextAttemptDate
+     *            the earliest date of the next attempt.
+     * @param error
+     *            the error message of the last attempt.
+     * @return <code>true</code> if the message is updated, <code>false</code> if the claim is lost.
+     */
+    private boolean releaseMessage(final long outboxMessageId, final String leaseToken,
+            final OutboxMessageStatus status, final Date nextAttemptDate, final String error) {
+        return em.createQuery(RELEASE_QUERY)
+                .setParameter("status", status)
+                .setParameter("nextAttemptDate", nextAttemptDate)
+                .setParameter("lastError", truncateError(error))
+                .setParameter("outboxMessageId", outboxMessageId)
+                .setParameter("leaseToken", leaseToken)
+                .executeUpdate() == 1;
+    }
+
+    @Override
+    public boolean rescheduleMessage(final long outboxMessageId, final String leaseToken,
+            final Date nextAttemptDate, final String error) {
+        if ((leaseToken == null) || (nextAttemptDate == null)) {
+            throw new IllegalArgumentException("The leaseToken or nextAttemptDate parameter is null. Cannot be null.");
+        }
+        return releaseMessage(outboxMessageId, leaseToken, OutboxMessageStatus.PENDING, nextAttemptDate, error);
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+
+}
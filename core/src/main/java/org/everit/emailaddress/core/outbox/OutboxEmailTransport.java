@@ -0,0 +1,47 @@
+package org.everit.emailaddress.core.outbox;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.mail.EmailTransport;
+
+/**
+ * {@link EmailTransport} that writes the email to the outbox in the transaction of the caller. The email is sent by
+ * the {@link EmailOutboxDispatcher} after the commit, so a rolled back transaction does not send the email and the
+ * transaction does not wait for the SMTP server.
+ */
+public class OutboxEmailTransport implements EmailTransport {
+
+    /**
+     * The {@link EmailOutboxStore} instance.
+     */
+    private EmailOutboxStore emailOutboxStore;
+
+    @Override
+    public void sendEmail(final String receiverEmailAddress, final String subject, final String body) {
+        emailOutboxStore.enqueueMessage(receiverEmailAddress, subject, body);
+    }
+
+    public void setEmailOutboxStore(final EmailOutboxStore emailOutboxStore) {
+        this.emailOutboxStore = emailOutboxStore;
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.everit.emailaddress.core.outbox;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+/**
+ * The claimed message of the email outbox.
+ */
+public final class OutboxMessage {
+
+    /**
+     * The id of the outbox message.
+     */
+    private final long outboxMessageId;
+
+    /**
+     * The email address of the receiver.
+     */
+    private final String receiverEmailAddress;
+
+    /**
+     * The subject of the message.
+     */
+    private final String subject;
+
+    /**
+     * The rendered HTML body of the message.
+     */
+    private final String body;
+
+    /**
+     * The number of the sending attempts including the current one.
+     */
+    private final int attempts;
+
+    /**
+     * The date when the message was written to the outbox.
+     */
+    private final Date creationDate;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param outboxMessageId
+     *            the id of the outbox message.
+     * @param receiverEmailAddress
+     *            the email address of the receiver.
+     * @param subject
+     *            the subject of the message.
+     * @param body
+     *            the rendered HTML body of the message.
+     * @param attempts
+     *            the number of the sending attempts including the current one.
+     * @param creationDate
+     *            the date when the message was written to the outbox.
+     */
+    public OutboxMessage(final long outboxMessageId, final String receiverEmailAddress, final String subject,
+            final String body, final int attempts, final Date creationDate) {
+        super();
+        this.outboxMessageId = outboxMessageId;
+        this.receiverEmailAddress = receiverEmailAddress;
+        this.subject = subject;
+        this.body = body;
+        this.attempts = attempts;
+        this.creationDate = creationDate;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public long getOutboxMessageId() {
+        return outboxMessageId;
+    }
+
+    public String getReceiverEmailAddress() {
+        return receiverEmailAddress;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+}
@@ -0,0 +1,516 @@
+package org.everit.emailaddress.core.policy;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.everit.emailaddress.core.IdnConverter;
+
+/**
+ * Immutable, compiled domain policy. The entries are stored in a trie of the reversed domain labels (the top level
+ * domain is the child of the root) whose nodes are kept in primitive arrays and whose edges are found in one open
+ * addressing hash table. An entry matches its domain and all of its subdomains and the most specific matching entry
+ * decides; if no entry matches the domain is allowed. The lookup walks the labels of the checked domain from right to
+ * left in place, compares the characters case insensitively and does not allocate memory. The internationalized
+ * domains of the entries and of the checked domains are converted to ASCII with the {@link IdnConverter}, the
+ * internationalized domains that cannot be converted are not allowed. The trailing dot of the fully qualified domains
+ * is ignored.
+ * <p>
+ * The lookup has no Bloom filter prefilter: the walk stops at the first label that has no edge, so a domain that is
+ * not covered by the policy costs one hash probe per matching label, which is the same hashing a Bloom filter check
+ * of the domain suffixes would need.
+ * <p>
+ * Entry syntax, one entry per line in the policy files:
+ * <ul>
+ * <li><code>mailinator.com</code> or <code>-mailinator.com</code>: the domain and its subdomains are denied,</li>
+ * <li><code>+example.com</code>: the domain and its subdomains are allowed,</li>
+ * <li><code>*</code> and <code>+*</code>: the default action is deny or allow,</li>
+ * <li>empty lines and the lines starting with <code>#</code> are ignored.</li>
+ * </ul>
+ * A leading <code>*.</code> or <code>.</code> of the domain is ignored. For example the <code>*</code>,
+ * <code>+com</code>, <code>+hu</code> entries allow only the <code>com</code> and <code>hu</code> top level domains.
+ * The labels of the domains must be 1 to 63 letters, digits, hyphens or underscores after the ASCII conversion, the
+ * malformed entries are rejected with their line number.
+ */
+public final class DomainPolicy {
+
+    /**
+     * The action of the nodes that are not the last label of an entry.
+     */
+    private static final byte NO_ACTION = 0;
+
+    /**
+     * The action of the allowed domains.
+     */
+    private static final byte ALLOW = 1;
+
+    /**
+     * The action of the denied domains.
+     */
+    private static final byte DENY = 2;
+
+    /**
+     * The index of the root node.
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * The multiplier of the edge hashing (the golden ratio).
+     */
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    /**
+     * The maximum length of a domain label.
+     */
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    /**
+     * The policy without entries that allows every domain.
+     */
+    public static final DomainPolicy EMPTY = compile(new ArrayList<String>());
+
+    /**
+     * Checks the labels of the domain of an entry.
+     * 
+     * @param domainLabels
+     *            the labels of the domain in ASCII form.
+     * @param lineNumber
+     *            the line number of the entry.
+     * @param entry
+     *            the entry.
+     * 
+     * @throws IllegalArgumentException
+     *             if a label is empty, too long or contains a character that is not a letter, digit, hyphen or
+     *             underscore.
+     */
+    private static void checkLabels(final String[] domainLabels, final int lineNumber, final String entry) {
+        for (String label : domainLabels) {
+            if (label.length() == 0) {
+                throw new IllegalArgumentException(createMalformedEntryMessage(lineNumber, entry,
+                        "the domain has an empty label"));
+            }
+            if (label.length() > MAX_LABEL_LENGTH) {
+                throw new IllegalArgumentException(createMalformedEntryMessage(lineNumber, entry,
+                        "the domain has a label longer than " + MAX_LABEL_LENGTH + " characters"));
+            }
+            for (int i = 0; i < label.length(); i++) {
+                char c = label.charAt(i);
+                if (((c < 'a') || (c > 'z')) && ((c < '0') || (c > '9')) && (c != '-') && (c != '_')) {
+                    throw new IllegalArgumentException(createMalformedEntryMessage(lineNumber, entry,
+                            "the domain contains the not allowed character '" + c + "'"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the entries to a domain policy. If a domain occurs more than once the last entry wins. The line number
+     * of an entry is its position in the entries starting from 1.
+     * 
+     * @param entries
+     *            the entries. Empty and comment entries are ignored.
+     * @return the compiled domain policy.
+     * 
+     * @throws IllegalArgumentException
+     *             if the entries parameter is <code>null</code> or contains <code>null</code> or a malformed entry.
+     *             The message of a malformed entry contains its line number.
+     */
+    public static DomainPolicy compile(final Collection<String> entries) {
+        if (entries == null) {
+            throw new IllegalArgumentException("The entries parameter is null. Cannot be null.");
+        }
+        StringBuilder labels = new StringBuilder();
+        List<int[]> nodes = new ArrayList<int[]>();
+        List<Byte> actions = new ArrayList<Byte>();
+        Map<String, Integer> edges = new HashMap<String, Integer>();
+        nodes.add(new int[] { -1, 0, 0 });
+        actions.add(Byte.valueOf(NO_ACTION));
+        int lineNumber = 0;
+        for (String entry : entries) {
+            lineNumber++;
+            if (entry == null) {
+                throw new IllegalArgumentException("The entries parameter contains null. Cannot contain null.");
+            }
+            String domain = entry.trim().toLowerCase(Locale.ENGLISH);
+            if ((domain.length() == 0) || (domain.charAt(0) == '#')) {
+                continue;
+            }
+            byte action = DENY;
+            if (domain.charAt(0) == '+') {
+                action = ALLOW;
+                domain = domain.substring(1);
+            } else if (domain.charAt(0) == '-') {
+                domain = domain.substring(1);
+            }
+            if (domain.startsWith("*.")) {
+                domain = domain.substring(2);
+            } else if (domain.startsWith(".")) {
+                domain = domain.substring(1);
+            }
+            if (domain.endsWith(".")) {
+                domain = domain.substring(0, domain.length() - 1);
+            }
+            int node = ROOT;
+            if (!"*".equals(domain)) {
+                String asciiDomain = IdnConverter.toAscii(domain);
+                if (asciiDomain == null) {
+                    throw new IllegalArgumentException(createMalformedEntryMessage(lineNumber, entry,
+                            "the internationalized domain cannot be converted to ASCII"));
+                }
+                domain = asciiDomain;
+                String[] domainLabels = domain.split("\\.", -1);
+                checkLabels(domainLabels, lineNumber, entry);
+                for (int i = domainLabels.length - 1; i >= 0; i--) {
+                    String edge = node + "." + domainLabels[i];
+                    Integer child = edges.get(edge);
+                    if (child == null) {
+                        child = Integer.valueOf(nodes.size());
+                        nodes.add(new int[] { node, labels.length(), domainLabels[i].length() });
+                        actions.add(Byte.valueOf(NO_ACTION));
+                        labels.append(domainLabels[i]);
+                        edges.put(edge, child);
+                    }
+                    node = child.intValue();
+                }
+            }
+            actions.set(node, Byte.valueOf(action));
+        }
+        return new DomainPolicy(labels.toString().toCharArray(), nodes, actions);
+    }
+
+    /**
+     * Creates the message of the exception of a malformed entry.
+     * 
+     * @param lineNumber
+     *            the line number of the entry.
+     * @param entry
+     *            the entry.
+     * @param reason
+     *            the reason of the rejection.
+     * @return the message.
+     */
+    private static String createMalformedEntryMessage(final int lineNumber, final String entry,
+            final String reason) {
+        return "The entry \"" + entry + "\" at line " + lineNumber + " is malformed: " + reason + ".";
+    }
+
+    /**
+     * Calculates the hash table index of an edge.
+     * 
+     * @param parent
+     *            the parent node of the edge.
+     * @param text
+     *            the text that contains the label of the edge.
+     * @param start
+     *            the index of the first character of the label.
+     * @param end
+     *            the index after the last character of the label.
+     * @param mask
+     *            the mask of the hash table indexes.
+     * @return the index of the first probed slot.
+     */
+    private static int hash(final int parent, final CharSequence text, final int start, final int end,
+            final int mask) {
+        int hash = parent;
+        for (int i = start; i < end; i++) {
+            hash = (31 * hash) + toLowerCase(text.charAt(i));
+        }
+        hash *= HASH_MULTIPLIER;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Parses and compiles the entries of a policy file.
+     * 
+     * @param reader
+     *            the reader of the policy file. Not closed by this method.
+     * @return the compiled domain policy.
+     * 
+     * @throws IOException
+     *             if the reading fails.
+     * @throws IllegalArgumentException
+     *             if the reader parameter is <code>null</code> or the file contains a malformed entry. The message of
+     *             a malformed entry contains its line number.
+     */
+    public static DomainPolicy parse(final Reader reader) throws IOException {
+        if (reader == null) {
+            throw new IllegalArgumentException("The reader parameter is null. Cannot be null.");
+        }
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        List<String> entries = new ArrayList<String>();
+        String line = bufferedReader.readLine();
+        while (line != null) {
+            entries.add(line);
+            line = bufferedReader.readLine();
+        }
+        return compile(entries);
+    }
+
+    /**
+     * Converts the ASCII upper case letter to lower case.
+     * 
+     * @param c
+     *            the character.
+     * @return the lower case letter or the character itself.
+     */
+    private static char toLowerCase(final char c) {
+        if ((c >= 'A') && (c <= 'Z')) {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    /**
+     * The characters of the labels of the nodes.
+     */
+    private final char[] labels;
+
+    /**
+     * The parent node indexes of the nodes.
+     */
+    private final int[] parents;
+
+    /**
+     * The start indexes of the labels of the nodes in the {@link #labels}.
+     */
+    private final int[] labelStarts;
+
+    /**
+     * The lengths of the labels of the nodes.
+     */
+    private final int[] labelLengths;
+
+    /**
+     * The actions of the nodes.
+     */
+    private final byte[] actions;
+
+    /**
+     * The open addressing hash table of the edges. The slots contain the child node indexes, the empty slots contain
+     * <code>0</code> (the root is nobody's child).
+     */
+    private final int[] edges;
+
+    /**
+     * The number of the entries.
+     */
+    private final int entryNumber;
+
+    /**
+     * The constructor used by {@link #compile(Collection)}.
+     * 
+     * @param labels
+     *            the characters of the labels.
+     * @param nodes
+     *            the parent index, the label start and the label length of the nodes.
+     * @param actions
+     *            the actions of the nodes.
+     */
+    private DomainPolicy(final char[] labels, final List<int[]> nodes, final List<Byte> actions) {
+        this.labels = labels;
+        int nodeNumber = nodes.size();
+        parents = new int[nodeNumber];
+        labelStarts = new int[nodeNumber];
+        labelLengths = new int[nodeNumber];
+        this.actions = new byte[nodeNumber];
+        int tableSize = 2;
+        while (tableSize < (nodeNumber * 2)) {
+            tableSize <<= 1;
+        }
+        edges = new int[tableSize];
+        CharSequence labelText = CharBuffer.wrap(labels);
+        int actionNumber = 0;
+        for (int node = 0; node < nodeNumber; node++) {
+            int[] nodeData = nodes.get(node);
+            parents[node] = nodeData[0];
+            labelStarts[node] = nodeData[1];
+            labelLengths[node] = nodeData[2];
+            this.actions[node] = actions.get(node).byteValue();
+            if (this.actions[node] != NO_ACTION) {
+                actionNumber++;
+            }
+            if (node != ROOT) {
+                int slot = hash(parents[node], labelText, labelStarts[node], labelStarts[node] + labelLengths[node],
+                        tableSize - 1);
+                while (edges[slot] != 0) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                edges[slot] = node;
+            }
+        }
+        entryNumber = actionNumber;
+    }
+
+    /**
+     * Finds the child of the node by label.
+     * 
+     * @param parent
+     *            the parent node.
+     * @param text
+     *            the text that contains the label.
+     * @param start
+     *            the index of the first character of the label.
+     * @param end
+     *            the index after the last character of the label.
+     * @return the index of the child node or <code>-1</code> if the node has no child with the label.
+     */
+    private int findChild(final int parent, final CharSequence text, final int start, final int end) {
+        int mask = edges.length - 1;
+        int slot = hash(parent, text, start, end, mask);
+        int node = edges[slot];
+        while (node != 0) {
+            if ((parents[node] == parent) && isLabel(node, text, start, end)) {
+                return node;
+            }
+            slot = (slot + 1) & mask;
+            node = edges[slot];
+        }
+        return -1;
+    }
+
+    /**
+     * Get the number of the entries that have an action, the default action included.
+     * 
+     * @return the number of the entries.
+     */
+    public int getEntryNumber() {
+        return entryNumber;
+    }
+
+    /**
+     * Checks the domain is allowed by the policy.
+     * 
+     * @param domain
+     *            the domain.
+     * @return <code>true</code> if the domain is allowed, otherwise <code>false</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domain parameter is <code>null</code>.
+     */
+    public boolean isAllowed(final CharSequence domain) {
+        if (domain == null) {
+            throw new IllegalArgumentException("The domain parameter is null. Cannot be null.");
+        }
+        return isAllowed(domain, 0, domain.length());
+    }
+
+    /**
+     * Checks the domain is allowed by the policy. Walks the labels of the domain from right to left and keeps the
+     * action of the deepest matching entry.
+     * 
+     * @param text
+     *            the text that contains the domain.
+     * @param start
+     *            the index of the first character of the domain.
+     * @param end
+     *            the index after the last character of the domain.
+     * @return <code>true</code> if the domain is allowed, otherwise <code>false</code>.
+     */
+    private boolean isAllowed(final CharSequence text, final int start, final int end) {
+        if (!IdnConverter.isAscii(text, start, end)) {
+            String asciiDomain = IdnConverter.toAscii(text.subSequence(start, end).toString());
+            return (asciiDomain != null) && isAllowed(asciiDomain, 0, asciiDomain.length());
+        }
+        int node = ROOT;
+        byte action = actions[ROOT];
+        int labelEnd = end;
+        if ((labelEnd > start) && (text.charAt(labelEnd - 1) == '.')) {
+            // the fully qualified form of the domain
+            labelEnd--;
+        }
+        while (labelEnd > start) {
+            int dotIndex = labelEnd - 1;
+            while ((dotIndex >= start) && (text.charAt(dotIndex) != '.')) {
+                dotIndex--;
+            }
+            node = findChild(node, text, dotIndex + 1, labelEnd);
+            if (node < 0) {
+                break;
+            }
+            if (actions[node] != NO_ACTION) {
+                action = actions[node];
+            }
+            labelEnd = dotIndex;
+        }
+        return action != DENY;
+    }
+
+    /**
+     * Checks the domain of the email address (the part after the last <code>@</code> character) is allowed by the
+     * policy.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @return <code>true</code> if the domain is allowed, otherwise <code>false</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    public boolean isEmailAddressAllowed(final CharSequence emailAddress) {
+        if (emailAddress == null) {
+            throw new IllegalArgumentException("The emailAddress parameter is null. Cannot be null.");
+        }
+        int end = emailAddress.length();
+        int atIndex = end - 1;
+        while ((atIndex >= 0) && (emailAddress.charAt(atIndex) != '@')) {
+            atIndex--;
+        }
+        return isAllowed(emailAddress, atIndex + 1, end);
+    }
+
+    /**
+     * Checks the label of the node equals to the label in the text, ignoring the case of the ASCII letters.
+     * 
+     * @param node
+     *            the node.
+     * @param text
+     *            the text that contains the label.
+     * @param start
+     *            the index of the first character of the label.
+     * @param end
+     *            the index after the last character of the label.
+     * @return <code>true</code> if the labels are equal, otherwise <code>false</code>.
+     */
+    private boolean isLabel(final int node, final CharSequence text, final int start, final int end) {
+        if (labelLengths[node] != (end - start)) {
+            return false;
+        }
+        int labelIndex = labelStarts[node];
+        for (int i = start; i < end; i++) {
+            if (labels[labelIndex] != toLowerCase(text.charAt(i))) {
+                return false;
+            }
+            labelIndex++;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,270 @@
+package org.everit.emailaddress.core.policy;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot reloadable {@link DomainPolicy}. The current policy is held in a volatile field and a reload compiles the new
+ * policy first and replaces the reference afterwards, so the concurrent checks never wait and always see a complete
+ * policy. If the policy file is set the started instance checks the modification time of the file periodically and
+ * reloads the changed file. A failed reload keeps the previous policy. The failures of the periodic reloads are
+ * counted and the last one is kept, so the monitoring can report a policy file that cannot be loaded.
+ */
+public class ReloadableDomainPolicy {
+
+    /**
+     * The default interval of the policy file checks in milliseconds.
+     */
+    private static final long DEFAULT_CHECK_INTERVAL = 60000L;
+
+    /**
+     * The charset of the policy file.
+     */
+    private static final String POLICY_FILE_CHARSET = "UTF-8";
+
+    /**
+     * The current policy.
+     */
+    private volatile DomainPolicy domainPolicy = DomainPolicy.EMPTY;
+
+    /**
+     * The optional path of the policy file.
+     */
+    private String policyFile;
+
+    /**
+     * The interval of the policy file checks in milliseconds.
+     */
+    private long checkInterval = DEFAULT_CHECK_INTERVAL;
+
+    /**
+     * The modification time of the loaded policy file. Guarded by <code>this</code>.
+     */
+    private long loadedLastModified;
+
+    /**
+     * The modification time of the policy file of the last failed periodic reload. <code>-1</code> if there was no
+     * failure. Guarded by <code>this</code>.
+     */
+    private long failedLastModified = -1L;
+
+    /**
+     * The executor of the policy file checks. <code>null</code> if the instance is not started.
+     */
+    private ScheduledExecutorService checkExecutor;
+
+    /**
+     * The number of the successful reloads.
+     */
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    /**
+     * The number of the failed reloads.
+     */
+    private final AtomicLong failedReloadCount = new AtomicLong();
+
+    /**
+     * The exception of the last failed reload. <code>null</code> if the last reload succeeded.
+     */
+    private volatile Exception lastReloadFailure;
+
+    public DomainPolicy getDomainPolicy() {
+        return domainPolicy;
+    }
+
+    public long getFailedReloadCount() {
+        return failedReloadCount.get();
+    }
+
+    /**
+     * Get the exception of the last failed reload.
+     * 
+     * @return the exception or <code>null</code> if the last reload succeeded or there was no reload.
+     */
+    public Exception getLastReloadFailure() {
+        return lastReloadFailure;
+    }
+
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Checks the domain of the email address is allowed by the current policy.
+     * 
+     * @param emailAddress
+     *            the email address.
+     * @return <code>true</code> if the domain is allowed, otherwise <code>false</code>.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddress parameter is <code>null</code>.
+     */
+    public boolean isEmailAddressAllowed(final CharSequence emailAddress) {
+        return domainPolicy.isEmailAddressAllowed(emailAddress);
+    }
+
+    /**
+     * Reloads the policy file.
+     * 
+     * @throws IOException
+     *             if the reading of the policy file fails. The previous policy is kept.
+     * @throws IllegalStateException
+     *             if the policy file is not set or contains a malformed entry. The previous policy is kept.
+     */
+    public synchronized void reload() throws IOException {
+        if (policyFile == null) {
+            throw new IllegalStateException("The policy file is not set.");
+        }
+        File file = new File(policyFile);
+        long lastModified = file.lastModified();
+        DomainPolicy newDomainPolicy;
+        Reader reader = new InputStreamReader(new FileInputStream(file), POLICY_FILE_CHARSET);
+        try {
+            newDomainPolicy = DomainPolicy.parse(reader);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("The policy file " + policyFile + " is invalid. " + e.getMessage(), e);
+        } finally {
+            reader.close();
+        }
+        domainPolicy = newDomainPolicy;
+        loadedLastModified = lastModified;
+        lastReloadFailure = null;
+        reloadCount.incrementAndGet();
+    }
+
+    /**
+     * Recording the failure of a periodic reload.
+     * 
+     * @param failure
+     *            the exception of the reload.
+     */
+    private void recordReloadFailure(final Exception failure) {
+        lastReloadFailure = failure;
+        failedReloadCount.incrementAndGet();
+    }
+
+    /**
+     * Reloads the policy file if its modification time changed since the last load and since the last failed reload,
+     * so a broken file is reported once and not at every check.
+     */
+    private synchronized void reloadIfModified() {
+        long lastModified = new File(policyFile).lastModified();
+        if ((lastModified == loadedLastModified) || (lastModified == failedLastModified)) {
+            return;
+        }
+        try {
+            reload();
+        } catch (IOException e) {
+            failedLastModified = lastModified;
+            recordReloadFailure(e);
+        } catch (IllegalStateException e) {
+            failedLastModified = lastModified;
+            recordReloadFailure(e);
+        }
+    }
+
+    /**
+     * Set the interval of the policy file checks. Used only if the instance is started.
+     * 
+     * @param checkInterval
+     *            the interval in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the checkInterval is not positive.
+     */
+    public void setCheckInterval(final long checkInterval) {
+        if (checkInterval <= 0L) {
+            throw new IllegalArgumentException("The checkInterval parameter is not positive. Must be positive.");
+        }
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Replaces the current policy with the compiled entries. The entries are replaced by the policy file on the next
+     * reload.
+     * 
+     * @param entries
+     *            the entries in the syntax of the policy files.
+     * 
+     * @throws IllegalArgumentException
+     *             if the entries parameter is <code>null</code> or contains <code>null</code> or a malformed entry.
+     */
+    public void setEntries(final Collection<String> entries) {
+        domainPolicy = DomainPolicy.compile(entries);
+    }
+
+    public void setPolicyFile(final String policyFile) {
+        this.policyFile = policyFile;
+    }
+
+    /**
+     * Loads the policy file and starts its periodic checks. Does nothing if the policy file is not set. Called by
+     * blueprint.
+     * 
+     * @throws IllegalStateException
+     *             if the policy file cannot be loaded or contains a malformed entry.
+     */
+    public synchronized void start() {
+        if (policyFile == null) {
+            return;
+        }
+        try {
+            reload();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load the policy file " + policyFile, e);
+        }
+        checkExecutor = Executors.newSingleThreadScheduledExecutor();
+        checkExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    reloadIfModified();
+                } catch (RuntimeException e) {
+                    // an exception would cancel the scheduled checks
+                    recordReloadFailure(e);
+                }
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic checks of the policy file. The current policy is kept. Called by blueprint.
+     */
+    public synchronized void stop() {
+        if (checkExecutor != null) {
+            checkExecutor.shutdownNow();
+            checkExecutor = null;
+        }
+    }
+
+}
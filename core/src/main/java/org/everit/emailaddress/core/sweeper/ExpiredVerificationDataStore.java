@@ -0,0 +1,67 @@
+package org.everit.emailaddress.core.sweeper;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+/**
+ * Transactional access of the expired verification data of the email addresses. The methods join the transaction of
+ * the caller or start a new one. The {@link ExpiredVerificationDataSweeper} calls them without transaction, so every
+ * chunk is committed in its own short transaction.
+ */
+public interface ExpiredVerificationDataStore {
+
+    /**
+     * Selects the ids of the email address data whose verifiable data is expired: the verification ended (or never
+     * happened) before the expiration date and no verification request was created after the expiration date.
+     * 
+     * @param lastEmailAddressId
+     *            only the ids greater than this id are selected.
+     * @param maxEmailAddressNumber
+     *            the maximum number of the selected ids. Must be positive.
+     * @param expirationDate
+     *            the expiration date. Cannot be <code>null</code>.
+     * @return the ids in ascending order.
+     * 
+     * @throws IllegalArgumentException
+     *             if the expirationDate parameter is <code>null</code> or the maxEmailAddressNumber is not positive.
+     */
+    long[] findExpiredEmailAddressIds(long lastEmailAddressId, int maxEmailAddressNumber, Date expirationDate);
+
+    /**
+     * Reclaims the verifiable data of the email address data that is still expired. The verifiable data are locked in
+     * ascending id order and the expiry is checked again under the lock. The still expired verifiable data are
+     * invalidated by the {@link org.everit.verifiabledata.api.VerifyService}, which reclaims their verification
+     * requests, then they are unlinked from the email address data. The last modification date of the unlinked email
+     * address data is updated, so the incremental exports see the change.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data. Cannot be <code>null</code>.
+     * @param expirationDate
+     *            the expiration date. Cannot be <code>null</code>.
+     * @return the number of the reclaimed verifiable data.
+     * 
+     * @throws IllegalArgumentException
+     *             if the emailAddressIds or the expirationDate parameter is <code>null</code>.
+     */
+    int reclaimExpiredVerifiableData(long[] emailAddressIds, Date expirationDate);
+}
@@ -0,0 +1,251 @@
+package org.everit.emailaddress.core.sweeper;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TemporalType;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.everit.emailaddress.core.cache.EmailAddressIdCache;
+import org.everit.emailaddress.core.cache.VerificationStatusCache;
+import org.everit.emailaddress.entity.EmailAddressDataEntity;
+import org.everit.verifiabledata.api.VerifyService;
+import org.everit.verifiabledata.entity.VerifiableDataEntity;
+
+/**
+ * Implementation of {@link ExpiredVerificationDataStore}.
+ */
+public class ExpiredVerificationDataStoreImpl implements ExpiredVerificationDataStore {
+
+    /**
+     * The condition of the expired verifiable data. The email address data created before the last verification
+     * request date was introduced use the last modification date, which is set when the verifiable data is created.
+     */
+    private static final String EXPIRED_CONDITION =
+            " COALESCE(e.lastVerificationRequestDate, e.lastModificationDate) < :expirationDate";
+
+    /**
+     * The condition of the not verified verifiable data.
+     */
+    private static final String NOT_VERIFIED_CONDITION =
+            " (vd.verifiedUntil IS NULL OR vd.verifiedUntil < :expirationDate)";
+
+    /**
+     * The query of the ids of the email address data with expired verifiable data.
+     */
+    private static final String FIND_QUERY = "SELECT e.emailAddressDataId FROM EmailAddressDataEntity e"
+            + " JOIN e.verifiableData vd WHERE e.emailAddressDataId > :lastEmailAddressId AND" + NOT_VERIFIED_CONDITION
+            + " AND" + EXPIRED_CONDITION + " ORDER BY e.emailAddressDataId";
+
+    /**
+     * The query of the email address data ids and the verifiable data ids of the expired verifiable data of the given
+     * email address data in ascending verifiable data id order.
+     */
+    private static final String FIND_VERIFIABLE_DATA_QUERY =
+            "SELECT e.emailAddressDataId, vd.verifiableDataId FROM EmailAddressDataEntity e JOIN e.verifiableData vd"
+                    + " WHERE e.emailAddressDataId IN (:emailAddressIds) AND" + NOT_VERIFIED_CONDITION + " AND"
+                    + EXPIRED_CONDITION + " ORDER BY vd.verifiableDataId";
+
+    /**
+     * The query of the conditional unlinking of the reclaimed verifiable data. The expiry is checked again, so the
+     * email address data with a concurrently created verification request is not unlinked.
+     */
+    private static final String UNLINK_QUERY = "UPDATE EmailAddressDataEntity e"
+            + " SET e.verifiableData = NULL, e.lastModificationDate = :currentDate"
+            + " WHERE e.emailAddressDataId IN (:emailAddressIds) AND" + EXPIRED_CONDITION;
+
+    /**
+     * EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    /**
+     * The {@link EmailAddressIdCache} of the email address data service. Optional.
+     */
+    private EmailAddressIdCache emailAddressIdCache;
+
+    /**
+     * The {@link VerificationStatusCache} of the email address data service. Optional.
+     */
+    private VerificationStatusCache verificationStatusCache;
+
+    /**
+     * The {@link TransactionSynchronizationRegistry} that invalidates the verification status cache again after the
+     * completion of the transaction. Optional.
+     */
+    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    /**
+     * The {@link VerifyService} instance.
+     */
+    private VerifyService verifyService;
+
+    /**
+     * Finds the email address data ids and the verifiable data ids of the expired verifiable data.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data.
+     * @param expirationDate
+     *            the expiration date.
+     * @return the pairs of the email address data id and the verifiable data id in ascending verifiable data id
+     *         order.
+     */
+    private List<Object[]> findExpiredVerifiableData(final List<Long> emailAddressIds, final Date expirationDate) {
+        return em.createQuery(FIND_VERIFIABLE_DATA_QUERY, Object[].class)
+                .setParameter("emailAddressIds", emailAddressIds)
+                .setParameter("expirationDate", expirationDate, TemporalType.TIMESTAMP)
+                .getResultList();
+    }
+
+    @Override
+    public long[] findExpiredEmailAddressIds(final long lastEmailAddressId, final int maxEmailAddressNumber,
+            final Date expirationDate) {
+        if (expirationDate == null) {
+            throw new IllegalArgumentException("The expirationDate parameter is null. Cannot be null.");
+        }
+        if (maxEmailAddressNumber <= 0) {
+            throw new IllegalArgumentException(
+                    "The maxEmailAddressNumber parameter is not positive. Must be positive.");
+        }
+        List<Long> emailAddressIds = em.createQuery(FIND_QUERY, Long.class)
+                .setParameter("lastEmailAddressId", lastEmailAddressId)
+                .setParameter("expirationDate", expirationDate, TemporalType.TIMESTAMP)
+                .setMaxResults(maxEmailAddressNumber)
+                .getResultList();
+        long[] result = new long[emailAddressIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = emailAddressIds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the email addresses from the verification status cache if the cache is set. If a transaction is active
+     * the email addresses are removed again after the completion of the transaction.
+     * 
+     * @param emailAddressIds
+     *            the ids of the email address data.
+     */
+    private void invalidateCachedVerificationStatuses(final List<Long> emailAddressIds) {
+        if (verificationStatusCache == null) {
+            return;
+        }
+        for (Long emailAddressId : emailAddressIds) {
+            verificationStatusCache.invalidate(emailAddressId);
+        }
+        if ((transactionSynchronizationRegistry != null)
+                && (transactionSynchronizationRegistry.getTransactionKey() != null)) {
+            transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+
+                @Override
+                public void afterCompletion(final int status) {
+                    for (Long emailAddressId : emailAddressIds) {
+                        verificationStatusCache.invalidate(emailAddressId);
+                    }
+                }
+
+                @Override
+                public void beforeCompletion() {
+                    // the entries are invalidated only after the completion
+                }
+            });
+        }
+    }
+
+    @Override
+    public int reclaimExpiredVerifiableData(final long[] emailAddressIds, final Date expirationDate) {
+        if ((emailAddressIds == null) || (expirationDate == null)) {
+            throw new IllegalArgumentException(
+                    "The emailAddressIds or expirationDate parameter is null. Cannot be null.");
+        }
+        if (emailAddressIds.length == 0) {
+            return 0;
+        }
+        List<Long> emailAddressIdList = new ArrayList<Long>(emailAddressIds.length);
+        for (long emailAddressId : emailAddressIds) {
+            emailAddressIdList.add(emailAddressId);
+        }
+        List<Object[]> expiredVerifiableData = findExpiredVerifiableData(emailAddressIdList, expirationDate);
+        if (expiredVerifiableData.isEmpty()) {
+            return 0;
+        }
+        List<Long> verifiableDataIds = new ArrayList<Long>(expiredVerifiableData.size());
+        for (Object[] row : expiredVerifiableData) {
+            verifiableDataIds.add((Long) row[1]);
+        }
+        em.createNamedQuery(EmailAddressDataEntity.QUERY_LOCK_VERIFIABLE_DATA_BY_IDS, VerifiableDataEntity.class)
+                .setParameter("verifiableDataIds", verifiableDataIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        // the verifiable data verified or requested again before the lock are not reclaimed
+        expiredVerifiableData = findExpiredVerifiableData(emailAddressIdList, expirationDate);
+        if (expiredVerifiableData.isEmpty()) {
+            return 0;
+        }
+        List<Long> reclaimedEmailAddressIds = new ArrayList<Long>(expiredVerifiableData.size());
+        for (Object[] row : expiredVerifiableData) {
+            Long verifiableDataId = (Long) row[1];
+            if (emailAddressIdCache != null) {
+                emailAddressIdCache.invalidate(verifiableDataId);
+            }
+            verifyService.invalidateData(verifiableDataId);
+            reclaimedEmailAddressIds.add((Long) row[0]);
+        }
+        invalidateCachedVerificationStatuses(reclaimedEmailAddressIds);
+        em.flush();
+        em.clear();
+        return em.createQuery(UNLINK_QUERY)
+                .setParameter("currentDate", new Date(), TemporalType.TIMESTAMP)
+                .setParameter("emailAddressIds", reclaimedEmailAddressIds)
+                .setParameter("expirationDate", expirationDate, TemporalType.TIMESTAMP)
+                .executeUpdate();
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+
+    public void setEmailAddressIdCache(final EmailAddressIdCache emailAddressIdCache) {
+        this.emailAddressIdCache = emailAddressIdCache;
+    }
+
+    public void setTransactionSynchronizationRegistry(
+            final TransactionSynchronizationRegistry transactionSynchronizationRegistry) {
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    }
+
+    public void setVerificationStatusCache(final VerificationStatusCache verificationStatusCache) {
+        this.verificationStatusCache = verificationStatusCache;
+    }
+
+    public void setVerifyService(final VerifyService verifyService) {
+        this.verifyService = verifyService;
+    }
+
+}
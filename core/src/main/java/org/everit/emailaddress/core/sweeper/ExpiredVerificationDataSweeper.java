@@ -0,0 +1,275 @@
+package org.everit.emailaddress.core.sweeper;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background sweeper of the expired verification data. The verifiable data of an email address expires if the
+ * verification ended (or never happened) and no verification request was created within the retention time. The
+ * sweeper reclaims the expired verifiable data in small chunks: they are invalidated by the
+ * {@link org.everit.verifiabledata.api.VerifyService} like the data of the invalidated email addresses, then unlinked
+ * from the email address data. Every chunk is selected by keyset pagination and reclaimed in its own short
+ * transaction, and the sweeper pauses between the chunks, so the sweeping does not hold long locks or compete with the
+ * online traffic. The retention time must be greater than the validity of the verification tokens, otherwise a
+ * pending verification could be reclaimed.
+ */
+public class ExpiredVerificationDataSweeper {
+
+    /**
+     * The default maximum number of the email address data reclaimed in one transaction.
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 100;
+
+    /**
+     * The default pause between the chunks in milliseconds.
+     */
+    private static final long DEFAULT_CHUNK_DELAY = 100L;
+
+    /**
+     * The default delay between the runs in milliseconds.
+     */
+    private static final long DEFAULT_SWEEP_INTERVAL = 3600000L;
+
+    /**
+     * The default retention time of the verification data in milliseconds (30 days).
+     */
+    private static final long DEFAULT_RETENTION_TIME = 2592000000L;
+
+    /**
+     * The maximum time of waiting for the thread on stop in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 10000L;
+
+    /**
+     * The {@link ExpiredVerificationDataStore} instance.
+     */
+    private ExpiredVerificationDataStore expiredVerificationDataStore;
+
+    /**
+     * The maximum number of the email address data reclaimed in one transaction.
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * The pause between the chunks in milliseconds.
+     */
+    private long chunkDelay = DEFAULT_CHUNK_DELAY;
+
+    /**
+     * The delay between the runs in milliseconds.
+     */
+    private long sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+    /**
+     * The retention time of the verification data in milliseconds.
+     */
+    private long retentionTime = DEFAULT_RETENTION_TIME;
+
+    /**
+     * The number of the finished runs.
+     */
+    private final AtomicLong runCount = new AtomicLong();
+
+    /**
+     * The number of the runs failed with exception.
+     */
+    private final AtomicLong failedRunCount = new AtomicLong();
+
+    /**
+     * The number of the verifiable data reclaimed by the last finished run.
+     */
+    private final AtomicLong lastReclaimedNumber = new AtomicLong();
+
+    /**
+     * The number of the verifiable data reclaimed by all runs.
+     */
+    private final AtomicLong reclaimedCount = new AtomicLong();
+
+    /**
+     * The executor of the runs.
+     */
+    private ScheduledExecutorService sweepExecutor;
+
+    public long getFailedRunCount() {
+        return failedRunCount.get();
+    }
+
+    public long getLastReclaimedNumber() {
+        return lastReclaimedNumber.get();
+    }
+
+    public long getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    /**
+     * Set the pause between the chunks.
+     * 
+     * @param chunkDelay
+     *            the pause in milliseconds. Cannot be negative.
+     * 
+     * @throws IllegalArgumentException
+     *             if the chunkDelay is negative.
+     */
+    public void setChunkDelay(final long chunkDelay) {
+        if (chunkDelay < 0L) {
+            throw new IllegalArgumentException("The chunkDelay parameter is negative. Cannot be negative.");
+        }
+        this.chunkDelay = chunkDelay;
+    }
+
+    /**
+     * Set the maximum number of the email address data reclaimed in one transaction.
+     * 
+     * @param chunkSize
+     *            the chunk size. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the chunkSize is not positive.
+     */
+    public void setChunkSize(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunkSize parameter is not positive. Must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setExpiredVerificationDataStore(final ExpiredVerificationDataStore expiredVerificationDataStore) {
+        this.expiredVerificationDataStore = expiredVerificationDataStore;
+    }
+
+    /**
+     * Set the retention time of the verification data.
+     * 
+     * @param retentionTime
+     *            the retention time in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the retentionTime is not positive.
+     */
+    public void setRetentionTime(final long retentionTime) {
+        if (retentionTime <= 0L) {
+            throw new IllegalArgumentException("The retentionTime parameter is not positive. Must be positive.");
+        }
+        this.retentionTime = retentionTime;
+    }
+
+    /**
+     * Set the delay between the runs.
+     * 
+     * @param sweepInterval
+     *            the delay in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the sweepInterval is not positive.
+     */
+    public void setSweepInterval(final long sweepInterval) {
+        if (sweepInterval <= 0L) {
+            throw new IllegalArgumentException("The sweepInterval parameter is not positive. Must be positive.");
+        }
+        this.sweepInterval = sweepInterval;
+    }
+
+    /**
+     * Starts the sweeper thread. Called by blueprint.
+     */
+    public void start() {
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(runnable, "emailaddress-verification-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sweepExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    sweep();
+                } catch (RuntimeException e) {
+                    // an exception would cancel the scheduled runs
+                    failedRunCount.incrementAndGet();
+                }
+            }
+        }, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the sweeper thread. The interrupted run can be continued by the next start, because the committed chunks
+     * are not selected again. Called by blueprint.
+     */
+    public void stop() {
+        sweepExecutor.shutdownNow();
+        try {
+            sweepExecutor.awaitTermination(STOP_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reclaims the expired verification data chunk by chunk until the last chunk is not full or the thread is
+     * interrupted.
+     * 
+     * @return the number of the reclaimed verifiable data.
+     */
+    public long sweep() {
+        Date expirationDate = new Date(System.currentTimeMillis() - retentionTime);
+        long reclaimedNumber = 0L;
+        long lastEmailAddressId = 0L;
+        long[] emailAddressIds;
+        do {
+            emailAddressIds = expiredVerificationDataStore.findExpiredEmailAddressIds(lastEmailAddressId, chunkSize,
+                    expirationDate);
+            if (emailAddressIds.length > 0) {
+                lastEmailAddressId = emailAddressIds[emailAddressIds.length - 1];
+                int chunkReclaimedNumber = expiredVerificationDataStore.reclaimExpiredVerifiableData(
+                        emailAddressIds, expirationDate);
+                reclaimedNumber += chunkReclaimedNumber;
+                reclaimedCount.addAndGet(chunkReclaimedNumber);
+            }
+            if ((emailAddressIds.length == chunkSize) && (chunkDelay > 0L)) {
+                try {
+                    Thread.sleep(chunkDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } while ((emailAddressIds.length == chunkSize) && !Thread.currentThread().isInterrupted());
+        lastReclaimedNumber.set(reclaimedNumber);
+        runCount.incrementAndGet();
+        return reclaimedNumber;
+    }
+}
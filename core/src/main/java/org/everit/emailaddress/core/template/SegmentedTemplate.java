@@ -0,0 +1,97 @@
+package org.everit.emailaddress.core.template;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * {@link CompiledTemplate} of the templates that contain only the $acceptToken and $rejectToken references. The
+ * template is split to static segments at the references, so rendering is joining the segments and the tokens in a
+ * presized buffer.
+ */
+final class SegmentedTemplate implements CompiledTemplate {
+
+    /**
+     * The variable index of the $acceptToken reference.
+     */
+    static final int ACCEPT_TOKEN = 0;
+
+    /**
+     * The variable index of the $rejectToken reference.
+     */
+    static final int REJECT_TOKEN = 1;
+
+    /**
+     * The static segments. The number of the segments is greater by one than the number of the references.
+     */
+    private final String[] segments;
+
+    /**
+     * The variable indexes of the references between the segments.
+     */
+    private final int[] variables;
+
+    /**
+     * The summary length of the static segments.
+     */
+    private final int staticLength;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param segments
+     *            the static segments.
+     * @param variables
+     *            the variable indexes of the references between the segments.
+     */
+    SegmentedTemplate(final String[] segments, final int[] variables) {
+        this.segments = segments;
+        this.variables = variables;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        staticLength = length;
+    }
+
+    @Override
+    public String render(final String acceptToken, final String rejectToken) {
+        int length = staticLength;
+        for (int variable : variables) {
+            if (variable == ACCEPT_TOKEN) {
+                length += acceptToken.length();
+            } else {
+                length += rejectToken.length();
+            }
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(segments[0]);
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i] == ACCEPT_TOKEN) {
+                sb.append(acceptToken);
+            } else {
+                sb.append(rejectToken);
+            }
+            sb.append(segments[i + 1]);
+        }
+        return sb.toString();
+    }
+
+}
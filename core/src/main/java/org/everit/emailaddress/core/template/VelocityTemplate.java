@@ -0,0 +1,123 @@
+package org.everit.emailaddress.core.template;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.everit.util.core.velocity.VelocityUtil;
+
+/**
+ * {@link CompiledTemplate} of the templates that need the Velocity engine. The template is parsed once and the parsed
+ * node tree is rendered the same way as {@link VelocityUtil} evaluates the template: with the same runtime and log
+ * tag. If the template cannot be parsed or rendered it is rendered with the {@link VelocityUtil}, so the error handling
+ * is the same as without the compiled template.
+ */
+final class VelocityTemplate implements CompiledTemplate {
+
+    /**
+     * The log tag that is used by the {@link VelocityUtil} calls of the module.
+     */
+    static final String LOG_TAG = "ERROR";
+
+    /**
+     * Parsing the template.
+     * 
+     * @param runtimeInstance
+     *            the initialized Velocity runtime.
+     * @param templateContent
+     *            the content of the template.
+     * @return the compiled template.
+     */
+    static VelocityTemplate compile(final RuntimeInstance runtimeInstance, final String templateContent) {
+        SimpleNode simpleNode = null;
+        try {
+            simpleNode = runtimeInstance.parse(new StringReader(templateContent), LOG_TAG);
+        } catch (ParseException e) {
+            simpleNode = null;
+        } catch (RuntimeException e) {
+            simpleNode = null;
+        }
+        return new VelocityTemplate(runtimeInstance, templateContent, simpleNode);
+    }
+
+    /**
+     * The Velocity runtime that parsed the template.
+     */
+    private final RuntimeInstance runtimeInstance;
+
+    /**
+     * The content of the template.
+     */
+    private final String templateContent;
+
+    /**
+     * The parsed node tree. <code>null</code> if the template cannot be parsed. The rendering initializes the nodes
+     * again, so the tree is rendered by one thread at a time. Guarded by itself.
+     */
+    private final SimpleNode simpleNode;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param runtimeInstance
+     *            the Velocity runtime that parsed the template.
+     * @param templateContent
+     *            the content of the template.
+     * @param simpleNode
+     *            the parsed node tree. May be <code>null</code>.
+     */
+    private VelocityTemplate(final RuntimeInstance runtimeInstance, final String templateContent,
+            final SimpleNode simpleNode) {
+        this.runtimeInstance = runtimeInstance;
+        this.templateContent = templateContent;
+        this.simpleNode = simpleNode;
+    }
+
+    @Override
+    public String render(final String acceptToken, final String rejectToken) {
+        Map<String, Object> variables = new HashMap<String, Object>();
+        variables.put(VerificationTemplateRenderer.ACCEPT_TOKEN_VARIABLE, acceptToken);
+        variables.put(VerificationTemplateRenderer.REJECT_TOKEN_VARIABLE, rejectToken);
+        if (simpleNode != null) {
+            StringWriter writer = new StringWriter(templateContent.length() + acceptToken.length()
+                    + rejectToken.length());
+            try {
+                synchronized (simpleNode) {
+                    runtimeInstance.render(new VelocityContext(variables), writer, LOG_TAG, simpleNode);
+                }
+                return writer.toString();
+            } catch (RuntimeException e) {
+                // rendering again with the VelocityUtil to get the same error handling
+                return VelocityUtil.processVelocityTemplateFromString(templateContent, LOG_TAG, variables);
+            }
+        }
+        return VelocityUtil.processVelocityTemplateFromString(templateContent, LOG_TAG, variables);
+    }
+
+}
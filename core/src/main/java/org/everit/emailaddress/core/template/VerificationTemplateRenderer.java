@@ -0,0 +1,239 @@
+package org.everit.emailaddress.core.template;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.velocity.app.Velocity;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.RuntimeSingleton;
+
+/**
+ * Renderer of the verification email templates. The compiled templates are cached by the content of the template in a
+ * size bounded LRU cache. The templates that contain only the $acceptToken and $rejectToken references (in simple,
+ * quiet or formal notation) and no directive or escape character are rendered without Velocity by joining the static
+ * segments and the tokens. The other templates are parsed once by Velocity and rendered with the singleton Velocity
+ * runtime that is used by {@link org.everit.util.core.velocity.VelocityUtil}, so the configuration and the output is
+ * the same as the output of the VelocityUtil.
+ */
+public class VerificationTemplateRenderer {
+
+    /**
+     * LRU map of the compiled templates.
+     */
+    private static final class TemplateCache extends LinkedHashMap<String, CompiledTemplate> {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 4562140939318577142L;
+
+        /**
+         * The maximum number of the cached templates.
+         */
+        private final int maxSize;
+
+        /**
+         * The simple constructor.
+         * 
+         * @param maxSize
+         *            the maximum number of the cached templates.
+         */
+        private TemplateCache(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompiledTemplate> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * The name of the variable of the accept token.
+     */
+    static final String ACCEPT_TOKEN_VARIABLE = "acceptToken";
+
+    /**
+     * The name of the variable of the reject token.
+     */
+    static final String REJECT_TOKEN_VARIABLE = "rejectToken";
+
+    /**
+     * Checks the character continues the reference or not. In that case the reference is not a simple variable
+     * reference.
+     * 
+     * @param c
+     *            the character after the variable name.
+     * @return <code>true</code> if the character is part of the identifier or starts a method, property or index
+     *         access, otherwise <code>false</code>.
+     */
+    private static boolean isReferenceContinuation(final char c) {
+        return Character.isLetterOrDigit(c) || (c == '_') || (c == '-') || (c == '.') || (c == '[') || (c == '(');
+    }
+
+    /**
+     * Splitting the template to static segments at the $acceptToken and $rejectToken references.
+     * 
+     * @param templateContent
+     *            the content of the template.
+     * @return the {@link SegmentedTemplate} if the template contains no other reference, directive or escape
+     *         character, otherwise <code>null</code>.
+     */
+    static SegmentedTemplate split(final String templateContent) {
+        if ((templateContent.indexOf('#') >= 0) || (templateContent.indexOf('\\') >= 0)) {
+            return null;
+        }
+        int length = templateContent.length();
+        List<String> segments = new ArrayList<String>();
+        List<Integer> variables = new ArrayList<Integer>();
+        int segmentStart = 0;
+        int referenceStart = templateContent.indexOf('$');
+        while (referenceStart >= 0) {
+            int position = referenceStart + 1;
+            if ((position < length) && (templateContent.charAt(position) == '!')) {
+                position++;
+            }
+            boolean formal = (position < length) && (templateContent.charAt(position) == '{');
+            if (formal) {
+                position++;
+            }
+            if (templateContent.startsWith(ACCEPT_TOKEN_VARIABLE, position)) {
+                variables.add(SegmentedTemplate.ACCEPT_TOKEN);
+                position += ACCEPT_TOKEN_VARIABLE.length();
+            } else if (templateContent.startsWith(REJECT_TOKEN_VARIABLE, position)) {
+                variables.add(SegmentedTemplate.REJECT_TOKEN);
+                position += REJECT_TOKEN_VARIABLE.length();
+            } else {
+                return null;
+            }
+            if (formal) {
+                if ((position >= length) || (templateContent.charAt(position) != '}')) {
+                    return null;
+                }
+                position++;
+            } else if ((position < length) && isReferenceContinuation(templateContent.charAt(position))) {
+                return null;
+            }
+            segments.add(templateContent.substring(segmentStart, referenceStart));
+            segmentStart = position;
+            referenceStart = templateContent.indexOf('$', position);
+        }
+        segments.add(templateContent.substring(segmentStart));
+        int[] variableArray = new int[variables.size()];
+        for (int i = 0; i < variableArray.length; i++) {
+            variableArray[i] = variables.get(i);
+        }
+        return new SegmentedTemplate(segments.toArray(new String[segments.size()]), variableArray);
+    }
+
+    /**
+     * The compiled templates by template content. Guarded by itself.
+     */
+    private final TemplateCache templateCache;
+
+    /**
+     * The singleton Velocity runtime of the templates that cannot be split.
+     */
+    private final RuntimeInstance runtimeInstance;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param maxCachedTemplates
+     *            the maximum number of the cached templates. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the maxCachedTemplates is not positive.
+     */
+    public VerificationTemplateRenderer(final int maxCachedTemplates) {
+        if (maxCachedTemplates <= 0) {
+            throw new IllegalArgumentException("The maxCachedTemplates parameter is not positive. Must be positive.");
+        }
+        templateCache = new TemplateCache(maxCachedTemplates);
+        Velocity.init();
+        runtimeInstance = RuntimeSingleton.getRuntimeInstance();
+    }
+
+    /**
+     * Compiling the template.
+     * 
+     * @param templateContent
+     *            the content of the template.
+     * @return the {@link SegmentedTemplate} if the template can be split, otherwise the {@link VelocityTemplate}.
+     */
+    private CompiledTemplate compile(final String templateContent) {
+        CompiledTemplate result = split(templateContent);
+        if (result == null) {
+            result = VelocityTemplate.compile(runtimeInstance, templateContent);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of the cached templates.
+     * 
+     * @return the number of the cached templates.
+     */
+    public int getCachedTemplateNumber() {
+        synchronized (templateCache) {
+            return templateCache.size();
+        }
+    }
+
+    /**
+     * Renders the verification email template.
+     * 
+     * @param templateContent
+     *            the content of the template. Cannot be <code>null</code>.
+     * @param acceptToken
+     *            the value of the $acceptToken variable. Cannot be <code>null</code>.
+     * @param rejectToken
+     *            the value of the $rejectToken variable. Cannot be <code>null</code>.
+     * @return the rendered template.
+     * 
+     * @throws IllegalArgumentException
+     *             if the templateContent or acceptToken or rejectToken parameter is <code>null</code>.
+     */
+    public String render(final String templateContent, final String acceptToken, final String rejectToken) {
+        if ((templateContent == null) || (acceptToken == null) || (rejectToken == null)) {
+            throw new IllegalArgumentException(
+                    "The templateContent or acceptToken or rejectToken parameter is null. Cannot be null.");
+        }
+        CompiledTemplate compiledTemplate;
+        synchronized (templateCache) {
+            compiledTemplate = templateCache.get(templateContent);
+        }
+        if (compiledTemplate == null) {
+            compiledTemplate = compile(templateContent);
+            synchronized (templateCache) {
+                templateCache.put(templateContent, compiledTemplate);
+            }
+        }
+        return compiledTemplate.render(acceptToken, rejectToken);
+    }
+
+}
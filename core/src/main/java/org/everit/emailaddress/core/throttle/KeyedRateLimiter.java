@@ -0,0 +1,263 @@
+package org.everit.emailaddress.core.throttle;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded, thread safe rate limiter with one token bucket per key. A bucket is stored as a single
+ * {@link AtomicLong}: the time when the bucket is full again (the theoretical arrival time of the generic cell rate
+ * algorithm). Taking a token moves this time forward by the emission interval (the period divided by the limit) with
+ * a compare and set, so the acquisitions are lock-free and do not allocate memory for the known keys. A bucket whose
+ * full time is passed is idle: removing it does not change the behavior, so a full limiter evicts the idle buckets
+ * first and, if it is still full, arbitrary buckets.
+ */
+public final class KeyedRateLimiter {
+
+    /**
+     * The default maximum number of the acquisitions in one period.
+     */
+    private static final int DEFAULT_LIMIT = 10;
+
+    /**
+     * The default length of the period in milliseconds.
+     */
+    private static final long DEFAULT_PERIOD = 60000L;
+
+    /**
+     * The maximum number of the buckets.
+     */
+    private final int capacity;
+
+    /**
+     * The maximum number of the acquisitions in one period. Also the maximum burst of a key.
+     */
+    private volatile int limit = DEFAULT_LIMIT;
+
+    /**
+     * The length of the period in milliseconds.
+     */
+    private volatile long period = DEFAULT_PERIOD;
+
+    /**
+     * The times when the buckets are full again by key.
+     */
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * The number of the granted acquisitions.
+     */
+    private final AtomicLong grantedCount = new AtomicLong();
+
+    /**
+     * The number of the rejected acquisitions.
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * The number of the evicted not idle buckets.
+     */
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The simple constructor.
+     * 
+     * @param capacity
+     *            the maximum number of the buckets (the tracked keys). Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     */
+    public KeyedRateLimiter(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity parameter is not positive. Must be positive.");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Removes all buckets.
+     */
+    public void clear() {
+        buckets.clear();
+    }
+
+    /**
+     * Removes the idle buckets and, if the limiter is still full, arbitrary buckets.
+     * 
+     * @param currentTime
+     *            the current time in milliseconds.
+     */
+    private void evict(final long currentTime) {
+        Iterator<AtomicLong> iterator = buckets.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().get() <= currentTime) {
+                iterator.remove();
+            }
+        }
+        iterator = buckets.values().iterator();
+        while ((buckets.size() >= capacity) && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    public int getBucketNumber() {
+        return buckets.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getGrantedCount() {
+        return grantedCount.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire(String, long)}. Used when an acquisition is not followed by the
+     * limited action. The refund is clamped: the bucket is never fuller than a full bucket, so a release after a
+     * change of the limit or the period, after the eviction of the bucket or a repeated release does not give more
+     * tokens than the limit.
+     * 
+     * @param key
+     *            the key. Cannot be <code>null</code>.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * 
+     * @throws IllegalArgumentException
+     *             if the key is <code>null</code>.
+     */
+    public void release(final String key, final long currentTime) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key parameter is null. Cannot be null.");
+        }
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        long emissionInterval = Math.max(period / limit, 1L);
+        while (true) {
+            long fullTime = bucket.get();
+            long newFullTime = Math.max(fullTime - emissionInterval, currentTime);
+            if ((newFullTime >= fullTime) || bucket.compareAndSet(fullTime, newFullTime)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Set the maximum number of the acquisitions of a key in one period.
+     * 
+     * @param limit
+     *            the number of the acquisitions. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the limit is not positive.
+     */
+    public void setLimit(final int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit parameter is not positive. Must be positive.");
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Set the length of the period of the limit.
+     * 
+     * @param period
+     *            the length of the period in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the period is not positive.
+     */
+    public void setPeriod(final long period) {
+        if (period <= 0L) {
+            throw new IllegalArgumentException("The period parameter is not positive. Must be positive.");
+        }
+        this.period = period;
+    }
+
+    /**
+     * Takes a token from the bucket of the key. The bucket of a new key is full.
+     * 
+     * @param key
+     *            the key. Cannot be <code>null</code>.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return <code>true</code> if the token is taken, <code>false</code> if the bucket is empty.
+     * 
+     * @throws IllegalArgumentException
+     *             if the key is <code>null</code>.
+     */
+    public boolean tryAcquire(final String key, final long currentTime) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key parameter is null. Cannot be null.");
+        }
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= capacity) {
+                evict(currentTime);
+            }
+            AtomicLong newBucket = new AtomicLong(currentTime);
+            bucket = buckets.putIfAbsent(key, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+        int currentLimit = limit;
+        long emissionInterval = Math.max(period / currentLimit, 1L);
+        long tolerance = emissionInterval * currentLimit;
+        while (true) {
+            long fullTime = bucket.get();
+            long newFullTime = Math.max(fullTime, currentTime) + emissionInterval;
+            if ((newFullTime - currentTime) > tolerance) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (bucket.compareAndSet(fullTime, newFullTime)) {
+                grantedCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.everit.emailaddress.core.throttle;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+/**
+ * Throttle of the verification emails. An email can be sent if both the bucket of the recipient email address and
+ * the bucket of the recipient domain have a token, so repeated resend requests of one email address and scripted
+ * requests against one domain are limited separately. The email addresses must be passed in canonical form, so the
+ * case variants of the domain share the buckets.
+ */
+public class SendThrottle {
+
+    /**
+     * The default maximum number of the emails to one email address in one recipient period.
+     */
+    private static final int DEFAULT_RECIPIENT_LIMIT = 3;
+
+    /**
+     * The default length of the recipient period in milliseconds.
+     */
+    private static final long DEFAULT_RECIPIENT_PERIOD = 3600000L;
+
+    /**
+     * The default maximum number of the emails to one domain in one domain period.
+     */
+    private static final int DEFAULT_DOMAIN_LIMIT = 600;
+
+    /**
+     * The default length of the domain period in milliseconds.
+     */
+    private static final long DEFAULT_DOMAIN_PERIOD = 60000L;
+
+    /**
+     * The rate limiter of the email addresses.
+     */
+    private final KeyedRateLimiter recipientLimiter;
+
+    /**
+     * The rate limiter of the domains.
+     */
+    private final KeyedRateLimiter domainLimiter;
+
+    /**
+     * The simple constructor.
+     * 
+     * @param recipientCapacity
+     *            the maximum number of the tracked email addresses. Must be positive.
+     * @param domainCapacity
+     *            the maximum number of the tracked domains. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the recipientCapacity or the domainCapacity is not positive.
+     */
+    public SendThrottle(final int recipientCapacity, final int domainCapacity) {
+        recipientLimiter = new KeyedRateLimiter(recipientCapacity);
+        recipientLimiter.setLimit(DEFAULT_RECIPIENT_LIMIT);
+        recipientLimiter.setPeriod(DEFAULT_RECIPIENT_PERIOD);
+        domainLimiter = new KeyedRateLimiter(domainCapacity);
+        domainLimiter.setLimit(DEFAULT_DOMAIN_LIMIT);
+        domainLimiter.setPeriod(DEFAULT_DOMAIN_PERIOD);
+    }
+
+    /**
+     * Removes all buckets.
+     */
+    public void clear() {
+        recipientLimiter.clear();
+        domainLimiter.clear();
+    }
+
+    public long getThrottledDomainCount() {
+        return domainLimiter.getRejectedCount();
+    }
+
+    public long getThrottledRecipientCount() {
+        return recipientLimiter.getRejectedCount();
+    }
+
+    /**
+     * Gives back the tokens taken by {@link #tryAcquire(String, long)}. Used when the email is not sent after all. The
+     * refunds are clamped like by {@link KeyedRateLimiter#release(String, long)}.
+     * 
+     * @param canonicalEmailAddress
+     *            the email address in canonical form. Cannot be <code>null</code>.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * 
+     * @throws IllegalArgumentException
+     *             if the canonicalEmailAddress is <code>null</code>.
+     */
+    public void release(final String canonicalEmailAddress, final long currentTime) {
+        if (canonicalEmailAddress == null) {
+            throw new IllegalArgumentException("The canonicalEmailAddress parameter is null. Cannot be null.");
+        }
+        recipientLimiter.release(canonicalEmailAddress, currentTime);
+        domainLimiter.release(canonicalEmailAddress.substring(canonicalEmailAddress.lastIndexOf('@') + 1),
+                currentTime);
+    }
+
+    /**
+     * Set the maximum number of the emails to one domain in one domain period.
+     * 
+     * @param domainLimit
+     *            the number of the emails. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domainLimit is not positive.
+     */
+    public void setDomainLimit(final int domainLimit) {
+        if (domainLimit <= 0) {
+            throw new IllegalArgumentException("The domainLimit parameter is not positive. Must be positive.");
+        }
+        domainLimiter.setLimit(domainLimit);
+    }
+
+    /**
+     * Set the length of the domain period.
+     * 
+     * @param domainPeriod
+     *            the length of the period in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the domainPeriod is not positive.
+     */
+    public void setDomainPeriod(final long domainPeriod) {
+        if (domainPeriod <= 0L) {
+            throw new IllegalArgumentException("The domainPeriod parameter is not positive. Must be positive.");
+        }
+        domainLimiter.setPeriod(domainPeriod);
+    }
+
+    /**
+     * Set the maximum number of the emails to one email address in one recipient period.
+     * 
+     * @param recipientLimit
+     *            the number of the emails. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the recipientLimit is not positive.
+     */
+    public void setRecipientLimit(final int recipientLimit) {
+        if (recipientLimit <= 0) {
+            throw new IllegalArgumentException("The recipientLimit parameter is not positive. Must be positive.");
+        }
+        recipientLimiter.setLimit(recipientLimit);
+    }
+
+    /**
+     * Set the length of the recipient period.
+     * 
+     * @param recipientPeriod
+     *            the length of the period in milliseconds. Must be positive.
+     * 
+     * @throws IllegalArgumentException
+     *             if the recipientPeriod is not positive.
+     */
+    public void setRecipientPeriod(final long recipientPeriod) {
+        if (recipientPeriod <= 0L) {
+            throw new IllegalArgumentException("The recipientPeriod parameter is not positive. Must be positive.");
+        }
+        recipientLimiter.setPeriod(recipientPeriod);
+    }
+
+    /**
+     * Takes a token from the bucket of the email address and from the bucket of its domain. If the domain is
+     * throttled the token of the email address is given back.
+     * 
+     * @param canonicalEmailAddress
+     *            the email address in canonical form. Cannot be <code>null</code>.
+     * @param currentTime
+     *            the current time in milliseconds.
+     * @return <code>true</code> if the email can be sent, <code>false</code> if the email address or the domain is
+     *         throttled.
+     * 
+     * @throws IllegalArgumentException
+     *             if the canonicalEmailAddress is <code>null</code>.
+     */
+    public boolean tryAcquire(final String canonicalEmailAddress, final long currentTime) {
+        if (canonicalEmailAddress == null) {
+            throw new IllegalArgumentException("The canonicalEmailAddress parameter is null. Cannot be null.");
+        }
+        if (!recipientLimiter.tryAcquire(canonicalEmailAddress, currentTime)) {
+            return false;
+        }
+        String domain = canonicalEmailAddress.substring(canonicalEmailAddress.lastIndexOf('@') + 1);
+        if (!domainLimiter.tryAcquire(domain, currentTime)) {
+            recipientLimiter.release(canonicalEmailAddress, currentTime);
+            return false;
+        }
+        return true;
+    }
+}
@@ -21,23 +21,162 @@ package org.everit.emailaddress.entity;
  * MA 02110-1301  USA
  */
 
+import java.util.Date;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 import org.everit.verifiabledata.entity.VerifiableDataEntity;
+import org.hibernate.annotations.Index;
 
 /**
- * The entity of the email address data.
+ * The entity of the email address data. The queries of the email address data are declared as named queries, so they
+ * are translated once when the persistence unit is created.
  */
 @Entity
 @Table(name = "EMAILADDRESS_DATA")
+@NamedQueries({
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_DELETE_BY_IDS,
+                query = "DELETE FROM EmailAddressDataEntity e WHERE e.emailAddressDataId IN (:emailAddressIds)"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_EXPORT,
+                query = "SELECT e.emailAddressDataId, e.emailAddress, vd.verifiedUntil, e.lastModificationDate"
+                        + " FROM EmailAddressDataEntity e LEFT JOIN e.verifiableData vd"
+                        + " WHERE e.emailAddressDataId > :lastEmailAddressId ORDER BY e.emailAddressDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_EXPORT_MODIFIED,
+                query = "SELECT e.emailAddressDataId, e.emailAddress, vd.verifiedUntil, e.lastModificationDate"
+                        + " FROM EmailAddressDataEntity e LEFT JOIN e.verifiableData vd"
+                        + " WHERE e.emailAddressDataId > :lastEmailAddressId"
+                        + " AND e.lastModificationDate >= :modifiedFrom AND e.lastModificationDate < :modifiedTo"
+                        + " ORDER BY e.emailAddressDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_BY_IDS,
+                query = "SELECT e FROM EmailAddressDataEntity e WHERE e.emailAddressDataId IN (:emailAddressIds)"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_EMAIL_ADDRESS_BY_ID,
+                query = "SELECT e.emailAddress FROM EmailAddressDataEntity e"
+                        + " WHERE e.emailAddressDataId = :emailAddressId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_ID_BY_CANONICAL_EMAIL_ADDRESS,
+                query = "SELECT e.emailAddressDataId FROM EmailAddressDataEntity e"
+                        + " WHERE e.canonicalEmailAddress = :canonicalEmailAddress ORDER BY e.emailAddressDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_IDS_BY_DOMAIN,
+                query = "SELECT e.emailAddressDataId FROM EmailAddressDataEntity e"
+                        + " WHERE e.canonicalEmailAddress LIKE :canonicalEmailAddressPattern ESCAPE '!'"
+                        + " AND e.emailAddressDataId > :lastEmailAddressId ORDER BY e.emailAddressDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_ID_BY_VERIFIABLE_DATA_ID,
+                query = "SELECT e.emailAddressDataId FROM EmailAddressDataEntity e"
+                        + " WHERE e.verifiableData.verifiableDataId = :verifiableDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_VERIFIABLE_DATA_ID_BY_ID,
+                query = "SELECT vd.verifiableDataId FROM EmailAddressDataEntity e JOIN e.verifiableData vd"
+                        + " WHERE e.emailAddressDataId = :emailAddressId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_VERIFIABLE_DATA_IDS_BY_IDS,
+                query = "SELECT vd.verifiableDataId FROM EmailAddressDataEntity e JOIN e.verifiableData vd"
+                        + " WHERE e.emailAddressDataId IN (:emailAddressIds)"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_VERIFICATION_END_DATE_BY_ID,
+                query = "SELECT vd.verifiedUntil FROM EmailAddressDataEntity e LEFT JOIN e.verifiableData vd"
+                        + " WHERE e.emailAddressDataId = :emailAddressId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_FIND_VERIFICATION_END_DATES_BY_IDS,
+                query = "SELECT e.emailAddressDataId, vd.verifiedUntil FROM EmailAddressDataEntity e"
+                        + " LEFT JOIN e.verifiableData vd WHERE e.emailAddressDataId IN (:emailAddressIds)"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_LOCK_VERIFIABLE_DATA_BY_IDS,
+                query = "SELECT vd FROM VerifiableDataEntity vd WHERE vd.verifiableDataId IN (:verifiableDataIds)"
+                        + " ORDER BY vd.verifiableDataId"),
+        @NamedQuery(name = EmailAddressDataEntity.QUERY_UPDATE_LAST_MODIFICATION_DATE,
+                query = "UPDATE EmailAddressDataEntity e SET e.lastModificationDate = :lastModificationDate"
+                        + " WHERE e.emailAddressDataId = :emailAddressId") })
 public class EmailAddressDataEntity {
 
+    /**
+     * The name of the query that deletes the email address data by id. Parameter: emailAddressIds.
+     */
+    public static final String QUERY_DELETE_BY_IDS = "EmailAddressDataEntity.deleteByIds";
+
+    /**
+     * The name of the query that selects the exported columns of the email address data in ascending id order whose
+     * id is greater than the last id. Parameter: lastEmailAddressId.
+     */
+    public static final String QUERY_EXPORT = "EmailAddressDataEntity.export";
+
+    /**
+     * The name of the query that selects the exported columns of the email address data modified in the window in
+     * ascending id order whose id is greater than the last id. Parameters: lastEmailAddressId, modifiedFrom
+     * (inclusive), modifiedTo (exclusive).
+     */
+    public static final String QUERY_EXPORT_MODIFIED = "EmailAddressDataEntity.exportModified";
+
+    /**
+     * The name of the query that selects the email address data entities by id. Parameter: emailAddressIds.
+     */
+    public static final String QUERY_FIND_BY_IDS = "EmailAddressDataEntity.findByIds";
+
+    /**
+     * The name of the query that selects the email address by id. Parameter: emailAddressId.
+     */
+    public static final String QUERY_FIND_EMAIL_ADDRESS_BY_ID = "EmailAddressDataEntity.findEmailAddressById";
+
+    /**
+     * The name of the query that selects the ids by canonical email address in ascending order. Parameter:
+     * canonicalEmailAddress.
+     */
+    public static final String QUERY_FIND_ID_BY_CANONICAL_EMAIL_ADDRESS =
+            "EmailAddressDataEntity.findIdByCanonicalEmailAddress";
+
+    /**
+     * The name of the query that selects the ids in ascending order whose canonical email address matches the
+     * pattern and greater than the last id. The escape character of the pattern is <code>!</code>. Parameters:
+     * canonicalEmailAddressPattern, lastEmailAddressId.
+     */
+    public static final String QUERY_FIND_IDS_BY_DOMAIN = "EmailAddressDataEntity.findIdsByDomain";
+
+    /**
+     * The name of the query that selects the id by verifiable data id. Parameter: verifiableDataId.
+     */
+    public static final String QUERY_FIND_ID_BY_VERIFIABLE_DATA_ID = "EmailAddressDataEntity.findIdByVerifiableDataId";
+
+    /**
+     * The name of the query that selects the verifiable data id by id. Parameter: emailAddressId.
+     */
+    public static final String QUERY_FIND_VERIFIABLE_DATA_ID_BY_ID = "EmailAddressDataEntity.findVerifiableDataIdById";
+
+    /**
+     * The name of the query that selects the verifiable data ids by id. Parameter: emailAddressIds.
+     */
+    public static final String QUERY_FIND_VERIFIABLE_DATA_IDS_BY_IDS =
+            "EmailAddressDataEntity.findVerifiableDataIdsByIds";
+
+    /**
+     * The name of the query that selects the verification end date by id. The verifiable data is left joined, so the
+     * result is <code>null</code> if the email address data has no verifiable data. Parameter: emailAddressId.
+     */
+    public static final String QUERY_FIND_VERIFICATION_END_DATE_BY_ID =
+            "EmailAddressDataEntity.findVerificationEndDateById";
+
+    /**
+     * The name of the query that selects the ids and the verification end dates by id. The verifiable data is left
+     * joined. Parameter: emailAddressIds.
+     */
+    public static final String QUERY_FIND_VERIFICATION_END_DATES_BY_IDS =
+            "EmailAddressDataEntity.findVerificationEndDatesByIds";
+
+    /**
+     * The name of the query that selects the verifiable data entities by id in ascending order. Executed with
+     * pessimistic lock to lock the verifiable data in a deterministic order. Parameter: verifiableDataIds.
+     */
+    public static final String QUERY_LOCK_VERIFIABLE_DATA_BY_IDS = "EmailAddressDataEntity.lockVerifiableDataByIds";
+
+    /**
+     * The name of the query that updates the last modification date by id. Parameters: lastModificationDate,
+     * emailAddressId.
+     */
+    public static final String QUERY_UPDATE_LAST_MODIFICATION_DATE =
+            "EmailAddressDataEntity.updateLastModificationDate";
+
     /**
      * The id of the email address data.
      */
@@ -52,14 +191,40 @@ public class EmailAddressDataEntity {
     @Column(name = "EMAIL_ADDRESS")
     private String emailAddress;
 
+    /**
+     * The canonical form of the email address used by the lookups: trimmed and the domain is lower-cased.
+     */
+    @Column(name = "CANONICAL_EMAIL_ADDRESS")
+    @Index(name = "IDX_EMAILADDRESS_DATA_CANONICAL")
+    private String canonicalEmailAddress;
+
     /**
      * Optional field. If cannot be check the e-mail address it's <code>null</code>. If can be check the email address
      * we are checking the verifiable_data components.
      */
     @ManyToOne
     @JoinColumn(name = "VERIFIABLE_DATA_ID")
+    @Index(name = "IDX_EMAILADDRESS_DATA_VERIFIABLE")
     private VerifiableDataEntity verifiableData;
 
+    /**
+     * The date of the last modification of the email address data or its verification state made by the
+     * {@link org.everit.emailaddress.api.EmailAddressDataService}. Used by the incremental exports.
+     */
+    @Column(name = "LAST_MODIFICATION_DATE")
+    @Temporal(TemporalType.TIMESTAMP)
+    @Index(name = "IDX_EMAILADDRESS_DATA_MODIFIED")
+    private Date lastModificationDate;
+
+    /**
+     * The date of the last verification request created by the
+     * {@link org.everit.emailaddress.api.EmailAddressDataService}. The verifiable data of the email address data is
+     * not reclaimed by the sweeper of the expired verification data while a request may be pending.
+     */
+    @Column(name = "LAST_VERIFICATION_REQUEST_DATE")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastVerificationRequestDate;
+
     /**
      * The default constructor.
      */
@@ -84,6 +249,10 @@ public class EmailAddressDataEntity {
         this.verifiableData = verifiableData;
     }
 
+    public String getCanonicalEmailAddress() {
+        return canonicalEmailAddress;
+    }
+
     public String getEmailAddress() {
         return emailAddress;
     }
@@ -92,10 +261,22 @@ public class EmailAddressDataEntity {
         return emailAddressDataId;
     }
 
+    public Date getLastModificationDate() {
+        return lastModificationDate;
+    }
+
+    public Date getLastVerificationRequestDate() {
+        return lastVerificationRequestDate;
+    }
+
     public VerifiableDataEntity getVerifiableData() {
         return verifiableData;
     }
 
+    public void setCanonicalEmailAddress(final String canonicalEmailAddress) {
+        this.canonicalEmailAddress = canonicalEmailAddress;
+    }
+
     public void setEmailAddress(final String emailAddress) {
         this.emailAddress = emailAddress;
     }
@@ -104,6 +285,14 @@ public class EmailAddressDataEntity {
         this.emailAddressDataId = emailAddressDataId;
     }
 
+    public void setLastModificationDate(final Date lastModificationDate) {
+        this.lastModificationDate = lastModificationDate;
+    }
+
+    public void setLastVerificationRequestDate(final Date lastVerificationRequestDate) {
+        this.lastVerificationRequestDate = lastVerificationRequestDate;
+    }
+
     public void setVerifiableData(final VerifiableDataEntity verifiableData) {
         this.verifiableData = verifiableData;
     }
@@ -21,6 +21,7 @@ package org.everit.emailaddress.entity;
  * MA 02110-1301  USA
  */
 
+import java.util.Date;
 import javax.annotation.Generated;
 import javax.persistence.metamodel.SingularAttribute;
 import javax.persistence.metamodel.StaticMetamodel;
@@ -31,5 +32,8 @@ import org.everit.verifiabledata.entity.VerifiableDataEntity;
 public class EmailAddressDataEntity_ {
 	public static volatile SingularAttribute<EmailAddressDataEntity, Long> emailAddressDataId;
 	public static volatile SingularAttribute<EmailAddressDataEntity, String> emailAddress;
+	public static volatile SingularAttribute<EmailAddressDataEntity, String> canonicalEmailAddress;
 	public static volatile SingularAttribute<EmailAddressDataEntity, VerifiableDataEntity> verifiableData;
+	public static volatile SingularAttribute<EmailAddressDataEntity, Date> lastModificationDate;
+	public static volatile SingularAttribute<EmailAddressDataEntity, Date> lastVerificationRequestDate;
 }
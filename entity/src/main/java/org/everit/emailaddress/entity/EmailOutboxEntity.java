@@ -0,0 +1,213 @@
+package org.everit.emailaddress.entity;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.hibernate.annotations.Index;
+
+/**
+ * The entity of the rendered email messages waiting for sending. The messages are written in the transaction of the
+ * verification request and sent by a background dispatcher after the commit. The claim poll of the dispatcher
+ * filters by status, next attempt date and lease end date, so these columns are indexed together.
+ */
+@Entity
+@Table(name = "EMAILADDRESS_OUTBOX")
+@org.hibernate.annotations.Table(appliesTo = "EMAILADDRESS_OUTBOX", indexes = { @Index(
+        name = "IDX_EMAILADDRESS_OUTBOX_CLAIM", columnNames = { "STATUS", "NEXT_ATTEMPT_DATE", "LEASE_END_DATE" }) })
+public class EmailOutboxEntity {
+
+    /**
+     * The id of the outbox message.
+     */
+    @Id
+    @GeneratedValue
+    @Column(name = "OUTBOX_MESSAGE_ID")
+    private long outboxMessageId;
+
+    /**
+     * The email address of the receiver.
+     */
+    @Column(name = "RECEIVER_EMAIL_ADDRESS", nullable = false)
+    private String receiverEmailAddress;
+
+    /**
+     * The subject of the message.
+     */
+    @Column(name = "SUBJECT", nullable = false)
+    private String subject;
+
+    /**
+     * The rendered HTML body of the message.
+     */
+    @Lob
+    @Column(name = "BODY", nullable = false)
+    private String body;
+
+    /**
+     * The {@link OutboxMessageStatus} of the message.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false)
+    private OutboxMessageStatus status;
+
+    /**
+     * The number of the sending attempts.
+     */
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    /**
+     * The date when the message was written to the outbox.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "CREATION_DATE", nullable = false)
+    private Date creationDate;
+
+    /**
+     * The earliest date of the next sending attempt.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "NEXT_ATTEMPT_DATE", nullable = false)
+    private Date nextAttemptDate;
+
+    /**
+     * The token of the dispatcher claim that holds the message. <code>null</code> if the message is not claimed.
+     */
+    @Column(name = "LEASE_TOKEN")
+    @Index(name = "IDX_EMAILADDRESS_OUTBOX_LEASE")
+    private String leaseToken;
+
+    /**
+     * The end date of the claim. After this date the message can be claimed again. <code>null</code> if the message
+     * is not claimed.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "LEASE_END_DATE")
+    private Date leaseEndDate;
+
+    /**
+     * The error message of the last failed sending attempt.
+     */
+    @Column(name = "LAST_ERROR", length = 1000)
+    private String lastError;
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public Date getLeaseEndDate() {
+        return leaseEndDate;
+    }
+
+    public String getLeaseToken() {
+        return leaseToken;
+    }
+
+    public Date getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public long getOutboxMessageId() {
+        return outboxMessageId;
+    }
+
+    public String getReceiverEmailAddress() {
+        return receiverEmailAddress;
+    }
+
+    public OutboxMessageStatus getStatus() {
+        return status;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setAttempts(final int attempts) {
+        this.attempts = attempts;
+    }
+
+    public void setBody(final String body) {
+        this.body = body;
+    }
+
+    public void setCreationDate(final Date creationDate) {
+        this.creationDate = creationDate;
+    }
+
+    public void setLastError(final String lastError) {
+        this.lastError = lastError;
+    }
+
+    public void setLeaseEndDate(final Date leaseEndDate) {
+        this.leaseEndDate = leaseEndDate;
+    }
+
+    public void setLeaseToken(final String leaseToken) {
+        this.leaseToken = leaseToken;
+    }
+
+    public void setNextAttemptDate(final Date nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+    }
+
+    public void setOutboxMessageId(final long outboxMessageId) {
+        this.outboxMessageId = outboxMessageId;
+    }
+
+    public void setReceiverEmailAddress(final String receiverEmailAddress) {
+        this.receiverEmailAddress = receiverEmailAddress;
+    }
+
+    public void setStatus(final OutboxMessageStatus status) {
+        this.status = status;
+    }
+
+    public void setSubject(final String subject) {
+        this.subject = subject;
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.everit.emailaddress.entity;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.StaticMetamodel;
+
+@StaticMetamodel(EmailOutboxEntity.class)
+public class EmailOutboxEntity_ {
+	public static volatile SingularAttribute<EmailOutboxEntity, Long> outboxMessageId;
+	public static volatile SingularAttribute<EmailOutboxEntity, String> receiverEmailAddress;
+	public static volatile SingularAttribute<EmailOutboxEntity, String> subject;
+	public static volatile SingularAttribute<EmailOutboxEntity, String> body;
+	public static volatile SingularAttribute<EmailOutboxEntity, OutboxMessageStatus> status;
+	public static volatile SingularAttribute<EmailOutboxEntity, Integer> attempts;
+	public static volatile SingularAttribute<EmailOutboxEntity, Date> creationDate;
+	public static volatile SingularAttribute<EmailOutboxEntity, Date> nextAttemptDate;
+	public static volatile SingularAttribute<EmailOutboxEntity, String> leaseToken;
+	public static volatile SingularAttribute<EmailOutboxEntity, Date> leaseEndDate;
+	public static volatile SingularAttribute<EmailOutboxEntity, String> lastError;
+}
@@ -0,0 +1,75 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Wrapper of an EntityManager of the tests that counts the calls of the wrapped EntityManager, so the tests can check
+ * whether the queries of a service used it.
+ */
+public class CountingEntityManager implements InvocationHandler {
+
+    /**
+     * The wrapped EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    /**
+     * The number of the calls.
+     */
+    private final AtomicInteger callNumber = new AtomicInteger();
+
+    /**
+     * Creating the EntityManager that counts the calls and passes them to the wrapped EntityManager.
+     * 
+     * @return the counting EntityManager.
+     */
+    public EntityManager createEntityManager() {
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { EntityManager.class }, this);
+    }
+
+    public int getCallNumber() {
+        return callNumber.get();
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        callNumber.incrementAndGet();
+        try {
+            return method.invoke(em, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+}
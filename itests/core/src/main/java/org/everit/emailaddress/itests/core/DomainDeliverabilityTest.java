@@ -0,0 +1,93 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.everit.emailaddress.core.domain.CachingDomainDeliverabilityChecker;
+import org.everit.emailaddress.core.domain.DnsDomainDeliverabilityChecker;
+import org.junit.Test;
+
+/**
+ * Test interface for testing {@link CachingDomainDeliverabilityChecker}, {@link DnsDomainDeliverabilityChecker} and
+ * the domain deliverability check of the verification requests.
+ */
+public interface DomainDeliverabilityTest {
+
+    /**
+     * Check the deliverable and the not deliverable domains are cached with their own time to live.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the expiration.
+     */
+    @Test
+    void testCacheTimeToLive() throws InterruptedException;
+
+    /**
+     * Check the concurrent checks of a not cached domain are served by one lookup of the resolver.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted.
+     * @throws ExecutionException
+     *             if a check fails.
+     * @throws TimeoutException
+     *             if a check does not finish in time.
+     */
+    @Test
+    void testCoalescedLookups() throws InterruptedException, ExecutionException, TimeoutException;
+
+    /**
+     * Check the MX, null MX, implicit MX, not existing and failing domains with a DNS server on the loopback
+     * interface.
+     * 
+     * @throws IOException
+     *             if the DNS server cannot be started.
+     */
+    @Test
+    void testDnsLookup() throws IOException;
+
+    /**
+     * Check the cache does not grow over its capacity.
+     */
+    @Test
+    void testEviction();
+
+    /**
+     * Check the failed lookups are reported as deliverable and are not cached.
+     */
+    @Test
+    void testFailedLookup();
+
+    /**
+     * Check a timed out lookup is reported as deliverable and its result is cached when it finishes.
+     */
+    @Test
+    void testLookupTimeout();
+
+    /**
+     * Check the verification request is not created for an email address of a domain that cannot receive email.
+     */
+    @Test
+    void testUndeliverableVerificationRequest();
+}
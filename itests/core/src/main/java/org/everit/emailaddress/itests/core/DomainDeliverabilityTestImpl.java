@@ -0,0 +1,355 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
+import org.everit.emailaddress.core.domain.CachingDomainDeliverabilityChecker;
+import org.everit.emailaddress.core.domain.DnsDomainDeliverabilityChecker;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Implementation of {@link DomainDeliverabilityTest}.
+ */
+public class DomainDeliverabilityTestImpl implements DomainDeliverabilityTest {
+
+    /**
+     * The domain that can receive email.
+     */
+    private static final String DELIVERABLE_DOMAIN = "deliverable.test";
+
+    /**
+     * The domain that cannot receive email.
+     */
+    private static final String UNDELIVERABLE_DOMAIN = "undeliverable.test";
+
+    /**
+     * The short time to live of the cache in milliseconds.
+     */
+    private static final long SHORT_TIME_TO_LIVE = 200L;
+
+    /**
+     * The long time to live of the cache in milliseconds.
+     */
+    private static final long LONG_TIME_TO_LIVE = 3600000L;
+
+    /**
+     * The lookup timeout of the timeout test in milliseconds.
+     */
+    private static final long SHORT_LOOKUP_TIMEOUT = 100L;
+
+    /**
+     * The maximum waiting time of the test for an event in milliseconds.
+     */
+    private static final long TEST_TIMEOUT = 10000L;
+
+    /**
+     * The waiting time between the checks of an event in milliseconds.
+     */
+    private static final long POLL_INTERVAL = 10L;
+
+    /**
+     * The number of the concurrent checks of the coalescing test.
+     */
+    private static final int CONCURRENT_CHECK_NUMBER = 8;
+
+    /**
+     * The capacity of the cache of the eviction test.
+     */
+    private static final int EVICTION_CAPACITY = 8;
+
+    /**
+     * The number of the checked domains of the eviction test.
+     */
+    private static final int EVICTION_DOMAIN_NUMBER = 100;
+
+    /**
+     * The initial timeout of the DNS queries in milliseconds.
+     */
+    private static final long DNS_TIMEOUT = 1000L;
+
+    /**
+     * The preference of the MX record of the DNS test.
+     */
+    private static final int MX_PREFERENCE = 10;
+
+    /**
+     * The template of the verification emails.
+     */
+    private static final String MESSAGE_TEMPLATE = "$acceptToken\n$rejectToken";
+
+    /**
+     * The validity of the tokens in milliseconds.
+     */
+    private static final long TOKEN_VALIDITY = 86400000L;
+
+    /**
+     * The verification length in seconds.
+     */
+    private static final long VERIFICATION_LENGTH = 3600L;
+
+    /**
+     * The maximum value of the random.
+     */
+    private static final int MAX_RANDOM_VALUE = 1000000;
+
+    /**
+     * The email address data service with the domain deliverability check.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The resolver of the domain deliverability checker of the emailAddressDataService.
+     */
+    private StubDomainDeliverabilityChecker stubDomainDeliverabilityChecker;
+
+    /**
+     * The {@link RecordingEmailTransport} of the emailAddressDataService.
+     */
+    private RecordingEmailTransport recordingEmailTransport;
+
+    /**
+     * Checking the time to live of the cache where one of the deliverable and the not deliverable domains expire
+     * soon.
+     * 
+     * @param deliverableExpires
+     *            <code>true</code> if the deliverable domains expire soon, <code>false</code> if the not deliverable
+     *            domains.
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the expiration.
+     */
+    private void assertTimeToLive(final boolean deliverableExpires) throws InterruptedException {
+        StubDomainDeliverabilityChecker resolver = new StubDomainDeliverabilityChecker();
+        resolver.addUndeliverableDomain(UNDELIVERABLE_DOMAIN);
+        CachingDomainDeliverabilityChecker checker = createChecker(resolver);
+        checker.setPositiveTimeToLive(deliverableExpires ? SHORT_TIME_TO_LIVE : LONG_TIME_TO_LIVE);
+        checker.setNegativeTimeToLive(deliverableExpires ? LONG_TIME_TO_LIVE : SHORT_TIME_TO_LIVE);
+
+        Assert.assertTrue(checker.isDeliverable(DELIVERABLE_DOMAIN));
+        Assert.assertFalse(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertTrue(checker.isDeliverable(DELIVERABLE_DOMAIN.toUpperCase(Locale.ENGLISH)));
+        Assert.assertFalse(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertEquals(2, resolver.getLookupNumber());
+        Assert.assertEquals(2L, checker.getHitCount());
+
+        Thread.sleep(SHORT_TIME_TO_LIVE * 2);
+        Assert.assertTrue(checker.isDeliverable(DELIVERABLE_DOMAIN));
+        Assert.assertFalse(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertEquals(3, resolver.getLookupNumber());
+        Assert.assertEquals(3L, checker.getHitCount());
+    }
+
+    /**
+     * Creating a caching checker of the resolver with the default settings.
+     * 
+     * @param resolver
+     *            the resolver.
+     * @return the checker.
+     */
+    private CachingDomainDeliverabilityChecker createChecker(final StubDomainDeliverabilityChecker resolver) {
+        CachingDomainDeliverabilityChecker result = new CachingDomainDeliverabilityChecker();
+        result.setResolver(resolver);
+        return result;
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setRecordingEmailTransport(final RecordingEmailTransport recordingEmailTransport) {
+        this.recordingEmailTransport = recordingEmailTransport;
+    }
+
+    public void setStubDomainDeliverabilityChecker(
+            final StubDomainDeliverabilityChecker stubDomainDeliverabilityChecker) {
+        this.stubDomainDeliverabilityChecker = stubDomainDeliverabilityChecker;
+    }
+
+    @Override
+    public void testCacheTimeToLive() throws InterruptedException {
+        assertTimeToLive(true);
+        assertTimeToLive(false);
+    }
+
+    @Override
+    public void testCoalescedLookups() throws InterruptedException, ExecutionException, TimeoutException {
+        StubDomainDeliverabilityChecker resolver = new StubDomainDeliverabilityChecker();
+        resolver.addUndeliverableDomain(UNDELIVERABLE_DOMAIN);
+        resolver.closeGate();
+        final CachingDomainDeliverabilityChecker checker = createChecker(resolver);
+        ExecutorService executorService = Executors.newFixedThreadPool(CONCURRENT_CHECK_NUMBER);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < CONCURRENT_CHECK_NUMBER; i++) {
+                results.add(executorService.submit(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() {
+                        return Boolean.valueOf(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+                    }
+                }));
+            }
+            long deadline = System.currentTimeMillis() + TEST_TIMEOUT;
+            while ((checker.getCoalescedCount() < (CONCURRENT_CHECK_NUMBER - 1))
+                    && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(POLL_INTERVAL);
+            }
+            resolver.openGate();
+            for (Future<Boolean> result : results) {
+                Assert.assertFalse(result.get(TEST_TIMEOUT, TimeUnit.MILLISECONDS).booleanValue());
+            }
+        } finally {
+            resolver.openGate();
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(1, resolver.getLookupNumber());
+        Assert.assertEquals(1L, checker.getLookupCount());
+        Assert.assertEquals(CONCURRENT_CHECK_NUMBER - 1, checker.getCoalescedCount());
+        Assert.assertFalse(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertEquals(1L, checker.getHitCount());
+    }
+
+    @Override
+    public void testDnsLookup() throws IOException {
+        StubDnsServer dnsServer = new StubDnsServer();
+        dnsServer.addMxRecord("mx.test", MX_PREFERENCE, "mail.mx.test");
+        dnsServer.addMxRecord("nullmx.test", 0, ".");
+        dnsServer.addAddressRecord("nullmx.test");
+        dnsServer.addAddressRecord("address.test");
+        dnsServer.addFailingDomain("failing.test");
+        dnsServer.start();
+        try {
+            DnsDomainDeliverabilityChecker checker = new DnsDomainDeliverabilityChecker();
+            checker.setProviderUrl(dnsServer.getProviderUrl());
+            checker.setTimeout(DNS_TIMEOUT);
+            checker.setRetries(1);
+
+            Assert.assertTrue(checker.isDeliverable("mx.test"));
+            Assert.assertFalse(checker.isDeliverable("nullmx.test"));
+            Assert.assertTrue(checker.isDeliverable("address.test"));
+            Assert.assertFalse(checker.isDeliverable("missing.test"));
+            try {
+                checker.isDeliverable("failing.test");
+                Assert.fail("Expect IllegalStateException, but the method not throws.");
+            } catch (IllegalStateException e) {
+                Assert.assertNotNull(e);
+            }
+            try {
+                checker.isDeliverable(null);
+                Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+            } catch (IllegalArgumentException e) {
+                Assert.assertNotNull(e);
+            }
+        } finally {
+            dnsServer.stop();
+        }
+    }
+
+    @Override
+    public void testEviction() {
+        StubDomainDeliverabilityChecker resolver = new StubDomainDeliverabilityChecker();
+        CachingDomainDeliverabilityChecker checker = createChecker(resolver);
+        checker.setCapacity(EVICTION_CAPACITY);
+        for (int i = 0; i < EVICTION_DOMAIN_NUMBER; i++) {
+            Assert.assertTrue(checker.isDeliverable("eviction" + i + ".test"));
+            Assert.assertTrue(checker.getSize() <= EVICTION_CAPACITY);
+        }
+        Assert.assertEquals(EVICTION_DOMAIN_NUMBER, resolver.getLookupNumber());
+        Assert.assertTrue(checker.isDeliverable("eviction" + (EVICTION_DOMAIN_NUMBER - 1) + ".test"));
+        Assert.assertEquals(1L, checker.getHitCount());
+        checker.clear();
+        Assert.assertEquals(0, checker.getSize());
+    }
+
+    @Override
+    public void testFailedLookup() {
+        StubDomainDeliverabilityChecker resolver = new StubDomainDeliverabilityChecker();
+        resolver.addFailingDomain(UNDELIVERABLE_DOMAIN);
+        CachingDomainDeliverabilityChecker checker = createChecker(resolver);
+
+        Assert.assertTrue(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertTrue(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+        Assert.assertEquals(2, resolver.getLookupNumber());
+        Assert.assertEquals(2L, checker.getFailedLookupCount());
+        Assert.assertEquals(0L, checker.getHitCount());
+    }
+
+    @Override
+    public void testLookupTimeout() {
+        StubDomainDeliverabilityChecker resolver = new StubDomainDeliverabilityChecker();
+        resolver.addUndeliverableDomain(UNDELIVERABLE_DOMAIN);
+        resolver.closeGate();
+        CachingDomainDeliverabilityChecker checker = createChecker(resolver);
+        checker.setLookupTimeout(SHORT_LOOKUP_TIMEOUT);
+        checker.start();
+        try {
+            Assert.assertTrue(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+            Assert.assertEquals(1L, checker.getTimeoutCount());
+
+            resolver.openGate();
+            checker.setLookupTimeout(TEST_TIMEOUT);
+            Assert.assertFalse(checker.isDeliverable(UNDELIVERABLE_DOMAIN));
+            Assert.assertEquals(1, resolver.getLookupNumber());
+            Assert.assertEquals(1L, checker.getTimeoutCount());
+        } finally {
+            resolver.openGate();
+            checker.stop();
+        }
+    }
+
+    @Override
+    public void testUndeliverableVerificationRequest() {
+        int random = new Random().nextInt(MAX_RANDOM_VALUE);
+        String undeliverableDomain = "undeliverable" + random + ".everit.biz";
+        stubDomainDeliverabilityChecker.addUndeliverableDomain(undeliverableDomain);
+        long undeliverableEmailAddressId = emailAddressDataService.saveEmailAddress("user@" + undeliverableDomain);
+        long deliverableEmailAddressId = emailAddressDataService.saveEmailAddress("user@deliverable" + random
+                + ".everit.biz");
+        int sentNumber = recordingEmailTransport.getSentNumber();
+        Date tokenValidityEndDate = new Date(System.currentTimeMillis() + TOKEN_VALIDITY);
+
+        Assert.assertEquals(VerificationRequestOutcome.UNDELIVERABLE, emailAddressDataService
+                .tryCreateVerificationRequest(undeliverableEmailAddressId, MESSAGE_TEMPLATE, tokenValidityEndDate,
+                        VERIFICATION_LENGTH, VerificationLengthBase.REQUEST_CREATION));
+        Assert.assertEquals(sentNumber, recordingEmailTransport.getSentNumber());
+        Assert.assertEquals(VerificationRequestOutcome.CREATED, emailAddressDataService.tryCreateVerificationRequest(
+                deliverableEmailAddressId, MESSAGE_TEMPLATE, tokenValidityEndDate, VERIFICATION_LENGTH,
+                VerificationLengthBase.REQUEST_CREATION));
+        Assert.assertEquals(sentNumber + 1, recordingEmailTransport.getSentNumber());
+    }
+}
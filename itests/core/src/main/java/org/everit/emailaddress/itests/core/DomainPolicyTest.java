@@ -0,0 +1,72 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.IOException;
+
+import org.everit.emailaddress.core.policy.DomainPolicy;
+import org.everit.emailaddress.core.policy.ReloadableDomainPolicy;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link DomainPolicy} and the {@link ReloadableDomainPolicy}.
+ */
+public interface DomainPolicyTest {
+
+    /**
+     * Compile a policy with denied domains, allowed subdomains of denied domains, internationalized domains and
+     * comments. Test the subdomains, the overriding allow entries, the case insensitivity, the trailing dot, the
+     * internationalized domains in Unicode and in ASCII form and the null parameters.
+     */
+    @Test
+    void testDomainPolicy();
+
+    /**
+     * Compile policies with the deny and allow default entries. Test that the default action decides for the
+     * domains without a matching entry and the more specific entries override it.
+     */
+    @Test
+    void testDefaultEntries();
+
+    /**
+     * Compile and load policies with an empty label, a not allowed character and an internationalized domain that
+     * cannot be converted to ASCII. Test that the entries are rejected with their line number.
+     * 
+     * @throws IOException
+     *             if the writing of the policy file fails.
+     */
+    @Test
+    void testMalformedEntries() throws IOException;
+
+    /**
+     * Start a reloadable policy with a policy file, modify the file, make it malformed and delete it. Test that the
+     * modified file is reloaded by the periodic check and the failed reloads keep the previous policy and are
+     * recorded.
+     * 
+     * @throws IOException
+     *             if the writing of the policy file fails.
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the periodic check.
+     */
+    @Test
+    void testReload() throws IOException, InterruptedException;
+}
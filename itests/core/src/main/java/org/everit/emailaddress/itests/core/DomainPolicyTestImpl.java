@@ -0,0 +1,294 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.core.policy.DomainPolicy;
+import org.everit.emailaddress.core.policy.ReloadableDomainPolicy;
+
+/**
+ * Implementation of {@link DomainPolicyTest}.
+ */
+public class DomainPolicyTestImpl implements DomainPolicyTest {
+
+    /**
+     * The interval of the policy file checks in the reload test in milliseconds.
+     */
+    private static final long CHECK_INTERVAL = 100L;
+
+    /**
+     * The maximum waiting time for a periodic reload in milliseconds.
+     */
+    private static final long RELOAD_TIMEOUT = 5000L;
+
+    /**
+     * The difference of the modification times of the policy file versions in milliseconds.
+     */
+    private static final long MODIFICATION_TIME_STEP = 2000L;
+
+    /**
+     * The maximum length of a domain label.
+     */
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    /**
+     * Checks the entries are rejected because of the entry at the line.
+     * 
+     * @param lineNumber
+     *            the line number of the malformed entry.
+     * @param entries
+     *            the entries.
+     */
+    private void assertMalformed(final int lineNumber, final String... entries) {
+        try {
+            DomainPolicy.compile(Arrays.asList(entries));
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(" at line " + lineNumber + " "));
+        }
+    }
+
+    /**
+     * Waits until the counter of the reloadable policy reaches the expected value.
+     * 
+     * @param reloadableDomainPolicy
+     *            the reloadable policy.
+     * @param failed
+     *            <code>true</code> to wait for the failed reloads, <code>false</code> to wait for the successful
+     *            reloads.
+     * @param expected
+     *            the expected number of the reloads.
+     * @throws InterruptedException
+     *             if the waiting is interrupted.
+     */
+    private void waitForReload(final ReloadableDomainPolicy reloadableDomainPolicy, final boolean failed,
+            final long expected) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + RELOAD_TIMEOUT;
+        while (System.currentTimeMillis() < endTime) {
+            long count = failed ? reloadableDomainPolicy.getFailedReloadCount() : reloadableDomainPolicy
+                    .getReloadCount();
+            if (count >= expected) {
+                return;
+            }
+            Thread.sleep(CHECK_INTERVAL);
+        }
+        Assert.fail("The policy file is not reloaded in " + RELOAD_TIMEOUT + " ms.");
+    }
+
+    /**
+     * Writes the lines to the policy file and sets its modification time.
+     * 
+     * @param file
+     *            the policy file.
+     * @param lastModified
+     *            the modification time.
+     * @param lines
+     *            the lines of the file.
+     * @throws IOException
+     *             if the writing fails.
+     */
+    private void writePolicyFile(final File file, final long lastModified, final String... lines)
+            throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        Assert.assertTrue(file.setLastModified(lastModified));
+    }
+
+    @Override
+    public void testDefaultEntries() {
+        DomainPolicy denyByDefault = DomainPolicy.compile(Arrays.asList("*", "+com", "+.hu", "-spam.com"));
+        Assert.assertEquals(4, denyByDefault.getEntryNumber());
+        Assert.assertTrue(denyByDefault.isAllowed("everit.com"));
+        Assert.assertTrue(denyByDefault.isAllowed("everit.hu"));
+        Assert.assertFalse(denyByDefault.isAllowed("everit.org"));
+        Assert.assertFalse(denyByDefault.isAllowed("mail.spam.com"));
+        Assert.assertFalse(denyByDefault.isAllowed(""));
+
+        DomainPolicy allowByDefault = DomainPolicy.compile(Arrays.asList("*", "+*", "*.spam.com"));
+        Assert.assertEquals(2, allowByDefault.getEntryNumber());
+        Assert.assertTrue(allowByDefault.isAllowed("everit.org"));
+        Assert.assertFalse(allowByDefault.isAllowed("spam.com"));
+
+        Assert.assertTrue(DomainPolicy.EMPTY.isAllowed("everit.org"));
+        Assert.assertEquals(0, DomainPolicy.EMPTY.getEntryNumber());
+    }
+
+    @Override
+    public void testDomainPolicy() {
+        DomainPolicy domainPolicy = DomainPolicy.compile(Arrays.asList(
+                "# disposable domains",
+                "",
+                "mailinator.com",
+                "-Spam.Example.ORG",
+                "+good.spam.example.org",
+                "b\u00fccher.de",
+                "+shop.xn--bcher-kva.de",
+                "fqdn.test."));
+        Assert.assertEquals(6, domainPolicy.getEntryNumber());
+
+        Assert.assertFalse(domainPolicy.isAllowed("mailinator.com"));
+        Assert.assertFalse(domainPolicy.isAllowed("a.b.mailinator.com"));
+        Assert.assertTrue(domainPolicy.isAllowed("notmailinator.com"));
+        Assert.assertTrue(domainPolicy.isAllowed("com"));
+
+        Assert.assertFalse(domainPolicy.isAllowed("spam.example.org"));
+        Assert.assertFalse(domainPolicy.isAllowed("bad.spam.example.org"));
+        Assert.assertTrue(domainPolicy.isAllowed("good.spam.example.org"));
+        Assert.assertTrue(domainPolicy.isAllowed("mail.good.spam.example.org"));
+        Assert.assertTrue(domainPolicy.isAllowed("example.org"));
+
+        Assert.assertFalse(domainPolicy.isAllowed("MAILINATOR.Com"));
+        Assert.assertFalse(domainPolicy.isAllowed("SPAM.example.org"));
+        Assert.assertTrue(domainPolicy.isAllowed("Good.Spam.Example.Org"));
+
+        Assert.assertFalse(domainPolicy.isAllowed("mailinator.com."));
+        Assert.assertFalse(domainPolicy.isAllowed("sub.mailinator.com."));
+        Assert.assertTrue(domainPolicy.isAllowed("good.spam.example.org."));
+        Assert.assertFalse(domainPolicy.isAllowed("fqdn.test"));
+        Assert.assertFalse(domainPolicy.isAllowed("fqdn.test."));
+
+        Assert.assertFalse(domainPolicy.isAllowed("b\u00fccher.de"));
+        Assert.assertFalse(domainPolicy.isAllowed("xn--bcher-kva.de"));
+        Assert.assertFalse(domainPolicy.isAllowed("mail.XN--BCHER-KVA.de"));
+        Assert.assertFalse(domainPolicy.isAllowed("mail.B\u00dcCHER.de"));
+        Assert.assertTrue(domainPolicy.isAllowed("shop.b\u00fccher.de"));
+        Assert.assertTrue(domainPolicy.isAllowed("shop.xn--bcher-kva.de"));
+
+        Assert.assertFalse(domainPolicy.isEmailAddressAllowed("user@mailinator.com"));
+        Assert.assertFalse(domainPolicy.isEmailAddressAllowed("\"a@b\"@sub.mailinator.com"));
+        Assert.assertTrue(domainPolicy.isEmailAddressAllowed("user@good.spam.example.org"));
+        Assert.assertFalse(domainPolicy.isEmailAddressAllowed("user@b\u00fccher.de"));
+
+        try {
+            domainPolicy.isAllowed(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            domainPolicy.isEmailAddressAllowed(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            DomainPolicy.compile(Arrays.asList("everit.org", null));
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testMalformedEntries() throws IOException {
+        assertMalformed(1, "a..b");
+        assertMalformed(3, "# comment", "everit.org", "+mail..everit.org");
+        assertMalformed(2, "", "+");
+        assertMalformed(1, "*.");
+        assertMalformed(1, "spam domain.com");
+        assertMalformed(1, "*.*.everit.org");
+        assertMalformed(2, "everit.org", "\u00fcber-.de");
+        assertMalformed(1, "b\u00fccher..de");
+        StringBuilder longLabel = new StringBuilder();
+        for (int i = 0; i < MAX_LABEL_LENGTH; i++) {
+            longLabel.append('a');
+        }
+        Assert.assertEquals(1, DomainPolicy.compile(Arrays.asList(longLabel + ".com")).getEntryNumber());
+        assertMalformed(1, longLabel + "a.com");
+
+        File file = File.createTempFile("domainpolicy", ".txt");
+        writePolicyFile(file, file.lastModified(), "mailinator.com", "spam..example.org");
+        ReloadableDomainPolicy reloadableDomainPolicy = new ReloadableDomainPolicy();
+        reloadableDomainPolicy.setPolicyFile(file.getAbsolutePath());
+        try {
+            reloadableDomainPolicy.start();
+            Assert.fail("Expect IllegalStateException, but the method not throws.");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains(" at line 2 "));
+        } finally {
+            reloadableDomainPolicy.stop();
+            file.delete();
+        }
+        Assert.assertEquals(0L, reloadableDomainPolicy.getReloadCount());
+        Assert.assertTrue(reloadableDomainPolicy.isEmailAddressAllowed("user@mailinator.com"));
+    }
+
+    @Override
+    public void testReload() throws IOException, InterruptedException {
+        File file = File.createTempFile("domainpolicy", ".txt");
+        long lastModified = file.lastModified() - (MODIFICATION_TIME_STEP * 2);
+        writePolicyFile(file, lastModified, "mailinator.com");
+        ReloadableDomainPolicy reloadableDomainPolicy = new ReloadableDomainPolicy();
+        reloadableDomainPolicy.setEntries(Arrays.asList("everit.org"));
+        Assert.assertFalse(reloadableDomainPolicy.isEmailAddressAllowed("user@everit.org"));
+        reloadableDomainPolicy.setPolicyFile(file.getAbsolutePath());
+        reloadableDomainPolicy.setCheckInterval(CHECK_INTERVAL);
+        reloadableDomainPolicy.start();
+        try {
+            Assert.assertEquals(1L, reloadableDomainPolicy.getReloadCount());
+            Assert.assertTrue(reloadableDomainPolicy.isEmailAddressAllowed("user@everit.org"));
+            Assert.assertFalse(reloadableDomainPolicy.isEmailAddressAllowed("user@mailinator.com"));
+
+            writePolicyFile(file, lastModified + MODIFICATION_TIME_STEP, "mailinator.com",
+                    "+good.mailinator.com", "spam.example.org");
+            waitForReload(reloadableDomainPolicy, false, 2L);
+            Assert.assertTrue(reloadableDomainPolicy.isEmailAddressAllowed("user@good.mailinator.com"));
+            Assert.assertFalse(reloadableDomainPolicy.isEmailAddressAllowed("user@spam.example.org"));
+            Assert.assertEquals(0L, reloadableDomainPolicy.getFailedReloadCount());
+            Assert.assertNull(reloadableDomainPolicy.getLastReloadFailure());
+
+            writePolicyFile(file, lastModified + (MODIFICATION_TIME_STEP * 2), "mailinator.com", "a..b");
+            waitForReload(reloadableDomainPolicy, true, 1L);
+            Exception lastReloadFailure = reloadableDomainPolicy.getLastReloadFailure();
+            Assert.assertTrue(lastReloadFailure instanceof IllegalStateException);
+            Assert.assertTrue(lastReloadFailure.getMessage(), lastReloadFailure.getMessage().contains(" at line 2 "));
+            Assert.assertEquals(2L, reloadableDomainPolicy.getReloadCount());
+            Assert.assertTrue(reloadableDomainPolicy.isEmailAddressAllowed("user@good.mailinator.com"));
+
+            Thread.sleep(CHECK_INTERVAL * 2);
+            Assert.assertEquals(1L, reloadableDomainPolicy.getFailedReloadCount());
+
+            Assert.assertTrue(file.delete());
+            waitForReload(reloadableDomainPolicy, true, 2L);
+            Assert.assertEquals(2L, reloadableDomainPolicy.getReloadCount());
+            Assert.assertFalse(reloadableDomainPolicy.isEmailAddressAllowed("user@spam.example.org"));
+        } finally {
+            reloadableDomainPolicy.stop();
+            file.delete();
+        }
+    }
+}
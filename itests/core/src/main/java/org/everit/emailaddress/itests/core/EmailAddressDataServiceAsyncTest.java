@@ -0,0 +1,69 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.api.EmailAddressDataServiceAsync;
+import org.junit.Test;
+
+/**
+ * Test interface for testing {@link EmailAddressDataServiceAsync}.
+ */
+public interface EmailAddressDataServiceAsyncTest {
+
+    /**
+     * Cancel a running operation and check that its permit is kept until its call returns.
+     * 
+     * @throws Exception
+     *             if an operation fails.
+     */
+    @Test
+    void testCancelledRunningOperation() throws Exception;
+
+    /**
+     * Test the exceptions of the operations (the invalid parameters and the not existing email address data) that
+     * are reported by the future and by the callback.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the operations.
+     */
+    @Test
+    void testFailures() throws InterruptedException;
+
+    /**
+     * Save, find, check and invalidate an email address asynchronously and check the results of the futures and of
+     * the callbacks.
+     * 
+     * @throws Exception
+     *             if an operation fails.
+     */
+    @Test
+    void testOperations() throws Exception;
+
+    /**
+     * Stop the service while operations are running and queued and check that they are completed.
+     * 
+     * @throws Exception
+     *             if an operation fails.
+     */
+    @Test
+    void testStopCompletesOperations() throws Exception;
+}
@@ -0,0 +1,315 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressDataServiceAsync;
+import org.everit.emailaddress.api.EmailAddressOperationCallback;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+import org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException;
+import org.everit.emailaddress.core.async.EmailAddressDataServiceAsyncImpl;
+
+/**
+ * Implementation of {@link EmailAddressDataServiceAsyncTest}.
+ */
+public class EmailAddressDataServiceAsyncTestImpl implements EmailAddressDataServiceAsyncTest {
+
+    /**
+     * Callback that records the result or the exception of the operation.
+     * 
+     * @param <T>
+     *            the type of the result.
+     */
+    private static final class RecordingCallback<T> implements EmailAddressOperationCallback<T> {
+
+        /**
+         * Counted down when the callback is called.
+         */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /**
+         * The result of the operation.
+         */
+        private volatile T result;
+
+        /**
+         * The exception of the operation.
+         */
+        private volatile Throwable throwable;
+
+        /**
+         * Waiting for the call of the callback.
+         * 
+         * @throws InterruptedException
+         *             if the thread is interrupted.
+         */
+        private void await() throws InterruptedException {
+            Assert.assertTrue(latch.await(TIMEOUT, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void completed(final T result) {
+            this.result = result;
+            latch.countDown();
+        }
+
+        @Override
+        public void failed(final Throwable throwable) {
+            this.throwable = throwable;
+            latch.countDown();
+        }
+    }
+
+    /**
+     * The maximum value of the random.
+     */
+    private static final int MAX_RANDOM_VALUE = 1000000;
+
+    /**
+     * The number of the operations of the stop test.
+     */
+    private static final int STOP_OPERATION_NUMBER = 3;
+
+    /**
+     * The waiting time before the blocked operations are released in the stop test in milliseconds.
+     */
+    private static final long RELEASE_DELAY = 200L;
+
+    /**
+     * The waiting time between the checks of the number of the not completed operations in milliseconds.
+     */
+    private static final long POLL_INTERVAL = 10L;
+
+    /**
+     * The maximum waiting time for an operation in seconds.
+     */
+    private static final long TIMEOUT = 30L;
+
+    /**
+     * The {@link EmailAddressDataServiceAsync} instance.
+     */
+    private EmailAddressDataServiceAsync emailAddressDataServiceAsync;
+
+    /**
+     * Creating an {@link EmailAddressDataService} of which every call blocks until the release latch is counted down.
+     * 
+     * @param started
+     *            counted down when a call starts.
+     * @param release
+     *            the latch that the calls wait for.
+     * @return the blocking service.
+     */
+    private EmailAddressDataService createBlockingService(final CountDownLatch started, final CountDownLatch release) {
+        return (EmailAddressDataService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { EmailAddressDataService.class }, new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args)
+                            throws InterruptedException {
+                        started.countDown();
+                        Assert.assertTrue(release.await(TIMEOUT, TimeUnit.SECONDS));
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Waiting for the failure of the operation.
+     * 
+     * @param future
+     *            the future of the operation.
+     * @return the exception of the operation.
+     * @throws InterruptedException
+     *             if the thread is interrupted.
+     */
+    private Throwable getFailure(final Future<?> future) throws InterruptedException {
+        try {
+            future.get(TIMEOUT, TimeUnit.SECONDS);
+            Assert.fail("Expect ExecutionException, but the method not throws.");
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            Assert.fail("The operation is not completed in time.");
+            return null;
+        }
+    }
+
+    public void setEmailAddressDataServiceAsync(final EmailAddressDataServiceAsync emailAddressDataServiceAsync) {
+        this.emailAddressDataServiceAsync = emailAddressDataServiceAsync;
+    }
+
+    @Override
+    public void testCancelledRunningOperation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailAddressDataServiceAsyncImpl asyncService = new EmailAddressDataServiceAsyncImpl();
+        asyncService.setEmailAddressDataService(createBlockingService(started, release));
+        asyncService.setThreadNumber(1);
+        asyncService.setMaxInFlight(1);
+        asyncService.start();
+        try {
+            RecordingCallback<Long> callback = new RecordingCallback<Long>();
+            Future<Long> future = asyncService.findEmailAddressId("cancelled@everit.biz", callback);
+            Assert.assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+            Assert.assertTrue(future.cancel(false));
+            callback.await();
+            Assert.assertTrue(callback.throwable instanceof CancellationException);
+            Assert.assertEquals(1, asyncService.getInFlightNumber());
+            try {
+                asyncService.findEmailAddressId("rejected@everit.biz", null);
+                Assert.fail("Expect RejectedExecutionException, but the method not throws.");
+            } catch (RejectedExecutionException e) {
+                Assert.assertEquals(1L, asyncService.getRejectedCount());
+            }
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT);
+            while ((asyncService.getInFlightNumber() > 0) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(POLL_INTERVAL);
+            }
+            Assert.assertEquals(0, asyncService.getInFlightNumber());
+            Assert.assertNull(asyncService.findEmailAddressId("accepted@everit.biz", null)
+                    .get(TIMEOUT, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            asyncService.stop();
+        }
+    }
+
+    @Override
+    public void testFailures() throws InterruptedException {
+        Assert.assertTrue(getFailure(emailAddressDataServiceAsync.saveOrGetEmailAddress(null, null))
+                instanceof IllegalArgumentException);
+
+        RecordingCallback<Boolean> verifiedCallback = new RecordingCallback<Boolean>();
+        Future<Boolean> verifiedFuture = emailAddressDataServiceAsync.isEmailAddressVerified(-1L, verifiedCallback);
+        Assert.assertTrue(getFailure(verifiedFuture) instanceof NoSuchEmailAddressDataException);
+        verifiedCallback.await();
+        Assert.assertNull(verifiedCallback.result);
+        Assert.assertTrue(verifiedCallback.throwable instanceof NoSuchEmailAddressDataException);
+
+        RecordingCallback<Object> invalidateCallback = new RecordingCallback<Object>();
+        emailAddressDataServiceAsync.invalidateEmailAddress(-1L, invalidateCallback);
+        invalidateCallback.await();
+        Assert.assertTrue(invalidateCallback.throwable instanceof NoSuchEmailAddressDataException);
+    }
+
+    @Override
+    public void testOperations() throws Exception {
+        String emailAddress = "async" + new Random().nextInt(MAX_RANDOM_VALUE) + "@example.com";
+
+        RecordingCallback<EmailAddressSaveResult> saveCallback = new RecordingCallback<EmailAddressSaveResult>();
+        EmailAddressSaveResult saveResult = emailAddressDataServiceAsync.trySaveEmailAddress(emailAddress,
+                saveCallback).get(TIMEOUT, TimeUnit.SECONDS);
+        Assert.assertTrue(saveResult.isSaved());
+        Assert.assertEquals(EmailAddressValidationResult.VALID, saveResult.getValidationResult());
+        saveCallback.await();
+        Assert.assertNull(saveCallback.throwable);
+        Assert.assertEquals(saveResult.getEmailAddressId(), saveCallback.result.getEmailAddressId());
+        long emailAddressId = saveResult.getEmailAddressId();
+
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataServiceAsync.findEmailAddressId(
+                emailAddress, null).get(TIMEOUT, TimeUnit.SECONDS));
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataServiceAsync.saveOrGetEmailAddress(
+                emailAddress, null).get(TIMEOUT, TimeUnit.SECONDS));
+
+        RecordingCallback<Boolean> verifiedCallback = new RecordingCallback<Boolean>();
+        Assert.assertEquals(Boolean.FALSE, emailAddressDataServiceAsync.isEmailAddressVerified(emailAddressId,
+                verifiedCallback).get(TIMEOUT, TimeUnit.SECONDS));
+        verifiedCallback.await();
+        Assert.assertEquals(Boolean.FALSE, verifiedCallback.result);
+
+        Assert.assertFalse(emailAddressDataServiceAsync.areEmailAddressesVerified(new long[] { emailAddressId }, null)
+                .get(TIMEOUT, TimeUnit.SECONDS).isVerified(0));
+
+        RecordingCallback<Object> invalidateCallback = new RecordingCallback<Object>();
+        Assert.assertNull(emailAddressDataServiceAsync.invalidateEmailAddress(emailAddressId, invalidateCallback)
+                .get(TIMEOUT, TimeUnit.SECONDS));
+        invalidateCallback.await();
+        Assert.assertNull(invalidateCallback.throwable);
+        Assert.assertNull(emailAddressDataServiceAsync.findEmailAddressId(emailAddress, null)
+                .get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Override
+    public void testStopCompletesOperations() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        EmailAddressDataServiceAsyncImpl asyncService = new EmailAddressDataServiceAsyncImpl();
+        asyncService.setEmailAddressDataService(createBlockingService(started, release));
+        asyncService.setThreadNumber(1);
+        asyncService.start();
+        List<Future<Long>> futures = new ArrayList<Future<Long>>();
+        for (int i = 0; i < STOP_OPERATION_NUMBER; i++) {
+            futures.add(asyncService.findEmailAddressId("stop" + i + "@everit.biz", null));
+        }
+        Assert.assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+        Thread releaseThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(RELEASE_DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                release.countDown();
+            }
+        });
+        releaseThread.start();
+        try {
+            asyncService.stop();
+        } finally {
+            release.countDown();
+        }
+        for (Future<Long> future : futures) {
+            Assert.assertTrue(future.isDone());
+            Assert.assertFalse(future.isCancelled());
+            Assert.assertNull(future.get());
+        }
+        Assert.assertEquals(0, asyncService.getInFlightNumber());
+        try {
+            asyncService.findEmailAddressId("stopped@everit.biz", null);
+            Assert.fail("Expect RejectedExecutionException, but the method not throws.");
+        } catch (RejectedExecutionException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.everit.emailaddress.itests.core;
  * MA 02110-1301  USA
  */
 
+import javax.mail.MessagingException;
+
 import org.junit.Test;
 
 /**
@@ -28,6 +30,59 @@ import org.junit.Test;
  */
 public interface EmailAddressDataServiceTest {
 
+    /**
+     * Save valid e-mails in batches bigger than the JDBC batch size and try save batches which contain invalid e-mails.
+     * Test the rejection results of the lenient batch saving and the null parameters.
+     */
+    @Test
+    void testBatchSave();
+
+    /**
+     * Save more e-mails of a domain than the chunk size of the bulk invalidation and create verification requests for
+     * some of them. Invalidate e-mails by id with duplicated and wrong ids and the rest of the e-mails by domain with
+     * a limit smaller than the number of the e-mails, then without limit in more chunks. Test the number of the
+     * invalidated e-mails, the limit and the wrong parameters.
+     */
+    @Test
+    void testBulkInvalidation();
+
+    /**
+     * Save more e-mails than the chunk size of the bulk query and verify some of them. Compare the result of the bulk
+     * verification check with the single checks. Test the duplicated and the wrong email address id's where expect the
+     * missing report.
+     */
+    @Test
+    void testBulkVerificationCheck();
+
+    /**
+     * Create verification requests for more e-mails than the chunk size of the bulk loading. Test the outcomes of the
+     * duplicated and the wrong email address id's, the number of the sent e-mails and verify an e-mail address with the
+     * token of a bulk created request. Test the null parameters.
+     */
+    @Test
+    void testBulkVerificationRequests();
+
+    /**
+     * Create verification requests for e-mails of more domains in mixed order and more e-mails of one domain than the
+     * maximum size of the mail batches. Test that every e-mail address receives exactly one e-mail.
+     * 
+     * @throws MessagingException
+     *             if the received e-mails cannot be read.
+     */
+    @Test
+    void testBulkVerificationRequestsByDomain() throws MessagingException;
+
+    /**
+     * Create verification requests for e-mails of more domains in mixed order with an email service that sends the
+     * e-mails in batches by domain with the SMTP batch sender to the GreenMail server. Test that every e-mail address
+     * receives exactly one e-mail and one SMTP session is opened for every batch of a domain.
+     * 
+     * @throws MessagingException
+     *             if the received e-mails cannot be read.
+     */
+    @Test
+    void testBulkVerificationRequestsBySmtpBatches() throws MessagingException;
+
     /**
      * Save valid e-mails and try save invalid e-mail to the database. The saved e-mails to create a verification
      * requests. Test the various errors (the null parameters (messageTemplate, tokenValidityEndDate,
@@ -36,12 +91,40 @@ public interface EmailAddressDataServiceTest {
     @Test
     void testCreations();
 
+    /**
+     * Test the export of the email address data: the modification window, the resuming after an email address id, the
+     * stopping by the handler and the null handler.
+     */
+    @Test
+    void testExport();
+
+    /**
+     * Test the lookup of the email address data by email address in canonical form (trimmed, lower-cased domain, case
+     * sensitive local part) and the saving without duplicates. Test the null and invalid parameters.
+     */
+    @Test
+    void testFindAndSaveOrGet();
+
+    /**
+     * Test the saving and the lookup of the internationalized email addresses: the domain is looked up in its Unicode
+     * and in its punycode form and the local part in its composed and decomposed form.
+     */
+    @Test
+    void testInternationalEmailAddresses();
+
     /**
      * Test the wrong token UUID and null token and finally, verify the email address.
      */
     @Test
     void testMissingVerifying();
 
+    /**
+     * Test the saving and the verification request creation that report the invalid email address and the not
+     * existing email address data in the result instead of an exception. Test the exceptions without stack trace.
+     */
+    @Test
+    void testTryOperations();
+
     /**
      * Test the expired verification request. Expect always (verified (use the acceptToken or rejectToken), not verified
      * ) the {@link ConfirmationResult#FAILED} result and the verified always to be false. Test wrong email address id's
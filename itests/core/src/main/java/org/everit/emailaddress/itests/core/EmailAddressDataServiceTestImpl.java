@@ -25,9 +25,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import javax.mail.MessagingException;
 import javax.mail.Multipart;
@@ -36,10 +39,19 @@ import javax.mail.internet.MimeMessage;
 import junit.framework.Assert;
 
 import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressExportHandler;
+import org.everit.emailaddress.api.dto.EmailAddressBatchSaveResult;
+import org.everit.emailaddress.api.dto.EmailAddressExportRecord;
+import org.everit.emailaddress.api.dto.EmailAddressSaveResult;
 import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.dto.EmailVerificationStatuses;
+import org.everit.emailaddress.api.dto.VerificationRequestBatchResult;
 import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+import org.everit.emailaddress.api.enums.VerificationRequestOutcome;
 import org.everit.emailaddress.api.exceptions.InvalidEmailAddressException;
 import org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException;
+import org.everit.emailaddress.core.mail.SmtpEmailBatchSender;
 import org.everit.util.core.mail.greenmail.GreenmailService;
 import org.everit.verifiabledata.api.enums.VerificationLengthBase;
 import org.everit.verifiabledata.api.exceptions.NonPositiveVerificationLength;
@@ -54,12 +66,76 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
     /**
      * Contains the invalid email addresses.
      */
-    private static final List<String> INVALID_EMAILS = Arrays.asList("test", "test@.com.my",
+    static final List<String> INVALID_EMAILS = Arrays.asList("test", "test@.com.my",
             "test123@gmail.a", "test123@.com", "test123@.com.com",
             ".test@test.com", "test()*@gmail.com", "test@%*.com",
             "test..2002@gmail.com", "test.@gmail.com",
             "test@test@gmail.com", "test@gmail.com.1a");
 
+    /**
+     * The number of the repeats of the valid email addresses in the batch save test.
+     */
+    private static final int BATCH_SAVE_REPEAT_NUMBER = 12;
+
+    /**
+     * The number of the saved email addresses of the domain in the bulk invalidation test.
+     */
+    private static final int BULK_INVALIDATION_NUMBER = 250;
+
+    /**
+     * The number of the email addresses with verification request in the bulk invalidation test.
+     */
+    private static final int BULK_INVALIDATION_REQUEST_NUMBER = 3;
+
+    /**
+     * The maximum number of the email addresses invalidated by the first domain invalidation call in the bulk
+     * invalidation test.
+     */
+    private static final int BULK_INVALIDATION_LIMITED_NUMBER = 120;
+
+    /**
+     * The number of the repeats of the valid email addresses in the bulk verification check test.
+     */
+    private static final int BULK_VERIFICATION_REPEAT_NUMBER = 25;
+
+    /**
+     * Every BULK_VERIFICATION_VERIFIED_STEPth email address is verified in the bulk verification check test.
+     */
+    private static final int BULK_VERIFICATION_VERIFIED_STEP = 7;
+
+    /**
+     * The number of the repeats of the valid email addresses in the bulk verification request test.
+     */
+    private static final int BULK_REQUEST_REPEAT_NUMBER = 25;
+
+    /**
+     * The number of the domains in the domain grouped bulk verification request test.
+     */
+    private static final int BULK_REQUEST_DOMAIN_NUMBER = 3;
+
+    /**
+     * The number of the e-mails of one domain in the domain grouped bulk verification request test. More than the
+     * maximum size of the mail batches.
+     */
+    private static final int BULK_REQUEST_DOMAIN_EMAIL_NUMBER = 60;
+
+    /**
+     * The number of the e-mails of one domain in the SMTP batch verification request test. The e-mails of all domains
+     * fit in one chunk of the bulk request.
+     */
+    private static final int SMTP_BATCH_DOMAIN_EMAIL_NUMBER = 30;
+
+    /**
+     * The maximum size of the mail batches of the batchingEmailAddressDataService. Must be the same as the
+     * emailBatchSize of the batchingEmailAddressDataService bean.
+     */
+    private static final int SMTP_BATCH_SIZE = 12;
+
+    /**
+     * The number of the saved email addresses in the export test.
+     */
+    private static final int EXPORT_NUMBER = 3;
+
     /**
      * The maximum value of the random.
      */
@@ -68,7 +144,7 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
     /**
      * Contains the valid email addresses.
      */
-    private static final List<String> VALID_EMAILS = Arrays.asList("test@yahoo.com",
+    static final List<String> VALID_EMAILS = Arrays.asList("test@yahoo.com",
             "test-100@yahoo.com", "test.100@yahoo.com",
             "test111@test.com", "test-100@test.net",
             "test.100@test.com.au", "test@1.com",
@@ -80,6 +156,11 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
      */
     private static int massageNumber = 0;
 
+    /**
+     * The {@link EmailAddressDataService} instance that sends the bulk emails with the smtpEmailBatchSender.
+     */
+    private EmailAddressDataService batchingEmailAddressDataService;
+
     /**
      * The {@link EmailAddressDataService} instance.
      */
@@ -95,6 +176,11 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
      */
     private List<String> lastMimeMessage = new ArrayList<String>();
 
+    /**
+     * The {@link SmtpEmailBatchSender} of the batchingEmailAddressDataService.
+     */
+    private SmtpEmailBatchSender smtpEmailBatchSender;
+
     /**
      * Creating email address data in the database.
      * 
@@ -409,6 +495,10 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
         }
     }
 
+    public void setBatchingEmailAddressDataService(final EmailAddressDataService batchingEmailAddressDataService) {
+        this.batchingEmailAddressDataService = batchingEmailAddressDataService;
+    }
+
     public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
         this.emailAddressDataService = emailAddressDataService;
     }
@@ -417,6 +507,345 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
         this.greenmailService = greenmailService;
     }
 
+    public void setSmtpEmailBatchSender(final SmtpEmailBatchSender smtpEmailBatchSender) {
+        this.smtpEmailBatchSender = smtpEmailBatchSender;
+    }
+
+    @Override
+    public void testBatchSave() {
+        try {
+            emailAddressDataService.saveEmailAddresses(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.saveValidEmailAddresses(Arrays.asList("test@yahoo.com", null));
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        List<String> emails = new ArrayList<String>();
+        for (int i = 0; i < BATCH_SAVE_REPEAT_NUMBER; i++) {
+            emails.addAll(VALID_EMAILS);
+        }
+        long[] emailAddressIds = emailAddressDataService.saveEmailAddresses(emails);
+        Assert.assertEquals(emails.size(), emailAddressIds.length);
+        Set<Long> uniqueEmailAddressIds = new HashSet<Long>();
+        for (long emailAddressId : emailAddressIds) {
+            Assert.assertTrue(emailAddressId > 0L);
+            Assert.assertTrue(uniqueEmailAddressIds.add(emailAddressId));
+            Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        }
+
+        List<String> mixedEmails = new ArrayList<String>(emails);
+        mixedEmails.addAll(INVALID_EMAILS);
+        Collections.shuffle(mixedEmails, new Random(emails.size()));
+        try {
+            emailAddressDataService.saveEmailAddresses(mixedEmails);
+            Assert.fail("Expect InvalidEmailAddressException, but the method not throws.");
+        } catch (InvalidEmailAddressException e) {
+            Assert.assertNotNull(e);
+        }
+
+        EmailAddressBatchSaveResult batchSaveResult = emailAddressDataService.saveValidEmailAddresses(mixedEmails);
+        Assert.assertEquals(INVALID_EMAILS.size(), batchSaveResult.getRejectedNumber());
+        for (int i = 0; i < mixedEmails.size(); i++) {
+            long emailAddressId = batchSaveResult.getEmailAddressIds()[i];
+            EmailAddressValidationResult validationResult = batchSaveResult.getValidationResults()[i];
+            if (INVALID_EMAILS.contains(mixedEmails.get(i))) {
+                Assert.assertFalse(EmailAddressValidationResult.VALID.equals(validationResult));
+                Assert.assertEquals(0L, emailAddressId);
+            } else {
+                Assert.assertEquals(EmailAddressValidationResult.VALID, validationResult);
+                Assert.assertTrue(uniqueEmailAddressIds.add(emailAddressId));
+                Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+            }
+        }
+    }
+
+    @Override
+    public void testBulkInvalidation() {
+        try {
+            emailAddressDataService.invalidateEmailAddresses(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.invalidateEmailAddressesByDomain(null, 1);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.invalidateEmailAddressesByDomain("everit.biz", 0);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.invalidateEmailAddressesByDomain(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        GreenMail greenMail = greenmailService.getGreenMail();
+        Random random = new Random();
+        String domain = "invalidation" + random.nextInt(MAX_RANDOM_VALUE) + ".everit.biz";
+        List<String> emails = new ArrayList<String>();
+        for (int i = 0; i < BULK_INVALIDATION_NUMBER; i++) {
+            emails.add("user" + i + "@" + domain);
+        }
+        long[] emailAddressIds = emailAddressDataService.saveEmailAddresses(emails);
+        long otherEmailAddressId = emailAddressDataService.saveEmailAddress("user0@other" + domain);
+
+        Calendar c = Calendar.getInstance();
+        c.add(Calendar.DATE, 2);
+        VerificationRequestBatchResult batchResult = emailAddressDataService.createVerificationRequests(
+                Arrays.copyOf(emailAddressIds, BULK_INVALIDATION_REQUEST_NUMBER), "$acceptToken\n$rejectToken",
+                c.getTime(), random.nextInt(MAX_RANDOM_VALUE) + 1, getRandomVerificationLengthBase());
+        massageNumber += batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED);
+        Assert.assertEquals(BULK_INVALIDATION_REQUEST_NUMBER,
+                batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED));
+        Assert.assertEquals(massageNumber, greenMail.getReceivedMessages().length);
+
+        Assert.assertEquals(2, emailAddressDataService.invalidateEmailAddresses(new long[] { emailAddressIds[1],
+                emailAddressIds[0], emailAddressIds[1], 0L, -1L }));
+        Assert.assertEquals(0, emailAddressDataService.invalidateEmailAddresses(new long[] { emailAddressIds[0] }));
+        try {
+            emailAddressDataService.isEmailAddressVerified(emailAddressIds[0]);
+            Assert.fail("Expect NoSuchEmailAddressDataException, but the method not throws.");
+        } catch (NoSuchEmailAddressDataException e) {
+            Assert.assertNotNull(e);
+        }
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressIds[2]));
+
+        Assert.assertEquals(BULK_INVALIDATION_LIMITED_NUMBER,
+                emailAddressDataService.invalidateEmailAddressesByDomain(domain, BULK_INVALIDATION_LIMITED_NUMBER));
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(emails.get(2)));
+        Assert.assertNotNull(emailAddressDataService.findEmailAddressId(
+                emails.get(BULK_INVALIDATION_LIMITED_NUMBER + 2)));
+        Assert.assertEquals(BULK_INVALIDATION_NUMBER - BULK_INVALIDATION_LIMITED_NUMBER - 2,
+                emailAddressDataService.invalidateEmailAddressesByDomain(" @" + domain.toUpperCase() + " "));
+        Assert.assertEquals(0, emailAddressDataService.invalidateEmailAddressesByDomain(domain,
+                BULK_INVALIDATION_NUMBER));
+        Assert.assertEquals(0, emailAddressDataService.invalidateEmailAddressesByDomain(domain));
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(emails.get(BULK_INVALIDATION_NUMBER - 1)));
+        Assert.assertEquals(Long.valueOf(otherEmailAddressId),
+                emailAddressDataService.findEmailAddressId("user0@other" + domain));
+    }
+
+    @Override
+    public void testBulkVerificationCheck() {
+        GreenMail greenMail = greenmailService.getGreenMail();
+        List<Long> emailAddressIds = new ArrayList<Long>();
+        for (int i = 0; i < BULK_VERIFICATION_REPEAT_NUMBER; i++) {
+            emailAddressIds.addAll(createEmailAddress());
+        }
+        getLastEmailBody(Arrays.asList(greenMail.getReceivedMessages()));
+        for (int i = 0; i < emailAddressIds.size(); i += BULK_VERIFICATION_VERIFIED_STEP) {
+            createVerificationRequest(emailAddressIds.get(i));
+            String emailBody = getLastEmailBody(Arrays.asList(greenMail.getReceivedMessages()));
+            String[] splitEmailBody = emailBody.split("\n");
+            EmailVerificationResult verifyEmailAddress = emailAddressDataService
+                    .verifyEmailAddress(splitEmailBody[0].replace("\n", "").replace("\r", ""));
+            Assert.assertEquals(ConfirmationResult.SUCCESS, verifyEmailAddress.getResult());
+        }
+
+        try {
+            emailAddressDataService.areEmailAddressesVerified(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        long[] checkedEmailAddressIds = new long[emailAddressIds.size() + 3];
+        for (int i = 0; i < emailAddressIds.size(); i++) {
+            checkedEmailAddressIds[i] = emailAddressIds.get(i);
+        }
+        checkedEmailAddressIds[emailAddressIds.size()] = 0L;
+        checkedEmailAddressIds[emailAddressIds.size() + 1] = emailAddressIds.get(0);
+        checkedEmailAddressIds[emailAddressIds.size() + 2] = -1L;
+
+        EmailVerificationStatuses statuses = emailAddressDataService.areEmailAddressesVerified(checkedEmailAddressIds);
+        for (int i = 0; i < emailAddressIds.size(); i++) {
+            Assert.assertFalse(statuses.isMissing(i));
+            Assert.assertEquals(emailAddressDataService.isEmailAddressVerified(emailAddressIds.get(i)),
+                    statuses.isVerified(i));
+            Assert.assertEquals((i % BULK_VERIFICATION_VERIFIED_STEP) == 0, statuses.isVerified(i));
+        }
+        Assert.assertTrue(statuses.isMissing(emailAddressIds.size()));
+        Assert.assertFalse(statuses.isVerified(emailAddressIds.size()));
+        Assert.assertFalse(statuses.isMissing(emailAddressIds.size() + 1));
+        Assert.assertTrue(statuses.isVerified(emailAddressIds.size() + 1));
+        Assert.assertTrue(statuses.isMissing(emailAddressIds.size() + 2));
+        Assert.assertTrue(Arrays.equals(new long[] { 0L, -1L }, statuses.getMissingEmailAddressIds()));
+
+        Assert.assertEquals(0, emailAddressDataService.areEmailAddressesVerified(new long[0])
+                .getEmailAddressIds().length);
+    }
+
+    @Override
+    public void testBulkVerificationRequests() {
+        GreenMail greenMail = greenmailService.getGreenMail();
+        Random random = new Random();
+        Calendar c = Calendar.getInstance();
+        c.add(Calendar.DATE, 2);
+        try {
+            emailAddressDataService.createVerificationRequests(null, "$acceptToken\n$rejectToken", c.getTime(),
+                    random.nextInt(MAX_RANDOM_VALUE) + 1, getRandomVerificationLengthBase());
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.createVerificationRequests(new long[0], null, c.getTime(),
+                    random.nextInt(MAX_RANDOM_VALUE) + 1, getRandomVerificationLengthBase());
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.createVerificationRequests(new long[0], "$acceptToken\n$rejectToken",
+                    c.getTime(), 0L, getRandomVerificationLengthBase());
+            Assert.fail("Expect NonPositiveVerificationLength, but the method not throws.");
+        } catch (NonPositiveVerificationLength e) {
+            Assert.assertNotNull(e);
+        }
+
+        List<String> emails = new ArrayList<String>();
+        for (int i = 0; i < BULK_REQUEST_REPEAT_NUMBER; i++) {
+            emails.addAll(VALID_EMAILS);
+        }
+        long[] savedEmailAddressIds = emailAddressDataService.saveEmailAddresses(emails);
+        long[] emailAddressIds = Arrays.copyOf(savedEmailAddressIds, savedEmailAddressIds.length + 3);
+        emailAddressIds[savedEmailAddressIds.length] = 0L;
+        emailAddressIds[savedEmailAddressIds.length + 1] = savedEmailAddressIds[0];
+        emailAddressIds[savedEmailAddressIds.length + 2] = -1L;
+
+        VerificationRequestBatchResult batchResult = emailAddressDataService.createVerificationRequests(
+                emailAddressIds, "$acceptToken\n$rejectToken", c.getTime(), random.nextInt(MAX_RANDOM_VALUE) + 1,
+                getRandomVerificationLengthBase());
+        massageNumber += batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED);
+        Assert.assertEquals(savedEmailAddressIds.length,
+                batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED));
+        Assert.assertEquals(VerificationRequestOutcome.MISSING, batchResult.getOutcomes()[savedEmailAddressIds.length]);
+        Assert.assertEquals(VerificationRequestOutcome.DUPLICATE,
+                batchResult.getOutcomes()[savedEmailAddressIds.length + 1]);
+        Assert.assertEquals(VerificationRequestOutcome.MISSING,
+                batchResult.getOutcomes()[savedEmailAddressIds.length + 2]);
+        Assert.assertEquals(massageNumber, greenMail.getReceivedMessages().length);
+
+        getLastEmailBody(Arrays.asList(greenMail.getReceivedMessages()));
+        long emailAddressId = savedEmailAddressIds[savedEmailAddressIds.length - 1];
+        batchResult = emailAddressDataService.createVerificationRequests(new long[] { emailAddressId },
+                "$acceptToken\n$rejectToken", c.getTime(), random.nextInt(MAX_RANDOM_VALUE) + 1,
+                VerificationLengthBase.REQUEST_CREATION);
+        massageNumber++;
+        Assert.assertEquals(VerificationRequestOutcome.CREATED, batchResult.getOutcomes()[0]);
+        Assert.assertEquals(massageNumber, greenMail.getReceivedMessages().length);
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+
+        String emailBody = getLastEmailBody(Arrays.asList(greenMail.getReceivedMessages()));
+        String[] splitEmailBody = emailBody.split("\n");
+        EmailVerificationResult verifyEmailAddress = emailAddressDataService
+                .verifyEmailAddress(splitEmailBody[0].replace("\n", "").replace("\r", ""));
+        Assert.assertEquals(ConfirmationResult.SUCCESS, verifyEmailAddress.getResult());
+        Assert.assertEquals(Long.valueOf(emailAddressId), verifyEmailAddress.getEmailAddressId());
+        Assert.assertTrue(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+    }
+
+    @Override
+    public void testBulkVerificationRequestsByDomain() throws MessagingException {
+        GreenMail greenMail = greenmailService.getGreenMail();
+        Random random = new Random();
+        Calendar c = Calendar.getInstance();
+        c.add(Calendar.DATE, 2);
+        String domainPrefix = "batch" + random.nextInt(MAX_RANDOM_VALUE);
+        List<String> emails = new ArrayList<String>();
+        for (int i = 0; i < BULK_REQUEST_DOMAIN_EMAIL_NUMBER; i++) {
+            for (int j = 0; j < BULK_REQUEST_DOMAIN_NUMBER; j++) {
+                emails.add("user" + i + "@" + domainPrefix + "-" + j + ".everit.biz");
+            }
+        }
+        long[] emailAddressIds = emailAddressDataService.saveEmailAddresses(emails);
+
+        int receivedNumber = greenMail.getReceivedMessages().length;
+        VerificationRequestBatchResult batchResult = emailAddressDataService.createVerificationRequests(
+                emailAddressIds, "$acceptToken\n$rejectToken", c.getTime(), random.nextInt(MAX_RANDOM_VALUE) + 1,
+                getRandomVerificationLengthBase());
+        massageNumber += batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED);
+        Assert.assertEquals(emails.size(), batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED));
+
+        MimeMessage[] receivedMessages = greenMail.getReceivedMessages();
+        Assert.assertEquals(massageNumber, receivedMessages.length);
+        Set<String> receivers = new HashSet<String>();
+        for (int i = receivedNumber; i < receivedMessages.length; i++) {
+            Assert.assertEquals(1, receivedMessages[i].getAllRecipients().length);
+            Assert.assertTrue(receivers.add(receivedMessages[i].getAllRecipients()[0].toString()));
+        }
+        Assert.assertEquals(new HashSet<String>(emails), receivers);
+        getLastEmailBody(Arrays.asList(receivedMessages));
+    }
+
+    @Override
+    public void testBulkVerificationRequestsBySmtpBatches() throws MessagingException {
+        GreenMail greenMail = greenmailService.getGreenMail();
+        Random random = new Random();
+        Calendar c = Calendar.getInstance();
+        c.add(Calendar.DATE, 2);
+        String domainPrefix = "smtpbatch" + random.nextInt(MAX_RANDOM_VALUE);
+        List<String> emails = new ArrayList<String>();
+        for (int i = 0; i < SMTP_BATCH_DOMAIN_EMAIL_NUMBER; i++) {
+            for (int j = 0; j < BULK_REQUEST_DOMAIN_NUMBER; j++) {
+                emails.add("user" + i + "@" + domainPrefix + "-" + j + ".everit.biz");
+            }
+        }
+        long[] emailAddressIds = batchingEmailAddressDataService.saveEmailAddresses(emails);
+
+        int receivedNumber = greenMail.getReceivedMessages().length;
+        long sessionCount = smtpEmailBatchSender.getSessionCount();
+        long sentCount = smtpEmailBatchSender.getSentCount();
+        long failedCount = smtpEmailBatchSender.getFailedCount();
+        VerificationRequestBatchResult batchResult = batchingEmailAddressDataService.createVerificationRequests(
+                emailAddressIds, "$acceptToken\n$rejectToken", c.getTime(), random.nextInt(MAX_RANDOM_VALUE) + 1,
+                VerificationLengthBase.REQUEST_CREATION);
+        massageNumber += batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED);
+        Assert.assertEquals(emails.size(), batchResult.getOutcomeNumber(VerificationRequestOutcome.CREATED));
+
+        int domainBatchNumber = (SMTP_BATCH_DOMAIN_EMAIL_NUMBER + SMTP_BATCH_SIZE - 1) / SMTP_BATCH_SIZE;
+        Assert.assertEquals(sessionCount + (BULK_REQUEST_DOMAIN_NUMBER * domainBatchNumber),
+                smtpEmailBatchSender.getSessionCount());
+        Assert.assertEquals(sentCount + emails.size(), smtpEmailBatchSender.getSentCount());
+        Assert.assertEquals(failedCount, smtpEmailBatchSender.getFailedCount());
+
+        MimeMessage[] receivedMessages = greenMail.getReceivedMessages();
+        Assert.assertEquals(massageNumber, receivedMessages.length);
+        Set<String> receivers = new HashSet<String>();
+        for (int i = receivedNumber; i < receivedMessages.length; i++) {
+            Assert.assertEquals(1, receivedMessages[i].getAllRecipients().length);
+            Assert.assertTrue(receivers.add(receivedMessages[i].getAllRecipients()[0].toString()));
+        }
+        Assert.assertEquals(new HashSet<String>(emails), receivers);
+
+        long emailAddressId = emailAddressIds[emailAddressIds.length - 1];
+        String emailBody = getLastEmailBody(Arrays.asList(receivedMessages));
+        String[] splitEmailBody = emailBody.split("\n");
+        EmailVerificationResult verifyEmailAddress = batchingEmailAddressDataService
+                .verifyEmailAddress(splitEmailBody[0].replace("\n", "").replace("\r", ""));
+        Assert.assertEquals(ConfirmationResult.SUCCESS, verifyEmailAddress.getResult());
+        Assert.assertEquals(Long.valueOf(emailAddressId), verifyEmailAddress.getEmailAddressId());
+    }
+
     @Override
     public void testCreations() {
         GreenMail greenMail = greenmailService.getGreenMail();
@@ -450,6 +879,139 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
 
     }
 
+    @Override
+    public void testExport() {
+        try {
+            emailAddressDataService.exportEmailAddresses(null, null, 0L, null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        Date start = new Date();
+        long[] emailAddressIds = new long[EXPORT_NUMBER];
+        for (int i = 0; i < EXPORT_NUMBER; i++) {
+            emailAddressIds[i] = emailAddressDataService.saveEmailAddress("export" + i + "@everit.biz");
+        }
+        Date end = new Date(System.currentTimeMillis() + 1);
+
+        final List<EmailAddressExportRecord> exportRecords = new ArrayList<EmailAddressExportRecord>();
+        EmailAddressExportHandler collectingHandler = new EmailAddressExportHandler() {
+
+            @Override
+            public boolean handle(final EmailAddressExportRecord exportRecord) {
+                exportRecords.add(exportRecord);
+                return true;
+            }
+        };
+        Assert.assertEquals(EXPORT_NUMBER, emailAddressDataService.exportEmailAddresses(start, end, 0L,
+                collectingHandler));
+        for (int i = 0; i < EXPORT_NUMBER; i++) {
+            EmailAddressExportRecord exportRecord = exportRecords.get(i);
+            Assert.assertEquals(emailAddressIds[i], exportRecord.getEmailAddressId());
+            Assert.assertEquals("export" + i + "@everit.biz", exportRecord.getEmailAddress());
+            Assert.assertFalse(exportRecord.isVerified());
+            Assert.assertNull(exportRecord.getVerifiedUntil());
+            Assert.assertNotNull(exportRecord.getLastModificationDate());
+        }
+
+        exportRecords.clear();
+        Assert.assertEquals(EXPORT_NUMBER - 1, emailAddressDataService.exportEmailAddresses(start, end,
+                emailAddressIds[0], collectingHandler));
+        Assert.assertEquals(emailAddressIds[1], exportRecords.get(0).getEmailAddressId());
+
+        Assert.assertEquals(0L, emailAddressDataService.exportEmailAddresses(end, null, 0L, collectingHandler));
+
+        Assert.assertEquals(1L, emailAddressDataService.exportEmailAddresses(null, null, emailAddressIds[0] - 1,
+                new EmailAddressExportHandler() {
+
+                    @Override
+                    public boolean handle(final EmailAddressExportRecord exportRecord) {
+                        return false;
+                    }
+                }));
+
+        exportRecords.clear();
+        Assert.assertTrue(emailAddressDataService.exportEmailAddresses(null, null, emailAddressIds[0] - 1,
+                collectingHandler) >= EXPORT_NUMBER);
+        Assert.assertEquals(emailAddressIds[0], exportRecords.get(0).getEmailAddressId());
+    }
+
+    @Override
+    public void testFindAndSaveOrGet() {
+        try {
+            emailAddressDataService.findEmailAddressId(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressDataService.saveOrGetEmailAddress(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        for (String email : INVALID_EMAILS) {
+            try {
+                emailAddressDataService.saveOrGetEmailAddress(email);
+                Assert.fail("Expect InvalidEmailAddressException, but the method not throws.");
+            } catch (InvalidEmailAddressException e) {
+                Assert.assertNotNull(e);
+            }
+        }
+
+        String localPart = "Lookup" + new Random().nextInt(MAX_RANDOM_VALUE);
+        String emailAddress = localPart + "@Example.COM";
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(emailAddress));
+
+        long emailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+        Assert.assertEquals(Long.valueOf(emailAddressId),
+                emailAddressDataService.findEmailAddressId(" " + localPart + "@example.com\t"));
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(localPart.toLowerCase() + "@example.com"));
+
+        Assert.assertEquals(emailAddressId, emailAddressDataService.saveOrGetEmailAddress(localPart + "@example.com"));
+        long lowerCaseEmailAddressId = emailAddressDataService.saveOrGetEmailAddress(localPart.toLowerCase()
+                + "@example.com");
+        Assert.assertTrue(lowerCaseEmailAddressId > 0L);
+        Assert.assertFalse(emailAddressId == lowerCaseEmailAddressId);
+        Assert.assertEquals(lowerCaseEmailAddressId,
+                emailAddressDataService.saveOrGetEmailAddress(localPart.toLowerCase() + "@EXAMPLE.com"));
+
+        long duplicatedEmailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        Assert.assertFalse(emailAddressId == duplicatedEmailAddressId);
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+
+        emailAddressDataService.invalidateEmailAddress(emailAddressId);
+        Assert.assertEquals(Long.valueOf(duplicatedEmailAddressId),
+                emailAddressDataService.findEmailAddressId(emailAddress));
+        Assert.assertEquals(duplicatedEmailAddressId, emailAddressDataService.saveOrGetEmailAddress(emailAddress));
+    }
+
+    @Override
+    public void testInternationalEmailAddresses() {
+        String localPart = "J\u00f6rg" + new Random().nextInt(MAX_RANDOM_VALUE);
+        String emailAddress = localPart + "@B\u00fccher.example.de";
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(emailAddress));
+
+        long emailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+        Assert.assertEquals(Long.valueOf(emailAddressId),
+                emailAddressDataService.findEmailAddressId(localPart + "@xn--bcher-kva.example.de"));
+        Assert.assertEquals(Long.valueOf(emailAddressId),
+                emailAddressDataService.findEmailAddressId(localPart.replace("\u00f6", "o\u0308")
+                        + "@b\u00fccher.example.de"));
+        Assert.assertEquals(emailAddressId, emailAddressDataService.saveOrGetEmailAddress(localPart
+                + "@B\u00dcCHER.example.de"));
+
+        EmailAddressSaveResult saveResult = emailAddressDataService.trySaveEmailAddress(localPart
+                + "@b\u00fccher .example.de");
+        Assert.assertFalse(saveResult.isSaved());
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER, saveResult.getValidationResult());
+    }
+
     @Override
     public void testMissingVerifying() {
         GreenMail greenMail = greenmailService.getGreenMail();
@@ -493,6 +1055,60 @@ public class EmailAddressDataServiceTestImpl implements EmailAddressDataServiceT
 
     }
 
+    @Override
+    public void testTryOperations() {
+        try {
+            emailAddressDataService.trySaveEmailAddress(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        for (String email : INVALID_EMAILS) {
+            EmailAddressSaveResult saveResult = emailAddressDataService.trySaveEmailAddress(email);
+            Assert.assertFalse(saveResult.isSaved());
+            Assert.assertEquals(0L, saveResult.getEmailAddressId());
+            Assert.assertFalse(EmailAddressValidationResult.VALID == saveResult.getValidationResult());
+            try {
+                emailAddressDataService.saveEmailAddress(email);
+                Assert.fail("Expect InvalidEmailAddressException, but the method not throws.");
+            } catch (InvalidEmailAddressException e) {
+                Assert.assertEquals(saveResult.getValidationResult(), e.getValidationResult());
+                Assert.assertEquals(0, e.getStackTrace().length);
+            }
+        }
+
+        EmailAddressSaveResult saveResult = emailAddressDataService.trySaveEmailAddress("try@everit.biz");
+        Assert.assertTrue(saveResult.isSaved());
+        Assert.assertEquals(EmailAddressValidationResult.VALID, saveResult.getValidationResult());
+        Assert.assertTrue(saveResult.getEmailAddressId() > 0L);
+
+        GreenMail greenMail = greenmailService.getGreenMail();
+        Calendar c = Calendar.getInstance();
+        c.add(Calendar.DATE, 2);
+        Assert.assertEquals(VerificationRequestOutcome.MISSING, emailAddressDataService.tryCreateVerificationRequest(
+                0L, "$acceptToken\n$rejectToken", c.getTime(), 1L, getRandomVerificationLengthBase()));
+        Assert.assertEquals(massageNumber, greenMail.getReceivedMessages().length);
+        Assert.assertEquals(VerificationRequestOutcome.CREATED, emailAddressDataService.tryCreateVerificationRequest(
+                saveResult.getEmailAddressId(), "$acceptToken\n$rejectToken", c.getTime(),
+                new Random().nextInt(MAX_RANDOM_VALUE) + 1, getRandomVerificationLengthBase()));
+        massageNumber++;
+        Assert.assertEquals(massageNumber, greenMail.getReceivedMessages().length);
+        try {
+            emailAddressDataService.tryCreateVerificationRequest(saveResult.getEmailAddressId(),
+                    "$acceptToken\n$rejectToken", c.getTime(), 0L, getRandomVerificationLengthBase());
+            Assert.fail("Expect NonPositiveVerificationLength, but the method not throws.");
+        } catch (NonPositiveVerificationLength e) {
+            Assert.assertNotNull(e);
+        }
+
+        Assert.assertTrue(new InvalidEmailAddressException().getStackTrace().length > 0);
+        Assert.assertEquals(0, new InvalidEmailAddressException(EmailAddressValidationResult.MISSING_AT_SIGN, false)
+                .getStackTrace().length);
+        Assert.assertTrue(new NoSuchEmailAddressDataException().getStackTrace().length > 0);
+        Assert.assertEquals(0, new NoSuchEmailAddressDataException(false).getStackTrace().length);
+    }
+
     @Override
     public void testVerificationAndInvalidatedOnExpiredVerificationEmails() {
         List<Long> createEmailAddressToExpired = createEmailAddressToExpired();
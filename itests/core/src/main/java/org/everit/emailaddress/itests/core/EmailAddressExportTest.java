@@ -0,0 +1,46 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.export.LastModificationDateBackfill;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the export of the email address data together with the changes of the caller
+ * transaction and the {@link LastModificationDateBackfill}. Every test method runs in one transaction.
+ */
+public interface EmailAddressExportTest {
+
+    /**
+     * Persist an email address data without last modification date. Test that the windowed export skips it until
+     * the backfill sets the date and exports it in the window of the backfill after.
+     */
+    @Test
+    void testBackfill();
+
+    /**
+     * Change a managed entity without flushing it and export the email address data in the same transaction. Test
+     * that the change is kept and written by the flush after the export.
+     */
+    @Test
+    void testExportKeepsPendingChanges();
+}
@@ -0,0 +1,161 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressExportHandler;
+import org.everit.emailaddress.api.dto.EmailAddressExportRecord;
+import org.everit.emailaddress.core.export.LastModificationDateBackfill;
+import org.everit.emailaddress.core.export.LastModificationDateStore;
+import org.everit.emailaddress.entity.EmailAddressDataEntity;
+import org.everit.emailaddress.entity.EmailOutboxEntity;
+import org.everit.emailaddress.entity.OutboxMessageStatus;
+
+/**
+ * Implementation of {@link EmailAddressExportTest}.
+ */
+public class EmailAddressExportTestImpl implements EmailAddressExportTest {
+
+    /**
+     * The {@link EmailAddressDataService} instance.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link LastModificationDateStore} instance.
+     */
+    private LastModificationDateStore lastModificationDateStore;
+
+    /**
+     * EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    /**
+     * Exports the email address data after the id to a list.
+     * 
+     * @param modifiedFrom
+     *            the start of the modification window.
+     * @param afterEmailAddressId
+     *            only the email address data with greater id are exported.
+     * @return the exported records.
+     */
+    private List<EmailAddressExportRecord> export(final Date modifiedFrom, final long afterEmailAddressId) {
+        final List<EmailAddressExportRecord> result = new ArrayList<EmailAddressExportRecord>();
+        emailAddressDataService.exportEmailAddresses(modifiedFrom, new Date(System.currentTimeMillis() + 1),
+                afterEmailAddressId, new EmailAddressExportHandler() {
+
+                    @Override
+                    public boolean handle(final EmailAddressExportRecord exportRecord) {
+                        result.add(exportRecord);
+                        return true;
+                    }
+                });
+        return result;
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setLastModificationDateStore(final LastModificationDateStore lastModificationDateStore) {
+        this.lastModificationDateStore = lastModificationDateStore;
+    }
+
+    @Override
+    public void testBackfill() {
+        EmailAddressDataEntity emailAddressDataEntity = new EmailAddressDataEntity();
+        emailAddressDataEntity.setEmailAddress("backfill@everit.biz");
+        emailAddressDataEntity.setCanonicalEmailAddress("backfill@everit.biz");
+        em.persist(emailAddressDataEntity);
+        em.flush();
+        long emailAddressId = emailAddressDataEntity.getEmailAddressDataId();
+
+        Assert.assertTrue(export(new Date(0L), emailAddressId - 1).isEmpty());
+
+        Date backfillStart = new Date();
+        LastModificationDateBackfill lastModificationDateBackfill = new LastModificationDateBackfill();
+        lastModificationDateBackfill.setLastModificationDateStore(lastModificationDateStore);
+        lastModificationDateBackfill.setChunkSize(1);
+        Assert.assertTrue(lastModificationDateBackfill.backfill() >= 1L);
+        Assert.assertEquals(0L, lastModificationDateBackfill.backfill());
+        Assert.assertEquals(0, lastModificationDateStore.backfillLastModificationDates(new Date(), 1));
+
+        List<EmailAddressExportRecord> exportRecords = export(backfillStart, emailAddressId - 1);
+        Assert.assertEquals(1, exportRecords.size());
+        Assert.assertEquals(emailAddressId, exportRecords.get(0).getEmailAddressId());
+        Assert.assertFalse(exportRecords.get(0).getLastModificationDate().before(backfillStart));
+
+        try {
+            lastModificationDateStore.backfillLastModificationDates(null, 1);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            lastModificationDateStore.backfillLastModificationDates(new Date(), 0);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        emailAddressDataService.invalidateEmailAddress(emailAddressId);
+    }
+
+    @Override
+    public void testExportKeepsPendingChanges() {
+        Date currentDate = new Date();
+        EmailOutboxEntity emailOutboxEntity = new EmailOutboxEntity();
+        emailOutboxEntity.setReceiverEmailAddress("pending@everit.biz");
+        emailOutboxEntity.setSubject("original");
+        emailOutboxEntity.setBody("body");
+        emailOutboxEntity.setStatus(OutboxMessageStatus.FAILED);
+        emailOutboxEntity.setCreationDate(currentDate);
+        emailOutboxEntity.setNextAttemptDate(currentDate);
+        em.persist(emailOutboxEntity);
+        em.flush();
+        long outboxMessageId = emailOutboxEntity.getOutboxMessageId();
+        long emailAddressId = emailAddressDataService.saveEmailAddress("pending@everit.biz");
+
+        emailOutboxEntity.setSubject("changed");
+        Assert.assertEquals(1, export(null, emailAddressId - 1).size());
+        Assert.assertTrue(em.contains(emailOutboxEntity));
+        em.flush();
+        em.clear();
+        emailOutboxEntity = em.find(EmailOutboxEntity.class, outboxMessageId);
+        Assert.assertEquals("changed", emailOutboxEntity.getSubject());
+
+        em.remove(emailOutboxEntity);
+        emailAddressDataService.invalidateEmailAddress(emailAddressId);
+    }
+}
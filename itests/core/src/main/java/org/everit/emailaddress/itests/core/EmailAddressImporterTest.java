@@ -0,0 +1,72 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.IOException;
+
+import org.everit.emailaddress.api.EmailAddressImporter;
+import org.junit.Test;
+
+/**
+ * Test interface for testing {@link EmailAddressImporter}.
+ */
+public interface EmailAddressImporterTest {
+
+    /**
+     * Import a delimiter separated file with header, quoted fields, empty lines, invalid and repeated email addresses
+     * and check the saved email addresses and the reject report.
+     * 
+     * @throws IOException
+     *             if the test files cannot be written.
+     */
+    @Test
+    void testImport() throws IOException;
+
+    /**
+     * Test the null parameters where expect the {@link IllegalArgumentException}.
+     * 
+     * @throws IOException
+     *             if the test files cannot be written.
+     */
+    @Test
+    void testNullParameters() throws IOException;
+
+    /**
+     * Resume an import from a checkpoint and check that the lines before the checkpoint are not saved again and the
+     * repeated email addresses of the already imported lines are rejected.
+     * 
+     * @throws IOException
+     *             if the test files cannot be written.
+     */
+    @Test
+    void testResume() throws IOException;
+
+    /**
+     * Resume an import from a checkpoint written before a chunk that was saved by the stopped import and check that
+     * the email addresses of the chunk are not saved again.
+     * 
+     * @throws IOException
+     *             if the test files cannot be written.
+     */
+    @Test
+    void testResumeAfterSavedChunk() throws IOException;
+}
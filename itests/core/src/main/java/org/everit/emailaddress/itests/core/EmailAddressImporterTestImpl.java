@@ -0,0 +1,289 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.EmailAddressImporter;
+import org.everit.emailaddress.api.dto.EmailAddressFileFormat;
+import org.everit.emailaddress.api.dto.EmailAddressImportResult;
+
+/**
+ * Implementation of {@link EmailAddressImporterTest}.
+ */
+public class EmailAddressImporterTestImpl implements EmailAddressImporterTest {
+
+    /**
+     * The maximum value of the random.
+     */
+    private static final int MAX_RANDOM_VALUE = 1000000;
+
+    /**
+     * The charset of the test files.
+     */
+    private static final String UTF_8 = "UTF-8";
+
+    /**
+     * The {@link EmailAddressDataService} instance.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link EmailAddressImporter} instance.
+     */
+    private EmailAddressImporter emailAddressImporter;
+
+    /**
+     * Creating a temporary file with the lines.
+     * 
+     * @param lines
+     *            the lines of the file.
+     * @return the file.
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    private File createFile(final String... lines) throws IOException {
+        File file = File.createTempFile("emailaddress-import", ".csv");
+        file.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write("\r\n");
+            }
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Creating a temporary file that does not exist.
+     * 
+     * @param suffix
+     *            the suffix of the file name.
+     * @return the file.
+     * @throws IOException
+     *             if the file cannot be created.
+     */
+    private File createMissingFile(final String suffix) throws IOException {
+        File file = File.createTempFile("emailaddress-import", suffix);
+        Assert.assertTrue(file.delete());
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Reading the lines of the reject report.
+     * 
+     * @param rejectReportFile
+     *            the reject report.
+     * @return the lines.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    private List<String> readLines(final File rejectReportFile) throws IOException {
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(rejectReportFile),
+                UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                result.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setEmailAddressImporter(final EmailAddressImporter emailAddressImporter) {
+        this.emailAddressImporter = emailAddressImporter;
+    }
+
+    @Override
+    public void testImport() throws IOException {
+        String prefix = "import" + new Random().nextInt(MAX_RANDOM_VALUE);
+        File file = createFile("name;email", "First;" + prefix + "a@everit.biz", "\"Second; Quoted\";\"" + prefix
+                + "b@everit.biz\"", "", "Invalid;" + prefix + "c", "Repeated;" + prefix + "a@EVERIT.biz ",
+                "Missing column");
+        File rejectReportFile = createMissingFile(".rejects");
+        EmailAddressImportResult importResult = emailAddressImporter.importFile(file, new EmailAddressFileFormat(
+                Character.valueOf(';'), 1, true), rejectReportFile, null);
+
+        Assert.assertEquals(7L, importResult.getLineNumber());
+        Assert.assertEquals(2L, importResult.getImportedNumber());
+        Assert.assertEquals(2L, importResult.getInvalidNumber());
+        Assert.assertEquals(1L, importResult.getDuplicateNumber());
+        Assert.assertNotNull(emailAddressDataService.findEmailAddressId(prefix + "a@everit.biz"));
+        Assert.assertNotNull(emailAddressDataService.findEmailAddressId(prefix + "b@everit.biz"));
+
+        List<String> rejectedLines = readLines(rejectReportFile);
+        Assert.assertEquals(3, rejectedLines.size());
+        Assert.assertTrue(rejectedLines.get(0).startsWith("5\t"));
+        Assert.assertTrue(rejectedLines.get(0).endsWith("\tInvalid;" + prefix + "c"));
+        Assert.assertEquals("6\tDUPLICATE\tRepeated;" + prefix + "a@EVERIT.biz ", rejectedLines.get(1));
+        Assert.assertTrue(rejectedLines.get(2).startsWith("7\t"));
+    }
+
+    @Override
+    public void testNullParameters() throws IOException {
+        File file = createFile("test@everit.biz");
+        File rejectReportFile = createMissingFile(".rejects");
+        EmailAddressFileFormat fileFormat = new EmailAddressFileFormat(null, 0, false);
+        try {
+            emailAddressImporter.importFile(null, fileFormat, rejectReportFile, null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            emailAddressImporter.importFile(file, null, rejectReportFile, null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            emailAddressImporter.importFile(file, fileFormat, null, null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            new EmailAddressFileFormat(null, 1, false);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testResume() throws IOException {
+        String prefix = "resume" + new Random().nextInt(MAX_RANDOM_VALUE);
+        String firstLine = prefix + "a@everit.biz";
+        String secondLine = prefix + "b";
+        File file = createFile(firstLine, secondLine, prefix + "c@everit.biz", prefix + "a@everit.biz");
+        File rejectReportFile = createFile("2\tINVALID\t" + secondLine, "9\tNOT_SAVED\t" + secondLine);
+        File checkpointFile = createMissingFile(".checkpoint");
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("fileSize", String.valueOf(file.length()));
+        checkpoint.setProperty("position", String.valueOf(firstLine.length() + secondLine.length() + 4));
+        checkpoint.setProperty("lineNumber", "2");
+        checkpoint.setProperty("importedNumber", "1");
+        checkpoint.setProperty("invalidNumber", "1");
+        checkpoint.setProperty("duplicateNumber", "0");
+        checkpoint.setProperty("rejectReportLength", String.valueOf(("2\tINVALID\t" + secondLine + "\r\n").length()));
+        OutputStream outputStream = new FileOutputStream(checkpointFile);
+        try {
+            checkpoint.store(outputStream, null);
+        } finally {
+            outputStream.close();
+        }
+
+        EmailAddressImportResult importResult = emailAddressImporter.importFile(file, new EmailAddressFileFormat(null,
+                0, false), rejectReportFile, checkpointFile);
+
+        Assert.assertEquals(4L, importResult.getLineNumber());
+        Assert.assertEquals(2L, importResult.getImportedNumber());
+        Assert.assertEquals(1L, importResult.getInvalidNumber());
+        Assert.assertEquals(1L, importResult.getDuplicateNumber());
+        Assert.assertNull(emailAddressDataService.findEmailAddressId(firstLine));
+        Assert.assertNotNull(emailAddressDataService.findEmailAddressId(prefix + "c@everit.biz"));
+        Assert.assertFalse(checkpointFile.exists());
+
+        List<String> rejectedLines = readLines(rejectReportFile);
+        Assert.assertEquals(2, rejectedLines.size());
+        Assert.assertEquals("2\tINVALID\t" + secondLine, rejectedLines.get(0));
+        Assert.assertEquals("4\tDUPLICATE\t" + firstLine, rejectedLines.get(1));
+
+        try {
+            emailAddressImporter.importFile(createFile(firstLine), new EmailAddressFileFormat(null, 0, false),
+                    rejectReportFile, createFile("fileSize=1", "position=0"));
+            Assert.fail("Expect IllegalStateException, but the method not throws.");
+        } catch (IllegalStateException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testResumeAfterSavedChunk() throws IOException {
+        String domain = "resumesaved" + new Random().nextInt(MAX_RANDOM_VALUE) + ".everit.biz";
+        String invalidLine = "invalid@";
+        File file = createFile("a@" + domain, invalidLine, "b@" + domain, "c@" + domain);
+        List<String> savedEmailAddresses = new ArrayList<String>();
+        savedEmailAddresses.add("a@" + domain);
+        savedEmailAddresses.add("b@" + domain);
+        savedEmailAddresses.add("c@" + domain);
+        emailAddressDataService.saveEmailAddresses(savedEmailAddresses);
+        Long emailAddressIdA = emailAddressDataService.findEmailAddressId("a@" + domain);
+        Long emailAddressIdC = emailAddressDataService.findEmailAddressId("c@" + domain);
+        File rejectReportFile = createMissingFile(".rejects");
+        File checkpointFile = createMissingFile(".checkpoint");
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("fileSize", String.valueOf(file.length()));
+        checkpoint.setProperty("position", "0");
+        checkpoint.setProperty("lineNumber", "0");
+        checkpoint.setProperty("importedNumber", "0");
+        checkpoint.setProperty("invalidNumber", "0");
+        checkpoint.setProperty("duplicateNumber", "0");
+        checkpoint.setProperty("rejectReportLength", "0");
+        OutputStream outputStream = new FileOutputStream(checkpointFile);
+        try {
+            checkpoint.store(outputStream, null);
+        } finally {
+            outputStream.close();
+        }
+
+        EmailAddressImportResult importResult = emailAddressImporter.importFile(file, new EmailAddressFileFormat(null,
+                0, false), rejectReportFile, checkpointFile);
+
+        Assert.assertEquals(4L, importResult.getLineNumber());
+        Assert.assertEquals(3L, importResult.getImportedNumber());
+        Assert.assertEquals(1L, importResult.getInvalidNumber());
+        Assert.assertEquals(0L, importResult.getDuplicateNumber());
+        Assert.assertEquals(emailAddressIdA, emailAddressDataService.findEmailAddressId("a@" + domain));
+        Assert.assertEquals(emailAddressIdC, emailAddressDataService.findEmailAddressId("c@" + domain));
+        Assert.assertFalse(checkpointFile.exists());
+        Assert.assertEquals(1, readLines(rejectReportFile).size());
+        Assert.assertEquals(savedEmailAddresses.size(),
+                emailAddressDataService.invalidateEmailAddressesByDomain(domain));
+    }
+}
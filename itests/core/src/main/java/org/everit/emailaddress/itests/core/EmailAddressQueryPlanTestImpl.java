@@ -0,0 +1,114 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.entity.EmailAddressDataEntity;
+import org.hibernate.Session;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.query.spi.QueryPlanCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Implementation of {@link EmailAddressQueryPlanTest}.
+ */
+public class EmailAddressQueryPlanTestImpl implements EmailAddressQueryPlanTest {
+
+    /**
+     * The number of the repeated calls.
+     */
+    private static final int REPEAT_NUMBER = 10;
+
+    /**
+     * The names of the checked named queries.
+     */
+    private static final String[] QUERY_NAMES = new String[] {
+            EmailAddressDataEntity.QUERY_FIND_EMAIL_ADDRESS_BY_ID,
+            EmailAddressDataEntity.QUERY_FIND_ID_BY_CANONICAL_EMAIL_ADDRESS,
+            EmailAddressDataEntity.QUERY_FIND_ID_BY_VERIFIABLE_DATA_ID,
+            EmailAddressDataEntity.QUERY_FIND_VERIFIABLE_DATA_ID_BY_ID,
+            EmailAddressDataEntity.QUERY_FIND_VERIFICATION_END_DATE_BY_ID };
+
+    /**
+     * The {@link EmailAddressDataService} instance.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * EntityManager set by blueprint.
+     */
+    private EntityManager em;
+
+    /**
+     * Get the cached query plans of the checked named queries.
+     * 
+     * @param sessionFactory
+     *            the session factory of the persistence unit.
+     * @return the query plans in the order of the {@link #QUERY_NAMES}.
+     */
+    private HQLQueryPlan[] getQueryPlans(final SessionFactoryImplementor sessionFactory) {
+        QueryPlanCache queryPlanCache = sessionFactory.getQueryPlanCache();
+        HQLQueryPlan[] result = new HQLQueryPlan[QUERY_NAMES.length];
+        for (int i = 0; i < QUERY_NAMES.length; i++) {
+            String queryString = sessionFactory.getNamedQuery(QUERY_NAMES[i]).getQueryString();
+            result[i] = queryPlanCache.getHQLQueryPlan(queryString, false, Collections.emptyMap());
+        }
+        return result;
+    }
+
+    public void setEm(final EntityManager em) {
+        this.em = em;
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    @Override
+    public void testNamedQueryPlansReused() {
+        SessionFactoryImplementor sessionFactory =
+                (SessionFactoryImplementor) ((Session) em.getDelegate()).getSessionFactory();
+        HQLQueryPlan[] queryPlans = getQueryPlans(sessionFactory);
+
+        String emailAddress = "queryplan@everit.biz";
+        long emailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        for (int i = 0; i < REPEAT_NUMBER; i++) {
+            Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+            Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+            Assert.assertEquals(ConfirmationResult.FAILED,
+                    emailAddressDataService.verifyEmailAddress("queryplan-uuid").getResult());
+        }
+        emailAddressDataService.invalidateEmailAddress(emailAddressId);
+
+        HQLQueryPlan[] repeatedQueryPlans = getQueryPlans(sessionFactory);
+        for (int i = 0; i < QUERY_NAMES.length; i++) {
+            Assert.assertSame(QUERY_NAMES[i], queryPlans[i], repeatedQueryPlans[i]);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.junit.Test;
+
+/**
+ * Test interface for testing {@link EmailAddressValidator}.
+ */
+public interface EmailAddressValidatorTest {
+
+    /**
+     * Validate the valid and invalid e-mails of {@link EmailAddressDataServiceTestImpl} and compare the results with
+     * the email regular expression.
+     */
+    @Test
+    void testEquivalenceOnEmails();
+
+    /**
+     * Validate random generated e-mails built from the interesting characters and compare the results with the email
+     * regular expression.
+     */
+    @Test
+    void testEquivalenceOnRandomEmails();
+
+    /**
+     * Test the {@link EmailAddressValidationResult} values of the internationalized email addresses (not ASCII local
+     * part, internationalized domain and top level domain). Test that the accepted addresses are accepted with the
+     * punycode form of the domain too.
+     */
+    @Test
+    void testInternationalEmailAddresses();
+
+    /**
+     * Test the null parameter where expect the {@link IllegalArgumentException}.
+     */
+    @Test
+    void testNullEmailAddress();
+
+    /**
+     * Validate lists of e-mails at once (the short lists in the calling thread and the long lists in parallel) and
+     * compare the results with the validation one by one. Test the null list and the list containing null.
+     */
+    @Test
+    void testValidateAll();
+
+    /**
+     * Test the {@link EmailAddressValidationResult} values of the violated rules.
+     */
+    @Test
+    void testValidationResults();
+}
@@ -0,0 +1,290 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressValidator;
+import org.everit.emailaddress.api.dto.EmailAddressValidationResults;
+import org.everit.emailaddress.api.enums.EmailAddressValidationResult;
+
+/**
+ * Implementation of {@link EmailAddressValidatorTest}.
+ */
+public class EmailAddressValidatorTestImpl implements EmailAddressValidatorTest {
+
+    /**
+     * The valid internationalized email addresses in Unicode form.
+     */
+    private static final String[] INTERNATIONAL_EMAILS = new String[] {
+            "j\u00f6rg@b\u00fccher.de",
+            "test@mail.b\u00fccher.de",
+            "test@mail-1.b\u00fccher.de",
+            "\u7528\u6237@\u4f8b\u5b50.\u5e7f\u544a",
+            "test@\u043f\u0440\u0438\u043c\u0435\u0440.\u0440\u0444" };
+
+    /**
+     * The email regular expression that was used to validation before the {@link EmailAddressValidator}.
+     */
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+                    + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$");
+
+    /**
+     * The characters of the random generated e-mails.
+     */
+    private static final String RANDOM_CHARACTERS = "aZ1_-+.@%";
+
+    /**
+     * The number of the random generated e-mails.
+     */
+    private static final int RANDOM_EMAIL_NUMBER = 200000;
+
+    /**
+     * The number of the random generated e-mails validated at once. Greater than the parallel threshold of the
+     * validator.
+     */
+    private static final int BULK_EMAIL_NUMBER = 50000;
+
+    /**
+     * The maximum length of the random generated e-mails.
+     */
+    private static final int MAX_RANDOM_EMAIL_LENGTH = 12;
+
+    /**
+     * The seed of the random to repeatable tests.
+     */
+    private static final long RANDOM_SEED = 20131001L;
+
+    /**
+     * The {@link EmailAddressValidator} instance.
+     */
+    private EmailAddressValidator emailAddressValidator;
+
+    /**
+     * Compare the result of the {@link EmailAddressValidator} with the email regular expression.
+     * 
+     * @param emailAddress
+     *            the email address.
+     */
+    private void assertEquivalence(final String emailAddress) {
+        boolean expected = EMAIL_PATTERN.matcher(emailAddress).matches();
+        EmailAddressValidationResult validationResult = emailAddressValidator.validate(emailAddress);
+        Assert.assertEquals(emailAddress, expected, validationResult == EmailAddressValidationResult.VALID);
+        Assert.assertEquals(emailAddress, expected, emailAddressValidator.isValid(emailAddress));
+    }
+
+    public void setEmailAddressValidator(final EmailAddressValidator emailAddressValidator) {
+        this.emailAddressValidator = emailAddressValidator;
+    }
+
+    /**
+     * Compare the results of the bulk validation with the results of the validation one by one.
+     * 
+     * @param emailAddresses
+     *            the email addresses.
+     */
+    private void assertValidateAll(final List<String> emailAddresses) {
+        EmailAddressValidationResults validationResults = emailAddressValidator.validateAll(emailAddresses);
+        Assert.assertEquals(emailAddresses.size(), validationResults.getSize());
+        int invalidNumber = 0;
+        int index = 0;
+        for (String emailAddress : emailAddresses) {
+            EmailAddressValidationResult validationResult = emailAddressValidator.validate(emailAddress);
+            Assert.assertEquals(emailAddress, validationResult, validationResults.getValidationResult(index));
+            Assert.assertEquals(emailAddress, validationResult == EmailAddressValidationResult.VALID,
+                    validationResults.isValid(index));
+            if (validationResult != EmailAddressValidationResult.VALID) {
+                invalidNumber++;
+            }
+            index++;
+        }
+        Assert.assertEquals(invalidNumber, validationResults.getInvalidNumber());
+    }
+
+    @Override
+    public void testEquivalenceOnEmails() {
+        for (String email : EmailAddressDataServiceTestImpl.VALID_EMAILS) {
+            Assert.assertTrue(email, emailAddressValidator.isValid(email));
+            assertEquivalence(email);
+        }
+        for (String email : EmailAddressDataServiceTestImpl.INVALID_EMAILS) {
+            Assert.assertFalse(email, emailAddressValidator.isValid(email));
+            assertEquivalence(email);
+        }
+    }
+
+    @Override
+    public void testEquivalenceOnRandomEmails() {
+        Random random = new Random(RANDOM_SEED);
+        StringBuilder sb = new StringBuilder(MAX_RANDOM_EMAIL_LENGTH);
+        for (int i = 0; i < RANDOM_EMAIL_NUMBER; i++) {
+            sb.setLength(0);
+            int length = random.nextInt(MAX_RANDOM_EMAIL_LENGTH + 1);
+            for (int j = 0; j < length; j++) {
+                sb.append(RANDOM_CHARACTERS.charAt(random.nextInt(RANDOM_CHARACTERS.length())));
+            }
+            assertEquivalence(sb.toString());
+        }
+    }
+
+    @Override
+    public void testInternationalEmailAddresses() {
+        for (String emailAddress : INTERNATIONAL_EMAILS) {
+            Assert.assertEquals(emailAddress, EmailAddressValidationResult.VALID,
+                    emailAddressValidator.validate(emailAddress));
+            int atIndex = emailAddress.lastIndexOf('@');
+            String punycodeEmailAddress = emailAddress.substring(0, atIndex + 1)
+                    + IDN.toASCII(emailAddress.substring(atIndex + 1));
+            Assert.assertEquals(punycodeEmailAddress, EmailAddressValidationResult.VALID,
+                    emailAddressValidator.validate(punycodeEmailAddress));
+        }
+        Assert.assertEquals(EmailAddressValidationResult.VALID,
+                emailAddressValidator.validate("test@mail-1.xn--bcher-kva.de"));
+        Assert.assertEquals(EmailAddressValidationResult.VALID,
+                emailAddressValidator.validate("test@xn--fsqu00a.xn--3lr804guic"));
+        Assert.assertEquals(EmailAddressValidationResult.VALID,
+                emailAddressValidator.validate("test@Mail-1.XN--FSQU00A.XN--3LR804GUIC"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@mail-.xn--bcher-kva.de"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@mail_1.xn--bcher-kva.de"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test@xn--bcher-kva.d1"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@mail.sub-domain.de"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("j\u00f6rg\u00a0test@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("j\u00f6rg\u200btest@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("\u202etset@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("test\u202a@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("te\ufeffst@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@b\u00fc cher.de"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@-b\u00fccher.de"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_DOMAIN_LABEL,
+                emailAddressValidator.validate("test@b\u00fccher.de."));
+        Assert.assertEquals(EmailAddressValidationResult.MISSING_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test@b\u00fccher"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test@b\u00fccher.d"));
+    }
+
+    @Override
+    public void testNullEmailAddress() {
+        try {
+            emailAddressValidator.validate(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        try {
+            emailAddressValidator.isValid(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testValidateAll() {
+        try {
+            emailAddressValidator.validateAll(null);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+
+        assertValidateAll(EmailAddressDataServiceTestImpl.VALID_EMAILS);
+        assertValidateAll(EmailAddressDataServiceTestImpl.INVALID_EMAILS);
+        assertValidateAll(new ArrayList<String>());
+
+        Random random = new Random(RANDOM_SEED);
+        List<String> emailAddresses = new ArrayList<String>(BULK_EMAIL_NUMBER);
+        StringBuilder sb = new StringBuilder(MAX_RANDOM_EMAIL_LENGTH);
+        for (int i = 0; i < BULK_EMAIL_NUMBER; i++) {
+            sb.setLength(0);
+            int length = random.nextInt(MAX_RANDOM_EMAIL_LENGTH + 1);
+            for (int j = 0; j < length; j++) {
+                sb.append(RANDOM_CHARACTERS.charAt(random.nextInt(RANDOM_CHARACTERS.length())));
+            }
+            emailAddresses.add(sb.toString());
+        }
+        assertValidateAll(emailAddresses);
+        assertValidateAll(new LinkedList<String>(emailAddresses));
+
+        emailAddresses.add(null);
+        try {
+            emailAddressValidator.validateAll(emailAddresses);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testValidationResults() {
+        Assert.assertEquals(EmailAddressValidationResult.VALID,
+                emailAddressValidator.validate(new StringBuilder("test.100@test.com.au")));
+        Assert.assertEquals(EmailAddressValidationResult.MISSING_AT_SIGN,
+                emailAddressValidator.validate("test"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_LOCAL_PART_SEGMENT,
+                emailAddressValidator.validate(".test@test.com"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_LOCAL_PART_SEGMENT,
+                emailAddressValidator.validate("test..2002@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_LOCAL_PART_SEGMENT,
+                emailAddressValidator.validate("test.@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("test()*@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_LOCAL_PART_CHARACTER,
+                emailAddressValidator.validate("test.+100@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_DOMAIN_LABEL,
+                emailAddressValidator.validate("test@.com.my"));
+        Assert.assertEquals(EmailAddressValidationResult.EMPTY_DOMAIN_LABEL,
+                emailAddressValidator.validate("test@gmail.com."));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@%*.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@test@gmail.com"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_DOMAIN_CHARACTER,
+                emailAddressValidator.validate("test@yahoo.test-a.com"));
+        Assert.assertEquals(EmailAddressValidationResult.MISSING_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test@localhost"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test123@gmail.a"));
+        Assert.assertEquals(EmailAddressValidationResult.INVALID_TOP_LEVEL_DOMAIN,
+                emailAddressValidator.validate("test@gmail.com.1a"));
+    }
+}
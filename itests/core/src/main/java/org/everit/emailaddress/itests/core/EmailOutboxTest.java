@@ -0,0 +1,54 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.outbox.EmailOutboxDispatcher;
+import org.everit.emailaddress.core.outbox.EmailOutboxStore;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link EmailOutboxStore} and the {@link EmailOutboxDispatcher}.
+ */
+public interface EmailOutboxTest {
+
+    /**
+     * Claim a message, try to claim it again before and after the expiration of the lease and release it with the
+     * expired and with the current lease token. Test that the claimed message cannot be claimed until the lease
+     * expires and the lost claim cannot release the message.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the lease expiration.
+     */
+    @Test
+    void testClaimAndLeaseExpiry() throws InterruptedException;
+
+    /**
+     * Dispatch messages with a transport that fails the first attempts. Test that the failed attempt is retried only
+     * after the backoff, the message is deleted after the successful retry, the message is marked as failed after the
+     * last attempt and the failed message is purged after the retention time.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the backoff.
+     */
+    @Test
+    void testRetryAndFailure() throws InterruptedException;
+}
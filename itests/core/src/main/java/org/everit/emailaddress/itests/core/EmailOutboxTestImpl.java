@@ -0,0 +1,188 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.core.outbox.EmailOutboxDispatcher;
+import org.everit.emailaddress.core.outbox.EmailOutboxStore;
+import org.everit.emailaddress.core.outbox.OutboxMessage;
+
+/**
+ * Implementation of {@link EmailOutboxTest}.
+ */
+public class EmailOutboxTestImpl implements EmailOutboxTest {
+
+    /**
+     * The length of the short leases in milliseconds.
+     */
+    private static final long SHORT_LEASE_LENGTH = 500L;
+
+    /**
+     * The length of the long leases in milliseconds.
+     */
+    private static final long LONG_LEASE_LENGTH = 60000L;
+
+    /**
+     * The backoff of the retries in milliseconds.
+     */
+    private static final long BACKOFF = 500L;
+
+    /**
+     * The additional waiting time after a lease or backoff in milliseconds.
+     */
+    private static final long WAIT_MARGIN = 200L;
+
+    /**
+     * The maximum number of the claimed or purged messages.
+     */
+    private static final int MAX_MESSAGE_NUMBER = 100;
+
+    /**
+     * The maximum number of the sending attempts in the dispatcher test.
+     */
+    private static final int MAX_ATTEMPTS = 2;
+
+    /**
+     * The {@link EmailOutboxStore} instance.
+     */
+    private EmailOutboxStore emailOutboxStore;
+
+    /**
+     * The {@link RecordingEmailTransport} of the dispatcher.
+     */
+    private RecordingEmailTransport recordingEmailTransport;
+
+    /**
+     * Creating a started dispatcher that polls only when it is called by the test.
+     * 
+     * @return the {@link EmailOutboxDispatcher}.
+     */
+    private EmailOutboxDispatcher createDispatcher() {
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher();
+        dispatcher.setEmailOutboxStore(emailOutboxStore);
+        dispatcher.setEmailTransport(recordingEmailTransport);
+        dispatcher.setConcurrency(1);
+        dispatcher.setPollInterval(LONG_LEASE_LENGTH);
+        dispatcher.setLeaseLength(LONG_LEASE_LENGTH);
+        dispatcher.setInitialBackoff(BACKOFF);
+        dispatcher.setMaxBackoff(BACKOFF);
+        dispatcher.setMaxAttempts(MAX_ATTEMPTS);
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    /**
+     * Removes the messages of the other tests from the outbox.
+     */
+    private void drainOutbox() {
+        String leaseToken = "drain-" + System.nanoTime();
+        List<OutboxMessage> messages = emailOutboxStore.claimMessages(leaseToken, MAX_MESSAGE_NUMBER,
+                LONG_LEASE_LENGTH);
+        for (OutboxMessage message : messages) {
+            emailOutboxStore.failMessage(message.getOutboxMessageId(), leaseToken, null);
+        }
+        emailOutboxStore.purgeFailedMessages(new Date(System.currentTimeMillis() + LONG_LEASE_LENGTH),
+                MAX_MESSAGE_NUMBER);
+    }
+
+    public void setEmailOutboxStore(final EmailOutboxStore emailOutboxStore) {
+        this.emailOutboxStore = emailOutboxStore;
+    }
+
+    public void setRecordingEmailTransport(final RecordingEmailTransport recordingEmailTransport) {
+        this.recordingEmailTransport = recordingEmailTransport;
+    }
+
+    @Override
+    public synchronized void testClaimAndLeaseExpiry() throws InterruptedException {
+        drainOutbox();
+        long outboxMessageId = emailOutboxStore.enqueueMessage("outbox-lease@test.com", "subject", "body");
+        Assert.assertEquals(1L, emailOutboxStore.countPendingMessages());
+
+        List<OutboxMessage> claimed = emailOutboxStore.claimMessages("lease-1", MAX_MESSAGE_NUMBER,
+                SHORT_LEASE_LENGTH);
+        Assert.assertEquals(1, claimed.size());
+        Assert.assertEquals(outboxMessageId, claimed.get(0).getOutboxMessageId());
+        Assert.assertEquals(1, claimed.get(0).getAttempts());
+        Assert.assertTrue(emailOutboxStore.claimMessages("lease-2", MAX_MESSAGE_NUMBER, LONG_LEASE_LENGTH)
+                .isEmpty());
+
+        Thread.sleep(SHORT_LEASE_LENGTH + WAIT_MARGIN);
+        claimed = emailOutboxStore.claimMessages("lease-3", MAX_MESSAGE_NUMBER, LONG_LEASE_LENGTH);
+        Assert.assertEquals(1, claimed.size());
+        Assert.assertEquals(2, claimed.get(0).getAttempts());
+
+        Assert.assertFalse(emailOutboxStore.deleteMessage(outboxMessageId, "lease-1"));
+        Assert.assertFalse(emailOutboxStore.rescheduleMessage(outboxMessageId, "lease-1", new Date(), null));
+        Assert.assertTrue(emailOutboxStore.deleteMessage(outboxMessageId, "lease-3"));
+        Assert.assertEquals(0L, emailOutboxStore.countPendingMessages());
+    }
+
+    @Override
+    public synchronized void testRetryAndFailure() throws InterruptedException {
+        drainOutbox();
+        recordingEmailTransport.clear();
+        EmailOutboxDispatcher dispatcher = createDispatcher();
+        try {
+            recordingEmailTransport.setFailureNumber(1);
+            emailOutboxStore.enqueueMessage("outbox-retry@test.com", "subject", "body");
+            dispatcher.dispatch();
+            Assert.assertEquals(1, recordingEmailTransport.getAttemptNumber());
+            Assert.assertEquals(1L, dispatcher.getRetryCount());
+            Assert.assertEquals(1L, emailOutboxStore.countPendingMessages());
+
+            dispatcher.dispatch();
+            Assert.assertEquals(1, recordingEmailTransport.getAttemptNumber());
+
+            Thread.sleep(BACKOFF + WAIT_MARGIN);
+            dispatcher.dispatch();
+            Assert.assertEquals(1, recordingEmailTransport.getSentNumber());
+            Assert.assertEquals(1L, dispatcher.getSentCount());
+            Assert.assertEquals(0L, emailOutboxStore.countPendingMessages());
+
+            recordingEmailTransport.setFailureNumber(MAX_ATTEMPTS);
+            emailOutboxStore.enqueueMessage("outbox-failure@test.com", "subject", "body");
+            dispatcher.dispatch();
+            Thread.sleep(BACKOFF + WAIT_MARGIN);
+            dispatcher.dispatch();
+            Assert.assertEquals(1 + 1 + MAX_ATTEMPTS, recordingEmailTransport.getAttemptNumber());
+            Assert.assertEquals(1L, dispatcher.getFailedCount());
+            Assert.assertEquals(0L, emailOutboxStore.countPendingMessages());
+
+            Thread.sleep(BACKOFF + WAIT_MARGIN);
+            dispatcher.dispatch();
+            Assert.assertEquals(1, recordingEmailTransport.getSentNumber());
+
+            Assert.assertEquals(0L, dispatcher.purgeFailedMessages());
+            dispatcher.setFailedRetention(1L);
+            Thread.sleep(WAIT_MARGIN);
+            Assert.assertEquals(1L, dispatcher.purgeFailedMessages());
+            Assert.assertEquals(1L, dispatcher.getPurgedCount());
+        } finally {
+            dispatcher.stop();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.sweeper.ExpiredVerificationDataSweeper;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link ExpiredVerificationDataSweeper} and its store.
+ */
+public interface ExpiredVerificationDataSweeperTest {
+
+    /**
+     * Seed email addresses with expired, verified, pending and without verification data. Check only the expired
+     * verification data is found and reclaimed: its token does not verify any more and the email address can be
+     * requested again, while the other email addresses keep their verification data.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the expiration date.
+     */
+    @Test
+    void testReclaimExpiredVerifiableData() throws InterruptedException;
+
+    /**
+     * Check the sweeper walks the expired email address data by keyset pagination in chunks, does not select a
+     * not reclaimed email address data again in the same run and reports the reclaimed rows per run.
+     */
+    @Test
+    void testSweepChunks();
+}
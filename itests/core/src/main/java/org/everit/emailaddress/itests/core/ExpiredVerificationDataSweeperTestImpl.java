@@ -0,0 +1,217 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Arrays;
+import java.util.Date;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.dto.EmailVerificationResult;
+import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.core.sweeper.ExpiredVerificationDataStore;
+import org.everit.emailaddress.core.sweeper.ExpiredVerificationDataSweeper;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Implementation of {@link ExpiredVerificationDataSweeperTest}.
+ */
+public class ExpiredVerificationDataSweeperTestImpl implements ExpiredVerificationDataSweeperTest {
+
+    /**
+     * The template of the verification emails. The first line is the accept token.
+     */
+    private static final String MESSAGE_TEMPLATE = "$acceptToken\n$rejectToken";
+
+    /**
+     * The validity of the tokens in milliseconds.
+     */
+    private static final long TOKEN_VALIDITY = 86400000L;
+
+    /**
+     * The verification length in seconds.
+     */
+    private static final long VERIFICATION_LENGTH = 3600L;
+
+    /**
+     * The time between the expired and the pending verification requests and the expiration date in milliseconds.
+     */
+    private static final long EXPIRATION_GAP = 100L;
+
+    /**
+     * The maximum number of the found email address data in the reclaim test.
+     */
+    private static final int MAX_FOUND_NUMBER = 100;
+
+    /**
+     * The retention time of the stubSweeper in milliseconds. Must be the same as the retentionTime of the stubSweeper
+     * bean.
+     */
+    private static final long STUB_RETENTION_TIME = 60000L;
+
+    /**
+     * The ids of the expired email address data in the stub store.
+     */
+    private static final long[] STUB_EXPIRED_EMAIL_ADDRESS_IDS = { 1L, 2L, 3L, 4L, 6L, 7L };
+
+    /**
+     * The id of the email address data in the stub store that is found but not reclaimed.
+     */
+    private static final long STUB_PINNED_EMAIL_ADDRESS_ID = 5L;
+
+    /**
+     * The email address data service that creates the verification data.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link RecordingEmailTransport} of the emailAddressDataService.
+     */
+    private RecordingEmailTransport recordingEmailTransport;
+
+    /**
+     * The {@link ExpiredVerificationDataStore} of the reclaim test.
+     */
+    private ExpiredVerificationDataStore expiredVerificationDataStore;
+
+    /**
+     * The sweeper with the stubStore. Chunk size 3.
+     */
+    private ExpiredVerificationDataSweeper stubSweeper;
+
+    /**
+     * The store of the stubSweeper.
+     */
+    private StubExpiredVerificationDataStore stubStore;
+
+    /**
+     * Creating a verification request of the email address and returning its accept token.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @return the accept token.
+     */
+    private String createVerificationRequest(final long emailAddressId) {
+        emailAddressDataService.createVerificationRequest(emailAddressId, MESSAGE_TEMPLATE,
+                new Date(System.currentTimeMillis() + TOKEN_VALIDITY), VERIFICATION_LENGTH,
+                VerificationLengthBase.REQUEST_CREATION);
+        return recordingEmailTransport.getLastBody().split("\n")[0];
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setExpiredVerificationDataStore(final ExpiredVerificationDataStore expiredVerificationDataStore) {
+        this.expiredVerificationDataStore = expiredVerificationDataStore;
+    }
+
+    public void setRecordingEmailTransport(final RecordingEmailTransport recordingEmailTransport) {
+        this.recordingEmailTransport = recordingEmailTransport;
+    }
+
+    public void setStubStore(final StubExpiredVerificationDataStore stubStore) {
+        this.stubStore = stubStore;
+    }
+
+    public void setStubSweeper(final ExpiredVerificationDataSweeper stubSweeper) {
+        this.stubSweeper = stubSweeper;
+    }
+
+    @Override
+    public void testReclaimExpiredVerifiableData() throws InterruptedException {
+        String prefix = "sweeper" + System.nanoTime();
+        long[] emailAddressIds = emailAddressDataService.saveEmailAddresses(Arrays.asList(
+                prefix + "-expired@test.com", prefix + "-verified@test.com", prefix + "-pending@test.com",
+                prefix + "-unrequested@test.com"));
+        long expiredEmailAddressId = emailAddressIds[0];
+        long verifiedEmailAddressId = emailAddressIds[1];
+        long pendingEmailAddressId = emailAddressIds[2];
+
+        String expiredToken = createVerificationRequest(expiredEmailAddressId);
+        String verifiedToken = createVerificationRequest(verifiedEmailAddressId);
+        Assert.assertEquals(ConfirmationResult.SUCCESS,
+                emailAddressDataService.verifyEmailAddress(verifiedToken).getResult());
+        Thread.sleep(EXPIRATION_GAP);
+        Date expirationDate = new Date();
+        Thread.sleep(EXPIRATION_GAP);
+        String pendingToken = createVerificationRequest(pendingEmailAddressId);
+
+        long lastEmailAddressId = expiredEmailAddressId - 1;
+        Assert.assertTrue(Arrays.equals(new long[] { expiredEmailAddressId }, expiredVerificationDataStore
+                .findExpiredEmailAddressIds(lastEmailAddressId, MAX_FOUND_NUMBER, expirationDate)));
+        Assert.assertEquals(1, expiredVerificationDataStore.reclaimExpiredVerifiableData(emailAddressIds,
+                expirationDate));
+        Assert.assertEquals(0, expiredVerificationDataStore
+                .findExpiredEmailAddressIds(lastEmailAddressId, MAX_FOUND_NUMBER, expirationDate).length);
+        Assert.assertEquals(0, expiredVerificationDataStore.reclaimExpiredVerifiableData(emailAddressIds,
+                expirationDate));
+
+        EmailVerificationResult verificationResult = emailAddressDataService.verifyEmailAddress(expiredToken);
+        Assert.assertEquals(ConfirmationResult.FAILED, verificationResult.getResult());
+        Assert.assertNull(verificationResult.getEmailAddressId());
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(expiredEmailAddressId));
+        Assert.assertTrue(emailAddressDataService.isEmailAddressVerified(verifiedEmailAddressId));
+
+        verificationResult = emailAddressDataService.verifyEmailAddress(pendingToken);
+        Assert.assertEquals(ConfirmationResult.SUCCESS, verificationResult.getResult());
+        Assert.assertEquals(Long.valueOf(pendingEmailAddressId), verificationResult.getEmailAddressId());
+
+        verificationResult = emailAddressDataService.verifyEmailAddress(
+                createVerificationRequest(expiredEmailAddressId));
+        Assert.assertEquals(ConfirmationResult.SUCCESS, verificationResult.getResult());
+        Assert.assertEquals(Long.valueOf(expiredEmailAddressId), verificationResult.getEmailAddressId());
+    }
+
+    @Override
+    public void testSweepChunks() {
+        stubStore.clear();
+        for (long emailAddressId : STUB_EXPIRED_EMAIL_ADDRESS_IDS) {
+            stubStore.addExpiredEmailAddressId(emailAddressId);
+        }
+        stubStore.pinEmailAddressId(STUB_PINNED_EMAIL_ADDRESS_ID);
+        long runCount = stubSweeper.getRunCount();
+        long reclaimedCount = stubSweeper.getReclaimedCount();
+
+        long startTime = System.currentTimeMillis();
+        Assert.assertEquals(STUB_EXPIRED_EMAIL_ADDRESS_IDS.length, stubSweeper.sweep());
+        long endTime = System.currentTimeMillis();
+        Assert.assertEquals(Arrays.asList(3, 3, 1), stubStore.getReclaimChunkSizes());
+        Assert.assertEquals(3, stubStore.getFindNumber());
+        long expirationTime = stubStore.getLastExpirationDate().getTime();
+        Assert.assertTrue(expirationTime >= (startTime - STUB_RETENTION_TIME));
+        Assert.assertTrue(expirationTime <= (endTime - STUB_RETENTION_TIME));
+        Assert.assertEquals(STUB_EXPIRED_EMAIL_ADDRESS_IDS.length, stubSweeper.getLastReclaimedNumber());
+        Assert.assertEquals(reclaimedCount + STUB_EXPIRED_EMAIL_ADDRESS_IDS.length, stubSweeper.getReclaimedCount());
+        Assert.assertEquals(runCount + 1, stubSweeper.getRunCount());
+
+        stubStore.getReclaimChunkSizes().clear();
+        Assert.assertEquals(0L, stubSweeper.sweep());
+        Assert.assertEquals(Arrays.asList(1), stubStore.getReclaimChunkSizes());
+        Assert.assertEquals(0L, stubSweeper.getLastReclaimedNumber());
+        Assert.assertEquals(reclaimedCount + STUB_EXPIRED_EMAIL_ADDRESS_IDS.length, stubSweeper.getReclaimedCount());
+        Assert.assertEquals(runCount + 2, stubSweeper.getRunCount());
+        Assert.assertEquals(0L, stubSweeper.getFailedRunCount());
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.metrics.LatencyHistogram;
+import org.everit.emailaddress.core.metrics.MonitoredEmailAddressDataService;
+import org.everit.emailaddress.core.metrics.OperationMetrics;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link LatencyHistogram}, the {@link OperationMetrics} and the
+ * {@link MonitoredEmailAddressDataService}.
+ */
+public interface OperationMetricsTest {
+
+    /**
+     * Record latencies from more threads at the same time. Test that no recorded latency is lost: the count, the
+     * mean, the maximum and the bucket counts match the recorded latencies.
+     */
+    @Test
+    void testConcurrentRecording();
+
+    /**
+     * Record known latencies. Test the exact small buckets, that the reported percentiles are not lower than the
+     * real values and at most 25 percent higher, the mean, the maximum, the reset and the wrong parameters.
+     */
+    @Test
+    void testLatencyHistogram();
+
+    /**
+     * Call successful and failing operations through the {@link MonitoredEmailAddressDataService}. Test that both
+     * the successful and the failed calls are counted, the failed calls by exception class, and the confirmation
+     * results of the verifications.
+     */
+    @Test
+    void testMonitoredService();
+}
@@ -0,0 +1,236 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.api.exceptions.InvalidEmailAddressException;
+import org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException;
+import org.everit.emailaddress.core.metrics.EmailAddressDataServiceMetrics;
+import org.everit.emailaddress.core.metrics.LatencyHistogram;
+import org.everit.emailaddress.core.metrics.MonitoredEmailAddressDataService;
+import org.everit.emailaddress.core.metrics.OperationMetrics;
+
+/**
+ * Implementation of {@link OperationMetricsTest}.
+ */
+public class OperationMetricsTestImpl implements OperationMetricsTest {
+
+    /**
+     * The number of the threads of the concurrent recording test.
+     */
+    private static final int THREAD_NUMBER = 8;
+
+    /**
+     * The number of the latencies recorded by one thread of the concurrent recording test.
+     */
+    private static final int RECORD_NUMBER = 10000;
+
+    /**
+     * The number of the random latencies of the percentile accuracy test.
+     */
+    private static final int RANDOM_LATENCY_NUMBER = 10000;
+
+    /**
+     * The number of the latencies that have their own bucket.
+     */
+    private static final int SMALL_BUCKET_NUMBER = 4;
+
+    /**
+     * The largest latency of the sequential latencies of the histogram test.
+     */
+    private static final int SEQUENCE_LENGTH = 1000;
+
+    /**
+     * The {@link EmailAddressDataService} instance.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * Asserts the reported percentile is not lower than the latency and at most 25 percent higher.
+     * 
+     * @param latency
+     *            the real latency.
+     * @param percentile
+     *            the reported percentile.
+     */
+    private void assertBucketAccuracy(final long latency, final long percentile) {
+        Assert.assertTrue("Percentile " + percentile + " is lower than " + latency, percentile >= latency);
+        Assert.assertTrue("Percentile " + percentile + " is too high for " + latency,
+                percentile <= (latency + (latency / 4)));
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    @Override
+    public void testConcurrentRecording() {
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREAD_NUMBER];
+        for (int i = 0; i < THREAD_NUMBER; i++) {
+            final long threadLatency = i + 1;
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < RECORD_NUMBER; j++) {
+                        latencyHistogram.record(threadLatency);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Assert.fail("Interrupted while waiting for the recording threads.");
+            }
+        }
+
+        Assert.assertEquals(THREAD_NUMBER * RECORD_NUMBER, latencyHistogram.getCount());
+        Assert.assertEquals(THREAD_NUMBER, latencyHistogram.getMax());
+        Assert.assertEquals((THREAD_NUMBER + 1) / 2.0, latencyHistogram.getMean(), 0.0);
+        Assert.assertEquals(THREAD_NUMBER, latencyHistogram.getPercentile(100.0));
+        Assert.assertEquals(1L, latencyHistogram.getPercentile(100.0 / THREAD_NUMBER));
+        Assert.assertEquals(THREAD_NUMBER / 2, latencyHistogram.getPercentile(50.0));
+    }
+
+    @Override
+    public void testLatencyHistogram() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        Assert.assertEquals(0L, latencyHistogram.getPercentile(50.0));
+        Assert.assertEquals(0.0, latencyHistogram.getMean(), 0.0);
+
+        for (int i = 1; i <= SEQUENCE_LENGTH; i++) {
+            latencyHistogram.record(i);
+        }
+        Assert.assertEquals(SEQUENCE_LENGTH, latencyHistogram.getCount());
+        Assert.assertEquals(SEQUENCE_LENGTH, latencyHistogram.getMax());
+        Assert.assertEquals((SEQUENCE_LENGTH + 1) / 2.0, latencyHistogram.getMean(), 0.0);
+        Assert.assertEquals(1L, latencyHistogram.getPercentile(0.0));
+        assertBucketAccuracy(SEQUENCE_LENGTH / 2, latencyHistogram.getPercentile(50.0));
+        assertBucketAccuracy((SEQUENCE_LENGTH * 95) / 100, latencyHistogram.getPercentile(95.0));
+        assertBucketAccuracy((SEQUENCE_LENGTH * 99) / 100, latencyHistogram.getPercentile(99.0));
+        Assert.assertEquals(SEQUENCE_LENGTH, latencyHistogram.getPercentile(100.0));
+
+        Random random = new Random(0L);
+        for (int i = 0; i < RANDOM_LATENCY_NUMBER; i++) {
+            long latency = random.nextLong() >>> (2 + random.nextInt(Long.SIZE - 2));
+            LatencyHistogram singleLatencyHistogram = new LatencyHistogram();
+            singleLatencyHistogram.record(latency);
+            singleLatencyHistogram.record(Long.MAX_VALUE);
+            assertBucketAccuracy(latency, singleLatencyHistogram.getPercentile(50.0));
+        }
+
+        latencyHistogram.reset();
+        Assert.assertEquals(0L, latencyHistogram.getCount());
+        Assert.assertEquals(0L, latencyHistogram.getMax());
+        latencyHistogram.record(-1L);
+        latencyHistogram.record(1L);
+        latencyHistogram.record(2L);
+        latencyHistogram.record(SMALL_BUCKET_NUMBER - 1);
+        Assert.assertEquals(0L, latencyHistogram.getPercentile(25.0));
+        Assert.assertEquals(1L, latencyHistogram.getPercentile(50.0));
+        Assert.assertEquals(2L, latencyHistogram.getPercentile(75.0));
+        Assert.assertEquals(SMALL_BUCKET_NUMBER - 1, latencyHistogram.getPercentile(100.0));
+
+        try {
+            latencyHistogram.getPercentile(100.5);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            latencyHistogram.getPercentile(-0.5);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testMonitoredService() {
+        EmailAddressDataServiceMetrics metrics = new EmailAddressDataServiceMetrics();
+        MonitoredEmailAddressDataService monitoredEmailAddressDataService =
+                new MonitoredEmailAddressDataService(emailAddressDataService, metrics);
+
+        long emailAddressId = monitoredEmailAddressDataService.saveEmailAddress("metrics@everit.org");
+        try {
+            monitoredEmailAddressDataService.saveEmailAddress("metrics");
+            Assert.fail("Expect InvalidEmailAddressException, but the method not throws.");
+        } catch (InvalidEmailAddressException e) {
+            Assert.assertNotNull(e);
+        }
+        OperationMetrics saveEmailAddressMetrics = metrics.getOperationMetrics("saveEmailAddress");
+        Assert.assertEquals(2L, saveEmailAddressMetrics.getCallCount());
+        Assert.assertEquals(1L, saveEmailAddressMetrics.getErrorCount());
+        Assert.assertEquals(Long.valueOf(1L),
+                saveEmailAddressMetrics.getErrorCounts().get(InvalidEmailAddressException.class.getName()));
+
+        Assert.assertFalse(monitoredEmailAddressDataService.isEmailAddressVerified(emailAddressId));
+        try {
+            monitoredEmailAddressDataService.isEmailAddressVerified(-1L);
+            Assert.fail("Expect NoSuchEmailAddressDataException, but the method not throws.");
+        } catch (NoSuchEmailAddressDataException e) {
+            Assert.assertNotNull(e);
+        }
+        OperationMetrics isEmailAddressVerifiedMetrics = metrics.getOperationMetrics("isEmailAddressVerified");
+        Assert.assertEquals(2L, isEmailAddressVerifiedMetrics.getCallCount());
+        Assert.assertEquals(1L, isEmailAddressVerifiedMetrics.getErrorCount());
+        Assert.assertEquals(Long.valueOf(1L),
+                isEmailAddressVerifiedMetrics.getErrorCounts().get(NoSuchEmailAddressDataException.class.getName()));
+
+        Assert.assertEquals(ConfirmationResult.FAILED,
+                monitoredEmailAddressDataService.verifyEmailAddress(UUID.randomUUID().toString()).getResult());
+        Assert.assertEquals(Long.valueOf(1L),
+                metrics.getConfirmationResultCounts().get(ConfirmationResult.FAILED.name()));
+        Assert.assertEquals(Long.valueOf(0L),
+                metrics.getConfirmationResultCounts().get(ConfirmationResult.SUCCESS.name()));
+
+        monitoredEmailAddressDataService.invalidateEmailAddress(emailAddressId);
+        Assert.assertEquals(6L, metrics.getCallCount());
+        Assert.assertEquals(2L, metrics.getErrorCount());
+        Assert.assertTrue(metrics.getOperationMetrics("invalidateEmailAddress").getMaxLatencyMicros() > 0.0);
+
+        metrics.reset();
+        Assert.assertEquals(0L, metrics.getCallCount());
+        Assert.assertEquals(0L, metrics.getErrorCount());
+        Assert.assertTrue(saveEmailAddressMetrics.getErrorCounts().isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.everit.emailaddress.core.mail.EmailTransport;
+
+/**
+ * {@link EmailTransport} of the tests that records the bodies of the sent emails instead of sending them. The first
+ * failureNumber sendings fail with {@link IllegalStateException}.
+ */
+public class RecordingEmailTransport implements EmailTransport {
+
+    /**
+     * The bodies of the successfully sent emails. Guarded by this.
+     */
+    private final List<String> bodies = new ArrayList<String>();
+
+    /**
+     * The number of the sendings that fail before the first successful sending. Guarded by this.
+     */
+    private int failureNumber;
+
+    /**
+     * The number of the sending attempts. Guarded by this.
+     */
+    private int attemptNumber;
+
+    /**
+     * Removes the recorded bodies and resets the failures.
+     */
+    public synchronized void clear() {
+        bodies.clear();
+        failureNumber = 0;
+        attemptNumber = 0;
+    }
+
+    public synchronized int getAttemptNumber() {
+        return attemptNumber;
+    }
+
+    /**
+     * Get the body of the last sent email.
+     * 
+     * @return the body of the last sent email or <code>null</code> if no email was sent.
+     */
+    public synchronized String getLastBody() {
+        if (bodies.isEmpty()) {
+            return null;
+        }
+        return bodies.get(bodies.size() - 1);
+    }
+
+    public synchronized int getSentNumber() {
+        return bodies.size();
+    }
+
+    @Override
+    public synchronized void sendEmail(final String receiverEmailAddress, final String subject, final String body) {
+        attemptNumber++;
+        if (failureNumber > 0) {
+            failureNumber--;
+            throw new IllegalStateException("Sending failure of the test");
+        }
+        bodies.add(body);
+    }
+
+    public synchronized void setFailureNumber(final int failureNumber) {
+        this.failureNumber = failureNumber;
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.concurrent.ExecutionException;
+
+import org.everit.emailaddress.core.EmailAddressDataServiceImpl;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the read replica routing of the {@link EmailAddressDataServiceImpl}.
+ */
+public interface ReplicaRoutingTest {
+
+    /**
+     * Check the writing thread queries the primary database within the staleness tolerance and the replica after it.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted while waiting for the end of the staleness tolerance.
+     */
+    @Test
+    void testReadYourWrites() throws InterruptedException;
+
+    /**
+     * Check the staleness tolerance is tracked per thread: an other thread queries the replica right after the write.
+     * 
+     * @throws InterruptedException
+     *             if the test is interrupted.
+     * @throws ExecutionException
+     *             if the query of the other thread fails.
+     */
+    @Test
+    void testOtherThreadReadsReplica() throws InterruptedException, ExecutionException;
+}
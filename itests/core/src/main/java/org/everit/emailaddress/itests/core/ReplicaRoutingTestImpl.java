@@ -0,0 +1,101 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+
+/**
+ * Implementation of {@link ReplicaRoutingTest}.
+ */
+public class ReplicaRoutingTestImpl implements ReplicaRoutingTest {
+
+    /**
+     * The staleness tolerance of the emailAddressDataService in milliseconds.
+     */
+    private static final long REPLICA_STALENESS_TOLERANCE = 1000L;
+
+    /**
+     * The maximum value of the random.
+     */
+    private static final int MAX_RANDOM_VALUE = 1000000;
+
+    /**
+     * The email address data service with the replica.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link CountingEntityManager} of the replica of the emailAddressDataService.
+     */
+    private CountingEntityManager replicaEntityManager;
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setReplicaEntityManager(final CountingEntityManager replicaEntityManager) {
+        this.replicaEntityManager = replicaEntityManager;
+    }
+
+    @Override
+    public void testOtherThreadReadsReplica() throws InterruptedException, ExecutionException {
+        final String emailAddress = "replica-thread" + new Random().nextInt(MAX_RANDOM_VALUE) + "@everit.biz";
+        long emailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        int callNumber = replicaEntityManager.getCallNumber();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Long foundEmailAddressId = executorService.submit(new Callable<Long>() {
+
+                @Override
+                public Long call() {
+                    return emailAddressDataService.findEmailAddressId(emailAddress);
+                }
+            }).get();
+            Assert.assertEquals(Long.valueOf(emailAddressId), foundEmailAddressId);
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertTrue(replicaEntityManager.getCallNumber() > callNumber);
+    }
+
+    @Override
+    public void testReadYourWrites() throws InterruptedException {
+        String emailAddress = "replica" + new Random().nextInt(MAX_RANDOM_VALUE) + "@everit.biz";
+        int callNumber = replicaEntityManager.getCallNumber();
+        long emailAddressId = emailAddressDataService.saveEmailAddress(emailAddress);
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        Assert.assertEquals(callNumber, replicaEntityManager.getCallNumber());
+
+        Thread.sleep(REPLICA_STALENESS_TOLERANCE * 2);
+        Assert.assertEquals(Long.valueOf(emailAddressId), emailAddressDataService.findEmailAddressId(emailAddress));
+        Assert.assertTrue(replicaEntityManager.getCallNumber() > callNumber);
+    }
+}
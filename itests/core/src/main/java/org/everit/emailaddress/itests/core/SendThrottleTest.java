@@ -0,0 +1,60 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.throttle.KeyedRateLimiter;
+import org.everit.emailaddress.core.throttle.SendThrottle;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link KeyedRateLimiter} and the {@link SendThrottle} with explicit times.
+ */
+public interface SendThrottleTest {
+
+    /**
+     * Fill the buckets of a full limiter with busy and with idle buckets. Test that the idle buckets are removed
+     * first, the busy buckets are evicted only if no bucket is idle and the number of the buckets is bounded.
+     */
+    @Test
+    void testEviction();
+
+    /**
+     * Acquire tokens of a key at explicit times. Test the burst of a new key, the rejection of the empty bucket, the
+     * refill after the emission interval and the full bucket after the period. Test the wrong parameters.
+     */
+    @Test
+    void testRateLimiter();
+
+    /**
+     * Release the token of a key once and more than once. Test that a release gives back the taken token and the
+     * repeated releases, also after a change of the period, do not fill the bucket over the limit.
+     */
+    @Test
+    void testRelease();
+
+    /**
+     * Acquire tokens for more email addresses of a domain. Test that the email address token is given back when the
+     * domain is throttled and the throttled counters.
+     */
+    @Test
+    void testSendThrottle();
+}
@@ -0,0 +1,182 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.core.throttle.KeyedRateLimiter;
+import org.everit.emailaddress.core.throttle.SendThrottle;
+
+/**
+ * Implementation of {@link SendThrottleTest}.
+ */
+public class SendThrottleTestImpl implements SendThrottleTest {
+
+    /**
+     * The limit of the rate limiter tests.
+     */
+    private static final int LIMIT = 3;
+
+    /**
+     * The emission interval of the rate limiter tests in milliseconds.
+     */
+    private static final long EMISSION_INTERVAL = 1000L;
+
+    /**
+     * The start time of the tests.
+     */
+    private static final long START_TIME = 1000000L;
+
+    /**
+     * Creating a rate limiter with {@link #LIMIT} acquisitions in {@link #LIMIT} emission intervals.
+     * 
+     * @param capacity
+     *            the maximum number of the buckets.
+     * @return the rate limiter.
+     */
+    private KeyedRateLimiter createRateLimiter(final int capacity) {
+        KeyedRateLimiter keyedRateLimiter = new KeyedRateLimiter(capacity);
+        keyedRateLimiter.setLimit(LIMIT);
+        keyedRateLimiter.setPeriod(LIMIT * EMISSION_INTERVAL);
+        return keyedRateLimiter;
+    }
+
+    @Override
+    public void testEviction() {
+        KeyedRateLimiter keyedRateLimiter = createRateLimiter(2);
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("idle", START_TIME));
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("busy", START_TIME + EMISSION_INTERVAL));
+        Assert.assertEquals(2, keyedRateLimiter.getBucketNumber());
+
+        long time = START_TIME + (EMISSION_INTERVAL + (EMISSION_INTERVAL / 2));
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("new", time));
+        Assert.assertEquals(2, keyedRateLimiter.getBucketNumber());
+        Assert.assertEquals(0L, keyedRateLimiter.getEvictionCount());
+
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("other", time));
+        Assert.assertEquals(2, keyedRateLimiter.getBucketNumber());
+        Assert.assertEquals(1L, keyedRateLimiter.getEvictionCount());
+
+        keyedRateLimiter.clear();
+        Assert.assertEquals(0, keyedRateLimiter.getBucketNumber());
+        Assert.assertEquals(2, keyedRateLimiter.getCapacity());
+    }
+
+    @Override
+    public void testRateLimiter() {
+        KeyedRateLimiter keyedRateLimiter = createRateLimiter(LIMIT);
+        for (int i = 0; i < LIMIT; i++) {
+            Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        }
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", START_TIME));
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", (START_TIME + EMISSION_INTERVAL) - 1L));
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("other", START_TIME));
+
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME + EMISSION_INTERVAL));
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", START_TIME + EMISSION_INTERVAL));
+
+        long time = START_TIME + (LIMIT * EMISSION_INTERVAL * 2);
+        for (int i = 0; i < LIMIT; i++) {
+            Assert.assertTrue(keyedRateLimiter.tryAcquire("key", time));
+        }
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", time));
+        Assert.assertEquals((LIMIT * 2) + 2, keyedRateLimiter.getGrantedCount());
+        Assert.assertEquals(4L, keyedRateLimiter.getRejectedCount());
+
+        try {
+            keyedRateLimiter.tryAcquire(null, START_TIME);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            keyedRateLimiter.setLimit(0);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+        try {
+            new KeyedRateLimiter(0);
+            Assert.fail("Expect IllegalArgumentException, but the method not throws.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e);
+        }
+    }
+
+    @Override
+    public void testRelease() {
+        KeyedRateLimiter keyedRateLimiter = createRateLimiter(LIMIT);
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        keyedRateLimiter.release("key", START_TIME);
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", START_TIME));
+
+        keyedRateLimiter.release("key", START_TIME);
+        keyedRateLimiter.release("key", START_TIME);
+        keyedRateLimiter.release("key", START_TIME);
+        keyedRateLimiter.release("key", START_TIME);
+        keyedRateLimiter.release("key", START_TIME);
+        for (int i = 0; i < LIMIT; i++) {
+            Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        }
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", START_TIME));
+
+        keyedRateLimiter.setPeriod(LIMIT * EMISSION_INTERVAL * 2);
+        keyedRateLimiter.release("key", START_TIME);
+        keyedRateLimiter.release("key", START_TIME);
+        for (int i = 0; i < LIMIT; i++) {
+            Assert.assertTrue(keyedRateLimiter.tryAcquire("key", START_TIME));
+        }
+        Assert.assertFalse(keyedRateLimiter.tryAcquire("key", START_TIME));
+
+        keyedRateLimiter.release("unknown", START_TIME);
+        Assert.assertEquals(1, keyedRateLimiter.getBucketNumber());
+    }
+
+    @Override
+    public void testSendThrottle() {
+        SendThrottle sendThrottle = new SendThrottle(LIMIT, LIMIT);
+        sendThrottle.setRecipientLimit(2);
+        sendThrottle.setRecipientPeriod(EMISSION_INTERVAL * 1000L);
+        sendThrottle.setDomainLimit(1);
+        sendThrottle.setDomainPeriod(EMISSION_INTERVAL);
+
+        Assert.assertTrue(sendThrottle.tryAcquire("a@everit.org", START_TIME));
+        Assert.assertFalse(sendThrottle.tryAcquire("b@everit.org", START_TIME));
+        Assert.assertEquals(1L, sendThrottle.getThrottledDomainCount());
+        Assert.assertTrue(sendThrottle.tryAcquire("b@other.everit.org", START_TIME));
+
+        Assert.assertTrue(sendThrottle.tryAcquire("b@everit.org", START_TIME + EMISSION_INTERVAL));
+        Assert.assertTrue(sendThrottle.tryAcquire("b@everit.org", START_TIME + (EMISSION_INTERVAL * 2)));
+        Assert.assertFalse(sendThrottle.tryAcquire("b@everit.org", START_TIME + (EMISSION_INTERVAL * 3)));
+        Assert.assertEquals(1L, sendThrottle.getThrottledRecipientCount());
+
+        sendThrottle.release("b@everit.org", START_TIME + (EMISSION_INTERVAL * 3));
+        Assert.assertTrue(sendThrottle.tryAcquire("b@everit.org", START_TIME + (EMISSION_INTERVAL * 3)));
+        Assert.assertEquals(1L, sendThrottle.getThrottledDomainCount());
+
+        sendThrottle.clear();
+        Assert.assertTrue(sendThrottle.tryAcquire("b@everit.org", START_TIME + (EMISSION_INTERVAL * 3)));
+    }
+}
@@ -0,0 +1,326 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DNS server of the tests on the loopback interface that answers the UDP queries from the configured records, so the
+ * {@link org.everit.emailaddress.core.domain.DnsDomainDeliverabilityChecker} can be tested without the network. The
+ * domains without records are answered with name error, the failing domains with server failure. Only the queries
+ * of one question are supported.
+ */
+public class StubDnsServer implements Runnable {
+
+    /**
+     * The A record type.
+     */
+    private static final int TYPE_A = 1;
+
+    /**
+     * The MX record type.
+     */
+    private static final int TYPE_MX = 15;
+
+    /**
+     * The query type of all records.
+     */
+    private static final int TYPE_ANY = 255;
+
+    /**
+     * The Internet class.
+     */
+    private static final int CLASS_IN = 1;
+
+    /**
+     * The flags of the responses: response, recursion desired and recursion available.
+     */
+    private static final int RESPONSE_FLAGS = 0x8180;
+
+    /**
+     * The response code of the server failure.
+     */
+    private static final int SERVER_FAILURE = 2;
+
+    /**
+     * The response code of the not existing domains.
+     */
+    private static final int NAME_ERROR = 3;
+
+    /**
+     * The size of the DNS header in bytes.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * The maximum size of the UDP messages in bytes.
+     */
+    private static final int MAX_MESSAGE_SIZE = 512;
+
+    /**
+     * The pointer to the name of the question, which is right after the header.
+     */
+    private static final int QUESTION_NAME_POINTER = 0xC000 | HEADER_SIZE;
+
+    /**
+     * The time to live of the answers in seconds.
+     */
+    private static final int TIME_TO_LIVE = 60;
+
+    /**
+     * The mask of the unsigned byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The number of the bits in a byte.
+     */
+    private static final int BYTE_SIZE = 8;
+
+    /**
+     * The address of the A records.
+     */
+    private static final byte[] ADDRESS = new byte[] { (byte) 192, 0, 2, 1 };
+
+    /**
+     * Encoding the domain name in the DNS wire format.
+     * 
+     * @param out
+     *            the output of the encoded name.
+     * @param name
+     *            the domain name. The root is <code>.</code>.
+     * @throws IOException
+     *             if the output fails.
+     */
+    private static void writeName(final DataOutputStream out, final String name) throws IOException {
+        for (String label : name.split("\\.")) {
+            if (label.length() > 0) {
+                out.writeByte(label.length());
+                out.writeBytes(label);
+            }
+        }
+        out.writeByte(0);
+    }
+
+    /**
+     * The RDATA of the MX records by domain.
+     */
+    private final Map<String, List<byte[]>> mxRecords = new ConcurrentHashMap<String, List<byte[]>>();
+
+    /**
+     * The domains with A record.
+     */
+    private final Set<String> addressDomains = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The domains answered with server failure.
+     */
+    private final Set<String> failingDomains = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The socket of the server. <code>null</code> if the server is not started.
+     */
+    private DatagramSocket socket;
+
+    /**
+     * Adding an A record to the domain.
+     * 
+     * @param domain
+     *            the domain.
+     */
+    public void addAddressRecord(final String domain) {
+        addressDomains.add(domain.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Configuring the domain to be answered with server failure.
+     * 
+     * @param domain
+     *            the domain.
+     */
+    public void addFailingDomain(final String domain) {
+        failingDomains.add(domain.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Adding an MX record to the domain.
+     * 
+     * @param domain
+     *            the domain.
+     * @param preference
+     *            the preference of the mail exchanger.
+     * @param exchange
+     *            the domain name of the mail exchanger. The null MX is <code>.</code>.
+     * @throws IOException
+     *             if the record cannot be encoded.
+     */
+    public void addMxRecord(final String domain, final int preference, final String exchange) throws IOException {
+        ByteArrayOutputStream rdata = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(rdata);
+        out.writeShort(preference);
+        writeName(out, exchange);
+        String key = domain.toLowerCase(Locale.ENGLISH);
+        List<byte[]> records = mxRecords.get(key);
+        if (records == null) {
+            records = new ArrayList<byte[]>();
+            mxRecords.put(key, records);
+        }
+        records.add(rdata.toByteArray());
+    }
+
+    /**
+     * Creating the response of the query.
+     * 
+     * @param query
+     *            the query.
+     * @param length
+     *            the length of the query.
+     * @return the response or <code>null</code> if the query is not supported.
+     * @throws IOException
+     *             if the response cannot be encoded.
+     */
+    private byte[] createResponse(final byte[] query, final int length) throws IOException {
+        StringBuilder name = new StringBuilder();
+        int position = HEADER_SIZE;
+        while ((position < length) && (query[position] != 0)) {
+            int labelLength = query[position] & BYTE_MASK;
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            name.append(new String(query, position + 1, labelLength, "US-ASCII"));
+            position += labelLength + 1;
+        }
+        int typePosition = position + 1;
+        int questionEnd = typePosition + 4;
+        if (questionEnd > length) {
+            return null;
+        }
+        int type = ((query[typePosition] & BYTE_MASK) << BYTE_SIZE) | (query[typePosition + 1] & BYTE_MASK);
+        String domain = name.toString().toLowerCase(Locale.ENGLISH);
+
+        int responseCode = 0;
+        List<Integer> answerTypes = new ArrayList<Integer>();
+        List<byte[]> answers = new ArrayList<byte[]>();
+        if (failingDomains.contains(domain)) {
+            responseCode = SERVER_FAILURE;
+        } else if (!mxRecords.containsKey(domain) && !addressDomains.contains(domain)) {
+            responseCode = NAME_ERROR;
+        } else {
+            if (((type == TYPE_MX) || (type == TYPE_ANY)) && mxRecords.containsKey(domain)) {
+                for (byte[] rdata : mxRecords.get(domain)) {
+                    answerTypes.add(Integer.valueOf(TYPE_MX));
+                    answers.add(rdata);
+                }
+            }
+            if (((type == TYPE_A) || (type == TYPE_ANY)) && addressDomains.contains(domain)) {
+                answerTypes.add(Integer.valueOf(TYPE_A));
+                answers.add(ADDRESS);
+            }
+        }
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(response);
+        out.write(query, 0, 2);
+        out.writeShort(RESPONSE_FLAGS | responseCode);
+        out.writeShort(1);
+        out.writeShort(answers.size());
+        out.writeShort(0);
+        out.writeShort(0);
+        out.write(query, HEADER_SIZE, questionEnd - HEADER_SIZE);
+        for (int i = 0; i < answers.size(); i++) {
+            out.writeShort(QUESTION_NAME_POINTER);
+            out.writeShort(answerTypes.get(i).intValue());
+            out.writeShort(CLASS_IN);
+            out.writeInt(TIME_TO_LIVE);
+            out.writeShort(answers.get(i).length);
+            out.write(answers.get(i));
+        }
+        return response.toByteArray();
+    }
+
+    /**
+     * Get the URL of the server for the JNDI DNS service provider.
+     * 
+     * @return the URL.
+     */
+    public synchronized String getProviderUrl() {
+        return "dns://127.0.0.1:" + socket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        DatagramSocket currentSocket;
+        synchronized (this) {
+            currentSocket = socket;
+        }
+        byte[] buffer = new byte[MAX_MESSAGE_SIZE];
+        while (!currentSocket.isClosed()) {
+            try {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                currentSocket.receive(packet);
+                byte[] response = createResponse(packet.getData(), packet.getLength());
+                if (response != null) {
+                    currentSocket.send(new DatagramPacket(response, response.length, packet.getSocketAddress()));
+                }
+            } catch (IOException e) {
+                if (!currentSocket.isClosed()) {
+                    throw new IllegalStateException("The DNS server of the test failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starting the server on a free port of the loopback interface.
+     * 
+     * @throws IOException
+     *             if the socket cannot be opened.
+     */
+    public synchronized void start() throws IOException {
+        socket = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"));
+        Thread thread = new Thread(this, "StubDnsServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stopping the server.
+     */
+    public synchronized void stop() {
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+}
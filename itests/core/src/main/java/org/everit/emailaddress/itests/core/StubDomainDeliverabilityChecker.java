@@ -0,0 +1,116 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.everit.emailaddress.api.DomainDeliverabilityChecker;
+
+/**
+ * {@link DomainDeliverabilityChecker} of the tests that answers from the configured domains instead of the DNS. The
+ * lookups can be held back with a gate, so the tests can control the timing of the concurrent lookups.
+ */
+public class StubDomainDeliverabilityChecker implements DomainDeliverabilityChecker {
+
+    /**
+     * The domains that cannot receive email.
+     */
+    private final Set<String> undeliverableDomains = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The domains of which the lookup fails with {@link IllegalStateException}.
+     */
+    private final Set<String> failingDomains = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The number of the lookups.
+     */
+    private final AtomicInteger lookupNumber = new AtomicInteger();
+
+    /**
+     * The gate that the lookups wait for. <code>null</code> if the lookups do not wait.
+     */
+    private volatile CountDownLatch gate;
+
+    public void addFailingDomain(final String domain) {
+        failingDomains.add(domain);
+    }
+
+    public void addUndeliverableDomain(final String domain) {
+        undeliverableDomains.add(domain);
+    }
+
+    /**
+     * Removes the configured domains, opens the gate and resets the number of the lookups.
+     */
+    public void clear() {
+        undeliverableDomains.clear();
+        failingDomains.clear();
+        openGate();
+        lookupNumber.set(0);
+    }
+
+    /**
+     * Closing the gate, so the next lookups wait until the {@link #openGate()} is called.
+     */
+    public void closeGate() {
+        gate = new CountDownLatch(1);
+    }
+
+    public int getLookupNumber() {
+        return lookupNumber.get();
+    }
+
+    @Override
+    public boolean isDeliverable(final String domain) {
+        lookupNumber.incrementAndGet();
+        CountDownLatch currentGate = gate;
+        if (currentGate != null) {
+            try {
+                currentGate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("The lookup of the " + domain + " domain is interrupted.", e);
+            }
+        }
+        if (failingDomains.contains(domain)) {
+            throw new IllegalStateException("Lookup failure of the test");
+        }
+        return !undeliverableDomains.contains(domain);
+    }
+
+    /**
+     * Opening the gate, so the waiting and the next lookups go on.
+     */
+    public void openGate() {
+        CountDownLatch currentGate = gate;
+        gate = null;
+        if (currentGate != null) {
+            currentGate.countDown();
+        }
+    }
+}
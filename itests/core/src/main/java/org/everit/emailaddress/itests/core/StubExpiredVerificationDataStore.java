@@ -0,0 +1,127 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.everit.emailaddress.core.sweeper.ExpiredVerificationDataStore;
+
+/**
+ * {@link ExpiredVerificationDataStore} of the tests that holds the ids of the expired email address data in memory and
+ * records the calls. The pinned ids are found but never reclaimed, like the email address data verified concurrently.
+ * The store is not thread safe.
+ */
+public class StubExpiredVerificationDataStore implements ExpiredVerificationDataStore {
+
+    /**
+     * The ids of the email address data with expired verifiable data.
+     */
+    private final TreeSet<Long> expiredEmailAddressIds = new TreeSet<Long>();
+
+    /**
+     * The ids that are not reclaimed.
+     */
+    private final Set<Long> pinnedEmailAddressIds = new TreeSet<Long>();
+
+    /**
+     * The number of the email address data ids passed to the reclaim calls in the order of the calls.
+     */
+    private final List<Integer> reclaimChunkSizes = new ArrayList<Integer>();
+
+    /**
+     * The number of the find calls.
+     */
+    private int findNumber;
+
+    /**
+     * The expiration date of the last find call.
+     */
+    private Date lastExpirationDate;
+
+    public void addExpiredEmailAddressId(final long emailAddressId) {
+        expiredEmailAddressIds.add(emailAddressId);
+    }
+
+    /**
+     * Removes the ids and the recorded calls.
+     */
+    public void clear() {
+        expiredEmailAddressIds.clear();
+        pinnedEmailAddressIds.clear();
+        reclaimChunkSizes.clear();
+        findNumber = 0;
+        lastExpirationDate = null;
+    }
+
+    @Override
+    public long[] findExpiredEmailAddressIds(final long lastEmailAddressId, final int maxEmailAddressNumber,
+            final Date expirationDate) {
+        findNumber++;
+        lastExpirationDate = expirationDate;
+        List<Long> emailAddressIds = new ArrayList<Long>();
+        for (Long emailAddressId : expiredEmailAddressIds.tailSet(lastEmailAddressId, false)) {
+            if (emailAddressIds.size() == maxEmailAddressNumber) {
+                break;
+            }
+            emailAddressIds.add(emailAddressId);
+        }
+        long[] result = new long[emailAddressIds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = emailAddressIds.get(i);
+        }
+        return result;
+    }
+
+    public int getFindNumber() {
+        return findNumber;
+    }
+
+    public Date getLastExpirationDate() {
+        return lastExpirationDate;
+    }
+
+    public List<Integer> getReclaimChunkSizes() {
+        return reclaimChunkSizes;
+    }
+
+    public void pinEmailAddressId(final long emailAddressId) {
+        expiredEmailAddressIds.add(emailAddressId);
+        pinnedEmailAddressIds.add(emailAddressId);
+    }
+
+    @Override
+    public int reclaimExpiredVerifiableData(final long[] emailAddressIds, final Date expirationDate) {
+        reclaimChunkSizes.add(emailAddressIds.length);
+        int result = 0;
+        for (long emailAddressId : emailAddressIds) {
+            if (!pinnedEmailAddressIds.contains(emailAddressId) && expiredEmailAddressIds.remove(emailAddressId)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import javax.transaction.NotSupportedException;
+import javax.transaction.SystemException;
+
+import org.everit.emailaddress.core.cache.VerificationStatusCache;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link VerificationStatusCache} of the email address data service.
+ */
+public interface VerificationStatusCacheTest {
+
+    /**
+     * Put values read before an invalidation to the cache with the invalidation stamp taken before the read. Test that
+     * these values are not cached and the values of the current stamp are.
+     */
+    @Test
+    void testInvalidationStamp();
+
+    /**
+     * Cache the verification status of an e-mail, create a verification request, verify the e-mail and invalidate it
+     * in separate transactions. Test that every check after a committed change returns the new status.
+     */
+    @Test
+    void testInvalidations();
+
+    /**
+     * Verify an e-mail and check its status in a transaction that is rolled back. Test that the status seen in the
+     * rolled back transaction is not cached.
+     * 
+     * @throws NotSupportedException
+     *             if the transaction cannot be started.
+     * @throws SystemException
+     *             if the transaction cannot be rolled back.
+     */
+    @Test
+    void testRollback() throws NotSupportedException, SystemException;
+}
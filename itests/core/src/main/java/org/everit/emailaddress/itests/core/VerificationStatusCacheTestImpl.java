@@ -0,0 +1,190 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.Date;
+
+import javax.transaction.NotSupportedException;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.api.EmailAddressDataService;
+import org.everit.emailaddress.api.enums.ConfirmationResult;
+import org.everit.emailaddress.api.exceptions.NoSuchEmailAddressDataException;
+import org.everit.emailaddress.core.cache.CachedVerificationStatus;
+import org.everit.emailaddress.core.cache.VerificationStatusCache;
+import org.everit.verifiabledata.api.enums.VerificationLengthBase;
+
+/**
+ * Implementation of {@link VerificationStatusCacheTest}.
+ */
+public class VerificationStatusCacheTestImpl implements VerificationStatusCacheTest {
+
+    /**
+     * The template of the verification emails. The first line is the accept token.
+     */
+    private static final String MESSAGE_TEMPLATE = "$acceptToken\n$rejectToken";
+
+    /**
+     * The validity of the tokens in milliseconds.
+     */
+    private static final long TOKEN_VALIDITY = 86400000L;
+
+    /**
+     * The verification length in seconds.
+     */
+    private static final long VERIFICATION_LENGTH = 3600L;
+
+    /**
+     * The email address id of the invalidation stamp test. Never saved.
+     */
+    private static final long STAMP_TEST_EMAIL_ADDRESS_ID = -100L;
+
+    /**
+     * The email address data service with the verification status cache.
+     */
+    private EmailAddressDataService emailAddressDataService;
+
+    /**
+     * The {@link VerificationStatusCache} of the emailAddressDataService.
+     */
+    private VerificationStatusCache verificationStatusCache;
+
+    /**
+     * The {@link RecordingEmailTransport} of the emailAddressDataService.
+     */
+    private RecordingEmailTransport recordingEmailTransport;
+
+    /**
+     * The {@link TransactionManager} instance.
+     */
+    private TransactionManager transactionManager;
+
+    /**
+     * Creating a verification request of the email address and returning its accept token.
+     * 
+     * @param emailAddressId
+     *            the id of the email address data.
+     * @return the accept token.
+     */
+    private String createVerificationRequest(final long emailAddressId) {
+        emailAddressDataService.createVerificationRequest(emailAddressId, MESSAGE_TEMPLATE,
+                new Date(System.currentTimeMillis() + TOKEN_VALIDITY), VERIFICATION_LENGTH,
+                VerificationLengthBase.REQUEST_CREATION);
+        return recordingEmailTransport.getLastBody().split("\n")[0];
+    }
+
+    public void setEmailAddressDataService(final EmailAddressDataService emailAddressDataService) {
+        this.emailAddressDataService = emailAddressDataService;
+    }
+
+    public void setRecordingEmailTransport(final RecordingEmailTransport recordingEmailTransport) {
+        this.recordingEmailTransport = recordingEmailTransport;
+    }
+
+    public void setTransactionManager(final TransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    public void setVerificationStatusCache(final VerificationStatusCache verificationStatusCache) {
+        this.verificationStatusCache = verificationStatusCache;
+    }
+
+    @Override
+    public void testInvalidationStamp() {
+        long currentTime = System.currentTimeMillis();
+        Date verificationEndDate = new Date(currentTime + TOKEN_VALIDITY);
+
+        long invalidationStamp = verificationStatusCache.getInvalidationStamp(STAMP_TEST_EMAIL_ADDRESS_ID);
+        verificationStatusCache.invalidate(STAMP_TEST_EMAIL_ADDRESS_ID);
+        verificationStatusCache.putVerificationEndDate(STAMP_TEST_EMAIL_ADDRESS_ID, verificationEndDate,
+                invalidationStamp, currentTime);
+        Assert.assertEquals(CachedVerificationStatus.UNKNOWN,
+                verificationStatusCache.getVerificationStatus(STAMP_TEST_EMAIL_ADDRESS_ID, currentTime));
+        verificationStatusCache.putMissing(STAMP_TEST_EMAIL_ADDRESS_ID, invalidationStamp, currentTime);
+        Assert.assertEquals(CachedVerificationStatus.UNKNOWN,
+                verificationStatusCache.getVerificationStatus(STAMP_TEST_EMAIL_ADDRESS_ID, currentTime));
+
+        invalidationStamp = verificationStatusCache.getInvalidationStamp(STAMP_TEST_EMAIL_ADDRESS_ID);
+        verificationStatusCache.putVerificationEndDate(STAMP_TEST_EMAIL_ADDRESS_ID, verificationEndDate,
+                invalidationStamp, currentTime);
+        Assert.assertEquals(CachedVerificationStatus.VERIFIED,
+                verificationStatusCache.getVerificationStatus(STAMP_TEST_EMAIL_ADDRESS_ID, currentTime));
+        verificationStatusCache.invalidate(STAMP_TEST_EMAIL_ADDRESS_ID);
+    }
+
+    @Override
+    public void testInvalidations() {
+        long emailAddressId = emailAddressDataService.saveEmailAddress("cache-invalidation@test.com");
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        long hitCount = verificationStatusCache.getHitCount();
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        Assert.assertEquals(hitCount + 1, verificationStatusCache.getHitCount());
+
+        String acceptToken = createVerificationRequest(emailAddressId);
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        Assert.assertEquals(ConfirmationResult.SUCCESS,
+                emailAddressDataService.verifyEmailAddress(acceptToken).getResult());
+        Assert.assertTrue(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        Assert.assertTrue(emailAddressDataService.areEmailAddressesVerified(new long[] { emailAddressId })
+                .isVerified(0));
+
+        emailAddressDataService.invalidateEmailAddress(emailAddressId);
+        try {
+            emailAddressDataService.isEmailAddressVerified(emailAddressId);
+            Assert.fail("Expect NoSuchEmailAddressDataException, but the method not throws.");
+        } catch (NoSuchEmailAddressDataException e) {
+            Assert.assertNotNull(e);
+        }
+        Assert.assertTrue(emailAddressDataService.areEmailAddressesVerified(new long[] { emailAddressId })
+                .isMissing(0));
+    }
+
+    @Override
+    public void testRollback() throws NotSupportedException, SystemException {
+        long emailAddressId = emailAddressDataService.saveEmailAddress("cache-rollback@test.com");
+        String acceptToken = createVerificationRequest(emailAddressId);
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+
+        transactionManager.begin();
+        try {
+            Assert.assertEquals(ConfirmationResult.SUCCESS,
+                    emailAddressDataService.verifyEmailAddress(acceptToken).getResult());
+            Assert.assertTrue(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+            Assert.assertTrue(emailAddressDataService.areEmailAddressesVerified(new long[] { emailAddressId })
+                    .isVerified(0));
+        } finally {
+            transactionManager.rollback();
+        }
+
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        long hitCount = verificationStatusCache.getHitCount();
+        Assert.assertFalse(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+        Assert.assertEquals(hitCount + 1, verificationStatusCache.getHitCount());
+
+        Assert.assertEquals(ConfirmationResult.SUCCESS,
+                emailAddressDataService.verifyEmailAddress(acceptToken).getResult());
+        Assert.assertTrue(emailAddressDataService.isEmailAddressVerified(emailAddressId));
+    }
+}
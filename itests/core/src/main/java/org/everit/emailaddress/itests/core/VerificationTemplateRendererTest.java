@@ -0,0 +1,40 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import org.everit.emailaddress.core.template.VerificationTemplateRenderer;
+import org.everit.util.core.velocity.VelocityUtil;
+import org.junit.Test;
+
+/**
+ * Test interface for testing the {@link VerificationTemplateRenderer}.
+ */
+public interface VerificationTemplateRendererTest {
+
+    /**
+     * Render templates with references in every notation, references followed by identifier and punctuation
+     * characters, dollar signs that do not start a reference, directives and escaped references. Test that the output
+     * of the renderer is the same as the output of the {@link VelocityUtil} for the first and for the cached rendering.
+     */
+    @Test
+    void testSameOutputAsVelocityUtil();
+}
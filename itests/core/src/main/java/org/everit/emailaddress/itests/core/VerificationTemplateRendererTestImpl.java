@@ -0,0 +1,95 @@
+package org.everit.emailaddress.itests.core;
+
+/*
+ * Copyright (c) 2011, Everit Kft.
+ *
+ * All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.everit.emailaddress.core.template.VerificationTemplateRenderer;
+import org.everit.util.core.velocity.VelocityUtil;
+
+/**
+ * Implementation of {@link VerificationTemplateRendererTest}.
+ */
+public class VerificationTemplateRendererTestImpl implements VerificationTemplateRendererTest {
+
+    /**
+     * The accept token of the rendering.
+     */
+    private static final String ACCEPT_TOKEN = "accept-123";
+
+    /**
+     * The reject token of the rendering.
+     */
+    private static final String REJECT_TOKEN = "reject-456";
+
+    /**
+     * The compared templates.
+     */
+    private static final String[] TEMPLATES = new String[] {
+            "",
+            "No reference",
+            "Accept: $acceptToken Reject: $rejectToken",
+            "$acceptToken",
+            "$acceptToken$rejectToken",
+            "prefix$acceptToken",
+            "Quiet: $!acceptToken and $!rejectToken",
+            "Formal: ${acceptToken} and ${rejectToken}x",
+            "Quiet formal: $!{acceptToken}",
+            "Not closed: ${acceptToken",
+            "Hyphen: $acceptToken-x",
+            "Underscore: $acceptToken_x",
+            "Digit: $acceptToken1",
+            "Period: $acceptToken.",
+            "Property: $acceptToken.length()",
+            "Index: $acceptToken[0]",
+            "Parenthesis: $acceptToken(x)",
+            "Price: $5 and $ 6",
+            "Dollar at the end: $",
+            "Double dollar: $$acceptToken",
+            "Unknown: $unknownToken and $!unknownToken",
+            "Exclamation: $!",
+            "#if($acceptToken)Accept: $acceptToken#{else}None#end",
+            "#set($link = \"http://localhost/$acceptToken\")$link",
+            "Escaped: \\$acceptToken and \\\\$acceptToken",
+            "Comment: ## $acceptToken",
+            "Hash: #1 $acceptToken" };
+
+    @Override
+    public void testSameOutputAsVelocityUtil() {
+        VerificationTemplateRenderer verificationTemplateRenderer = new VerificationTemplateRenderer(TEMPLATES.length);
+        Map<String, Object> variables = new HashMap<String, Object>();
+        for (String template : TEMPLATES) {
+            variables.put("acceptToken", ACCEPT_TOKEN);
+            variables.put("rejectToken", REJECT_TOKEN);
+            String expected = VelocityUtil.processVelocityTemplateFromString(template, "ERROR", variables);
+            Assert.assertEquals(template, expected,
+                    verificationTemplateRenderer.render(template, ACCEPT_TOKEN, REJECT_TOKEN));
+            Assert.assertEquals(template, expected,
+                    verificationTemplateRenderer.render(template, ACCEPT_TOKEN, REJECT_TOKEN));
+            variables.clear();
+        }
+        Assert.assertEquals(TEMPLATES.length, verificationTemplateRenderer.getCachedTemplateNumber());
+    }
+}